@@ -24,6 +24,7 @@ import org.sonar.core.platform.Module;
 import org.sonar.process.systeminfo.ProcessStateSystemInfo;
 import org.sonar.server.computation.configuration.CeConfigurationImpl;
 import org.sonar.server.computation.monitoring.CeDatabaseMBeanImpl;
+import org.sonar.server.computation.monitoring.CePurgeMBeanImpl;
 
 public class CeConfigurationModule extends Module {
   @Override
@@ -32,6 +33,7 @@ public class CeConfigurationModule extends Module {
       CeConfigurationImpl.class,
       CeLogging.class,
       CeDatabaseMBeanImpl.class,
+      CePurgeMBeanImpl.class,
       new ProcessStateSystemInfo("Compute Engine State"));
   }
 }
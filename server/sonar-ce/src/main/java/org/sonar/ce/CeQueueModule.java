@@ -21,10 +21,13 @@ package org.sonar.ce;
 
 import org.sonar.core.platform.Module;
 import org.sonar.server.computation.monitoring.CEQueueStatusImpl;
+import org.sonar.server.computation.monitoring.CeStepsMBeanImpl;
 import org.sonar.server.computation.monitoring.CeTasksMBeanImpl;
 import org.sonar.server.computation.queue.CeQueueCleaner;
 import org.sonar.server.computation.queue.CeQueueInitializer;
 import org.sonar.server.computation.queue.InternalCeQueueImpl;
+import org.sonar.server.computation.queue.ReportFootprintEstimator;
+import org.sonar.server.computation.task.step.ComputationStepMetricsHolder;
 
 public class CeQueueModule extends Module {
   @Override
@@ -32,10 +35,13 @@ public class CeQueueModule extends Module {
     add(
       // queue state
       InternalCeQueueImpl.class,
+      ReportFootprintEstimator.class,
 
       // queue monitoring
       CEQueueStatusImpl.class,
       CeTasksMBeanImpl.class,
+      ComputationStepMetricsHolder.class,
+      CeStepsMBeanImpl.class,
 
       // queue cleaning
       CeQueueCleaner.class,
@@ -78,6 +78,7 @@ import org.sonar.server.issue.IssueUpdater;
 import org.sonar.server.issue.index.IssueIndex;
 import org.sonar.server.issue.index.IssueIndexer;
 import org.sonar.server.issue.notification.ChangesOnMyIssueNotificationDispatcher;
+import org.sonar.server.issue.notification.ChangesOnMyIssuesDigestNotificationDispatcher;
 import org.sonar.server.issue.notification.DoNotFixNotificationDispatcher;
 import org.sonar.server.issue.notification.IssueChangesEmailTemplate;
 import org.sonar.server.issue.notification.MyNewIssuesEmailTemplate;
@@ -348,6 +349,7 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
       AlertsEmailTemplate.class,
       ChangesOnMyIssueNotificationDispatcher.class,
       ChangesOnMyIssueNotificationDispatcher.newMetadata(),
+      ChangesOnMyIssuesDigestNotificationDispatcher.class,
       NewIssuesNotificationDispatcher.class,
       NewIssuesNotificationDispatcher.newMetadata(),
       MyNewIssuesNotificationDispatcher.class,
@@ -29,6 +29,7 @@ import org.sonar.core.platform.ExplodedPlugin;
 import org.sonar.core.platform.PluginInfo;
 
 import static org.apache.commons.io.FileUtils.sizeOfDirectory;
+import static java.util.Collections.singleton;
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class CePluginJarExploderTest {
@@ -40,12 +41,12 @@ public class CePluginJarExploderTest {
   CePluginJarExploder underTest = new CePluginJarExploder(fs);
 
   @Test
-  public void explode_jar_to_temp_directory() throws Exception {
+  public void explode_jar_to_data_directory() throws Exception {
     PluginInfo info = PluginInfo.create(plugin1Jar());
 
     ExplodedPlugin exploded = underTest.explode(info);
 
-    // all the files loaded by classloaders (JAR + META-INF/libs/*.jar) are copied to a dedicated temp directory
+    // all the files loaded by classloaders (JAR + META-INF/libs/*.jar) are copied to a dedicated directory
     File copiedJar = exploded.getMain();
 
     assertThat(exploded.getKey()).isEqualTo("test");
@@ -81,6 +82,17 @@ public class CePluginJarExploderTest {
     assertThat(dirSize1).isEqualTo(dirSize2);
   }
 
+  @Test
+  public void delete_exploded_directories_of_uninstalled_plugins() throws Exception {
+    ExplodedPlugin exploded1 = underTest.explode(PluginInfo.create(plugin1Jar()));
+    ExplodedPlugin exploded2 = underTest.explode(PluginInfo.create(plugin2Jar()));
+
+    underTest.deleteUninstalled(singleton("test"));
+
+    assertThat(exploded1.getMain()).exists();
+    assertThat(exploded2.getMain().getParentFile()).doesNotExist();
+  }
+
   private File plugin1Jar() {
     return new File("src/test/plugins/sonar-test-plugin/target/sonar-test-plugin-0.1-SNAPSHOT.jar");
   }
@@ -91,7 +103,7 @@ public class CePluginJarExploderTest {
 
   private class DumbFileSystem implements ServerFileSystem {
     private final TemporaryFolder temp;
-    private File tempDir;
+    private File dataDir;
 
     public DumbFileSystem(TemporaryFolder temp) {
       this.temp = temp;
@@ -99,7 +111,14 @@ public class CePluginJarExploderTest {
 
     @Override
     public File getDataDir() {
-      throw new UnsupportedOperationException();
+      if (dataDir == null) {
+        try {
+          this.dataDir = temp.newFolder();
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+      return dataDir;
     }
 
     @Override
@@ -114,14 +133,7 @@ public class CePluginJarExploderTest {
 
     @Override
     public File getTempDir() {
-      if (tempDir == null) {
-        try {
-          this.tempDir = temp.newFolder();
-        } catch (IOException e) {
-          throw new IllegalStateException(e);
-        }
-      }
-      return tempDir;
+      throw new UnsupportedOperationException();
     }
 
     @Override
@@ -23,7 +23,11 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import javax.annotation.CheckForNull;
 import org.slf4j.Logger;
@@ -31,6 +35,7 @@ import org.slf4j.LoggerFactory;
 import org.sonar.process.DefaultProcessCommands;
 import org.sonar.process.Lifecycle;
 import org.sonar.process.Lifecycle.State;
+import org.sonar.process.ProcessHealth;
 import org.sonar.process.ProcessId;
 import org.sonar.process.ProcessUtils;
 import org.sonar.process.SystemExit;
@@ -42,6 +47,9 @@ public class Monitor {
   private static final Logger LOG = LoggerFactory.getLogger(Monitor.class);
   private static final Timeouts TIMEOUTS = new Timeouts();
   private static final long WATCH_DELAY_MS = 500L;
+  private static final long HEALTH_CHECK_DELAY_MS = 10_000L;
+  // number of consecutive health checks exceeding the max GC overhead before restarting processes
+  private static final int MAX_UNHEALTHY_CHECKS = 3;
 
   private static int restartorInstanceCounter = 0;
 
@@ -49,13 +57,16 @@ public class Monitor {
   private final FileSystem fileSystem;
   private final SystemExit systemExit;
   private final boolean watchForHardStop;
+  private final int maxGcOverhead;
   private final Thread shutdownHook = new Thread(new MonitorShutdownHook(), "Monitor Shutdown Hook");
 
-  private final List<WatcherThread> watcherThreads = new CopyOnWriteArrayList<>();
+  final List<WatcherThread> watcherThreads = new CopyOnWriteArrayList<>();
   private final Lifecycle lifecycle = new Lifecycle();
 
   private final TerminatorThread terminator = new TerminatorThread();
   private final RestartRequestWatcherThread restartWatcher = new RestartRequestWatcherThread();
+  private final HealthWatcherThread healthWatcher = new HealthWatcherThread();
+  private final Map<ProcessRef, Integer> unhealthyChecks = new HashMap<>();
   @CheckForNull
   private List<JavaCommand> javaCommands;
   @CheckForNull
@@ -66,14 +77,27 @@ public class Monitor {
   HardStopWatcherThread hardStopWatcher;
 
   Monitor(int processNumber, FileSystem fileSystem, SystemExit exit, boolean watchForHardStop) {
+    this(processNumber, fileSystem, exit, watchForHardStop, 0);
+  }
+
+  Monitor(int processNumber, FileSystem fileSystem, SystemExit exit, boolean watchForHardStop, int maxGcOverhead) {
     this.processNumber = processNumber;
     this.fileSystem = fileSystem;
     this.systemExit = exit;
     this.watchForHardStop = watchForHardStop;
+    this.maxGcOverhead = maxGcOverhead;
   }
 
   public static Monitor create(int processNumber, FileSystem fileSystem, boolean watchForHardStop) {
-    return new Monitor(processNumber, fileSystem, new SystemExit(), watchForHardStop);
+    return create(processNumber, fileSystem, watchForHardStop, 0);
+  }
+
+  /**
+   * @param maxGcOverhead maximum percentage of time that a child process can spend in garbage collection
+   *                      before all processes are restarted. 0 to disable automatic restart.
+   */
+  public static Monitor create(int processNumber, FileSystem fileSystem, boolean watchForHardStop, int maxGcOverhead) {
+    return new Monitor(processNumber, fileSystem, new SystemExit(), watchForHardStop, maxGcOverhead);
   }
 
   /**
@@ -97,6 +121,9 @@ public class Monitor {
     // start watching for restart requested by child process
     restartWatcher.start();
 
+    // start watching for health of child processes
+    healthWatcher.start();
+
     javaCommands = commands;
     startProcesses();
   }
@@ -234,9 +261,10 @@ public class Monitor {
   private void cleanAfterTermination() {
     trace("go to STOPPED...");
     if (lifecycle.tryToMoveTo(State.STOPPED)) {
-      trace("await termination of restartWatcher and hardStopWatcher...");
-      // wait for restartWatcher and hardStopWatcher to cleanly stop
-      ProcessUtils.awaitTermination(restartWatcher, hardStopWatcher);
+      trace("await termination of restartWatcher, healthWatcher and hardStopWatcher...");
+      // wait for restartWatcher, healthWatcher and hardStopWatcher to cleanly stop
+      healthWatcher.interrupt();
+      ProcessUtils.awaitTermination(restartWatcher, healthWatcher, hardStopWatcher);
       trace("restartWatcher done");
       // removing shutdown hook to avoid called stop() unnecessarily unless already in shutdownHook
       if (!systemExit.isInShutdownHook()) {
@@ -346,6 +374,85 @@ public class Monitor {
 
   }
 
+  /**
+   * Reads at fixed delay the health published by child processes, logs it and restarts all processes
+   * if any of them spends too much time in garbage collection.
+   */
+  private class HealthWatcherThread extends Thread {
+    private HealthWatcherThread() {
+      super("Health watcher");
+    }
+
+    @Override
+    public void run() {
+      while (lifecycle.getState() != Lifecycle.State.STOPPED) {
+        if (lifecycle.getState() == Lifecycle.State.STARTED) {
+          checkHealth();
+        }
+        try {
+          Thread.sleep(HEALTH_CHECK_DELAY_MS);
+        } catch (InterruptedException ignored) {
+          // keep watching
+        }
+      }
+    }
+  }
+
+  void checkHealth() {
+    List<ProcessRef> processRefs = new ArrayList<>();
+    for (WatcherThread watcherThread : watcherThreads) {
+      ProcessRef processRef = watcherThread.getProcessRef();
+      processRef.refreshHealth();
+      processRefs.add(processRef);
+    }
+
+    unhealthyChecks.keySet().retainAll(processRefs);
+    Set<ProcessRef> previouslyUnhealthy = new HashSet<>(unhealthyChecks.keySet());
+    if (maxGcOverhead > 0) {
+      for (ProcessRef processRef : processRefs) {
+        if (processRef.getGcOverhead() <= maxGcOverhead) {
+          unhealthyChecks.remove(processRef);
+        } else if (unhealthyChecks.merge(processRef, 1, Integer::sum) < MAX_UNHEALTHY_CHECKS) {
+          LOG.warn("{} spent {}% of its time in garbage collection (max is {}%)", processRef, processRef.getGcOverhead(), maxGcOverhead);
+        } else {
+          LOG.warn("{} spent {}% of its time in garbage collection (max is {}%). Restarting processes. Health of processes: {}",
+            processRef, processRef.getGcOverhead(), maxGcOverhead, getHealthStatus());
+          unhealthyChecks.clear();
+          restartAsync();
+          return;
+        }
+      }
+    }
+
+    if (previouslyUnhealthy.equals(unhealthyChecks.keySet())) {
+      LOG.debug("Health of processes: {}", getHealthStatus());
+    } else {
+      // a process became unhealthy or recovered
+      LOG.info("Health of processes: {}", getHealthStatus());
+    }
+  }
+
+  /**
+   * Aggregated health of the child processes, as last read by the health watcher
+   */
+  public String getHealthStatus() {
+    StringBuilder sb = new StringBuilder();
+    for (WatcherThread watcherThread : watcherThreads) {
+      ProcessRef processRef = watcherThread.getProcessRef();
+      ProcessHealth health = processRef.getHealth();
+      if (sb.length() > 0) {
+        sb.append(" | ");
+      }
+      sb.append(processRef.getKey()).append(": ");
+      if (health == null) {
+        sb.append("unknown");
+      } else {
+        sb.append(health).append(" (").append(processRef.getGcOverhead()).append("% in gc)");
+      }
+    }
+    return sb.toString();
+  }
+
   public class HardStopWatcherThread extends Thread {
 
     public HardStopWatcherThread() {
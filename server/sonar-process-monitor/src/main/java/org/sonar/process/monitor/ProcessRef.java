@@ -19,9 +19,11 @@
  */
 package org.sonar.process.monitor;
 
+import javax.annotation.CheckForNull;
 import org.slf4j.LoggerFactory;
 import org.sonar.process.MessageException;
 import org.sonar.process.ProcessCommands;
+import org.sonar.process.ProcessHealth;
 import org.sonar.process.ProcessUtils;
 
 class ProcessRef {
@@ -31,6 +33,9 @@ class ProcessRef {
   private final Process process;
   private final StreamGobbler gobbler;
   private volatile boolean stopped = false;
+  @CheckForNull
+  private volatile ProcessHealth health;
+  private volatile int gcOverhead = 0;
 
   ProcessRef(String key, ProcessCommands commands, Process process, StreamGobbler gobbler) {
     this.key = key;
@@ -69,6 +74,37 @@ class ProcessRef {
     }
   }
 
+  /**
+   * Reads the health last published by the process and computes the percentage of time spent in
+   * garbage collection since the previous read.
+   */
+  void refreshHealth() {
+    ProcessHealth latest = commands.getHealth();
+    ProcessHealth previous = health;
+    if (latest == null || (previous != null && latest.getTimestamp() <= previous.getTimestamp())) {
+      return;
+    }
+    if (previous != null) {
+      gcOverhead = (int) (100L * (latest.getGcTime() - previous.getGcTime()) / (latest.getTimestamp() - previous.getTimestamp()));
+    }
+    health = latest;
+  }
+
+  /**
+   * Health last read by {@link #refreshHealth()}, or {@code null} if the process did not publish it yet
+   */
+  @CheckForNull
+  ProcessHealth getHealth() {
+    return health;
+  }
+
+  /**
+   * Percentage of time spent in garbage collection between the two last health reads
+   */
+  int getGcOverhead() {
+    return gcOverhead;
+  }
+
   /**
    * True if process is physically down
    */
@@ -19,6 +19,9 @@
  */
 package org.sonar.process.monitor;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
 import com.github.kevinsawicki.http.HttpRequest;
 import java.io.File;
 import java.io.IOException;
@@ -40,15 +43,21 @@ import org.junit.rules.DisableOnDebug;
 import org.junit.rules.TemporaryFolder;
 import org.junit.rules.TestRule;
 import org.junit.rules.Timeout;
+import org.slf4j.LoggerFactory;
 import org.sonar.process.Lifecycle.State;
 import org.sonar.process.NetworkUtils;
+import org.sonar.process.ProcessCommands;
+import org.sonar.process.ProcessHealth;
 import org.sonar.process.ProcessId;
 import org.sonar.process.SystemExit;
 
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -163,6 +172,20 @@ public class MonitorTest {
     verify(fileSystem).reset();
   }
 
+  @Test
+  public void read_health_of_processes() throws Exception {
+    underTest = newDefaultMonitor(tempDir);
+    HttpProcessClient client = new HttpProcessClient(tempDir, ProcessId.ELASTICSEARCH);
+    underTest.start(singletonList(client.newCommand()));
+
+    // health is published by child process as soon as it is launched
+    underTest.checkHealth();
+    assertThat(underTest.getHealthStatus()).matches("es: heap \\d+MB/\\d+MB, gc \\d+ms, \\d+ threads \\(\\d+% in gc\\)");
+    assertThat(underTest.getState()).isEqualTo(State.STARTED);
+
+    underTest.stop();
+  }
+
   @Test
   public void start_then_stop_sequence_of_commands() throws Exception {
     underTest = newDefaultMonitor(tempDir);
@@ -316,6 +339,94 @@ public class MonitorTest {
     assertThat(underTest.hardStopWatcher.isAlive()).isFalse();
   }
 
+  @Test
+  public void restart_processes_after_three_consecutive_checks_exceeding_max_gc_overhead() {
+    ProcessCommands commands = mock(ProcessCommands.class);
+    // 90% of time spent in gc since previous check
+    when(commands.getHealth()).thenReturn(health(0L, 0L), health(1_000L, 900L), health(2_000L, 1_800L), health(3_000L, 2_700L), health(4_000L, 3_600L));
+    Monitor monitor = newMonitorOfProcess(commands, 50);
+
+    // first read of health, gc overhead is not known yet
+    monitor.checkHealth();
+    // unhealthy once, then twice
+    monitor.checkHealth();
+    monitor.checkHealth();
+    verify(monitor, never()).restartAsync();
+
+    // unhealthy three times
+    monitor.checkHealth();
+    verify(monitor).restartAsync();
+
+    // count of unhealthy checks is reset by restart
+    monitor.checkHealth();
+    verify(monitor, times(1)).restartAsync();
+  }
+
+  @Test
+  public void reset_count_of_unhealthy_checks_when_process_recovers() {
+    ProcessCommands commands = mock(ProcessCommands.class);
+    when(commands.getHealth()).thenReturn(health(0L, 0L), health(1_000L, 900L), health(2_000L, 1_800L),
+      // 0% of time spent in gc
+      health(3_000L, 1_800L),
+      health(4_000L, 2_700L), health(5_000L, 3_600L));
+    Monitor monitor = newMonitorOfProcess(commands, 50);
+
+    for (int i = 0; i < 6; i++) {
+      monitor.checkHealth();
+    }
+
+    verify(monitor, never()).restartAsync();
+  }
+
+  @Test
+  public void do_not_restart_processes_if_max_gc_overhead_is_disabled() {
+    ProcessCommands commands = mock(ProcessCommands.class);
+    when(commands.getHealth()).thenReturn(health(0L, 0L), health(1_000L, 900L), health(2_000L, 1_800L), health(3_000L, 2_700L));
+    Monitor monitor = newMonitorOfProcess(commands, 0);
+
+    for (int i = 0; i < 4; i++) {
+      monitor.checkHealth();
+    }
+
+    verify(monitor, never()).restartAsync();
+  }
+
+  @Test
+  public void log_health_at_info_level_when_a_process_becomes_unhealthy_or_recovers() {
+    ProcessCommands commands = mock(ProcessCommands.class);
+    when(commands.getHealth()).thenReturn(health(0L, 0L), health(1_000L, 900L), health(2_000L, 1_800L), health(3_000L, 1_800L), health(4_000L, 1_800L));
+    Monitor monitor = newMonitorOfProcess(commands, 50);
+    ch.qos.logback.classic.Logger logger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Monitor.class);
+    ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    appender.start();
+    logger.addAppender(appender);
+
+    try {
+      // healthy, unhealthy, still unhealthy, recovered, still healthy
+      for (int i = 0; i < 5; i++) {
+        monitor.checkHealth();
+      }
+    } finally {
+      logger.detachAppender(appender);
+    }
+
+    assertThat(appender.list)
+      .filteredOn(event -> event.getLevel() == Level.INFO && event.getFormattedMessage().startsWith("Health of processes: es: "))
+      .hasSize(2);
+  }
+
+  private Monitor newMonitorOfProcess(ProcessCommands commands, int maxGcOverhead) {
+    Monitor monitor = spy(new Monitor(1, fileSystem, exit, false, maxGcOverhead));
+    doNothing().when(monitor).restartAsync();
+    ProcessRef processRef = new ProcessRef("es", commands, mock(Process.class), mock(StreamGobbler.class));
+    monitor.watcherThreads.add(new WatcherThread(processRef, monitor));
+    return monitor;
+  }
+
+  private static ProcessHealth health(long timestamp, long gcTime) {
+    return new ProcessHealth(timestamp, 100L, 1_000L, gcTime, 10);
+  }
+
   private Monitor newDefaultMonitor(File tempDir) throws IOException {
     return newDefaultMonitor(tempDir, false);
   }
@@ -0,0 +1,71 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.process.monitor;
+
+import org.junit.Test;
+import org.sonar.process.ProcessCommands;
+import org.sonar.process.ProcessHealth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ProcessRefTest {
+
+  private ProcessCommands commands = mock(ProcessCommands.class);
+  private ProcessRef underTest = new ProcessRef("es", commands, mock(Process.class), mock(StreamGobbler.class));
+
+  @Test
+  public void health_is_unknown_until_published_by_process() {
+    underTest.refreshHealth();
+
+    assertThat(underTest.getHealth()).isNull();
+    assertThat(underTest.getGcOverhead()).isEqualTo(0);
+  }
+
+  @Test
+  public void compute_gc_overhead_between_two_health_reads() {
+    ProcessHealth first = new ProcessHealth(10_000L, 100L, 1_000L, 500L, 10);
+    ProcessHealth second = new ProcessHealth(20_000L, 900L, 1_000L, 8_500L, 12);
+    when(commands.getHealth()).thenReturn(first, second);
+
+    underTest.refreshHealth();
+    assertThat(underTest.getHealth()).isSameAs(first);
+    assertThat(underTest.getGcOverhead()).isEqualTo(0);
+
+    underTest.refreshHealth();
+    assertThat(underTest.getHealth()).isSameAs(second);
+    assertThat(underTest.getGcOverhead()).isEqualTo(80);
+  }
+
+  @Test
+  public void keep_gc_overhead_if_process_did_not_publish_new_health() {
+    ProcessHealth first = new ProcessHealth(10_000L, 100L, 1_000L, 500L, 10);
+    ProcessHealth second = new ProcessHealth(20_000L, 900L, 1_000L, 5_500L, 12);
+    when(commands.getHealth()).thenReturn(first, second, second);
+
+    underTest.refreshHealth();
+    underTest.refreshHealth();
+    underTest.refreshHealth();
+
+    assertThat(underTest.getHealth()).isSameAs(second);
+    assertThat(underTest.getGcOverhead()).isEqualTo(50);
+  }
+}
@@ -25,6 +25,7 @@ import java.io.RandomAccessFile;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import javax.annotation.CheckForNull;
 import org.apache.commons.io.IOUtils;
 
 import static java.lang.String.format;
@@ -60,6 +61,9 @@ import static org.sonar.process.ProcessCommands.MAX_PROCESSES;
  *   <li>Fourth byte will always contain {@link #EMPTY} unless process declares that it is operational by writing {@link #OPERATIONAL}.
  *       This does not imply that is done starting.</li>
  *   <li>The next 8 bytes contains a long (value of {@link System#currentTimeMillis()}) which represents the date of the last ping</li>
+ *   <li>The next {@link #SYSTEM_INFO_URL_SIZE_IN_BYTES} bytes contains the URL of the System Info web service of the process</li>
+ *   <li>The next 4 longs and 1 int contain the last {@link ProcessHealth} published by the process. The date of the
+ *       measure is written last and is 0 until the process publishes its health.</li>
  * </ul>
  * </p>
  */
@@ -72,8 +76,13 @@ public class AllProcessesCommands implements AutoCloseable {
   private static final int SYSTEM_INFO_URL_BYTE_OFFSET = PING_BYTE_OFFSET + 8;
 
   private static final int SYSTEM_INFO_URL_SIZE_IN_BYTES = 500;
+  private static final int HEALTH_TIMESTAMP_BYTE_OFFSET = SYSTEM_INFO_URL_BYTE_OFFSET + SYSTEM_INFO_URL_SIZE_IN_BYTES;
+  private static final int HEALTH_HEAP_USED_BYTE_OFFSET = HEALTH_TIMESTAMP_BYTE_OFFSET + 8;
+  private static final int HEALTH_HEAP_MAX_BYTE_OFFSET = HEALTH_HEAP_USED_BYTE_OFFSET + 8;
+  private static final int HEALTH_GC_TIME_BYTE_OFFSET = HEALTH_HEAP_MAX_BYTE_OFFSET + 8;
+  private static final int HEALTH_THREAD_COUNT_BYTE_OFFSET = HEALTH_GC_TIME_BYTE_OFFSET + 8;
 
-  private static final int BYTE_LENGTH_FOR_ONE_PROCESS = 1 + 1 + 1 + 1 + 8 + SYSTEM_INFO_URL_SIZE_IN_BYTES;
+  private static final int BYTE_LENGTH_FOR_ONE_PROCESS = 1 + 1 + 1 + 1 + 8 + SYSTEM_INFO_URL_SIZE_IN_BYTES + 8 + 8 + 8 + 8 + 4;
 
   // With this shared memory we can handle up to MAX_PROCESSES processes
   private static final int MAX_SHARED_MEMORY = BYTE_LENGTH_FOR_ONE_PROCESS * MAX_PROCESSES;
@@ -167,6 +176,30 @@ public class AllProcessesCommands implements AutoCloseable {
     writeBytes(processNumber, SYSTEM_INFO_URL_BYTE_OFFSET, urlBytes);
   }
 
+  /**
+   * To be executed by child process to publish its health
+   */
+  void setHealth(int processNumber, ProcessHealth health) {
+    writeLong(processNumber, HEALTH_HEAP_USED_BYTE_OFFSET, health.getHeapUsed());
+    writeLong(processNumber, HEALTH_HEAP_MAX_BYTE_OFFSET, health.getHeapMax());
+    writeLong(processNumber, HEALTH_GC_TIME_BYTE_OFFSET, health.getGcTime());
+    writeInt(processNumber, HEALTH_THREAD_COUNT_BYTE_OFFSET, health.getThreadCount());
+    writeLong(processNumber, HEALTH_TIMESTAMP_BYTE_OFFSET, health.getTimestamp());
+  }
+
+  @CheckForNull
+  ProcessHealth getHealth(int processNumber) {
+    long timestamp = readLong(processNumber, HEALTH_TIMESTAMP_BYTE_OFFSET);
+    if (timestamp == 0L) {
+      return null;
+    }
+    return new ProcessHealth(timestamp,
+      readLong(processNumber, HEALTH_HEAP_USED_BYTE_OFFSET),
+      readLong(processNumber, HEALTH_HEAP_MAX_BYTE_OFFSET),
+      readLong(processNumber, HEALTH_GC_TIME_BYTE_OFFSET),
+      readInt(processNumber, HEALTH_THREAD_COUNT_BYTE_OFFSET));
+  }
+
   /**
    * To be executed by monitor process to ask for child process termination
    */
@@ -239,6 +272,14 @@ public class AllProcessesCommands implements AutoCloseable {
     return mappedByteBuffer.getLong(offset(processNumber) + offset);
   }
 
+  private void writeInt(int processNumber, int offset, int value) {
+    mappedByteBuffer.putInt(offset(processNumber) + offset, value);
+  }
+
+  private int readInt(int processNumber, int offset) {
+    return mappedByteBuffer.getInt(offset(processNumber) + offset);
+  }
+
   // VisibleForTesting
   int offset(int processNumber) {
     return BYTE_LENGTH_FOR_ONE_PROCESS * processNumber;
@@ -292,6 +333,16 @@ public class AllProcessesCommands implements AutoCloseable {
       return AllProcessesCommands.this.getSystemInfoUrl(processNumber);
     }
 
+    @Override
+    public void setHealth(ProcessHealth health) {
+      AllProcessesCommands.this.setHealth(processNumber, health);
+    }
+
+    @Override
+    public ProcessHealth getHealth() {
+      return AllProcessesCommands.this.getHealth(processNumber);
+    }
+
     @Override
     public void askForStop() {
       AllProcessesCommands.this.askForStop(processNumber);
@@ -101,6 +101,16 @@ public class DefaultProcessCommands implements ProcessCommands {
     return delegate.getHttpUrl();
   }
 
+  @Override
+  public void setHealth(ProcessHealth health) {
+    delegate.setHealth(health);
+  }
+
+  @Override
+  public ProcessHealth getHealth() {
+    return delegate.getHealth();
+  }
+
   @Override
   public void askForStop() {
     delegate.askForStop();
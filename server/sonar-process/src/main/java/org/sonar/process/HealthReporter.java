@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.process;
+
+/**
+ * Publishes at fixed delay the {@link ProcessHealth} of the current JVM, so that
+ * the monitor process can detect an unhealthy child process, for example when
+ * it spends most of its time in garbage collection.
+ */
+public class HealthReporter extends Thread {
+
+  private final ProcessCommands commands;
+  private final long delayMs;
+  private volatile boolean reporting = true;
+
+  public HealthReporter(ProcessCommands commands) {
+    this(commands, 5_000L);
+  }
+
+  HealthReporter(ProcessCommands commands, long delayMs) {
+    super("Health Reporter");
+    this.commands = commands;
+    this.delayMs = delayMs;
+    setDaemon(true);
+  }
+
+  @Override
+  public void run() {
+    while (reporting) {
+      commands.setHealth(ProcessHealth.ofCurrentJvm(System.currentTimeMillis()));
+      try {
+        Thread.sleep(delayMs);
+      } catch (InterruptedException ignored) {
+        reporting = false;
+        // restore interrupted flag
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  public void stopReporting() {
+    reporting = false;
+  }
+}
@@ -20,6 +20,7 @@
 package org.sonar.process;
 
 import java.io.File;
+import javax.annotation.CheckForNull;
 
 /**
  * Process inter-communication to :
@@ -59,6 +60,17 @@ public interface ProcessCommands extends AutoCloseable {
 
   String getHttpUrl();
 
+  /**
+   * To be executed by child process to publish its health
+   */
+  void setHealth(ProcessHealth health);
+
+  /**
+   * Last health published by the process, or {@code null} if the process did not publish it yet
+   */
+  @CheckForNull
+  ProcessHealth getHealth();
+
   /**
    * To be executed by monitor process to ask for child process termination
    */
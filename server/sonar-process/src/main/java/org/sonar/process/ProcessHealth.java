@@ -0,0 +1,98 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.process;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+
+/**
+ * Health metrics of a JVM, as published by child processes into the shared memory
+ * (see {@link ProcessCommands#setHealth(ProcessHealth)}) and read by the monitor.
+ */
+public class ProcessHealth {
+
+  private final long timestamp;
+  private final long heapUsed;
+  private final long heapMax;
+  private final long gcTime;
+  private final int threadCount;
+
+  public ProcessHealth(long timestamp, long heapUsed, long heapMax, long gcTime, int threadCount) {
+    this.timestamp = timestamp;
+    this.heapUsed = heapUsed;
+    this.heapMax = heapMax;
+    this.gcTime = gcTime;
+    this.threadCount = threadCount;
+  }
+
+  /**
+   * Metrics of the current JVM, read from the platform MXBeans
+   */
+  public static ProcessHealth ofCurrentJvm(long timestamp) {
+    MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    long gcTime = 0L;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      // -1 if the collection time is undefined for this collector
+      gcTime += Math.max(0L, gc.getCollectionTime());
+    }
+    return new ProcessHealth(timestamp, heap.getUsed(), heap.getMax(), gcTime, ManagementFactory.getThreadMXBean().getThreadCount());
+  }
+
+  /**
+   * Date of the measure, in milliseconds
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * Used heap memory, in bytes
+   */
+  public long getHeapUsed() {
+    return heapUsed;
+  }
+
+  /**
+   * Maximum heap memory, in bytes, or -1 if undefined
+   */
+  public long getHeapMax() {
+    return heapMax;
+  }
+
+  /**
+   * Accumulated time spent in garbage collections since startup of the JVM, in milliseconds
+   */
+  public long getGcTime() {
+    return gcTime;
+  }
+
+  /**
+   * Number of live threads
+   */
+  public int getThreadCount() {
+    return threadCount;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("heap %dMB/%dMB, gc %dms, %d threads", heapUsed / 1024 / 1024, heapMax / 1024 / 1024, gcTime, threadCount);
+  }
+}
@@ -62,6 +62,11 @@ public class ProcessProperties {
   public static final String CE_JAVA_OPTS = "sonar.ce.javaOpts";
   public static final String CE_JAVA_ADDITIONAL_OPTS = "sonar.ce.javaAdditionalOpts";
 
+  /**
+   * Maximum percentage of time spent by child processes in garbage collection before being restarted. 0 to disable.
+   */
+  public static final String PROCESS_MAX_GC_OVERHEAD = "sonar.process.maxGcOverhead";
+
   /**
    * Used by Orchestrator to ask for shutdown of monitor process
    */
@@ -114,6 +114,28 @@ public class AllProcessesCommandsTest {
     }
   }
 
+  @Test
+  public void write_and_read_health() throws IOException {
+    try (AllProcessesCommands commands = new AllProcessesCommands(temp.newFolder())) {
+      int offset = 512;
+
+      assertThat(readLong(commands, offset)).isEqualTo(0L);
+      assertThat(commands.getHealth(PROCESS_NUMBER)).isNull();
+
+      commands.setHealth(PROCESS_NUMBER, new ProcessHealth(1_000L, 200L, 500L, 30L, 42));
+      assertThat(readLong(commands, offset)).isEqualTo(1_000L);
+      ProcessHealth health = commands.getHealth(PROCESS_NUMBER);
+      assertThat(health.getTimestamp()).isEqualTo(1_000L);
+      assertThat(health.getHeapUsed()).isEqualTo(200L);
+      assertThat(health.getHeapMax()).isEqualTo(500L);
+      assertThat(health.getGcTime()).isEqualTo(30L);
+      assertThat(health.getThreadCount()).isEqualTo(42);
+
+      // health of other processes is not changed
+      assertThat(commands.getHealth(PROCESS_NUMBER + 1)).isNull();
+    }
+  }
+
   @Test
   public void ask_for_stop() throws Exception {
     try (AllProcessesCommands commands = new AllProcessesCommands(temp.newFolder())) {
@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.process;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class HealthReporterTest {
+
+  @Test
+  public void publish_health_of_current_jvm() throws InterruptedException {
+    ProcessCommands commands = mock(ProcessCommands.class);
+
+    HealthReporter reporter = new HealthReporter(commands, 1L);
+    assertThat(reporter.isDaemon()).isTrue();
+    reporter.start();
+
+    ArgumentCaptor<ProcessHealth> healthCaptor = ArgumentCaptor.forClass(ProcessHealth.class);
+    verify(commands, timeout(5000).atLeast(2)).setHealth(healthCaptor.capture());
+    reporter.stopReporting();
+    reporter.join(5000L);
+    assertThat(reporter.isAlive()).isFalse();
+
+    ProcessHealth health = healthCaptor.getValue();
+    assertThat(health.getTimestamp()).isPositive();
+    assertThat(health.getHeapUsed()).isPositive();
+    assertThat(health.getGcTime()).isGreaterThanOrEqualTo(0L);
+    assertThat(health.getThreadCount()).isPositive();
+  }
+
+  @Test(timeout = 5000)
+  public void stop_reporting_on_interruption() throws InterruptedException {
+    HealthReporter reporter = new HealthReporter(mock(ProcessCommands.class), 1000L);
+    reporter.start();
+    Thread.sleep(50L);
+    reporter.interrupt();
+    reporter.join();
+  }
+}
@@ -61,6 +61,16 @@ public interface CEQueueStatus {
    */
   long addError(long processingTime);
 
+  /**
+   * Adds 1 to the count of batch reports which have not been processed because a more recent report of the same
+   * project was pending.
+   *
+   * @return the new count of superseded batch reports
+   *
+   * @see #getSupersededCount()
+   */
+  long addSuperseded();
+
   /**
    * Count of batch reports waiting for processing since startup, including reports received before instance startup.
    */
@@ -81,6 +91,11 @@ public interface CEQueueStatus {
    */
   long getSuccessCount();
 
+  /**
+   * Count of batch reports which have been superseded by a more recent report since instance startup.
+   */
+  long getSupersededCount();
+
   /**
    * Time spent processing batch reports since startup, in milliseconds.
    */
@@ -238,6 +238,7 @@ public class CeQueueImpl implements CeQueue {
       dto.setTaskType(submission.getType());
       dto.setComponentUuid(submission.getComponentUuid());
       dto.setStatus(CeQueueDto.Status.PENDING);
+      dto.setPriority(submission.getPriority());
       dto.setSubmitterLogin(submission.getSubmitterLogin());
       dto.setStartedAt(null);
       dbClient.ceQueueDao().insert(dbSession, dto);
@@ -23,6 +23,8 @@ import java.util.Objects;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskTypes;
 
 import static com.google.common.base.Strings.emptyToNull;
 
@@ -33,12 +35,22 @@ public final class CeTaskSubmit {
   private final String type;
   private final String componentUuid;
   private final String submitterLogin;
+  private final CeQueueDto.Priority priority;
 
   private CeTaskSubmit(Builder builder) {
     this.uuid = Objects.requireNonNull(emptyToNull(builder.uuid));
     this.type = Objects.requireNonNull(emptyToNull(builder.type));
     this.componentUuid = emptyToNull(builder.componentUuid);
     this.submitterLogin = emptyToNull(builder.submitterLogin);
+    this.priority = builder.priority == null ? defaultPriority(type) : builder.priority;
+  }
+
+  /**
+   * Analysis reports are processed with normal priority by default. Other tasks, like refreshes triggered
+   * by users, are expected to be short and get high priority.
+   */
+  private static CeQueueDto.Priority defaultPriority(String type) {
+    return CeTaskTypes.REPORT.equals(type) ? CeQueueDto.Priority.NORMAL : CeQueueDto.Priority.HIGH;
   }
 
   public String getType() {
@@ -59,11 +71,16 @@ public final class CeTaskSubmit {
     return submitterLogin;
   }
 
+  public CeQueueDto.Priority getPriority() {
+    return priority;
+  }
+
   public static final class Builder {
     private final String uuid;
     private String type;
     private String componentUuid;
     private String submitterLogin;
+    private CeQueueDto.Priority priority;
 
     public Builder(String uuid) {
       this.uuid = uuid;
@@ -88,6 +105,15 @@ public final class CeTaskSubmit {
       return this;
     }
 
+    /**
+     * When not set, priority is {@link CeQueueDto.Priority#NORMAL} for analysis reports and
+     * {@link CeQueueDto.Priority#HIGH} for other types of tasks.
+     */
+    public Builder setPriority(@Nullable CeQueueDto.Priority p) {
+      this.priority = p;
+      return this;
+    }
+
     public CeTaskSubmit build() {
       return new CeTaskSubmit(this);
     }
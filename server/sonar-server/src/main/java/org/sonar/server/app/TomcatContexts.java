@@ -39,7 +39,8 @@ import org.sonar.process.Props;
 /**
  * Configures Tomcat contexts:
  * <ul>
- *   <li>/deploy delivers the plugins required by analyzers. It maps directory ${sonar.path.data}/web/deploy.</li>
+ *   <li>/deploy delivers the plugins required by analyzers. It maps directory ${sonar.path.data}/web/deploy.
+ *   Its sub-directory plugins/ is kept on restart, so that unchanged plugins are not exploded again.</li>
  *   <li>/ is the regular webapp</li>
  * </ul>
  */
@@ -49,6 +50,8 @@ public class TomcatContexts {
   private static final String RAILS_ENV = "rails.env";
   public static final String PROPERTY_CONTEXT = "sonar.web.context";
   public static final String WEB_DEPLOY_PATH_RELATIVE_TO_DATA_DIR = "web/deploy";
+  // exploded plugins, cleaned-up by org.sonar.server.plugins.ServerPluginJarExploder
+  private static final String PLUGINS_DIR = "plugins";
 
   private final Fs fs;
 
@@ -149,7 +152,15 @@ public class TomcatContexts {
   static class Fs {
     void createOrCleanupDir(File dir) throws IOException {
       FileUtils.forceMkdir(dir);
-      org.sonar.core.util.FileUtils.cleanDirectory(dir);
+      File[] files = dir.listFiles();
+      if (files == null) {
+        throw new IOException("Fail to list files of " + dir);
+      }
+      for (File file : files) {
+        if (!(PLUGINS_DIR.equals(file.getName()) && file.isDirectory())) {
+          FileUtils.forceDelete(file);
+        }
+      }
     }
   }
 }
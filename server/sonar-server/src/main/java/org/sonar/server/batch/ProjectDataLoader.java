@@ -26,6 +26,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.resources.Scopes;
 import org.sonar.api.server.ServerSide;
@@ -35,6 +36,7 @@ import org.sonar.db.MyBatis;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.FilePathWithHashDto;
 import org.sonar.db.property.PropertyDto;
+import org.sonar.db.protobuf.DbProjectRepositories;
 import org.sonar.scanner.protocol.input.FileData;
 import org.sonar.scanner.protocol.input.ProjectRepositories;
 import org.sonar.server.exceptions.BadRequestException;
@@ -86,8 +88,7 @@ public class ProjectDataLoader {
       TreeModuleSettings treeModuleSettings = new TreeModuleSettings(moduleUuidsByKey, moduleIdsByKey, modulesTree, modulesTreeSettings);
 
       addSettingsToChildrenModules(data, query.getModuleKey(), Maps.<String, String>newHashMap(), treeModuleSettings, hasScanPerm);
-      List<FilePathWithHashDto> files = searchFilesWithHashAndRevision(session, module);
-      addFileData(data, modulesTree, files);
+      addFileData(session, data, module, modulesTree);
 
       // FIXME need real value but actually only used to know if there is a previous analysis in local issue tracking mode so any value is
       // ok
@@ -106,6 +107,21 @@ public class ProjectDataLoader {
     return Qualifiers.PROJECT.equals(module.qualifier()) || Qualifiers.MODULE.equals(module.qualifier());
   }
 
+  private void addFileData(DbSession session, ProjectRepositories data, ComponentDto module, List<ComponentDto> modulesTree) {
+    Map<String, String> moduleKeysByUuid = newHashMap();
+    for (ComponentDto moduleChild : modulesTree) {
+      moduleKeysByUuid.put(moduleChild.uuid(), moduleChild.key());
+    }
+
+    Optional<DbProjectRepositories.ProjectRepository> repository = dbClient.projectRepositoryDao().selectByProjectUuid(session, module.projectUuid());
+    if (repository.isPresent()) {
+      addFileData(data, moduleKeysByUuid, repository.get());
+    } else {
+      // project has not been analyzed since upgrade
+      addFileData(data, moduleKeysByUuid, searchFilesWithHashAndRevision(session, module));
+    }
+  }
+
   private List<FilePathWithHashDto> searchFilesWithHashAndRevision(DbSession session, ComponentDto module) {
     return module.isRootProject() ? dbClient.componentDao().selectEnabledFilesFromProject(session, module.uuid())
       : dbClient.componentDao().selectEnabledDescendantFiles(session, module.uuid());
@@ -177,18 +193,29 @@ public class ProjectDataLoader {
     return !key.contains(".secured") || hasScanPerm;
   }
 
-  private static void addFileData(ProjectRepositories data, List<ComponentDto> moduleChildren, List<FilePathWithHashDto> files) {
-    Map<String, String> moduleKeysByUuid = newHashMap();
-    for (ComponentDto module : moduleChildren) {
-      moduleKeysByUuid.put(module.uuid(), module.key());
-    }
-
+  private static void addFileData(ProjectRepositories data, Map<String, String> moduleKeysByUuid, List<FilePathWithHashDto> files) {
     for (FilePathWithHashDto file : files) {
       FileData fileData = new FileData(file.getSrcHash(), file.getRevision());
       data.addFileData(moduleKeysByUuid.get(file.getModuleUuid()), file.getPath(), fileData);
     }
   }
 
+  /**
+   * Only the files of the requested module and of its descendants are kept, as
+   * {@code modulesTree} contains only these modules.
+   */
+  private static void addFileData(ProjectRepositories data, Map<String, String> moduleKeysByUuid, DbProjectRepositories.ProjectRepository repository) {
+    for (DbProjectRepositories.ModuleFiles moduleFiles : repository.getModuleList()) {
+      String moduleKey = moduleKeysByUuid.get(moduleFiles.getModuleUuid());
+      if (moduleKey != null) {
+        for (DbProjectRepositories.File file : moduleFiles.getFileList()) {
+          FileData fileData = new FileData(file.hasSrcHash() ? file.getSrcHash() : null, file.hasRevision() ? file.getRevision() : null);
+          data.addFileData(moduleKey, file.getPath(), fileData);
+        }
+      }
+    }
+  }
+
   private static void checkPermission(boolean preview, boolean hasScanPerm, boolean hasBrowsePerm) {
     if (!hasBrowsePerm && !hasScanPerm) {
       throw new ForbiddenException(Messages.NO_PERMISSION);
@@ -21,10 +21,13 @@
 package org.sonar.server.ce.ws;
 
 import com.google.common.base.Optional;
+import java.util.Comparator;
+import java.util.List;
 import javax.annotation.Nullable;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.System2;
 import org.sonar.api.web.UserRole;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.core.util.Uuids;
@@ -32,6 +35,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeQueueLaneDto;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.user.UserSession;
@@ -48,18 +52,21 @@ public class ActivityStatusAction implements CeWsAction {
   private final UserSession userSession;
   private final DbClient dbClient;
   private final ComponentFinder componentFinder;
+  private final System2 system2;
 
-  public ActivityStatusAction(UserSession userSession, DbClient dbClient, ComponentFinder componentFinder) {
+  public ActivityStatusAction(UserSession userSession, DbClient dbClient, ComponentFinder componentFinder, System2 system2) {
     this.userSession = userSession;
     this.dbClient = dbClient;
     this.componentFinder = componentFinder;
+    this.system2 = system2;
   }
 
   @Override
   public void define(WebService.NewController controller) {
     WebService.NewAction action = controller
       .createAction("activity_status")
-      .setDescription("Return CE activity related metrics.<br>" +
+      .setDescription("Return CE activity related metrics. Pending tasks are also counted by priority, along with the time " +
+        "during which the oldest one of each priority has been waiting, in milliseconds.<br>" +
         "Requires 'Administer System' permission or 'Administer' rights on the specified project.")
       .setSince("5.5")
       .setResponseExample(getClass().getResource("activity_status-example.json"))
@@ -88,11 +95,19 @@ public class ActivityStatusAction implements CeWsAction {
       checkPermissions(componentUuid);
       int pendingCount = dbClient.ceQueueDao().countByStatusAndComponentUuid(dbSession, CeQueueDto.Status.PENDING, componentUuid);
       int failingCount = dbClient.ceActivityDao().countLastByStatusAndComponentUuid(dbSession, CeActivityDto.Status.FAILED, componentUuid);
+      List<CeQueueLaneDto> lanes = dbClient.ceQueueDao().selectPendingLanes(dbSession, componentUuid);
 
-      return ActivityStatusWsResponse.newBuilder()
+      ActivityStatusWsResponse.Builder builder = ActivityStatusWsResponse.newBuilder()
         .setPending(pendingCount)
-        .setFailing(failingCount)
-        .build();
+        .setFailing(failingCount);
+      long now = system2.now();
+      lanes.stream()
+        .sorted(Comparator.comparing(CeQueueLaneDto::getPriority))
+        .forEach(lane -> builder.addPendingByPriorityBuilder()
+          .setPriority(lane.getPriority().name())
+          .setPending(lane.getPendingCount())
+          .setMaxPendingTime(Math.max(0L, now - lane.getOldestCreatedAt())));
+      return builder.build();
     } finally {
       dbClient.closeSession(dbSession);
     }
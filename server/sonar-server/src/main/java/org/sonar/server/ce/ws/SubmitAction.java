@@ -26,6 +26,7 @@ import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.ce.queue.CeTask;
+import org.sonar.db.ce.CeQueueDto;
 import org.sonar.server.computation.queue.ReportSubmitter;
 import org.sonar.server.ws.WsUtils;
 import org.sonarqube.ws.WsCe;
@@ -36,6 +37,7 @@ public class SubmitAction implements CeWsAction {
   public static final String PARAM_PROJECT_BRANCH = "projectBranch";
   public static final String PARAM_PROJECT_NAME = "projectName";
   public static final String PARAM_REPORT_DATA = "report";
+  public static final String PARAM_PRIORITY = "priority";
 
   private final ReportSubmitter reportSubmitter;
 
@@ -71,6 +73,14 @@ public class SubmitAction implements CeWsAction {
       .setDescription("Optional name of the project, used only if the project does not exist yet.")
       .setExampleValue("My Project");
 
+    action
+      .createParam(PARAM_PRIORITY)
+      .setRequired(false)
+      .setDescription("Optional priority of the processing of the report. By default, reports of branches are processed " +
+        "with high priority and other reports with normal priority.")
+      .setPossibleValues(CeQueueDto.Priority.values())
+      .setSince("6.2");
+
     action
       .createParam(PARAM_REPORT_DATA)
       .setRequired(true)
@@ -82,10 +92,11 @@ public class SubmitAction implements CeWsAction {
     String projectKey = wsRequest.mandatoryParam(PARAM_PROJECT_KEY);
     String projectBranch = wsRequest.param(PARAM_PROJECT_BRANCH);
     String projectName = StringUtils.defaultIfBlank(wsRequest.param(PARAM_PROJECT_NAME), projectKey);
+    String priority = wsRequest.param(PARAM_PRIORITY);
 
     CeTask task;
     try (InputStream report = new BufferedInputStream(wsRequest.paramAsInputStream(PARAM_REPORT_DATA))) {
-      task = reportSubmitter.submit(projectKey, projectBranch, projectName, report);
+      task = reportSubmitter.submit(projectKey, projectBranch, projectName, priority == null ? null : CeQueueDto.Priority.valueOf(priority), report);
     }
 
     WsCe.SubmitResponse submitResponse = WsCe.SubmitResponse.newBuilder()
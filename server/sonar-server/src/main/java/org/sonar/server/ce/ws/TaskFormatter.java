@@ -38,6 +38,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.component.ComponentDto;
+import org.sonar.server.computation.task.step.ComputationStepMetrics;
 import org.sonarqube.ws.WsCe;
 
 /**
@@ -137,6 +138,15 @@ public class TaskFormatter {
       builder.setScannerContext(scannerContext);
     }
     builder.setHasScannerContext(dto.isHasScannerContext());
+    for (ComputationStepMetrics step : ComputationStepMetrics.parse(dto.getStepMetrics())) {
+      builder.addStepsBuilder()
+        .setDescription(step.getDescription())
+        .setWallTimeMs(step.getWallTimeMs())
+        .setCpuTimeMs(step.getCpuTimeMs())
+        .setAllocatedBytes(step.getAllocatedBytes())
+        .setSqlStatements(step.getSqlStatements())
+        .setSqlRows(step.getSqlRows());
+    }
     return builder.build();
   }
 
@@ -32,7 +32,6 @@ import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
 import static org.sonar.server.ws.WsParameterBuilder.QualifierParameterContext.newQualifierParameterContext;
 import static org.sonar.server.ws.WsParameterBuilder.createQualifiersParameter;
 import static org.sonar.server.ws.WsUtils.checkRequest;
-import static org.sonar.server.ws.WsUtils.writeProtobuf;
 import static org.sonarqube.ws.client.component.ComponentsWsParameters.ACTION_TREE;
 import static org.sonarqube.ws.client.component.ComponentsWsParameters.PARAM_BASE_COMPONENT_ID;
 import static org.sonarqube.ws.client.component.ComponentsWsParameters.PARAM_BASE_COMPONENT_KEY;
@@ -62,6 +61,8 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTreeQuery;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.ws.ProtobufStreamWriter;
+import org.sonarqube.ws.WsComponents;
 import org.sonarqube.ws.WsComponents.TreeWsResponse;
 import org.sonarqube.ws.client.component.TreeWsRequest;
 
@@ -143,11 +144,10 @@ public class TreeAction implements ComponentsWsAction {
 
   @Override
   public void handle(Request request, Response response) throws Exception {
-    TreeWsResponse treeWsResponse = doHandle(toTreeWsRequest(request));
-    writeProtobuf(treeWsResponse, request, response);
+    doHandle(toTreeWsRequest(request), request, response);
   }
 
-  private TreeWsResponse doHandle(TreeWsRequest treeWsRequest) {
+  private void doHandle(TreeWsRequest treeWsRequest, Request request, Response response) {
     DbSession dbSession = dbClient.openSession(false);
     try {
       ComponentDto baseComponent = componentFinder.getByUuidOrKey(dbSession, treeWsRequest.getBaseComponentId(), treeWsRequest.getBaseComponentKey(), BASE_COMPONENT_ID_AND_KEY);
@@ -171,8 +171,8 @@ public class TreeAction implements ComponentsWsAction {
       }
       Map<String, ComponentDto> referenceComponentsByUuid = searchReferenceComponentsByUuid(dbSession, components);
 
-      return buildResponse(baseComponent, components, referenceComponentsByUuid,
-        Paging.forPageIndex(query.getPage()).withPageSize(query.getPageSize()).andTotal(total));
+      writeResponse(baseComponent, components, referenceComponentsByUuid,
+        Paging.forPageIndex(query.getPage()).withPageSize(query.getPageSize()).andTotal(total), request, response);
     } finally {
       dbClient.closeSession(dbSession);
     }
@@ -200,21 +200,21 @@ public class TreeAction implements ComponentsWsAction {
     }
   }
 
-  private static TreeWsResponse buildResponse(ComponentDto baseComponent, List<ComponentDto> components,
-    Map<String, ComponentDto> referenceComponentsByUuid, Paging paging) {
-    TreeWsResponse.Builder response = TreeWsResponse.newBuilder();
-    response.getPagingBuilder()
+  private static void writeResponse(ComponentDto baseComponent, List<ComponentDto> components,
+    Map<String, ComponentDto> referenceComponentsByUuid, Paging paging, Request request, Response response) {
+    TreeWsResponse.Builder header = TreeWsResponse.newBuilder();
+    header.getPagingBuilder()
       .setPageIndex(paging.pageIndex())
       .setPageSize(paging.pageSize())
       .setTotal(paging.total())
       .build();
+    header.setBaseComponent(componentDtoToWsComponent(baseComponent, referenceComponentsByUuid));
 
-    response.setBaseComponent(componentDtoToWsComponent(baseComponent, referenceComponentsByUuid));
-    for (ComponentDto dto : components) {
-      response.addComponents(componentDtoToWsComponent(dto, referenceComponentsByUuid));
+    try (ProtobufStreamWriter<WsComponents.Component> writer = ProtobufStreamWriter.start(header.build(), "components", request, response)) {
+      for (ComponentDto dto : components) {
+        writer.write(componentDtoToWsComponent(dto, referenceComponentsByUuid).build());
+      }
     }
-
-    return response.build();
   }
 
   private ComponentTreeQuery toComponentTreeQuery(TreeWsRequest request, ComponentDto baseComponent) {
@@ -31,4 +31,16 @@ public interface CeConfiguration {
    * when previous one had nothing to do.
    */
   long getQueuePollingDelay();
+
+  /**
+   * The amount of heap, in bytes, that tasks processed concurrently by workers can be estimated to use.
+   * {@code 0} means that tasks are not admitted against a heap budget.
+   */
+  long getHeapBudget();
+
+  /**
+   * Whether pending reports of a component are superseded by the most recent one when a report of this component
+   * is peeked, so that only the most recent report is processed.
+   */
+  boolean isReportCoalescingEnabled();
 }
@@ -32,9 +32,13 @@ import static java.lang.String.format;
  * Immutable implementation of {@link CeConfiguration} which takes value returned by
  * {@link CeConfiguration#getWorkerCount()} from property {@link CeConfigurationImpl#CE_WORKERS_COUNT_PROPERTY} and
  * always returns {@link #DEFAULT_QUEUE_POLLING_DELAY} when {@link CeConfiguration#getQueuePollingDelay()} is called.
+ * Value returned by {@link CeConfiguration#getHeapBudget()} is read, in MB, from property {@link #CE_HEAP_BUDGET_PROPERTY}
+ * and value returned by {@link CeConfiguration#isReportCoalescingEnabled()} from property {@link #CE_COALESCE_REPORTS_PROPERTY}.
  */
 public class CeConfigurationImpl implements CeConfiguration, Startable {
   public static final String CE_WORKERS_COUNT_PROPERTY = "sonar.ce.workerCount";
+  public static final String CE_HEAP_BUDGET_PROPERTY = "sonar.ce.heapBudget";
+  public static final String CE_COALESCE_REPORTS_PROPERTY = "sonar.ce.coalesceReports";
 
   private static final Logger LOG = Loggers.get(CeConfigurationImpl.class);
 
@@ -44,7 +48,11 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
   @VisibleForTesting
   protected static final long DEFAULT_QUEUE_POLLING_DELAY = 2 * 1000L;
 
+  private static final long ONE_MB = 1024L * 1024L;
+
   private final int workerCount;
+  private final long heapBudget;
+  private final boolean reportCoalescingEnabled;
 
   public CeConfigurationImpl(Settings settings) {
     String workerCountAsStr = settings.getString(CE_WORKERS_COUNT_PROPERTY);
@@ -53,6 +61,32 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
     } else {
       this.workerCount = parseStringValue(workerCountAsStr);
     }
+    String heapBudgetAsStr = settings.getString(CE_HEAP_BUDGET_PROPERTY);
+    if (heapBudgetAsStr == null || heapBudgetAsStr.isEmpty()) {
+      this.heapBudget = 0L;
+    } else {
+      this.heapBudget = parseHeapBudget(heapBudgetAsStr) * ONE_MB;
+    }
+    this.reportCoalescingEnabled = settings.getBoolean(CE_COALESCE_REPORTS_PROPERTY);
+  }
+
+  private static long parseHeapBudget(String heapBudgetAsStr) {
+    try {
+      long value = Long.parseLong(heapBudgetAsStr);
+      if (value < 0) {
+        throw heapBudgetParsingError(heapBudgetAsStr);
+      }
+      return value;
+    } catch (NumberFormatException e) {
+      throw heapBudgetParsingError(heapBudgetAsStr);
+    }
+  }
+
+  private static MessageException heapBudgetParsingError(String heapBudgetAsStr) {
+    return MessageException.of(format(
+      "value '%s' of property %s is invalid. It must be an integer greater than or equal to 0.",
+      heapBudgetAsStr,
+      CE_HEAP_BUDGET_PROPERTY));
   }
 
   private static int parseStringValue(String workerCountAsStr) {
@@ -80,6 +114,12 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
     if (this.workerCount > 1) {
       LOG.info("Compute Engine will use {} concurrent workers to process tasks", this.workerCount);
     }
+    if (this.heapBudget > 0) {
+      LOG.info("Compute Engine will admit tasks within a heap budget of {}MB", this.heapBudget / ONE_MB);
+    }
+    if (this.reportCoalescingEnabled) {
+      LOG.info("Compute Engine will only process the most recent pending report of each project");
+    }
   }
 
   @Override
@@ -96,4 +136,14 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
   public long getQueuePollingDelay() {
     return DEFAULT_QUEUE_POLLING_DELAY;
   }
+
+  @Override
+  public long getHeapBudget() {
+    return heapBudget;
+  }
+
+  @Override
+  public boolean isReportCoalescingEnabled() {
+    return reportCoalescingEnabled;
+  }
 }
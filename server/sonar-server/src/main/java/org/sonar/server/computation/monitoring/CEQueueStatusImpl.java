@@ -33,6 +33,7 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   private final AtomicLong inProgress = new AtomicLong(0);
   private final AtomicLong error = new AtomicLong(0);
   private final AtomicLong success = new AtomicLong(0);
+  private final AtomicLong superseded = new AtomicLong(0);
   private final AtomicLong processingTime = new AtomicLong(0);
 
   public CEQueueStatusImpl(DbClient dbClient) {
@@ -58,6 +59,11 @@ public class CEQueueStatusImpl implements CEQueueStatus {
     return success.incrementAndGet();
   }
 
+  @Override
+  public long addSuperseded() {
+    return superseded.incrementAndGet();
+  }
+
   private void addProcessingTime(long ms) {
     checkArgument(ms >= 0, "Processing time can not be < 0");
     processingTime.addAndGet(ms);
@@ -85,6 +91,11 @@ public class CEQueueStatusImpl implements CEQueueStatus {
     return success.get();
   }
 
+  @Override
+  public long getSupersededCount() {
+    return superseded.get();
+  }
+
   @Override
   public long getProcessingTime() {
     return processingTime.get();
@@ -0,0 +1,71 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import java.util.Map;
+import org.picocontainer.Startable;
+import org.sonar.db.purge.PurgeProfiler;
+import org.sonar.process.Jmx;
+import org.sonar.process.systeminfo.SystemInfoSection;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+
+public class CePurgeMBeanImpl implements CePurgeMBean, Startable, SystemInfoSection {
+  private final PurgeProfiler profiler;
+
+  public CePurgeMBeanImpl(PurgeProfiler profiler) {
+    this.profiler = profiler;
+  }
+
+  @Override
+  public void start() {
+    Jmx.register(OBJECT_NAME, this);
+  }
+
+  /**
+   * Unregister, if needed
+   */
+  @Override
+  public void stop() {
+    Jmx.unregister(OBJECT_NAME);
+  }
+
+  @Override
+  public long getPurgeTime() {
+    return profiler.getDurationsSinceStartup().values().stream().mapToLong(Long::longValue).sum();
+  }
+
+  @Override
+  public String[] getPurgeSummary() {
+    return profiler.getDurationsSinceStartup().entrySet().stream()
+      .map(entry -> entry.getKey() + ": " + entry.getValue() + "ms")
+      .toArray(String[]::new);
+  }
+
+  @Override
+  public ProtobufSystemInfo.Section toProtobuf() {
+    ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
+    builder.setName("Compute Engine Database Cleaner");
+    builder.addAttributesBuilder().setKey("Purge Time (ms)").setLongValue(getPurgeTime()).build();
+    for (Map.Entry<String, Long> entry : profiler.getDurationsSinceStartup().entrySet()) {
+      builder.addAttributesBuilder().setKey(entry.getKey()).setLongValue(entry.getValue()).build();
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+public interface CeStepsMBean {
+
+  String OBJECT_NAME = "SonarQube:name=ComputeEngineSteps";
+
+  /**
+   * Time spent executing computation steps since startup, in milliseconds.
+   */
+  long getStepsWallTime();
+
+  /**
+   * CPU time spent by workers executing computation steps since startup, in milliseconds.
+   */
+  long getStepsCpuTime();
+
+  /**
+   * Bytes allocated by workers executing computation steps since startup.
+   */
+  long getStepsAllocatedBytes();
+
+  /**
+   * Count of SQL statements executed by computation steps since startup.
+   */
+  long getStepsSqlStatements();
+
+  /**
+   * Totals per computation step since startup, sorted by descending wall time.
+   */
+  String[] getStepsSummary();
+}
@@ -0,0 +1,102 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import org.picocontainer.Startable;
+import org.sonar.process.Jmx;
+import org.sonar.process.systeminfo.SystemInfoSection;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+import org.sonar.server.computation.task.step.ComputationStepMetricsHolder;
+import org.sonar.server.computation.task.step.ComputationStepMetricsHolder.StepTotals;
+
+public class CeStepsMBeanImpl implements CeStepsMBean, Startable, SystemInfoSection {
+  private final ComputationStepMetricsHolder metricsHolder;
+
+  public CeStepsMBeanImpl(ComputationStepMetricsHolder metricsHolder) {
+    this.metricsHolder = metricsHolder;
+  }
+
+  @Override
+  public void start() {
+    Jmx.register(OBJECT_NAME, this);
+  }
+
+  /**
+   * Unregister, if needed
+   */
+  @Override
+  public void stop() {
+    Jmx.unregister(OBJECT_NAME);
+  }
+
+  @Override
+  public long getStepsWallTime() {
+    return sum(StepTotals::getWallTimeMs);
+  }
+
+  @Override
+  public long getStepsCpuTime() {
+    return sum(StepTotals::getCpuTimeMs);
+  }
+
+  @Override
+  public long getStepsAllocatedBytes() {
+    return sum(StepTotals::getAllocatedBytes);
+  }
+
+  @Override
+  public long getStepsSqlStatements() {
+    return sum(StepTotals::getSqlStatements);
+  }
+
+  @Override
+  public String[] getStepsSummary() {
+    return sortedTotals().stream()
+      .map(StepTotals::toString)
+      .toArray(String[]::new);
+  }
+
+  private long sum(ToLongFunction<StepTotals> field) {
+    return metricsHolder.getTotals().stream().mapToLong(field).sum();
+  }
+
+  private List<StepTotals> sortedTotals() {
+    List<StepTotals> totals = metricsHolder.getTotals();
+    totals.sort(Comparator.comparingLong(StepTotals::getWallTimeMs).reversed());
+    return totals;
+  }
+
+  @Override
+  public ProtobufSystemInfo.Section toProtobuf() {
+    ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
+    builder.setName("Compute Engine Steps");
+    builder.addAttributesBuilder().setKey("Wall Time (ms)").setLongValue(getStepsWallTime()).build();
+    builder.addAttributesBuilder().setKey("CPU Time (ms)").setLongValue(getStepsCpuTime()).build();
+    builder.addAttributesBuilder().setKey("Allocated Bytes").setLongValue(getStepsAllocatedBytes()).build();
+    builder.addAttributesBuilder().setKey("SQL Statements").setLongValue(getStepsSqlStatements()).build();
+    for (StepTotals totals : sortedTotals()) {
+      builder.addAttributesBuilder().setKey(totals.getDescription()).setStringValue(totals.toString()).build();
+    }
+    return builder.build();
+  }
+}
@@ -43,6 +43,11 @@ public interface CeTasksMBean {
    */
   long getSuccessCount();
 
+  /**
+   * Count of batch reports which have been superseded by a more recent report since instance startup.
+   */
+  long getSupersededCount();
+
   /**
    * Time spent processing reports since startup, in milliseconds.
    */
@@ -68,6 +68,11 @@ public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSect
     return queueStatus.getSuccessCount();
   }
 
+  @Override
+  public long getSupersededCount() {
+    return queueStatus.getSupersededCount();
+  }
+
   @Override
   public long getProcessingTime() {
     return queueStatus.getProcessingTime();
@@ -86,6 +91,7 @@ public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSect
     builder.addAttributesBuilder().setKey("In Progress").setLongValue(getInProgressCount()).build();
     builder.addAttributesBuilder().setKey("Processed With Error").setLongValue(getErrorCount()).build();
     builder.addAttributesBuilder().setKey("Processed With Success").setLongValue(getSuccessCount()).build();
+    builder.addAttributesBuilder().setKey("Superseded").setLongValue(getSupersededCount()).build();
     builder.addAttributesBuilder().setKey("Processing Time (ms)").setLongValue(getProcessingTime()).build();
     builder.addAttributesBuilder().setKey("Worker Count").setLongValue(getWorkerCount()).build();
     return builder.build();
@@ -0,0 +1,151 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.System2;
+
+/**
+ * Admits tasks as long as the sum of their estimated footprints does not exceed the heap budget. A task is always
+ * admitted when no other task is in progress, so that a task bigger than the budget is processed alone rather than never.
+ */
+class HeapBudget {
+
+  private final long budget;
+  private final long maxHoldingDelay;
+  private final System2 system2;
+
+  // estimated footprints of pending and admitted tasks, by task uuid
+  private final Map<String, Long> footprints = new HashMap<>();
+  private final Set<String> admitted = new HashSet<>();
+  // tasks whose footprint is being estimated
+  private final Set<String> estimating = new HashSet<>();
+  // date at which pending tasks have been refused admission for the first time, by task uuid
+  private final Map<String, Long> heldSince = new HashMap<>();
+  private long used = 0L;
+
+  HeapBudget(long budget, long maxHoldingDelay, System2 system2) {
+    this.budget = budget;
+    this.maxHoldingDelay = maxHoldingDelay;
+    this.system2 = system2;
+  }
+
+  boolean isEnabled() {
+    return budget > 0;
+  }
+
+  @CheckForNull
+  synchronized Long getFootprint(String taskUuid) {
+    return footprints.get(taskUuid);
+  }
+
+  /**
+   * @return {@code true} if the footprint of the task is not known and is not being estimated by another caller. The
+   * caller then estimates it, calls {@link #setFootprint(String, long)} and finally {@link #endEstimate(String)}.
+   */
+  synchronized boolean startEstimate(String taskUuid) {
+    return !footprints.containsKey(taskUuid) && estimating.add(taskUuid);
+  }
+
+  synchronized void endEstimate(String taskUuid) {
+    estimating.remove(taskUuid);
+  }
+
+  synchronized void setFootprint(String taskUuid, long footprint) {
+    if (!admitted.contains(taskUuid)) {
+      footprints.put(taskUuid, footprint);
+    }
+  }
+
+  /**
+   * Forgets about the pending tasks which are not in {@code pendingTaskUuids} (eg. canceled tasks).
+   */
+  synchronized void retainPending(Collection<String> pendingTaskUuids) {
+    footprints.keySet().removeIf(uuid -> !admitted.contains(uuid) && !pendingTaskUuids.contains(uuid));
+    heldSince.keySet().retainAll(pendingTaskUuids);
+  }
+
+  /**
+   * @return {@code true} if the task fits in the remaining budget. It then uses its footprint from the budget until
+   * {@link #release(String)} is called by the caller, which is the only one to which {@code true} is returned.
+   * {@code false} is returned if the task is already admitted or if its footprint is not known (anymore).
+   */
+  synchronized boolean tryAdmit(String taskUuid) {
+    Long footprint = footprints.get(taskUuid);
+    if (footprint == null || admitted.contains(taskUuid)) {
+      return false;
+    }
+    if (!admitted.isEmpty() && used + footprint > budget) {
+      heldSince.putIfAbsent(taskUuid, system2.now());
+      return false;
+    }
+    admit(taskUuid, footprint);
+    return true;
+  }
+
+  /**
+   * Same as {@link #tryAdmit(String)} for a task, of the specified footprint, which supersedes an admitted task: the
+   * footprint of the latter is considered as available. If {@code true} is returned, the caller then releases one of
+   * both tasks.
+   */
+  synchronized boolean tryAdmitInPlaceOf(String taskUuid, long footprint, String replacedTaskUuid) {
+    Long replacedFootprint = footprints.get(replacedTaskUuid);
+    if (admitted.contains(taskUuid) || replacedFootprint == null || !admitted.contains(replacedTaskUuid)) {
+      return false;
+    }
+    if (admitted.size() > 1 && used - replacedFootprint + footprint > budget) {
+      return false;
+    }
+    footprints.put(taskUuid, footprint);
+    admit(taskUuid, footprint);
+    return true;
+  }
+
+  private void admit(String taskUuid, long footprint) {
+    heldSince.remove(taskUuid);
+    admitted.add(taskUuid);
+    used += footprint;
+  }
+
+  /**
+   * @return {@code true} if the task has been refused admission for longer than the max holding delay, in which case
+   * other tasks should not overtake it anymore.
+   */
+  synchronized boolean isHeldTooLong(String taskUuid) {
+    Long since = heldSince.get(taskUuid);
+    return since != null && system2.now() - since > maxHoldingDelay;
+  }
+
+  synchronized void release(String taskUuid) {
+    Long footprint = footprints.remove(taskUuid);
+    if (admitted.remove(taskUuid) && footprint != null) {
+      used -= footprint;
+    }
+  }
+
+  synchronized long getUsed() {
+    return used;
+  }
+}
@@ -44,6 +44,17 @@ public interface InternalCeQueue extends CeQueue {
    *
    * <p>Only a single task can be peeked by project.</p>
    *
+   * <p>Tasks of {@link org.sonar.db.ce.CeQueueDto.Priority#HIGH} priority are peeked before the ones of
+   * {@link org.sonar.db.ce.CeQueueDto.Priority#NORMAL} priority, unless too many tasks of high priority have been
+   * peeked in a row or the oldest task of normal priority has been waiting for too long.</p>
+   *
+   * <p>When a heap budget is configured, the first task whose estimated footprint fits in the remaining budget is
+   * peeked instead, so that small tasks may overtake big ones.</p>
+   *
+   * <p>When report coalescing is enabled and a report is peeked, the most recent pending report of the same project
+   * is returned instead, unless it does not fit in the heap budget. The older ones are marked as {@link Status#SUPERSEDED}
+   * in past activity.</p>
+   *
    * <p>An unchecked exception may be thrown on technical errors (db connection, ...).</p>
    */
   Optional<CeTask> peek();
@@ -24,12 +24,17 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.log4j.Logger;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.ce.queue.CeQueueImpl;
 import org.sonar.ce.queue.CeTask;
@@ -39,6 +44,11 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskInputDao;
+import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.server.computation.configuration.CeConfiguration;
+import org.sonar.server.computation.task.step.ComputationStepMetrics;
+import org.sonar.server.computation.task.step.ComputationStepMetricsHolder;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -46,18 +56,38 @@ import static com.google.common.base.Preconditions.checkState;
 @ComputeEngineSide
 public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue {
 
+  // number of pending tasks considered for admission when the heap budget is enabled
+  private static final int MAX_PEEK_CANDIDATES = 50;
+  // delay after which smaller tasks can not overtake a task held because of the heap budget anymore
+  private static final long MAX_HOLDING_DELAY = TimeUnit.MINUTES.toMillis(10);
+  // number of consecutive tasks of high priority peeked before a task of normal priority is peeked
+  private static final int HIGH_PRIORITY_WEIGHT = 4;
+  // delay after which a task of normal priority is peeked before tasks of high priority
+  private static final long MAX_NORMAL_PRIORITY_WAITING_TIME = TimeUnit.MINUTES.toMillis(30);
+
   private final System2 system2;
   private final DbClient dbClient;
   private final CEQueueStatus queueStatus;
+  private final ComputationStepMetricsHolder stepMetricsHolder;
+  private final ReportFootprintEstimator footprintEstimator;
+  private final HeapBudget heapBudget;
+  private final PriorityLanes priorityLanes;
+  private final boolean reportCoalescingEnabled;
 
   // state
   private AtomicBoolean peekPaused = new AtomicBoolean(false);
 
-  public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus) {
+  public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
+    ComputationStepMetricsHolder stepMetricsHolder, CeConfiguration ceConfiguration, ReportFootprintEstimator footprintEstimator) {
     super(dbClient, uuidFactory);
     this.system2 = system2;
     this.dbClient = dbClient;
     this.queueStatus = queueStatus;
+    this.stepMetricsHolder = stepMetricsHolder;
+    this.footprintEstimator = footprintEstimator;
+    this.heapBudget = new HeapBudget(ceConfiguration.getHeapBudget(), MAX_HOLDING_DELAY, system2);
+    this.priorityLanes = new PriorityLanes(HIGH_PRIORITY_WEIGHT, MAX_NORMAL_PRIORITY_WAITING_TIME, system2);
+    this.reportCoalescingEnabled = ceConfiguration.isReportCoalescingEnabled();
   }
 
   @Override
@@ -65,15 +95,217 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
     if (peekPaused.get()) {
       return Optional.absent();
     }
+    Optional<CeQueueDto> dto = peekByPriority();
+    if (!dto.isPresent()) {
+      return Optional.absent();
+    }
+    CeQueueDto peeked = reportCoalescingEnabled ? coalesceReports(dto.get()) : dto.get();
+    DbSession dbSession = dbClient.openSession(false);
+    try {
+      CeTask task = loadTask(dbSession, peeked);
+      queueStatus.addInProgress();
+      return Optional.of(task);
+
+    } finally {
+      dbClient.closeSession(dbSession);
+    }
+  }
+
+  /**
+   * Candidates of both priority lanes are tried in the order given by {@link PriorityLanes}, oldest first
+   * within each lane.
+   */
+  private Optional<CeQueueDto> peekByPriority() {
+    List<CeQueueDto> candidates = selectCandidates();
+    Optional<CeQueueDto> dto = heapBudget.isEnabled() ? peekWithinHeapBudget(candidates) : peekFirst(candidates);
+    if (dto.isPresent()) {
+      priorityLanes.peeked(dto.get().getPriority());
+    }
+    return dto;
+  }
+
+  private List<CeQueueDto> selectCandidates() {
+    int limit = heapBudget.isEnabled() ? MAX_PEEK_CANDIDATES : 1;
+    DbSession dbSession = dbClient.openSession(false);
+    try {
+      List<CeQueueDto> highPriorityCandidates = dbClient.ceQueueDao().selectEligibleForPeek(dbSession, CeQueueDto.Priority.HIGH, limit);
+      List<CeQueueDto> normalPriorityCandidates = dbClient.ceQueueDao().selectEligibleForPeek(dbSession, CeQueueDto.Priority.NORMAL, limit);
+      Long oldestNormalPriorityCreatedAt = normalPriorityCandidates.isEmpty() ? null : normalPriorityCandidates.get(0).getCreatedAt();
+
+      List<CeQueueDto> candidates = new ArrayList<>(highPriorityCandidates.size() + normalPriorityCandidates.size());
+      for (CeQueueDto.Priority priority : priorityLanes.peekOrder(oldestNormalPriorityCreatedAt)) {
+        candidates.addAll(priority == CeQueueDto.Priority.HIGH ? highPriorityCandidates : normalPriorityCandidates);
+      }
+      return candidates;
+
+    } finally {
+      dbClient.closeSession(dbSession);
+    }
+  }
+
+  /**
+   * Only the most recent pending report of the component of the peeked report is processed. The other ones are
+   * archived with status {@link CeActivityDto.Status#SUPERSEDED}.
+   *
+   * @return the task to be processed
+   */
+  private CeQueueDto coalesceReports(CeQueueDto peeked) {
+    String componentUuid = peeked.getComponentUuid();
+    if (!CeTaskTypes.REPORT.equals(peeked.getTaskType()) || componentUuid == null) {
+      return peeked;
+    }
+    List<CeQueueDto> reports = selectReportsToCoalesce(componentUuid, peeked);
+    if (reports.size() < 2) {
+      return peeked;
+    }
+
+    String mostRecentUuid = reports.get(reports.size() - 1).getUuid();
+    boolean mostRecentIsPeeked = mostRecentUuid.equals(peeked.getUuid());
+    if (!mostRecentIsPeeked && heapBudget.isEnabled() && !admitInPlaceOf(mostRecentUuid, peeked.getUuid())) {
+      // most recent report does not fit in the heap budget, it will be processed after the peeked one
+      return peeked;
+    }
     DbSession dbSession = dbClient.openSession(false);
     try {
-      Optional<CeQueueDto> dto = dbClient.ceQueueDao().peek(dbSession);
-      CeTask task = null;
-      if (dto.isPresent()) {
-        task = loadTask(dbSession, dto.get());
-        queueStatus.addInProgress();
+      CeQueueDto processed = peeked;
+      if (!mostRecentIsPeeked) {
+        Optional<CeQueueDto> mostRecentDto = dbClient.ceQueueDao().peek(dbSession, mostRecentUuid);
+        if (!mostRecentDto.isPresent()) {
+          // most recent report has been canceled concurrently
+          heapBudget.release(mostRecentUuid);
+          return peeked;
+        }
+        processed = mostRecentDto.get();
+        heapBudget.release(peeked.getUuid());
+        supersede(dbSession, peeked);
+      }
+      for (CeQueueDto report : reports) {
+        String uuid = report.getUuid();
+        if (!uuid.equals(peeked.getUuid()) && !uuid.equals(processed.getUuid())) {
+          Optional<CeQueueDto> reportDto = dbClient.ceQueueDao().peek(dbSession, uuid);
+          if (reportDto.isPresent()) {
+            supersede(dbSession, reportDto.get());
+          }
+        }
+      }
+      return processed;
+
+    } finally {
+      dbClient.closeSession(dbSession);
+    }
+  }
+
+  private List<CeQueueDto> selectReportsToCoalesce(String componentUuid, CeQueueDto peeked) {
+    DbSession dbSession = dbClient.openSession(false);
+    try {
+      return dbClient.ceQueueDao().selectByComponentUuid(dbSession, componentUuid).stream()
+        .filter(dto -> CeTaskTypes.REPORT.equals(dto.getTaskType()))
+        .filter(dto -> dto.getStatus() == CeQueueDto.Status.PENDING || dto.getUuid().equals(peeked.getUuid()))
+        .collect(Collectors.toList());
+
+    } finally {
+      dbClient.closeSession(dbSession);
+    }
+  }
+
+  private boolean admitInPlaceOf(String taskUuid, String replacedTaskUuid) {
+    Long footprint = getOrEstimateFootprint(taskUuid);
+    return footprint != null && heapBudget.tryAdmitInPlaceOf(taskUuid, footprint, replacedTaskUuid);
+  }
+
+  private void supersede(DbSession dbSession, CeQueueDto dto) {
+    CeActivityDto activityDto = new CeActivityDto(dto);
+    activityDto.setStatus(CeActivityDto.Status.SUPERSEDED);
+    // superseded reports are not processed
+    activityDto.setStartedAt(null);
+    remove(dbSession, dto, activityDto);
+    queueStatus.addSuperseded();
+  }
+
+  private Optional<CeQueueDto> peekFirst(List<CeQueueDto> candidates) {
+    DbSession dbSession = dbClient.openSession(false);
+    try {
+      for (CeQueueDto candidate : candidates) {
+        Optional<CeQueueDto> dto = dbClient.ceQueueDao().peek(dbSession, candidate.getUuid());
+        if (dto.isPresent()) {
+          return dto;
+        }
+      }
+      return Optional.absent();
+
+    } finally {
+      dbClient.closeSession(dbSession);
+    }
+  }
+
+  /**
+   * Peeks the first candidate whose estimated footprint fits in the remaining heap budget, so that smaller
+   * tasks can overtake the ones held until enough heap is released. Candidates whose footprint is being estimated
+   * by another worker are ignored.
+   */
+  private Optional<CeQueueDto> peekWithinHeapBudget(List<CeQueueDto> candidates) {
+    heapBudget.retainPending(candidates.stream().map(CeQueueDto::getUuid).collect(Collectors.toSet()));
+    for (CeQueueDto candidate : candidates) {
+      String taskUuid = candidate.getUuid();
+      if (getOrEstimateFootprint(taskUuid) == null) {
+        continue;
+      }
+      if (heapBudget.tryAdmit(taskUuid)) {
+        Optional<CeQueueDto> dto = peek(taskUuid);
+        if (dto.isPresent()) {
+          return dto;
+        }
+        // task has been canceled concurrently
+        heapBudget.release(taskUuid);
+      } else if (heapBudget.isHeldTooLong(taskUuid)) {
+        Loggers.get(InternalCeQueueImpl.class).debug("Task {} is held for too long, other tasks can not be admitted before it", taskUuid);
+        break;
+      }
+    }
+    return Optional.absent();
+  }
+
+  private Optional<CeQueueDto> peek(String taskUuid) {
+    DbSession dbSession = dbClient.openSession(false);
+    try {
+      return dbClient.ceQueueDao().peek(dbSession, taskUuid);
+    } finally {
+      dbClient.closeSession(dbSession);
+    }
+  }
+
+  /**
+   * The footprint of a task is estimated once, by a single worker, out of the sessions used to peek tasks.
+   *
+   * @return the footprint of the task, or {@code null} if it is being estimated by another worker
+   */
+  @CheckForNull
+  private Long getOrEstimateFootprint(String taskUuid) {
+    if (!heapBudget.startEstimate(taskUuid)) {
+      return heapBudget.getFootprint(taskUuid);
+    }
+    try {
+      long footprint = estimateFootprint(taskUuid);
+      heapBudget.setFootprint(taskUuid, footprint);
+      return footprint;
+    } finally {
+      heapBudget.endEstimate(taskUuid);
+    }
+  }
+
+  private long estimateFootprint(String taskUuid) {
+    DbSession dbSession = dbClient.openSession(false);
+    try {
+      java.util.Optional<CeTaskInputDao.DataStream> data = dbClient.ceTaskInputDao().selectData(dbSession, taskUuid);
+      if (!data.isPresent()) {
+        return ReportFootprintEstimator.BASE_FOOTPRINT;
+      }
+      try (CeTaskInputDao.DataStream dataStream = data.get()) {
+        return footprintEstimator.estimate(dataStream.getInputStream());
+      } catch (IOException e) {
+        Loggers.get(InternalCeQueueImpl.class).warn("Fail to estimate footprint of task " + taskUuid, e);
+        return ReportFootprintEstimator.BASE_FOOTPRINT;
       }
-      return Optional.fromNullable(task);
 
     } finally {
       dbClient.closeSession(dbSession);
@@ -88,6 +320,9 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
   @Override
   public void remove(CeTask task, CeActivityDto.Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error) {
     checkArgument(error == null || status == CeActivityDto.Status.FAILED, "Error can be provided only when status is FAILED");
+    // task is removed by the worker thread which processed it, so step metrics of the current thread are the ones of the task
+    List<ComputationStepMetrics> stepMetrics = stepMetricsHolder.popTaskMetrics();
+    heapBudget.release(task.getUuid());
     DbSession dbSession = dbClient.openSession(false);
     try {
       Optional<CeQueueDto> queueDto = dbClient.ceQueueDao().selectByUuid(dbSession, task.getUuid());
@@ -97,6 +332,7 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
       updateQueueStatus(status, activityDto);
       updateTaskResult(activityDto, taskResult);
       updateError(activityDto, error);
+      updateStepMetrics(activityDto, stepMetrics);
       remove(dbSession, queueDto.get(), activityDto);
     } finally {
       dbClient.closeSession(dbSession);
@@ -112,6 +348,12 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
     }
   }
 
+  private static void updateStepMetrics(CeActivityDto activityDto, List<ComputationStepMetrics> stepMetrics) {
+    if (!stepMetrics.isEmpty()) {
+      activityDto.setStepMetrics(ComputationStepMetrics.format(stepMetrics));
+    }
+  }
+
   private static void updateError(CeActivityDto activityDto, @Nullable Throwable error) {
     if (error == null) {
       return;
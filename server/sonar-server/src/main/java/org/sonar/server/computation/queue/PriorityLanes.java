@@ -0,0 +1,68 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import java.util.List;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.System2;
+import org.sonar.db.ce.CeQueueDto;
+
+import static java.util.Arrays.asList;
+import static org.sonar.db.ce.CeQueueDto.Priority.HIGH;
+import static org.sonar.db.ce.CeQueueDto.Priority.NORMAL;
+
+/**
+ * Weighted-fair ordering of the priority lanes of the queue: tasks of high priority are peeked first, but a task of
+ * normal priority is peeked after each series of {@code highPriorityWeight} tasks of high priority, or as soon as it
+ * has been waiting for longer than {@code maxNormalPriorityWaitingTime}.
+ */
+class PriorityLanes {
+
+  private final int highPriorityWeight;
+  private final long maxNormalPriorityWaitingTime;
+  private final System2 system2;
+  private int consecutiveHighPriorityPeeks = 0;
+
+  PriorityLanes(int highPriorityWeight, long maxNormalPriorityWaitingTime, System2 system2) {
+    this.highPriorityWeight = highPriorityWeight;
+    this.maxNormalPriorityWaitingTime = maxNormalPriorityWaitingTime;
+    this.system2 = system2;
+  }
+
+  /**
+   * @param oldestNormalPriorityCreatedAt submission date of the oldest task of normal priority which can be peeked, if any
+   */
+  synchronized List<CeQueueDto.Priority> peekOrder(@Nullable Long oldestNormalPriorityCreatedAt) {
+    boolean normalPriorityIsStarving = oldestNormalPriorityCreatedAt != null
+      && system2.now() - oldestNormalPriorityCreatedAt > maxNormalPriorityWaitingTime;
+    if (normalPriorityIsStarving || consecutiveHighPriorityPeeks >= highPriorityWeight) {
+      return asList(NORMAL, HIGH);
+    }
+    return asList(HIGH, NORMAL);
+  }
+
+  synchronized void peeked(CeQueueDto.Priority priority) {
+    if (priority == HIGH) {
+      consecutiveHighPriorityPeeks++;
+    } else {
+      consecutiveHighPriorityPeeks = 0;
+    }
+  }
+}
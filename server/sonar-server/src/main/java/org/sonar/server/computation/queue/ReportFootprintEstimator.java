@@ -0,0 +1,108 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.apache.commons.io.FileUtils;
+import org.sonar.api.utils.TempFolder;
+
+/**
+ * Roughly estimates the amount of heap required by the Compute Engine to process an analysis report, from the number
+ * of components and from the size of the issues, sources and other files of the zipped report.
+ * Estimates are only meant to be compared with each other and with the heap budget of the Compute Engine.
+ */
+public class ReportFootprintEstimator {
+
+  // heap used by the task container, whatever the size of the report
+  static final long BASE_FOOTPRINT = 32L * 1024 * 1024;
+  // component tree, measures and duplications are loaded for each component
+  static final long COMPONENT_FOOTPRINT = 16L * 1024;
+  // raw and base issues are loaded in memory during issue tracking
+  static final int ISSUES_BYTES_FACTOR = 8;
+  // lines are stored as UTF-16 strings with their hashes
+  static final int SOURCE_BYTES_FACTOR = 4;
+  static final int OTHER_BYTES_FACTOR = 2;
+
+  private static final String COMPONENT_FILE_PREFIX = "component-";
+  private static final String ISSUES_FILE_PREFIX = "issues-";
+  private static final String SOURCE_FILE_PREFIX = "source-";
+
+  private final TempFolder tempFolder;
+
+  public ReportFootprintEstimator(TempFolder tempFolder) {
+    this.tempFolder = tempFolder;
+  }
+
+  /**
+   * Estimates the footprint of the zipped report read from {@code zippedReport}. The stream is not closed.
+   * <p>
+   * The report is copied as is to a temp file, so that the uncompressed sizes of its entries are read from the
+   * central directory of the zip file, without inflating them.
+   * </p>
+   */
+  public long estimate(InputStream zippedReport) throws IOException {
+    File zipFile = tempFolder.newFile("report", ".zip");
+    try {
+      Files.copy(zippedReport, zipFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      return estimate(zipFile);
+    } finally {
+      FileUtils.deleteQuietly(zipFile);
+    }
+  }
+
+  private static long estimate(File zipFile) throws IOException {
+    long componentCount = 0L;
+    long issuesBytes = 0L;
+    long sourceBytes = 0L;
+    long otherBytes = 0L;
+    try (ZipFile zip = new ZipFile(zipFile)) {
+      Enumeration<? extends ZipEntry> entries = zip.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        if (entry.isDirectory()) {
+          continue;
+        }
+        String name = entry.getName();
+        long size = Math.max(0L, entry.getSize());
+        if (name.startsWith(COMPONENT_FILE_PREFIX)) {
+          componentCount++;
+        } else if (name.startsWith(ISSUES_FILE_PREFIX)) {
+          issuesBytes += size;
+        } else if (name.startsWith(SOURCE_FILE_PREFIX)) {
+          sourceBytes += size;
+        } else {
+          otherBytes += size;
+        }
+      }
+    }
+    return BASE_FOOTPRINT
+      + componentCount * COMPONENT_FOOTPRINT
+      + issuesBytes * ISSUES_BYTES_FACTOR
+      + sourceBytes * SOURCE_BYTES_FACTOR
+      + otherBytes * OTHER_BYTES_FACTOR;
+  }
+}
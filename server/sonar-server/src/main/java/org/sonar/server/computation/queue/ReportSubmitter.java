@@ -31,6 +31,7 @@ import org.sonar.ce.queue.CeTaskSubmit;
 import org.sonar.core.component.ComponentKeys;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.server.component.ComponentService;
@@ -59,13 +60,23 @@ public class ReportSubmitter {
     this.dbClient = dbClient;
   }
 
-  public CeTask submit(String projectKey, @Nullable String projectBranch, @Nullable String projectName, InputStream reportInput) {
+  /**
+   * @param priority priority of the processing of the report. If {@code null}, reports of branches are processed with
+   *                 {@link CeQueueDto.Priority#HIGH} priority, as they are expected to be short and awaited by developers,
+   *                 and other reports with {@link CeQueueDto.Priority#NORMAL} priority.
+   */
+  public CeTask submit(String projectKey, @Nullable String projectBranch, @Nullable String projectName, @Nullable CeQueueDto.Priority priority,
+    InputStream reportInput) {
     try (DbSession dbSession = dbClient.openSession(false)) {
       String effectiveProjectKey = ComponentKeys.createKey(projectKey, projectBranch);
       Optional<ComponentDto> opt = dbClient.componentDao().selectByKey(dbSession, effectiveProjectKey);
       ComponentDto project = opt.or(() -> createProject(dbSession, projectKey, projectBranch, projectName));
       userSession.checkComponentUuidPermission(SCAN_EXECUTION, project.uuid());
-      return submitReport(dbSession, reportInput, project);
+      CeQueueDto.Priority effectivePriority = priority;
+      if (effectivePriority == null) {
+        effectivePriority = projectBranch == null ? CeQueueDto.Priority.NORMAL : CeQueueDto.Priority.HIGH;
+      }
+      return submitReport(dbSession, reportInput, project, effectivePriority);
     }
   }
 
@@ -89,7 +100,7 @@ public class ReportSubmitter {
     return project;
   }
 
-  private CeTask submitReport(DbSession dbSession, InputStream reportInput, ComponentDto project) {
+  private CeTask submitReport(DbSession dbSession, InputStream reportInput, ComponentDto project, CeQueueDto.Priority priority) {
     // the report file must be saved before submitting the task
     CeTaskSubmit.Builder submit = queue.prepareSubmit();
     dbClient.ceTaskInputDao().insert(dbSession, submit.getUuid(), reportInput);
@@ -98,6 +109,7 @@ public class ReportSubmitter {
     submit.setType(CeTaskTypes.REPORT);
     submit.setComponentUuid(project.uuid());
     submit.setSubmitterLogin(userSession.getLogin());
+    submit.setPriority(priority);
     return queue.submit(submit.build());
   }
 }
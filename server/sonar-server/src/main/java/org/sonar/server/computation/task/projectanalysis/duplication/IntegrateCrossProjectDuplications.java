@@ -31,7 +31,7 @@ import org.sonar.api.config.Settings;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.duplications.block.Block;
-import org.sonar.duplications.detector.suffixtree.SuffixTreeCloneDetectionAlgorithm;
+import org.sonar.duplications.detector.CloneDetectionAlgorithm;
 import org.sonar.duplications.index.CloneGroup;
 import org.sonar.duplications.index.CloneIndex;
 import org.sonar.duplications.index.ClonePart;
@@ -67,7 +67,8 @@ public class IntegrateCrossProjectDuplications {
     populateIndex(duplicationIndex, originBlocks);
     populateIndex(duplicationIndex, duplicationBlocks);
 
-    List<CloneGroup> duplications = SuffixTreeCloneDetectionAlgorithm.detect(duplicationIndex, originBlocks);
+    List<CloneGroup> duplications = CloneDetectionAlgorithm.fromProperty(settings.getString(CloneDetectionAlgorithm.PROPERTY))
+      .detect(duplicationIndex, originBlocks);
     Iterable<CloneGroup> filtered = from(duplications).filter(getNumberOfUnitsNotLessThan(component.getFileAttributes().getLanguageKey()));
     addDuplications(component, filtered);
   }
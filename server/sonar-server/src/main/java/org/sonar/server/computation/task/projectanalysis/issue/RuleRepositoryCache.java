@@ -0,0 +1,88 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.concurrent.Immutable;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.rule.RuleDto;
+
+/**
+ * Rules loaded from DB, shared by the {@link RuleRepositoryImpl} of all the tasks processed by Compute Engine.
+ * They are loaded again only when the version of rules in DB changes (see {@link org.sonar.db.rule.RuleDao#selectVersion(DbSession)}),
+ * for example when plugins are upgraded or when a rule is updated from web server.
+ */
+public class RuleRepositoryCache {
+
+  private final DbClient dbClient;
+
+  @CheckForNull
+  private String version;
+  @CheckForNull
+  private Rules rules;
+
+  public RuleRepositoryCache(DbClient dbClient) {
+    this.dbClient = dbClient;
+  }
+
+  public synchronized Rules get(DbSession dbSession) {
+    // version is read before rules, so that a concurrent change can only trigger an unneeded reload
+    String currentVersion = dbClient.ruleDao().selectVersion(dbSession);
+    if (rules == null || !currentVersion.equals(version)) {
+      rules = Rules.load(dbClient, dbSession);
+      version = currentVersion;
+    }
+    return rules;
+  }
+
+  @Immutable
+  public static final class Rules {
+    private final Map<RuleKey, Rule> rulesByKey;
+    private final Map<Integer, Rule> rulesById;
+
+    private Rules(Map<RuleKey, Rule> rulesByKey, Map<Integer, Rule> rulesById) {
+      this.rulesByKey = rulesByKey;
+      this.rulesById = rulesById;
+    }
+
+    static Rules load(DbClient dbClient, DbSession dbSession) {
+      ImmutableMap.Builder<RuleKey, Rule> rulesByKeyBuilder = ImmutableMap.builder();
+      ImmutableMap.Builder<Integer, Rule> rulesByIdBuilder = ImmutableMap.builder();
+      for (RuleDto ruleDto : dbClient.ruleDao().selectAll(dbSession)) {
+        Rule rule = new RuleImpl(ruleDto);
+        rulesByKeyBuilder.put(ruleDto.getKey(), rule);
+        rulesByIdBuilder.put(ruleDto.getId(), rule);
+      }
+      return new Rules(rulesByKeyBuilder.build(), rulesByIdBuilder.build());
+    }
+
+    Map<RuleKey, Rule> getRulesByKey() {
+      return rulesByKey;
+    }
+
+    Map<Integer, Rule> getRulesById() {
+      return rulesById;
+    }
+  }
+}
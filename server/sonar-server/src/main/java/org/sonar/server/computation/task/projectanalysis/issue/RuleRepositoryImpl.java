@@ -20,13 +20,12 @@
 package org.sonar.server.computation.task.projectanalysis.issue;
 
 import com.google.common.base.Optional;
-import com.google.common.collect.ImmutableMap;
 import java.util.Map;
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
-import org.sonar.db.rule.RuleDto;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
@@ -39,9 +38,19 @@ public class RuleRepositoryImpl implements RuleRepository {
   private Map<Integer, Rule> rulesById;
 
   private final DbClient dbClient;
+  @CheckForNull
+  private final RuleRepositoryCache cache;
 
-  public RuleRepositoryImpl(DbClient dbClient) {
+  public RuleRepositoryImpl(DbClient dbClient, @Nullable RuleRepositoryCache cache) {
     this.dbClient = dbClient;
+    this.cache = cache;
+  }
+
+  /**
+   * Used when rules are not cached between tasks
+   */
+  public RuleRepositoryImpl(DbClient dbClient) {
+    this(dbClient, null);
   }
 
   @Override
@@ -96,15 +105,9 @@ public class RuleRepositoryImpl implements RuleRepository {
   }
 
   private void loadRulesFromDb(DbSession dbSession) {
-    ImmutableMap.Builder<RuleKey, Rule> rulesByKeyBuilder = ImmutableMap.builder();
-    ImmutableMap.Builder<Integer, Rule> rulesByIdBuilder = ImmutableMap.builder();
-    for (RuleDto ruleDto : dbClient.ruleDao().selectAll(dbSession)) {
-      Rule rule = new RuleImpl(ruleDto);
-      rulesByKeyBuilder.put(ruleDto.getKey(), rule);
-      rulesByIdBuilder.put(ruleDto.getId(), rule);
-    }
-    this.rulesByKey = rulesByKeyBuilder.build();
-    this.rulesById = rulesByIdBuilder.build();
+    RuleRepositoryCache.Rules rules = cache == null ? RuleRepositoryCache.Rules.load(dbClient, dbSession) : cache.get(dbSession);
+    this.rulesByKey = rules.getRulesByKey();
+    this.rulesById = rules.getRulesById();
   }
 
 }
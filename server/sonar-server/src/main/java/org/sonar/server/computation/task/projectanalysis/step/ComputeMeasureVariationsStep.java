@@ -22,6 +22,7 @@ package org.sonar.server.computation.task.projectanalysis.step;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -52,8 +53,6 @@ import org.sonar.server.computation.task.step.ComputationStep;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.String.format;
-import static java.util.function.Function.identity;
-import static org.sonar.core.util.stream.Collectors.uniqueIndex;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.SUBVIEW;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
@@ -83,27 +82,41 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
 
   @Override
   public void execute() {
+    List<Metric> metrics = StreamSupport.stream(metricRepository.getAll().spliterator(), false).filter(NumericMetric.INSTANCE::apply).collect(Collectors.toList());
+    PastMeasures pastMeasures;
     DbSession dbSession = dbClient.openSession(false);
     try {
-      List<Metric> metrics = StreamSupport.stream(metricRepository.getAll().spliterator(), false).filter(NumericMetric.INSTANCE::apply).collect(Collectors.toList());
-      new DepthTraversalTypeAwareCrawler(new VariationMeasuresVisitor(dbSession, metrics))
-        .visit(treeRootHolder.getRoot());
+      pastMeasures = loadPastMeasures(dbSession, metrics);
     } finally {
       dbClient.closeSession(dbSession);
     }
+    new DepthTraversalTypeAwareCrawler(new VariationMeasuresVisitor(pastMeasures, metrics))
+      .visit(treeRootHolder.getRoot());
+  }
+
+  /**
+   * Past measures of all the components are loaded once per period, instead of once per component and per period.
+   */
+  private PastMeasures loadPastMeasures(DbSession dbSession, List<Metric> metrics) {
+    Set<Integer> metricIds = metrics.stream().map(MetricDtoToMetricId.INSTANCE::apply).collect(Collectors.toSet());
+    PastMeasures pastMeasures = new PastMeasures(metricIds);
+    for (Period period : periodsHolder.getPeriods()) {
+      int periodIndex = period.getIndex();
+      dbClient.measureDao().selectNonFilePastMeasures(dbSession, period.getAnalysisUuid(), metricIds,
+        resultContext -> pastMeasures.add(periodIndex, (PastMeasureDto) resultContext.getResultObject()));
+    }
+    return pastMeasures;
   }
 
   private class VariationMeasuresVisitor extends TypeAwareVisitorAdapter {
 
-    private final DbSession session;
-    private final Set<Integer> metricIds;
+    private final PastMeasures pastMeasures;
     private final List<Metric> metrics;
 
-    VariationMeasuresVisitor(DbSession session, List<Metric> metrics) {
+    VariationMeasuresVisitor(PastMeasures pastMeasures, List<Metric> metrics) {
       // measures on files are currently purged, so past measures are not available on files
       super(CrawlerDepthLimit.reportMaxDepth(DIRECTORY).withViewsMaxDepth(SUBVIEW), PRE_ORDER);
-      this.session = session;
-      this.metricIds = metrics.stream().map(MetricDtoToMetricId.INSTANCE::apply).collect(Collectors.toSet());
+      this.pastMeasures = pastMeasures;
       this.metrics = metrics;
     }
 
@@ -116,22 +129,16 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
     private MeasuresWithVariationRepository computeMeasuresWithVariations(Component component) {
       MeasuresWithVariationRepository measuresWithVariationRepository = new MeasuresWithVariationRepository();
       for (Period period : periodsHolder.getPeriods()) {
-        List<PastMeasureDto> pastMeasures = dbClient.measureDao()
-          .selectPastMeasures(session, component.getUuid(), period.getAnalysisUuid(), metricIds);
-        setVariationMeasures(component, pastMeasures, period.getIndex(), measuresWithVariationRepository);
+        setVariationMeasures(component, period.getIndex(), measuresWithVariationRepository);
       }
       return measuresWithVariationRepository;
     }
 
-    private void setVariationMeasures(Component component, List<PastMeasureDto> pastMeasures, int period, MeasuresWithVariationRepository measuresWithVariationRepository) {
-      Map<MeasureKey, PastMeasureDto> pastMeasuresByMeasureKey = pastMeasures
-        .stream()
-        .collect(uniqueIndex(m -> new MeasureKey(metricRepository.getById((long) m.getMetricId()).getKey(), null), identity()));
+    private void setVariationMeasures(Component component, int period, MeasuresWithVariationRepository measuresWithVariationRepository) {
       for (Metric metric : metrics) {
         Optional<Measure> measure = measureRepository.getRawMeasure(component, metric);
         if (measure.isPresent() && !measure.get().hasVariations()) {
-          PastMeasureDto pastMeasure = pastMeasuresByMeasureKey.get(new MeasureKey(metric.getKey(), null));
-          double pastValue = (pastMeasure != null && pastMeasure.hasValue()) ? pastMeasure.getValue() : 0d;
+          double pastValue = pastMeasures.getValue(component.getUuid(), period, metric.getId());
           measuresWithVariationRepository.add(metric, measure.get(), period, computeVariation(measure.get(), pastValue));
         }
       }
@@ -168,6 +175,44 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
     }
   }
 
+  /**
+   * Values of past measures, by component UUID. For each component, values are stored in one array per period, indexed
+   * by the position of the metric id in the sorted {@link #metricIds}. Missing measures have value 0.
+   */
+  private static final class PastMeasures {
+    private static final int MAX_PERIODS = 5;
+
+    private final int[] metricIds;
+    private final Map<String, double[][]> valuesByComponentUuid = new HashMap<>();
+
+    PastMeasures(Collection<Integer> metricIds) {
+      this.metricIds = metricIds.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    void add(int periodIndex, PastMeasureDto pastMeasure) {
+      int metricPosition = Arrays.binarySearch(metricIds, pastMeasure.getMetricId());
+      if (metricPosition < 0) {
+        return;
+      }
+      double[][] valuesByPeriod = valuesByComponentUuid.computeIfAbsent(pastMeasure.getComponentUuid(), uuid -> new double[MAX_PERIODS][]);
+      double[] values = valuesByPeriod[periodIndex - 1];
+      if (values == null) {
+        values = new double[metricIds.length];
+        valuesByPeriod[periodIndex - 1] = values;
+      }
+      values[metricPosition] = pastMeasure.getValue();
+    }
+
+    double getValue(String componentUuid, int periodIndex, int metricId) {
+      double[][] valuesByPeriod = valuesByComponentUuid.get(componentUuid);
+      if (valuesByPeriod == null || valuesByPeriod[periodIndex - 1] == null) {
+        return 0d;
+      }
+      int metricPosition = Arrays.binarySearch(metricIds, metricId);
+      return metricPosition < 0 ? 0d : valuesByPeriod[periodIndex - 1][metricPosition];
+    }
+  }
+
   private static final class MeasuresWithVariationRepository {
 
     private final Map<MeasureKey, MeasureWithVariations> measuresWithVariations = new HashMap<>();
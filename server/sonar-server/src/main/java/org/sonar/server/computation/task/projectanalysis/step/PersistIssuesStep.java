@@ -19,26 +19,42 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import org.sonar.api.issue.IssueComment;
 import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.issue.DefaultIssueComment;
 import org.sonar.core.issue.FieldDiffs;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.db.BulkInsert;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.MyBatis;
+import org.sonar.db.dialect.Dialect;
 import org.sonar.db.issue.IssueChangeDto;
-import org.sonar.db.issue.IssueChangeMapper;
 import org.sonar.db.issue.IssueDto;
 import org.sonar.db.issue.IssueMapper;
-import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
-import org.sonar.db.DbSession;
-import org.sonar.db.MyBatis;
 import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepository;
-import org.sonar.db.DbClient;
-import org.sonar.core.util.CloseableIterator;
+import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
 import org.sonar.server.computation.task.step.ComputationStep;
 
+import static java.util.stream.Collectors.toList;
+
 public class PersistIssuesStep implements ComputationStep {
 
+  private static final Logger LOGGER = Loggers.get(PersistIssuesStep.class);
+
+  /**
+   * Number of changed issues kept in memory before being updated at once
+   */
+  private static final int UPDATE_BUFFER_SIZE = 1_000;
+
   private final DbClient dbClient;
   private final System2 system2;
   private final UpdateConflictResolver conflictResolver;
@@ -57,53 +73,69 @@ public class PersistIssuesStep implements ComputationStep {
   @Override
   public void execute() {
     DbSession session = dbClient.openSession(true);
-    IssueMapper mapper = session.getMapper(IssueMapper.class);
-    IssueChangeMapper changeMapper = session.getMapper(IssueChangeMapper.class);
+    Dialect dialect = dbClient.getDatabase().getDialect();
+    BulkInsert<IssueDto> issueInserts = dbClient.issueDao().newBulkInsert(session, dialect);
+    BulkInsert<IssueChangeDto> changeInserts = dbClient.issueChangeDao().newBulkInsert(session, dialect);
+    List<DefaultIssue> changedIssues = new ArrayList<>();
 
     CloseableIterator<DefaultIssue> issues = issueCache.traverse();
     try {
       while (issues.hasNext()) {
         DefaultIssue issue = issues.next();
-        boolean saved = false;
         if (issue.isNew()) {
           Integer ruleId = ruleRepository.getByKey(issue.ruleKey()).getId();
-          IssueDto dto = IssueDto.toDtoForComputationInsert(issue, ruleId, system2.now());
-          mapper.insert(dto);
-          saved = true;
+          issueInserts.add(IssueDto.toDtoForComputationInsert(issue, ruleId, system2.now()));
+          insertChanges(changeInserts, issue);
         } else if (issue.isChanged()) {
-          IssueDto dto = IssueDto.toDtoForUpdate(issue, system2.now());
-          int updateCount = mapper.updateIfBeforeSelectedDate(dto);
-          if (updateCount == 0) {
-            // End-user and scan changed the issue at the same time.
-            // See https://jira.sonarsource.com/browse/SONAR-4309
-            conflictResolver.resolve(issue, mapper);
+          changedIssues.add(issue);
+          if (changedIssues.size() >= UPDATE_BUFFER_SIZE) {
+            updateIssues(session, changedIssues, changeInserts);
           }
-          saved = true;
-        }
-        if (saved) {
-          insertChanges(changeMapper, issue);
         }
       }
+      updateIssues(session, changedIssues, changeInserts);
+      issueInserts.close();
+      changeInserts.close();
       session.flushStatements();
-      session.commit();
+      // inserts are not executed by MyBatis, so commit must be forced
+      session.commit(true);
+      LOGGER.debug("{} issues inserted ({} rows/s), {} issue changes inserted ({} rows/s)",
+        issueInserts.getCount(), issueInserts.getRowsPerSecond(), changeInserts.getCount(), changeInserts.getRowsPerSecond());
     } finally {
       MyBatis.closeQuietly(session);
       issues.close();
     }
   }
 
-  private static void insertChanges(IssueChangeMapper mapper, DefaultIssue issue) {
+  private void updateIssues(DbSession session, List<DefaultIssue> changedIssues, BulkInsert<IssueChangeDto> changeInserts) {
+    if (changedIssues.isEmpty()) {
+      return;
+    }
+    long now = system2.now();
+    List<IssueDto> dtos = changedIssues.stream().map(issue -> IssueDto.toDtoForUpdate(issue, now)).collect(toList());
+    Set<String> conflictingKeys = new HashSet<>(dbClient.issueDao().updateIfBeforeSelectedDate(session, dtos));
+    IssueMapper mapper = session.getMapper(IssueMapper.class);
+    for (DefaultIssue issue : changedIssues) {
+      if (conflictingKeys.contains(issue.key())) {
+        // End-user and scan changed the issue at the same time.
+        // See https://jira.sonarsource.com/browse/SONAR-4309
+        conflictResolver.resolve(issue, mapper);
+      }
+      insertChanges(changeInserts, issue);
+    }
+    changedIssues.clear();
+  }
+
+  private static void insertChanges(BulkInsert<IssueChangeDto> changeInserts, DefaultIssue issue) {
     for (IssueComment comment : issue.comments()) {
       DefaultIssueComment c = (DefaultIssueComment) comment;
       if (c.isNew()) {
-        IssueChangeDto changeDto = IssueChangeDto.of(c);
-        mapper.insert(changeDto);
+        changeInserts.add(IssueChangeDto.of(c));
       }
     }
     FieldDiffs diffs = issue.currentChange();
     if (!issue.isNew() && diffs != null) {
-      IssueChangeDto changeDto = IssueChangeDto.of(issue.key(), diffs);
-      mapper.insert(changeDto);
+      changeInserts.add(IssueChangeDto.of(issue.key(), diffs));
     }
   }
 
@@ -27,9 +27,11 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.BulkInsert;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
-import org.sonar.db.measure.MeasureDao;
 import org.sonar.db.measure.MeasureDto;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
@@ -52,6 +54,8 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
 
 public class PersistMeasuresStep implements ComputationStep {
 
+  private static final Logger LOGGER = Loggers.get(PersistMeasuresStep.class);
+
   /**
    * List of metrics that should not be persisted on file measure (Waiting for SONAR-6688 to be implemented)
    */
@@ -82,21 +86,22 @@ public class PersistMeasuresStep implements ComputationStep {
 
   @Override
   public void execute() {
-    DbSession dbSession = dbClient.openSession(true);
-    try {
-      new DepthTraversalTypeAwareCrawler(new MeasureVisitor(dbSession)).visit(treeRootHolder.getRoot());
-      dbSession.commit();
-    } finally {
-      dbSession.close();
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      BulkInsert<MeasureDto> bulkInsert = dbClient.measureDao().newBulkInsert(dbSession, dbClient.getDatabase().getDialect());
+      new DepthTraversalTypeAwareCrawler(new MeasureVisitor(bulkInsert)).visit(treeRootHolder.getRoot());
+      bulkInsert.close();
+      // statements are not executed by MyBatis, so commit must be forced
+      dbSession.commit(true);
+      LOGGER.debug("{} measures persisted ({} rows/s)", bulkInsert.getCount(), bulkInsert.getRowsPerSecond());
     }
   }
 
   private class MeasureVisitor extends TypeAwareVisitorAdapter {
-    private final DbSession session;
+    private final BulkInsert<MeasureDto> bulkInsert;
 
-    private MeasureVisitor(DbSession session) {
+    private MeasureVisitor(BulkInsert<MeasureDto> bulkInsert) {
       super(CrawlerDepthLimit.LEAVES, PRE_ORDER);
-      this.session = session;
+      this.bulkInsert = bulkInsert;
     }
 
     @Override
@@ -114,10 +119,8 @@ public class PersistMeasuresStep implements ComputationStep {
 
         Metric metric = metricRepository.getByKey(metricKey);
         Predicate<Measure> notBestValueOptimized = Predicates.not(BestValueOptimization.from(metric, component));
-        MeasureDao measureDao = dbClient.measureDao();
         for (Measure measure : from(measures.getValue()).filter(NonEmptyMeasure.INSTANCE).filter(notBestValueOptimized)) {
-          MeasureDto measureDto = measureToMeasureDto.toMeasureDto(measure, metric, component);
-          measureDao.insert(session, measureDto);
+          bulkInsert.add(measureToMeasureDto.toMeasureDto(measure, metric, component));
         }
       }
     }
@@ -0,0 +1,82 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.component.FilePathWithHashDto;
+import org.sonar.db.protobuf.DbProjectRepositories;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.step.ComputationStep;
+
+/**
+ * Persist the file data returned to scanners by api/batch/project, so that it does not need
+ * to be loaded file by file on each scanner start. Must be executed once the components,
+ * the file sources and the removal of the files deleted since previous analysis are persisted.
+ */
+public class PersistProjectRepositoryStep implements ComputationStep {
+
+  private final DbClient dbClient;
+  private final TreeRootHolder treeRootHolder;
+
+  public PersistProjectRepositoryStep(DbClient dbClient, TreeRootHolder treeRootHolder) {
+    this.dbClient = dbClient;
+    this.treeRootHolder = treeRootHolder;
+  }
+
+  @Override
+  public void execute() {
+    String projectUuid = treeRootHolder.getRoot().getUuid();
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      List<FilePathWithHashDto> files = dbClient.componentDao().selectEnabledFilesFromProject(dbSession, projectUuid);
+      dbClient.projectRepositoryDao().insertOrUpdate(dbSession, projectUuid, toRepository(files));
+      dbSession.commit();
+    }
+  }
+
+  private static DbProjectRepositories.ProjectRepository toRepository(List<FilePathWithHashDto> files) {
+    Map<String, DbProjectRepositories.ModuleFiles.Builder> filesByModuleUuid = new LinkedHashMap<>();
+    DbProjectRepositories.File.Builder fileBuilder = DbProjectRepositories.File.newBuilder();
+    for (FilePathWithHashDto file : files) {
+      DbProjectRepositories.ModuleFiles.Builder moduleFiles = filesByModuleUuid.computeIfAbsent(file.getModuleUuid(),
+        moduleUuid -> DbProjectRepositories.ModuleFiles.newBuilder().setModuleUuid(moduleUuid));
+      fileBuilder.clear().setPath(file.getPath());
+      if (file.getSrcHash() != null) {
+        fileBuilder.setSrcHash(file.getSrcHash());
+      }
+      if (file.getRevision() != null) {
+        fileBuilder.setRevision(file.getRevision());
+      }
+      moduleFiles.addFile(fileBuilder);
+    }
+
+    DbProjectRepositories.ProjectRepository.Builder repository = DbProjectRepositories.ProjectRepository.newBuilder();
+    filesByModuleUuid.values().forEach(repository::addModule);
+    return repository.build();
+  }
+
+  @Override
+  public String getDescription() {
+    return "Persist project repository";
+  }
+}
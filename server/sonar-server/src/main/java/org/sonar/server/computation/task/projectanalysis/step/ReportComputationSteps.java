@@ -102,6 +102,8 @@ public class ReportComputationSteps extends AbstractComputationSteps {
     UpdateQualityProfilesLastUsedDateStep.class,
     IndexComponentsStep.class,
     PurgeDatastoresStep.class,
+    // Must be executed after the removal of deleted files
+    PersistProjectRepositoryStep.class,
 
     // ES indexing is done after all db changes
     IndexIssuesStep.class,
@@ -20,9 +20,13 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.sonar.api.issue.Issue;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
@@ -32,37 +36,51 @@ import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepository;
 import org.sonar.server.computation.task.step.ComputationStep;
 import org.sonar.server.issue.notification.IssueChangeNotification;
+import org.sonar.server.issue.notification.IssueChangesDigestNotification;
 import org.sonar.server.issue.notification.MyNewIssuesNotification;
 import org.sonar.server.issue.notification.NewIssuesNotification;
 import org.sonar.server.issue.notification.NewIssuesNotificationFactory;
 import org.sonar.server.issue.notification.NewIssuesStatistics;
+import org.sonar.server.notification.DefaultNotificationManager;
 import org.sonar.server.notification.NotificationService;
 
 /**
  * Reads issues from disk cache and send related notifications. For performance reasons,
  * the standard notification DB queue is not used as a temporary storage. Notifications
- * are directly processed by {@link NotificationService}.
+ * are directly processed by {@link NotificationService}, with the subscriptions loaded once
+ * for the whole step.
+ * <p/>
+ * Changes on the issues of an assignee are grouped in a {@link IssueChangesDigestNotification},
+ * except when they resolve the issue as false-positive or won't fix.
  */
 public class SendIssueNotificationsStep implements ComputationStep {
   /**
    * Types of the notifications sent by this step
    */
-  static final Set<String> NOTIF_TYPES = ImmutableSet.of(IssueChangeNotification.TYPE, NewIssuesNotification.TYPE, MyNewIssuesNotification.MY_NEW_ISSUES_NOTIF_TYPE);
+  static final Set<String> NOTIF_TYPES = ImmutableSet.of(IssueChangeNotification.TYPE, IssueChangesDigestNotification.TYPE, NewIssuesNotification.TYPE,
+    MyNewIssuesNotification.MY_NEW_ISSUES_NOTIF_TYPE);
+
+  /**
+   * Maximum number of issue changes in a digest, so that emails remain readable
+   */
+  static final int MAX_CHANGES_PER_DIGEST = 100;
 
   private final IssueCache issueCache;
   private final RuleRepository rules;
   private final TreeRootHolder treeRootHolder;
   private final NotificationService service;
+  private final DefaultNotificationManager notificationManager;
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private NewIssuesNotificationFactory newIssuesNotificationFactory;
 
   public SendIssueNotificationsStep(IssueCache issueCache, RuleRepository rules, TreeRootHolder treeRootHolder,
-    NotificationService service, AnalysisMetadataHolder analysisMetadataHolder,
+    NotificationService service, DefaultNotificationManager notificationManager, AnalysisMetadataHolder analysisMetadataHolder,
     NewIssuesNotificationFactory newIssuesNotificationFactory) {
     this.issueCache = issueCache;
     this.rules = rules;
     this.treeRootHolder = treeRootHolder;
     this.service = service;
+    this.notificationManager = notificationManager;
     this.analysisMetadataHolder = analysisMetadataHolder;
     this.newIssuesNotificationFactory = newIssuesNotificationFactory;
   }
@@ -71,7 +89,7 @@ public class SendIssueNotificationsStep implements ComputationStep {
   public void execute() {
     Component project = treeRootHolder.getRoot();
     if (service.hasProjectSubscribersForTypes(project.getUuid(), NOTIF_TYPES)) {
-      doExecute(project);
+      notificationManager.withRecipientsCache(() -> doExecute(project));
     }
   }
 
@@ -91,22 +109,55 @@ public class SendIssueNotificationsStep implements ComputationStep {
   }
 
   private void processIssues(NewIssuesStatistics newIssuesStats, CloseableIterator<DefaultIssue> issues, Component project) {
+    Map<String, List<IssueChangeNotification>> changesByAssignee = new HashMap<>();
     while (issues.hasNext()) {
       DefaultIssue issue = issues.next();
       if (issue.isNew() && issue.resolution() == null) {
         newIssuesStats.add(issue);
       } else if (issue.isChanged() && issue.mustSendNotifications()) {
-        sendIssueChangeNotification(issue, project);
+        IssueChangeNotification changeNotification = newIssueChangeNotification(issue, project);
+        if (isDigestable(issue)) {
+          List<IssueChangeNotification> changes = changesByAssignee.computeIfAbsent(issue.assignee(), assignee -> new ArrayList<>());
+          changes.add(changeNotification);
+          if (changes.size() == MAX_CHANGES_PER_DIGEST) {
+            sendIssueChangeNotifications(issue.assignee(), changes, project);
+            changesByAssignee.remove(issue.assignee());
+          }
+        } else {
+          service.deliver(changeNotification);
+        }
       }
     }
+    changesByAssignee.forEach((assignee, changes) -> sendIssueChangeNotifications(assignee, changes, project));
+  }
+
+  /**
+   * Resolutions as false-positive or won't fix are also dispatched to the subscribers of the project, so they
+   * are never grouped by assignee.
+   */
+  private static boolean isDigestable(DefaultIssue issue) {
+    String resolution = issue.resolution();
+    return issue.assignee() != null && !Issue.RESOLUTION_FALSE_POSITIVE.equals(resolution) && !Issue.RESOLUTION_WONT_FIX.equals(resolution);
   }
 
-  private void sendIssueChangeNotification(DefaultIssue issue, Component project) {
+  private IssueChangeNotification newIssueChangeNotification(DefaultIssue issue, Component project) {
     IssueChangeNotification changeNotification = new IssueChangeNotification();
     changeNotification.setRuleName(rules.getByKey(issue.ruleKey()).getName());
     changeNotification.setIssue(issue);
     changeNotification.setProject(project.getKey(), project.getName());
-    service.deliver(changeNotification);
+    return changeNotification;
+  }
+
+  private void sendIssueChangeNotifications(String assignee, List<IssueChangeNotification> changes, Component project) {
+    if (changes.size() == 1) {
+      service.deliver(changes.get(0));
+      return;
+    }
+    IssueChangesDigestNotification digest = new IssueChangesDigestNotification()
+      .setAssignee(assignee)
+      .setProject(project.getKey(), project.getName());
+    changes.forEach(digest::addChange);
+    service.deliver(digest);
   }
 
   private void sendNewIssuesNotification(NewIssuesStatistics statistics, Component project, long analysisDate) {
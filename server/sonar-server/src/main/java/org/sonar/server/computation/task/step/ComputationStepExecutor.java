@@ -19,29 +19,50 @@
  */
 package org.sonar.server.computation.task.step;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.logs.Profiler;
+import org.sonar.db.profiling.SqlStatementCounter;
 
 public final class ComputationStepExecutor {
   private static final Logger LOGGER = Loggers.get(ComputationStepExecutor.class);
 
   private final ComputationSteps steps;
   @CheckForNull
+  private final ComputationStepMetricsHolder metricsHolder;
+  @CheckForNull
   private final Listener listener;
+  private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
 
   /**
-   * Used when no {@link ComputationStepExecutor.Listener} is available in pico
+   * Used when no {@link ComputationStepExecutor.Listener} nor {@link ComputationStepMetricsHolder} is available in pico
    * container.
    */
   public ComputationStepExecutor(ComputationSteps steps) {
-    this(steps, null);
+    this(steps, null, null);
   }
 
+  /**
+   * Used when no {@link ComputationStepMetricsHolder} is available in pico container.
+   */
   public ComputationStepExecutor(ComputationSteps steps, @Nullable Listener listener) {
+    this(steps, null, listener);
+  }
+
+  /**
+   * Used when no {@link ComputationStepExecutor.Listener} is available in pico container.
+   */
+  public ComputationStepExecutor(ComputationSteps steps, @Nullable ComputationStepMetricsHolder metricsHolder) {
+    this(steps, metricsHolder, null);
+  }
+
+  public ComputationStepExecutor(ComputationSteps steps, @Nullable ComputationStepMetricsHolder metricsHolder, @Nullable Listener listener) {
     this.steps = steps;
+    this.metricsHolder = metricsHolder;
     this.listener = listener;
   }
 
@@ -61,11 +82,59 @@ public final class ComputationStepExecutor {
   private void executeSteps(Profiler stepProfiler) {
     for (ComputationStep step : steps.instances()) {
       stepProfiler.start();
-      step.execute();
+      if (metricsHolder == null) {
+        step.execute();
+      } else {
+        executeMeasured(step);
+      }
       stepProfiler.stopDebug(step.getDescription());
     }
   }
 
+  private void executeMeasured(ComputationStep step) {
+    long startNanos = System.nanoTime();
+    long startCpuNanos = currentThreadCpuTimeNanos();
+    long startAllocatedBytes = currentThreadAllocatedBytes();
+    SqlStatementCounter.Counts startSql = SqlStatementCounter.current();
+    try {
+      step.execute();
+    } finally {
+      SqlStatementCounter.Counts endSql = SqlStatementCounter.current();
+      metricsHolder.add(new ComputationStepMetrics(
+        step.getDescription(),
+        toMillis(System.nanoTime() - startNanos),
+        toMillis(delta(startCpuNanos, currentThreadCpuTimeNanos())),
+        delta(startAllocatedBytes, currentThreadAllocatedBytes()),
+        endSql.getStatements() - startSql.getStatements(),
+        endSql.getRows() - startSql.getRows()));
+    }
+  }
+
+  private static long delta(long start, long end) {
+    if (start < 0 || end < 0) {
+      return -1L;
+    }
+    return end - start;
+  }
+
+  private static long toMillis(long nanos) {
+    return nanos < 0 ? nanos : (nanos / 1_000_000L);
+  }
+
+  private long currentThreadCpuTimeNanos() {
+    if (threadMXBean.isCurrentThreadCpuTimeSupported()) {
+      return threadMXBean.getCurrentThreadCpuTime();
+    }
+    return -1L;
+  }
+
+  private long currentThreadAllocatedBytes() {
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1L;
+  }
+
   private void executeListener(boolean allStepsExecuted) {
     try {
       listener.finished(allStepsExecuted);
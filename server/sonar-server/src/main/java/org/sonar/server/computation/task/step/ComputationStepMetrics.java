@@ -0,0 +1,118 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.commons.lang.StringUtils;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Resources consumed by the execution of a {@link ComputationStep}: wall time, CPU time and bytes allocated
+ * by the worker thread, and SQL statements executed through {@link org.sonar.db.DbSession} with the number
+ * of rows they returned. CPU time and allocated bytes are -1 when not supported by the JVM.
+ */
+public class ComputationStepMetrics {
+
+  private static final char FIELD_SEPARATOR = ';';
+  private static final char LINE_SEPARATOR = '\n';
+  private static final int NUMERIC_FIELDS = 5;
+
+  private final String description;
+  private final long wallTimeMs;
+  private final long cpuTimeMs;
+  private final long allocatedBytes;
+  private final long sqlStatements;
+  private final long sqlRows;
+
+  public ComputationStepMetrics(String description, long wallTimeMs, long cpuTimeMs, long allocatedBytes, long sqlStatements, long sqlRows) {
+    this.description = requireNonNull(description, "description can't be null");
+    this.wallTimeMs = wallTimeMs;
+    this.cpuTimeMs = cpuTimeMs;
+    this.allocatedBytes = allocatedBytes;
+    this.sqlStatements = sqlStatements;
+    this.sqlRows = sqlRows;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public long getWallTimeMs() {
+    return wallTimeMs;
+  }
+
+  public long getCpuTimeMs() {
+    return cpuTimeMs;
+  }
+
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  public long getSqlStatements() {
+    return sqlStatements;
+  }
+
+  public long getSqlRows() {
+    return sqlRows;
+  }
+
+  /**
+   * Serializes metrics as text, one step per line, as persisted in column CE_ACTIVITY.STEP_METRICS.
+   */
+  public static String format(List<ComputationStepMetrics> metrics) {
+    StringBuilder sb = new StringBuilder();
+    for (ComputationStepMetrics m : metrics) {
+      if (sb.length() > 0) {
+        sb.append(LINE_SEPARATOR);
+      }
+      sb.append(m.wallTimeMs).append(FIELD_SEPARATOR)
+        .append(m.cpuTimeMs).append(FIELD_SEPARATOR)
+        .append(m.allocatedBytes).append(FIELD_SEPARATOR)
+        .append(m.sqlStatements).append(FIELD_SEPARATOR)
+        .append(m.sqlRows).append(FIELD_SEPARATOR)
+        .append(StringUtils.replaceChars(m.description, LINE_SEPARATOR, ' '));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Reverse operation of {@link #format(List)}
+   */
+  public static List<ComputationStepMetrics> parse(@Nullable String text) {
+    List<ComputationStepMetrics> result = new ArrayList<>();
+    if (StringUtils.isEmpty(text)) {
+      return result;
+    }
+    for (String line : StringUtils.split(text, LINE_SEPARATOR)) {
+      String[] fields = StringUtils.splitPreserveAllTokens(line, FIELD_SEPARATOR);
+      if (fields.length <= NUMERIC_FIELDS) {
+        throw new IllegalArgumentException("Invalid step metrics: " + line);
+      }
+      String description = StringUtils.join(fields, FIELD_SEPARATOR, NUMERIC_FIELDS, fields.length);
+      result.add(new ComputationStepMetrics(description, Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+        Long.parseLong(fields[3]), Long.parseLong(fields[4])));
+    }
+    return result;
+  }
+}
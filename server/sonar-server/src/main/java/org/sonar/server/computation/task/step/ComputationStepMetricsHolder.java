@@ -0,0 +1,112 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.sonar.api.ce.ComputeEngineSide;
+
+/**
+ * Collects the {@link ComputationStepMetrics} of the task being processed by the current worker thread, and
+ * sums them per step since startup of the Compute Engine.
+ */
+@ComputeEngineSide
+public class ComputationStepMetricsHolder {
+
+  private final ThreadLocal<List<ComputationStepMetrics>> taskMetrics = ThreadLocal.withInitial(ArrayList::new);
+  private final Map<String, StepTotals> totalsByStep = new ConcurrentHashMap<>();
+
+  public void add(ComputationStepMetrics metrics) {
+    taskMetrics.get().add(metrics);
+    totalsByStep.computeIfAbsent(metrics.getDescription(), StepTotals::new).add(metrics);
+  }
+
+  /**
+   * Metrics of the steps executed by the current thread since last call to this method.
+   */
+  public List<ComputationStepMetrics> popTaskMetrics() {
+    List<ComputationStepMetrics> metrics = taskMetrics.get();
+    taskMetrics.remove();
+    return metrics;
+  }
+
+  public List<StepTotals> getTotals() {
+    return new ArrayList<>(totalsByStep.values());
+  }
+
+  public static final class StepTotals {
+    private final String description;
+    private long executions;
+    private long wallTimeMs;
+    private long cpuTimeMs;
+    private long allocatedBytes;
+    private long sqlStatements;
+    private long sqlRows;
+
+    private StepTotals(String description) {
+      this.description = description;
+    }
+
+    private synchronized void add(ComputationStepMetrics metrics) {
+      executions++;
+      wallTimeMs += metrics.getWallTimeMs();
+      cpuTimeMs += Math.max(0, metrics.getCpuTimeMs());
+      allocatedBytes += Math.max(0, metrics.getAllocatedBytes());
+      sqlStatements += metrics.getSqlStatements();
+      sqlRows += metrics.getSqlRows();
+    }
+
+    public String getDescription() {
+      return description;
+    }
+
+    public synchronized long getExecutions() {
+      return executions;
+    }
+
+    public synchronized long getWallTimeMs() {
+      return wallTimeMs;
+    }
+
+    public synchronized long getCpuTimeMs() {
+      return cpuTimeMs;
+    }
+
+    public synchronized long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
+    public synchronized long getSqlStatements() {
+      return sqlStatements;
+    }
+
+    public synchronized long getSqlRows() {
+      return sqlRows;
+    }
+
+    @Override
+    public synchronized String toString() {
+      return description + ": " + executions + " executions, wall " + wallTimeMs + "ms, CPU " + cpuTimeMs + "ms, allocated "
+        + allocatedBytes + " bytes, " + sqlStatements + " SQL statements, " + sqlRows + " SQL rows";
+    }
+  }
+}
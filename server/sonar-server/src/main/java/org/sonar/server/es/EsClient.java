@@ -38,6 +38,7 @@ import org.elasticsearch.action.delete.DeleteRequestBuilder;
 import org.elasticsearch.action.get.GetRequestBuilder;
 import org.elasticsearch.action.get.MultiGetRequestBuilder;
 import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.ClearScrollRequestBuilder;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchScrollRequestBuilder;
 import org.elasticsearch.client.Client;
@@ -136,6 +137,11 @@ public class EsClient implements Closeable {
     return new ProxySearchScrollRequestBuilder(scrollId, nativeClient());
   }
 
+  public ClearScrollRequestBuilder prepareClearScroll(String scrollId) {
+    // TODO add proxy for profiling
+    return nativeClient().prepareClearScroll().addScrollId(scrollId);
+  }
+
   public GetRequestBuilder prepareGet() {
     return new ProxyGetRequestBuilder(nativeClient());
   }
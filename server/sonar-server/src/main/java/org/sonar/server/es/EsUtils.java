@@ -35,6 +35,7 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchScrollRequestBuilder;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.search.SearchHit;
@@ -104,29 +105,50 @@ public class EsUtils {
   }
 
   public static <D extends BaseDoc> Iterator<D> scroll(EsClient esClient, String scrollId, Function<Map<String, Object>, D> docConverter) {
-    return new DocScrollIterator<>(esClient, scrollId, docConverter);
+    return new DocScrollIterator<>(esClient, scrollId, new SearchHit[0], false, docConverter);
+  }
+
+  /**
+   * Iterates on all the hits of a scroll search sorted on "_doc", which is as cheap as search type SCAN
+   * but returns hits from the first response, saving a round-trip. The scroll context is released
+   * as soon as the last hit is read, instead of waiting for its expiration.
+   */
+  public static <D extends BaseDoc> Iterator<D> scroll(EsClient esClient, SearchResponse firstResponse, Function<Map<String, Object>, D> docConverter) {
+    return new DocScrollIterator<>(esClient, firstResponse.getScrollId(), firstResponse.getHits().getHits(), true, docConverter);
   }
 
   private static class DocScrollIterator<D extends BaseDoc> implements Iterator<D> {
 
     private final EsClient esClient;
-    private final String scrollId;
+    private final boolean clearOnEnd;
     private final Function<Map<String, Object>, D> docConverter;
 
     private final Queue<SearchHit> hits = new ArrayDeque<>();
+    private String scrollId;
+    private boolean end = false;
 
-    private DocScrollIterator(EsClient esClient, String scrollId, Function<Map<String, Object>, D> docConverter) {
+    private DocScrollIterator(EsClient esClient, String scrollId, SearchHit[] firstHits, boolean clearOnEnd, Function<Map<String, Object>, D> docConverter) {
       this.esClient = esClient;
       this.scrollId = scrollId;
+      this.clearOnEnd = clearOnEnd;
       this.docConverter = docConverter;
+      Collections.addAll(hits, firstHits);
     }
 
     @Override
     public boolean hasNext() {
-      if (hits.isEmpty()) {
+      if (hits.isEmpty() && !end) {
         SearchScrollRequestBuilder esRequest = esClient.prepareSearchScroll(scrollId)
           .setScroll(TimeValue.timeValueMinutes(SCROLL_TIME_IN_MINUTES));
-        Collections.addAll(hits, esRequest.get().getHits().getHits());
+        SearchResponse response = esRequest.get();
+        scrollId = response.getScrollId();
+        Collections.addAll(hits, response.getHits().getHits());
+        if (hits.isEmpty()) {
+          end = true;
+          if (clearOnEnd) {
+            esClient.prepareClearScroll(scrollId).get();
+          }
+        }
       }
       return !hits.isEmpty();
     }
@@ -0,0 +1,58 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.notification;
+
+import com.google.common.collect.Multimap;
+import org.sonar.api.notifications.Notification;
+import org.sonar.api.notifications.NotificationChannel;
+import org.sonar.server.notification.NotificationDispatcher;
+import org.sonar.server.notification.NotificationManager;
+
+/**
+ * Dispatches the {@link IssueChangesDigestNotification} to the assignee of the issues. It shares
+ * the key of {@link ChangesOnMyIssueNotificationDispatcher}, so the users subscribed to changes on their
+ * issues receive the digests, without any additional subscription.
+ */
+public class ChangesOnMyIssuesDigestNotificationDispatcher extends NotificationDispatcher {
+
+  private final NotificationManager notificationManager;
+
+  public ChangesOnMyIssuesDigestNotificationDispatcher(NotificationManager notificationManager) {
+    super(IssueChangesDigestNotification.TYPE);
+    this.notificationManager = notificationManager;
+  }
+
+  @Override
+  public String getKey() {
+    return ChangesOnMyIssueNotificationDispatcher.KEY;
+  }
+
+  @Override
+  public void dispatch(Notification notification, Context context) {
+    String assignee = notification.getFieldValue("assignee");
+    if (assignee == null) {
+      return;
+    }
+    Multimap<String, NotificationChannel> subscribedRecipients = notificationManager.findNotificationSubscribers(this, notification.getFieldValue("projectKey"));
+    for (NotificationChannel channel : subscribedRecipients.get(assignee)) {
+      context.addUser(assignee, channel);
+    }
+  }
+}
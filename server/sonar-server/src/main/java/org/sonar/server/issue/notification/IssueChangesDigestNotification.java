@@ -0,0 +1,75 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.notification;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import org.sonar.api.notifications.Notification;
+
+/**
+ * Groups the changes done on the issues assigned to a user during an analysis, so that
+ * this user receives a single notification instead of one per issue.
+ */
+public class IssueChangesDigestNotification extends Notification {
+
+  public static final String TYPE = "issue-changes-digest";
+
+  private final List<IssueChangeNotification> changes = new ArrayList<>();
+
+  public IssueChangesDigestNotification() {
+    super(TYPE);
+  }
+
+  public IssueChangesDigestNotification setAssignee(String assignee) {
+    setFieldValue("assignee", assignee);
+    return this;
+  }
+
+  public IssueChangesDigestNotification setProject(String projectKey, String projectName) {
+    setFieldValue("projectName", projectName);
+    setFieldValue("projectKey", projectKey);
+    return this;
+  }
+
+  public IssueChangesDigestNotification addChange(IssueChangeNotification change) {
+    changes.add(change);
+    setFieldValue("count", String.valueOf(changes.size()));
+    return this;
+  }
+
+  public List<IssueChangeNotification> getChanges() {
+    return Collections.unmodifiableList(changes);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!super.equals(obj) || !(obj instanceof IssueChangesDigestNotification)) {
+      return false;
+    }
+    return changes.equals(((IssueChangesDigestNotification) obj).changes);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(super.hashCode(), changes);
+  }
+}
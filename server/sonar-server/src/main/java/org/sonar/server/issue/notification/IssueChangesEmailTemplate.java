@@ -32,7 +32,7 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 
 /**
- * Creates email message for notification "issue-changes".
+ * Creates email message for notifications "issue-changes" and "issue-changes-digest".
  */
 public class IssueChangesEmailTemplate extends EmailTemplate {
 
@@ -47,16 +47,15 @@ public class IssueChangesEmailTemplate extends EmailTemplate {
 
   @Override
   public EmailMessage format(Notification notif) {
+    if (notif instanceof IssueChangesDigestNotification) {
+      return formatDigest((IssueChangesDigestNotification) notif);
+    }
     if (!IssueChangeNotification.TYPE.equals(notif.getType())) {
       return null;
     }
 
     StringBuilder sb = new StringBuilder();
-    appendHeader(notif, sb);
-    sb.append(NEW_LINE);
-    appendChanges(notif, sb);
-    sb.append(NEW_LINE);
-    appendFooter(sb, notif);
+    appendIssue(notif, sb);
 
     String projectName = notif.getFieldValue("projectName");
     String issueKey = notif.getFieldValue("key");
@@ -72,6 +71,28 @@ public class IssueChangesEmailTemplate extends EmailTemplate {
     return message;
   }
 
+  private EmailMessage formatDigest(IssueChangesDigestNotification digest) {
+    StringBuilder sb = new StringBuilder();
+    for (IssueChangeNotification change : digest.getChanges()) {
+      appendIssue(change, sb);
+      sb.append(NEW_LINE);
+    }
+
+    String projectName = digest.getFieldValue("projectName");
+    return new EmailMessage()
+      .setMessageId("issue-changes-digest/" + digest.getFieldValue("projectKey") + "/" + digest.getFieldValue("assignee"))
+      .setSubject(projectName + ", changes on " + digest.getChanges().size() + " issues")
+      .setMessage(sb.toString());
+  }
+
+  private void appendIssue(Notification notif, StringBuilder sb) {
+    appendHeader(notif, sb);
+    sb.append(NEW_LINE);
+    appendChanges(notif, sb);
+    sb.append(NEW_LINE);
+    appendFooter(sb, notif);
+  }
+
   private void appendChanges(Notification notif, StringBuilder sb) {
     appendField(sb, "Comment", null, notif.getFieldValue("comment"));
     appendFieldWithoutHistory(sb, "Assignee", notif.getFieldValue("old.assignee"), notif.getFieldValue("new.assignee"));
@@ -27,8 +27,12 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import java.io.IOException;
 import java.io.InvalidClassException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
@@ -51,6 +55,11 @@ public class DefaultNotificationManager implements NotificationManager {
 
   private boolean alreadyLoggedDeserializationIssue = false;
 
+  /**
+   * Subscriptions loaded by the current thread, when enabled by {@link #withRecipientsCache(Runnable)}
+   */
+  private final ThreadLocal<NotificationSubscribersIndex> subscribersIndex = new ThreadLocal<>();
+
   /**
    * Default constructor used by Pico
    */
@@ -100,10 +109,36 @@ public class DefaultNotificationManager implements NotificationManager {
     return convertToNotification(notificationDtos);
   }
 
+  /**
+   * Give at most {@code batchSize} notifications of the queue so that they can be processed. They are removed
+   * from the queue. Notifications which can't be read are ignored.
+   */
+  public List<QueuedNotification> getFromQueue(int batchSize) {
+    List<NotificationQueueDto> notificationDtos = notificationQueueDao.selectOldest(batchSize);
+    if (notificationDtos.isEmpty()) {
+      return Collections.emptyList();
+    }
+    notificationQueueDao.delete(notificationDtos);
+
+    List<QueuedNotification> notifications = new ArrayList<>(notificationDtos.size());
+    for (NotificationQueueDto notificationDto : notificationDtos) {
+      Notification notification = convertToNotification(notificationDto);
+      if (notification != null) {
+        notifications.add(new QueuedNotification(notification, notificationDto.getCreatedAt()));
+      }
+    }
+    return notifications;
+  }
+
   private Notification convertToNotification(List<NotificationQueueDto> notifications) {
+    // If batchSize is increased then we should return a list instead of a single element
+    return convertToNotification(notifications.get(0));
+  }
+
+  @CheckForNull
+  private Notification convertToNotification(NotificationQueueDto notification) {
     try {
-      // If batchSize is increased then we should return a list instead of a single element
-      return notifications.get(0).toNotification();
+      return notification.toNotification();
     } catch (InvalidClassException e) {
       // SONAR-4739
       if (!alreadyLoggedDeserializationIssue) {
@@ -125,6 +160,25 @@ public class DefaultNotificationManager implements NotificationManager {
     return notificationQueueDao.count();
   }
 
+  /**
+   * Runs the given code with an index of the notification subscriptions, so that {@link #findSubscribedRecipientsForDispatcher(NotificationDispatcher, String)}
+   * and {@link #findNotificationSubscribers(NotificationDispatcher, String)} do not request the database for each notification.
+   * The index is local to the current thread and is dropped once the code has been executed, so subscriptions changed
+   * in the meantime are taken into account by the next call.
+   */
+  public void withRecipientsCache(Runnable runnable) {
+    if (subscribersIndex.get() != null) {
+      runnable.run();
+      return;
+    }
+    subscribersIndex.set(new NotificationSubscribersIndex(propertiesDao));
+    try {
+      runnable.run();
+    } finally {
+      subscribersIndex.remove();
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -132,17 +186,23 @@ public class DefaultNotificationManager implements NotificationManager {
   public Multimap<String, NotificationChannel> findSubscribedRecipientsForDispatcher(NotificationDispatcher dispatcher,
                                                                                      @Nullable String projectUuid) {
     String dispatcherKey = dispatcher.getKey();
+    NotificationSubscribersIndex index = subscribersIndex.get();
 
     SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
     for (NotificationChannel channel : notificationChannels) {
       String channelKey = channel.getKey();
 
-      // Find users subscribed globally to the dispatcher (i.e. not on a specific project)
-      addUsersToRecipientListForChannel(propertiesDao.selectUsersForNotification(dispatcherKey, channelKey, null), recipients, channel);
-
-      if (projectUuid != null) {
-        // Find users subscribed to the dispatcher specifically for the project
-        addUsersToRecipientListForChannel(propertiesDao.selectUsersForNotification(dispatcherKey, channelKey, projectUuid), recipients, channel);
+      if (index != null) {
+        addUsersToRecipientListForChannel(index.getGlobalSubscribers(dispatcherKey, channelKey), recipients, channel);
+        addUsersToRecipientListForChannel(index.getProjectSubscribersByUuid(projectUuid, dispatcherKey, channelKey), recipients, channel);
+      } else {
+        // Find users subscribed globally to the dispatcher (i.e. not on a specific project)
+        addUsersToRecipientListForChannel(propertiesDao.selectUsersForNotification(dispatcherKey, channelKey, null), recipients, channel);
+
+        if (projectUuid != null) {
+          // Find users subscribed to the dispatcher specifically for the project
+          addUsersToRecipientListForChannel(propertiesDao.selectUsersForNotification(dispatcherKey, channelKey, projectUuid), recipients, channel);
+        }
       }
     }
 
@@ -152,10 +212,17 @@ public class DefaultNotificationManager implements NotificationManager {
   @Override
   public Multimap<String, NotificationChannel> findNotificationSubscribers(NotificationDispatcher dispatcher, @Nullable String componentKey) {
     String dispatcherKey = dispatcher.getKey();
+    NotificationSubscribersIndex index = subscribersIndex.get();
 
     SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
     for (NotificationChannel channel : notificationChannels) {
-      addUsersToRecipientListForChannel(propertiesDao.selectNotificationSubscribers(dispatcherKey, channel.getKey(), componentKey), recipients, channel);
+      String channelKey = channel.getKey();
+      if (index != null) {
+        addUsersToRecipientListForChannel(index.getGlobalSubscribers(dispatcherKey, channelKey), recipients, channel);
+        addUsersToRecipientListForChannel(index.getProjectSubscribersByKey(componentKey, dispatcherKey, channelKey), recipients, channel);
+      } else {
+        addUsersToRecipientListForChannel(propertiesDao.selectNotificationSubscribers(dispatcherKey, channelKey, componentKey), recipients, channel);
+      }
     }
 
     return recipients;
@@ -166,7 +233,7 @@ public class DefaultNotificationManager implements NotificationManager {
     return Arrays.asList(notificationChannels);
   }
 
-  private static void addUsersToRecipientListForChannel(List<String> users, SetMultimap<String, NotificationChannel> recipients, NotificationChannel channel) {
+  private static void addUsersToRecipientListForChannel(Collection<String> users, SetMultimap<String, NotificationChannel> recipients, NotificationChannel channel) {
     for (String username : users) {
       recipients.put(username, channel);
     }
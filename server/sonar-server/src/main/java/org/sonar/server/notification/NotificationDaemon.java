@@ -20,15 +20,28 @@
 package org.sonar.server.notification;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.SetMultimap;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.picocontainer.Startable;
 import org.sonar.api.Properties;
 import org.sonar.api.Property;
 import org.sonar.api.config.Settings;
 import org.sonar.api.notifications.Notification;
+import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.api.server.ServerSide;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -43,6 +56,26 @@ import org.sonar.api.utils.log.Loggers;
     key = NotificationDaemon.PROPERTY_DELAY_BEFORE_REPORTING_STATUS,
     defaultValue = "600",
     name = "Delay before reporting notification status, in seconds",
+    global = false),
+  @Property(
+    key = NotificationDaemon.PROPERTY_BATCH_SIZE,
+    defaultValue = "100",
+    name = "Number of notifications read at once from the queue",
+    global = false),
+  @Property(
+    key = NotificationDaemon.PROPERTY_CHANNEL_THREADS,
+    defaultValue = "2",
+    name = "Number of threads delivering notifications, per channel",
+    global = false),
+  @Property(
+    key = NotificationDaemon.PROPERTY_MAX_ATTEMPTS,
+    defaultValue = "3",
+    name = "Maximum number of attempts to deliver a notification to a user",
+    global = false),
+  @Property(
+    key = NotificationDaemon.PROPERTY_RETRY_DELAY,
+    defaultValue = "10",
+    name = "Delay before the first new attempt to deliver a notification, in seconds. It doubles at each attempt.",
     global = false)
 })
 @ServerSide
@@ -53,22 +86,51 @@ public class NotificationDaemon implements Startable {
 
   public static final String PROPERTY_DELAY = "sonar.notifications.delay";
   public static final String PROPERTY_DELAY_BEFORE_REPORTING_STATUS = "sonar.notifications.runningDelayBeforeReportingStatus";
+  public static final String PROPERTY_BATCH_SIZE = "sonar.notifications.batchSize";
+  public static final String PROPERTY_CHANNEL_THREADS = "sonar.notifications.channelThreads";
+  public static final String PROPERTY_MAX_ATTEMPTS = "sonar.notifications.maxDeliveryAttempts";
+  public static final String PROPERTY_RETRY_DELAY = "sonar.notifications.retryDelay";
+  private static final int DEFAULT_BATCH_SIZE = 100;
+  private static final int DEFAULT_CHANNEL_THREADS = 2;
+  private static final int DEFAULT_MAX_ATTEMPTS = 3;
+  private static final int DEFAULT_RETRY_DELAY = 10;
 
   private final long delayInSeconds;
   private final long delayBeforeReportingStatusInSeconds;
+  private final int batchSize;
+  private final int channelThreads;
+  private final int maxAttempts;
+  private final long retryDelayInSeconds;
   private final DefaultNotificationManager manager;
   private final NotificationService service;
 
+  private final Map<String, ScheduledExecutorService> channelExecutors = new ConcurrentHashMap<>();
+  private final Set<Retry> pendingRetries = ConcurrentHashMap.newKeySet();
+  private final AtomicLong deliveredCount = new AtomicLong();
+  private final AtomicLong failedCount = new AtomicLong();
+  private final AtomicLong retriedCount = new AtomicLong();
+  private final AtomicLong totalLatencyInMs = new AtomicLong();
+  private final AtomicLong maxLatencyInMs = new AtomicLong();
+
   private ScheduledExecutorService executorService;
-  private boolean stopping = false;
+  private volatile boolean stopping = false;
 
   public NotificationDaemon(Settings settings, DefaultNotificationManager manager, NotificationService service) {
     this.delayInSeconds = settings.getLong(PROPERTY_DELAY);
     this.delayBeforeReportingStatusInSeconds = settings.getLong(PROPERTY_DELAY_BEFORE_REPORTING_STATUS);
+    this.batchSize = positiveOrDefault(settings, PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+    this.channelThreads = positiveOrDefault(settings, PROPERTY_CHANNEL_THREADS, DEFAULT_CHANNEL_THREADS);
+    this.maxAttempts = positiveOrDefault(settings, PROPERTY_MAX_ATTEMPTS, DEFAULT_MAX_ATTEMPTS);
+    this.retryDelayInSeconds = settings.hasKey(PROPERTY_RETRY_DELAY) ? Math.max(0, settings.getLong(PROPERTY_RETRY_DELAY)) : DEFAULT_RETRY_DELAY;
     this.manager = manager;
     this.service = service;
   }
 
+  private static int positiveOrDefault(Settings settings, String key, int defaultValue) {
+    int value = settings.getInt(key);
+    return value > 0 ? value : defaultValue;
+  }
+
   @Override
   public void start() {
     executorService = Executors.newSingleThreadScheduledExecutor(
@@ -91,7 +153,12 @@ public class NotificationDaemon implements Startable {
     try {
       stopping = true;
       executorService.shutdown();
+      pendingRetries.forEach(Retry::cancel);
+      channelExecutors.values().forEach(ScheduledExecutorService::shutdown);
       executorService.awaitTermination(5, TimeUnit.SECONDS);
+      for (ScheduledExecutorService channelExecutor : channelExecutors.values()) {
+        channelExecutor.awaitTermination(5, TimeUnit.SECONDS);
+      }
     } catch (InterruptedException e) {
       LOG.error("Error during stop of notification service", e);
       Thread.currentThread().interrupt();
@@ -105,10 +172,10 @@ public class NotificationDaemon implements Startable {
     long lastLog = start;
     long notifSentCount = 0;
 
-    Notification notifToSend = manager.getFromQueue();
-    while (notifToSend != null) {
-      service.deliver(notifToSend);
-      notifSentCount++;
+    List<QueuedNotification> notifsToSend = manager.getFromQueue(batchSize);
+    while (!notifsToSend.isEmpty()) {
+      deliver(notifsToSend);
+      notifSentCount += notifsToSend.size();
       if (stopping) {
         break;
       }
@@ -119,10 +186,201 @@ public class NotificationDaemon implements Startable {
         long spentTimeInMinutes = (now - start) / (60 * 1000);
         log(notifSentCount, remainingNotifCount, spentTimeInMinutes);
       }
-      notifToSend = manager.getFromQueue();
+      notifsToSend = manager.getFromQueue(batchSize);
+    }
+  }
+
+  /**
+   * Recipients of the notifications are resolved in the current thread, then notifications are sent concurrently
+   * by the pools of the channels. Returns when all the deliveries are done or abandoned, so that no more than
+   * a batch of notifications is removed from the queue but not yet sent.
+   */
+  private void deliver(List<QueuedNotification> notifications) {
+    long dequeuedAt = System.currentTimeMillis();
+    List<Delivery> deliveries = new ArrayList<>();
+    manager.withRecipientsCache(() -> {
+      for (QueuedNotification queuedNotification : notifications) {
+        Notification notification = queuedNotification.getNotification();
+        Long queuedAt = queuedNotification.getQueuedAt();
+        SetMultimap<String, NotificationChannel> recipients = service.findRecipients(notification);
+        for (Map.Entry<String, Collection<NotificationChannel>> entry : recipients.asMap().entrySet()) {
+          String username = entry.getKey();
+          LOG.debug("For user {} via {}", username, entry.getValue());
+          for (NotificationChannel channel : entry.getValue()) {
+            deliveries.add(new Delivery(notification, username, channel, queuedAt == null ? dequeuedAt : queuedAt));
+          }
+        }
+      }
+    });
+
+    CountDownLatch remainingDeliveries = new CountDownLatch(deliveries.size());
+    for (Delivery delivery : deliveries) {
+      try {
+        channelExecutor(delivery.channel).execute(() -> attempt(delivery, remainingDeliveries));
+      } catch (RejectedExecutionException e) {
+        abandon(remainingDeliveries);
+      }
+    }
+    awaitDeliveries(remainingDeliveries);
+  }
+
+  private void awaitDeliveries(CountDownLatch remainingDeliveries) {
+    try {
+      while (!remainingDeliveries.await(1, TimeUnit.SECONDS)) {
+        if (stopping) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
   }
 
+  private void scheduleRetry(Delivery delivery, CountDownLatch remainingDeliveries) {
+    Retry retry = new Retry(delivery, remainingDeliveries);
+    pendingRetries.add(retry);
+    try {
+      retry.future = channelExecutor(delivery.channel).schedule(retry, retryDelayInSeconds << (delivery.attempts - 1), TimeUnit.SECONDS);
+    } catch (RejectedExecutionException e) {
+      // the daemon is being stopped
+    }
+    if (stopping) {
+      retry.cancel();
+    }
+  }
+
+  /**
+   * Abandons a delivery which can't be attempted anymore because the daemon is being stopped
+   */
+  private void abandon(CountDownLatch remainingDeliveries) {
+    failedCount.incrementAndGet();
+    remainingDeliveries.countDown();
+  }
+
+  private void attempt(Delivery delivery, CountDownLatch remainingDeliveries) {
+    delivery.attempts++;
+    try {
+      delivery.channel.deliver(delivery.notification, delivery.username);
+      // the queue may have been fed by another server, whose clock is not exactly the same
+      long latencyInMs = Math.max(0L, System.currentTimeMillis() - delivery.queuedAt);
+      deliveredCount.incrementAndGet();
+      totalLatencyInMs.addAndGet(latencyInMs);
+      maxLatencyInMs.accumulateAndGet(latencyInMs, Math::max);
+      remainingDeliveries.countDown();
+    } catch (Exception e) {
+      if (delivery.attempts < maxAttempts && !stopping) {
+        retriedCount.incrementAndGet();
+        LOG.debug("Unable to deliver notification " + delivery + ", will retry", e);
+        scheduleRetry(delivery, remainingDeliveries);
+      } else {
+        // catch all exceptions in order to deliver via other channels
+        LOG.warn("Unable to deliver notification " + delivery, e);
+        failedCount.incrementAndGet();
+        remainingDeliveries.countDown();
+      }
+    }
+  }
+
+  private ScheduledExecutorService channelExecutor(NotificationChannel channel) {
+    return channelExecutors.computeIfAbsent(channel.getKey(), key -> {
+      ScheduledThreadPoolExecutor channelExecutor = new ScheduledThreadPoolExecutor(channelThreads,
+        new ThreadFactoryBuilder()
+          .setNameFormat(THREAD_NAME_PREFIX + key + "-%d")
+          .setPriority(Thread.MIN_PRIORITY)
+          .build());
+      // retries canceled on stop must not delay the termination of the pool
+      channelExecutor.setRemoveOnCancelPolicy(true);
+      return channelExecutor;
+    });
+  }
+
+  private static class Delivery {
+    private final Notification notification;
+    private final String username;
+    private final NotificationChannel channel;
+    private final long queuedAt;
+    private int attempts = 0;
+
+    private Delivery(Notification notification, String username, NotificationChannel channel, long queuedAt) {
+      this.notification = notification;
+      this.username = username;
+      this.channel = channel;
+      this.queuedAt = queuedAt;
+    }
+
+    @Override
+    public String toString() {
+      return notification + " for user " + username + " via " + channel;
+    }
+  }
+
+  /**
+   * New attempt of a delivery, waiting for its delay. It is either executed or canceled when the daemon is stopped,
+   * but not both.
+   */
+  private class Retry implements Runnable {
+    private final Delivery delivery;
+    private final CountDownLatch remainingDeliveries;
+    private volatile ScheduledFuture<?> future;
+
+    private Retry(Delivery delivery, CountDownLatch remainingDeliveries) {
+      this.delivery = delivery;
+      this.remainingDeliveries = remainingDeliveries;
+    }
+
+    @Override
+    public void run() {
+      if (pendingRetries.remove(this)) {
+        attempt(delivery, remainingDeliveries);
+      }
+    }
+
+    private void cancel() {
+      ScheduledFuture<?> scheduledFuture = future;
+      if (scheduledFuture != null) {
+        scheduledFuture.cancel(false);
+      }
+      if (pendingRetries.remove(this)) {
+        LOG.warn("Unable to deliver notification {}, daemon is stopped", delivery);
+        abandon(remainingDeliveries);
+      }
+    }
+  }
+
+  /**
+   * Number of notifications sent to a user through a channel since startup
+   */
+  public long getDeliveredCount() {
+    return deliveredCount.get();
+  }
+
+  /**
+   * Number of notifications abandoned after {@link #PROPERTY_MAX_ATTEMPTS} failed attempts, or because the daemon
+   * has been stopped before a new attempt, since startup
+   */
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
+  /**
+   * Number of new attempts to deliver notifications since startup
+   */
+  public long getRetriedCount() {
+    return retriedCount.get();
+  }
+
+  /**
+   * Average time between the queuing of a notification and its delivery, in milliseconds
+   */
+  public long getAverageDeliveryLatencyInMs() {
+    long delivered = deliveredCount.get();
+    return delivered == 0 ? 0 : (totalLatencyInMs.get() / delivered);
+  }
+
+  public long getMaxDeliveryLatencyInMs() {
+    return maxLatencyInMs.get();
+  }
+
   @VisibleForTesting
   void log(long notifSentCount, long remainingNotifCount, long spentTimeInMinutes) {
     LOG.info("{} notifications sent during the past {} minutes and {} still waiting to be sent",
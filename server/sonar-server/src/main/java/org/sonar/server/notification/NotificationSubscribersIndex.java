@@ -0,0 +1,98 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.notification;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import org.sonar.db.property.NotificationSubscriptionDto;
+import org.sonar.db.property.PropertiesDao;
+
+/**
+ * In-memory index of the users subscribed to notifications, by notification key
+ * ({@code notification.<dispatcher key>.<channel key>}). Global subscriptions are loaded
+ * on first use, and subscriptions of a project the first time this project is requested. The index
+ * is never refreshed: a new instance must be created to take into account changes of subscriptions.
+ * <p/>
+ * This class is not thread-safe.
+ */
+class NotificationSubscribersIndex {
+
+  private static final String NOTIFICATION_PREFIX = "notification.";
+
+  private final PropertiesDao propertiesDao;
+  private SetMultimap<String, String> globalSubscribers;
+  private final Map<String, SetMultimap<String, String>> subscribersByProjectUuid = new HashMap<>();
+  private final Map<String, SetMultimap<String, String>> subscribersByComponentKey = new HashMap<>();
+
+  NotificationSubscribersIndex(PropertiesDao propertiesDao) {
+    this.propertiesDao = propertiesDao;
+  }
+
+  /**
+   * Logins of the users subscribed globally to the given dispatcher and channel
+   */
+  Set<String> getGlobalSubscribers(String dispatcherKey, String channelKey) {
+    if (globalSubscribers == null) {
+      globalSubscribers = toMultimap(propertiesDao.selectGlobalNotificationSubscriptions());
+    }
+    return globalSubscribers.get(notificationKey(dispatcherKey, channelKey));
+  }
+
+  /**
+   * Logins of the users subscribed to the given dispatcher and channel specifically for the project with the given uuid
+   */
+  Set<String> getProjectSubscribersByUuid(@Nullable String projectUuid, String dispatcherKey, String channelKey) {
+    return getProjectSubscribers(subscribersByProjectUuid, projectUuid, propertiesDao::selectNotificationSubscriptionsByProjectUuid, dispatcherKey, channelKey);
+  }
+
+  /**
+   * Logins of the users subscribed to the given dispatcher and channel specifically for the component with the given key
+   */
+  Set<String> getProjectSubscribersByKey(@Nullable String componentKey, String dispatcherKey, String channelKey) {
+    return getProjectSubscribers(subscribersByComponentKey, componentKey, propertiesDao::selectNotificationSubscriptionsByComponentKey, dispatcherKey, channelKey);
+  }
+
+  private static Set<String> getProjectSubscribers(Map<String, SetMultimap<String, String>> subscribersByProject, @Nullable String project,
+    Function<String, List<NotificationSubscriptionDto>> loader, String dispatcherKey, String channelKey) {
+    if (project == null) {
+      return Collections.emptySet();
+    }
+    return subscribersByProject.computeIfAbsent(project, p -> toMultimap(loader.apply(p))).get(notificationKey(dispatcherKey, channelKey));
+  }
+
+  private static String notificationKey(String dispatcherKey, String channelKey) {
+    return NOTIFICATION_PREFIX + dispatcherKey + "." + channelKey;
+  }
+
+  private static SetMultimap<String, String> toMultimap(List<NotificationSubscriptionDto> subscriptions) {
+    SetMultimap<String, String> loginsByNotificationKey = HashMultimap.create();
+    for (NotificationSubscriptionDto subscription : subscriptions) {
+      loginsByNotificationKey.put(subscription.getNotificationKey(), subscription.getLogin());
+    }
+    return loginsByNotificationKey;
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.notification;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.notifications.Notification;
+
+/**
+ * Notification read from the queue, with the date it was inserted in the queue
+ */
+public class QueuedNotification {
+  private final Notification notification;
+  private final Long queuedAt;
+
+  public QueuedNotification(Notification notification, @Nullable Long queuedAt) {
+    this.notification = notification;
+    this.queuedAt = queuedAt;
+  }
+
+  public Notification getNotification() {
+    return notification;
+  }
+
+  /**
+   * {@code null} if the notification was queued before this date was stored
+   */
+  @CheckForNull
+  public Long getQueuedAt() {
+    return queuedAt;
+  }
+}
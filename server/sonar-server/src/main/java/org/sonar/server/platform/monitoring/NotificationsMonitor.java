@@ -0,0 +1,86 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.server.notification.DefaultNotificationManager;
+import org.sonar.server.notification.NotificationDaemon;
+
+/**
+ * Queue depth and delivery statistics of notifications
+ */
+public class NotificationsMonitor extends BaseMonitorMBean implements NotificationsMonitorMBean {
+
+  private final DefaultNotificationManager manager;
+  private final NotificationDaemon daemon;
+
+  public NotificationsMonitor(DefaultNotificationManager manager, NotificationDaemon daemon) {
+    this.manager = manager;
+    this.daemon = daemon;
+  }
+
+  @Override
+  public String name() {
+    return "Notifications";
+  }
+
+  @Override
+  public long getQueueSize() {
+    return manager.count();
+  }
+
+  @Override
+  public long getDeliveredCount() {
+    return daemon.getDeliveredCount();
+  }
+
+  @Override
+  public long getFailedCount() {
+    return daemon.getFailedCount();
+  }
+
+  @Override
+  public long getRetriedCount() {
+    return daemon.getRetriedCount();
+  }
+
+  @Override
+  public long getAverageDeliveryLatencyInMs() {
+    return daemon.getAverageDeliveryLatencyInMs();
+  }
+
+  @Override
+  public long getMaxDeliveryLatencyInMs() {
+    return daemon.getMaxDeliveryLatencyInMs();
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Queue Size", getQueueSize());
+    attributes.put("Delivered", getDeliveredCount());
+    attributes.put("Failed", getFailedCount());
+    attributes.put("Retried", getRetriedCount());
+    attributes.put("Average Delivery Latency (ms)", getAverageDeliveryLatencyInMs());
+    attributes.put("Max Delivery Latency (ms)", getMaxDeliveryLatencyInMs());
+    return attributes;
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+public interface NotificationsMonitorMBean {
+
+  /**
+   * Number of notifications waiting in the queue
+   */
+  long getQueueSize();
+
+  /**
+   * Number of notifications sent to a user through a channel since startup
+   */
+  long getDeliveredCount();
+
+  /**
+   * Number of notifications which could not be delivered to a user, even after new attempts
+   */
+  long getFailedCount();
+
+  long getRetriedCount();
+
+  /**
+   * Average time between the queuing of a notification and its delivery, in milliseconds
+   */
+  long getAverageDeliveryLatencyInMs();
+
+  long getMaxDeliveryLatencyInMs();
+}
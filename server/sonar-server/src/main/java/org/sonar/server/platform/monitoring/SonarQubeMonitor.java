@@ -38,6 +38,7 @@ import org.sonar.server.authentication.IdentityProviderRepository;
 import org.sonar.server.platform.ServerId;
 import org.sonar.server.platform.ServerIdLoader;
 import org.sonar.server.platform.ServerLogging;
+import org.sonar.server.source.SourceCache;
 import org.sonar.server.user.SecurityRealmFactory;
 
 public class SonarQubeMonitor extends BaseMonitorMBean implements SonarQubeMonitorMBean {
@@ -52,16 +53,18 @@ public class SonarQubeMonitor extends BaseMonitorMBean implements SonarQubeMonit
   private final Server server;
   private final ServerLogging serverLogging;
   private final ServerIdLoader serverIdLoader;
+  private final SourceCache sourceCache;
 
   public SonarQubeMonitor(Settings settings, SecurityRealmFactory securityRealmFactory,
     IdentityProviderRepository identityProviderRepository, Server server, ServerLogging serverLogging,
-    ServerIdLoader serverIdLoader) {
+    ServerIdLoader serverIdLoader, SourceCache sourceCache) {
     this.settings = settings;
     this.securityRealmFactory = securityRealmFactory;
     this.identityProviderRepository = identityProviderRepository;
     this.server = server;
     this.serverLogging = serverLogging;
     this.serverIdLoader = serverIdLoader;
+    this.sourceCache = sourceCache;
   }
 
   @Override
@@ -79,6 +82,26 @@ public class SonarQubeMonitor extends BaseMonitorMBean implements SonarQubeMonit
     return serverLogging.getRootLoggerLevel().name();
   }
 
+  @Override
+  public double getSourceCacheHitRate() {
+    return sourceCache.getHitRate();
+  }
+
+  @Override
+  public long getSourceCacheHits() {
+    return sourceCache.getSourceHits() + sourceCache.getHtmlHits();
+  }
+
+  @Override
+  public long getSourceCacheMisses() {
+    return sourceCache.getSourceMisses() + sourceCache.getHtmlMisses();
+  }
+
+  @Override
+  public long getSourceCacheEvictions() {
+    return sourceCache.getEvictionCount();
+  }
+
   @CheckForNull
   private String getExternalUserAuthentication() {
     SecurityRealm realm = securityRealmFactory.getRealm();
@@ -144,6 +167,10 @@ public class SonarQubeMonitor extends BaseMonitorMBean implements SonarQubeMonit
     attributes.put("Temp Dir", settings.getString(ProcessProperties.PATH_TEMP));
     attributes.put("Logs Dir", settings.getString(ProcessProperties.PATH_LOGS));
     attributes.put("Logs Level", getLogLevel());
+    attributes.put("Source Cache Hit Rate", getSourceCacheHitRate());
+    attributes.put("Source Cache Hits", getSourceCacheHits());
+    attributes.put("Source Cache Misses", getSourceCacheMisses());
+    attributes.put("Source Cache Evictions", getSourceCacheEvictions());
     return attributes;
   }
 
@@ -28,4 +28,15 @@ public interface SonarQubeMonitorMBean {
   String getVersion();
 
   String getLogLevel();
+
+  /**
+   * Ratio of source requests of web services served by the cache
+   */
+  double getSourceCacheHitRate();
+
+  long getSourceCacheHits();
+
+  long getSourceCacheMisses();
+
+  long getSourceCacheEvictions();
 }
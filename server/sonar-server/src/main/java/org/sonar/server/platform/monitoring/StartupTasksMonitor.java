@@ -0,0 +1,54 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.server.startup.StartupTimeline;
+
+/**
+ * Timeline of the startup tasks executed when server started
+ */
+public class StartupTasksMonitor implements Monitor {
+  private final StartupTimeline timeline;
+
+  public StartupTasksMonitor(StartupTimeline timeline) {
+    this.timeline = timeline;
+  }
+
+  @Override
+  public String name() {
+    return "Startup Tasks";
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    for (StartupTimeline.Entry entry : timeline.getEntries()) {
+      Map<String, Object> taskAttributes = new LinkedHashMap<>();
+      taskAttributes.put("Thread", entry.getThreadName());
+      taskAttributes.put("Start Offset (ms)", entry.getStartOffset());
+      taskAttributes.put("End Offset (ms)", entry.getEndOffset());
+      taskAttributes.put("Duration (ms)", entry.getDuration());
+      attributes.put(entry.getTaskName(), taskAttributes);
+    }
+    return attributes;
+  }
+}
@@ -19,6 +19,10 @@
  */
 package org.sonar.server.platform.platformlevel;
 
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.sonar.core.platform.ComponentContainer;
 import org.sonar.server.app.ProcessCommandWrapper;
 import org.sonar.server.es.IndexerStartupTask;
 import org.sonar.server.issue.filter.RegisterIssueFilters;
@@ -38,10 +42,31 @@ import org.sonar.server.startup.RegisterNewMeasureFilters;
 import org.sonar.server.startup.RegisterPermissionTemplates;
 import org.sonar.server.startup.RenameDeprecatedPropertyKeys;
 import org.sonar.server.startup.RenameIssueWidgets;
+import org.sonar.server.startup.StartupTasksExecutor;
 import org.sonar.server.user.DoPrivileged;
 import org.sonar.server.user.ThreadLocalUserSession;
 
 public class PlatformLevelStartup extends PlatformLevel {
+  /**
+   * Tasks executed by the startup leader. They are started by {@link StartupTasksExecutor}, concurrently
+   * when they do not depend on each other (see {@link org.sonar.server.startup.DependsOn}). When several
+   * tasks are ready to start, the order of this list is kept.
+   */
+  private static final List<Class<?>> LEADER_TASKS = ImmutableList.of(
+    RegisterMetrics.class,
+    RegisterQualityGates.class,
+    RegisterRules.class,
+    RegisterQualityProfiles.class,
+    RegisterNewMeasureFilters.class,
+    RegisterDashboards.class,
+    RegisterPermissionTemplates.class,
+    RenameDeprecatedPropertyKeys.class,
+    RegisterIssueFilters.class,
+    RenameIssueWidgets.class,
+    DisplayLogOnDeprecatedProjects.class,
+    ClearRulesOverloadedDebt.class,
+    DeleteOldAnalysisReportsFromFs.class);
+
   public PlatformLevelStartup(PlatformLevel parent) {
     super("startup tasks", parent);
   }
@@ -55,19 +80,7 @@ public class PlatformLevelStartup extends PlatformLevel {
 
     addIfStartupLeader(
       IndexerStartupTask.class,
-      RegisterMetrics.class,
-      RegisterQualityGates.class,
-      RegisterRules.class,
-      RegisterQualityProfiles.class,
-      RegisterNewMeasureFilters.class,
-      RegisterDashboards.class,
-      RegisterPermissionTemplates.class,
-      RenameDeprecatedPropertyKeys.class,
-      RegisterIssueFilters.class,
-      RenameIssueWidgets.class,
-      DisplayLogOnDeprecatedProjects.class,
-      ClearRulesOverloadedDebt.class,
-      DeleteOldAnalysisReportsFromFs.class);
+      StartupTasksExecutor.class);
   }
 
   @Override
@@ -76,6 +89,7 @@ public class PlatformLevelStartup extends PlatformLevel {
       @Override
       protected void doPrivileged() {
         PlatformLevelStartup.super.start();
+        getOptional(StartupTasksExecutor.class).ifPresent(PlatformLevelStartup.this::executeLeaderTasks);
         getOptional(IndexerStartupTask.class).ifPresent(IndexerStartupTask::execute);
         get(ServerLifecycleNotifier.class).notifyStart();
         get(ProcessCommandWrapper.class).notifyOperational();
@@ -84,4 +98,21 @@ public class PlatformLevelStartup extends PlatformLevel {
 
     return this;
   }
+
+  /**
+   * Tasks are instantiated in a dedicated child container, which is never started by pico, so that
+   * they are started only once, by {@link StartupTasksExecutor}. Their stop() methods are no-op.
+   */
+  private void executeLeaderTasks(StartupTasksExecutor executor) {
+    ComponentContainer tasksContainer = getContainer().createChild();
+    try {
+      LEADER_TASKS.forEach(tasksContainer::add);
+      List<Object> tasks = LEADER_TASKS.stream()
+        .map(tasksContainer::getComponentByType)
+        .collect(Collectors.toList());
+      executor.execute(tasks);
+    } finally {
+      getContainer().removeChild(tasksContainer);
+    }
+  }
 }
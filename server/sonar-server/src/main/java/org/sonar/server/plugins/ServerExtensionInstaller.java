@@ -26,8 +26,8 @@ import java.util.Map;
 import org.sonar.api.ExtensionProvider;
 import org.sonar.api.Plugin;
 import org.sonar.api.SonarRuntime;
-import org.sonar.api.utils.AnnotationUtils;
 import org.sonar.core.platform.ComponentContainer;
+import org.sonar.core.platform.ExtensionAnnotationIndex;
 import org.sonar.core.platform.PluginInfo;
 import org.sonar.core.platform.PluginRepository;
 
@@ -103,7 +103,7 @@ public abstract class ServerExtensionInstaller {
 
   Object installExtension(ComponentContainer container, PluginInfo pluginInfo, Object extension, boolean acceptProvider) {
     for (Class<? extends Annotation> supportedAnnotationType : supportedAnnotationTypes) {
-      if (AnnotationUtils.getAnnotation(extension, supportedAnnotationType) != null) {
+      if (ExtensionAnnotationIndex.isAnnotatedWith(extension, supportedAnnotationType)) {
         if (!acceptProvider && isExtensionProvider(extension)) {
           throw new IllegalStateException("ExtensionProvider can not include providers itself: " + extension);
         }
@@ -20,17 +20,14 @@
 package org.sonar.server.plugins;
 
 import java.io.File;
-import org.apache.commons.io.FileUtils;
+import java.util.Set;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.server.ServerSide;
-import org.sonar.api.utils.ZipUtils;
 import org.sonar.core.platform.ExplodedPlugin;
 import org.sonar.core.platform.PluginInfo;
 import org.sonar.core.platform.PluginJarExploder;
 import org.sonar.server.platform.ServerFileSystem;
 
-import static org.apache.commons.io.FileUtils.forceMkdir;
-
 @ServerSide
 @ComputeEngineSide
 public class ServerPluginJarExploder extends PluginJarExploder {
@@ -44,23 +41,23 @@ public class ServerPluginJarExploder extends PluginJarExploder {
   /**
    * JAR files of directory extensions/plugins can be moved when server is up and plugins are uninstalled.
    * For this reason these files must not be locked by classloaders. They are copied to the directory
-   * web/deploy/plugins in order to be loaded by {@link org.sonar.core.platform.PluginLoader}.
+   * web/deploy/plugins in order to be loaded by {@link org.sonar.core.platform.PluginLoader}. The copy
+   * is kept as long as the JAR content does not change, so restarting server does not explode plugins again
+   * (see {@link org.sonar.server.app.TomcatContexts}).
    */
   @Override
   public ExplodedPlugin explode(PluginInfo pluginInfo) {
     File toDir = new File(fs.getDeployedPluginsDir(), pluginInfo.getKey());
     try {
-      forceMkdir(toDir);
-      org.sonar.core.util.FileUtils.cleanDirectory(toDir);
-
-      File jarSource = pluginInfo.getNonNullJarFile();
-      File jarTarget = new File(toDir, jarSource.getName());
-      FileUtils.copyFile(jarSource, jarTarget);
-      ZipUtils.unzip(jarSource, toDir, newLibFilter());
-      return explodeFromUnzippedDir(pluginInfo.getKey(), jarTarget, toDir);
+      return explodeToDirIfChanged(pluginInfo, toDir);
     } catch (Exception e) {
       throw new IllegalStateException(String.format(
         "Fail to unzip plugin [%s] %s to %s", pluginInfo.getKey(), pluginInfo.getNonNullJarFile().getAbsolutePath(), toDir.getAbsolutePath()), e);
     }
   }
+
+  @Override
+  public void deleteUninstalled(Set<String> installedPluginKeys) {
+    deleteDirsOfUninstalledPlugins(fs.getDeployedPluginsDir(), installedPluginKeys);
+  }
 }
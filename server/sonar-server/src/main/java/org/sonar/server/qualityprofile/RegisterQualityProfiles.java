@@ -47,11 +47,14 @@ import org.sonar.db.DbSession;
 import org.sonar.db.loadedtemplate.LoadedTemplateDto;
 import org.sonar.db.qualityprofile.QualityProfileDto;
 import org.sonar.server.qualityprofile.index.ActiveRuleIndexer;
+import org.sonar.server.rule.RegisterRules;
+import org.sonar.server.startup.DependsOn;
 
 /**
  * Synchronize Quality profiles during server startup
  */
 @ServerSide
+@DependsOn(RegisterRules.class)
 public class RegisterQualityProfiles {
 
   private static final Logger LOGGER = Loggers.get(RegisterQualityProfiles.class);
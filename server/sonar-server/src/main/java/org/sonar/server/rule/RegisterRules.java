@@ -21,13 +21,16 @@ package org.sonar.server.rule;
 
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
@@ -95,21 +98,34 @@ public class RegisterRules implements Startable {
     DbSession session = dbClient.openSession(false);
     try {
       Map<RuleKey, RuleDto> allRules = loadRules(session);
+      Map<String, String> previousDefinitionHashes = loadDefinitionHashes(session);
 
       RulesDefinition.Context context = defLoader.load();
-      for (RulesDefinition.ExtendedRepository repoDef : getRepositories(context)) {
-        if (languages.get(repoDef.language()) != null) {
-          for (RulesDefinition.Rule ruleDef : repoDef.rules()) {
-            registerRule(ruleDef, allRules, session);
-          }
-          session.commit();
+      Map<String, String> definitionHashes = new HashMap<>();
+      int unchangedRepositories = 0;
+      for (Map.Entry<String, List<RulesDefinition.ExtendedRepository>> repoDefsByKey : getRepositoriesByKey(context).entrySet()) {
+        String repositoryKey = repoDefsByKey.getKey();
+        List<RulesDefinition.ExtendedRepository> repoDefs = repoDefsByKey.getValue().stream()
+          .filter(repoDef -> languages.get(repoDef.language()) != null)
+          .collect(Collectors.toList());
+        if (repoDefs.isEmpty()) {
+          continue;
+        }
+        String definitionHash = RulesDefinitionHash.of(repoDefs);
+        definitionHashes.put(repositoryKey, definitionHash);
+        if (definitionHash.equals(previousDefinitionHashes.get(repositoryKey))) {
+          keepUnchangedRules(repositoryKey, allRules);
+          unchangedRepositories++;
+        } else {
+          registerRepository(repositoryKey, repoDefs, allRules, session);
         }
       }
+      LOG.debug("{} rule repositories have not changed since last startup", unchangedRepositories);
       List<RuleDto> activeRules = processRemainingDbRules(allRules.values(), session);
       List<ActiveRuleChange> changes = removeActiveRulesOnStillExistingRepositories(session, activeRules, context);
       session.commit();
 
-      persistRepositories(session, context.repositories());
+      persistRepositories(session, context.repositories(), definitionHashes);
       ruleIndexer.index();
       activeRuleIndexer.index(changes);
       profiler.stopDebug();
@@ -118,11 +134,11 @@ public class RegisterRules implements Startable {
     }
   }
 
-  private void persistRepositories(DbSession dbSession, List<RulesDefinition.Repository> repositories) {
+  private void persistRepositories(DbSession dbSession, List<RulesDefinition.Repository> repositories, Map<String, String> definitionHashes) {
     dbClient.ruleRepositoryDao().truncate(dbSession);
     List<RuleRepositoryDto> dtos = repositories
       .stream()
-      .map(r -> new RuleRepositoryDto(r.key(), r.language(), r.name()))
+      .map(r -> new RuleRepositoryDto(r.key(), r.language(), r.name()).setDefinitionHash(definitionHashes.get(r.key())))
       .collect(Collectors.toList(repositories.size()));
     dbClient.ruleRepositoryDao().insert(dbSession, dtos);
     dbSession.commit();
@@ -133,7 +149,39 @@ public class RegisterRules implements Startable {
     // nothing
   }
 
-  private void registerRule(RulesDefinition.Rule ruleDef, Map<RuleKey, RuleDto> allRules, DbSession session) {
+  private Map<String, String> loadDefinitionHashes(DbSession session) {
+    Map<String, String> hashes = new HashMap<>();
+    for (RuleRepositoryDto repository : dbClient.ruleRepositoryDao().selectAll(session)) {
+      if (repository.getDefinitionHash() != null) {
+        hashes.put(repository.getKey(), repository.getDefinitionHash());
+      }
+    }
+    return hashes;
+  }
+
+  /**
+   * Rules of a repository which did not change since previous startup are left as they are in db. Custom
+   * rules are still checked against their template by {@link #processRemainingDbRules(Collection, DbSession)}.
+   */
+  private static void keepUnchangedRules(String repositoryKey, Map<RuleKey, RuleDto> allRules) {
+    allRules.values().removeIf(rule -> rule.getTemplateId() == null && repositoryKey.equals(rule.getRepositoryKey()));
+  }
+
+  private void registerRepository(String repositoryKey, List<RulesDefinition.ExtendedRepository> repoDefs, Map<RuleKey, RuleDto> allRules, DbSession session) {
+    Profiler profiler = Profiler.create(LOG).startDebug(String.format("Register rules of repository %s", repositoryKey));
+    List<RulesDefinition.Rule> ruleDefs = new ArrayList<>();
+    repoDefs.forEach(repoDef -> ruleDefs.addAll(repoDef.rules()));
+
+    List<RuleDto> rules = new ArrayList<>(ruleDefs.size());
+    for (RulesDefinition.Rule ruleDef : ruleDefs) {
+      rules.add(registerRule(ruleDef, allRules, session));
+    }
+    mergeParams(ruleDefs, rules, session);
+    session.commit();
+    profiler.stopDebug(String.format("%d rules of repository %s registered", ruleDefs.size(), repositoryKey));
+  }
+
+  private RuleDto registerRule(RulesDefinition.Rule ruleDef, Map<RuleKey, RuleDto> allRules, DbSession session) {
     RuleKey ruleKey = RuleKey.of(ruleDef.repository().key(), ruleDef.key());
 
     RuleDto rule = allRules.containsKey(ruleKey) ? allRules.remove(ruleKey) : createRuleDto(ruleDef, session);
@@ -154,8 +202,7 @@ public class RegisterRules implements Startable {
     if (executeUpdate) {
       update(session, rule);
     }
-
-    mergeParams(ruleDef, rule, session);
+    return rule;
   }
 
   private Map<RuleKey, RuleDto> loadRules(DbSession session) {
@@ -166,16 +213,19 @@ public class RegisterRules implements Startable {
     return rules;
   }
 
-  private List<RulesDefinition.ExtendedRepository> getRepositories(RulesDefinition.Context context) {
-    List<RulesDefinition.ExtendedRepository> repositories = new ArrayList<>();
+  /**
+   * Repositories and their extensions, grouped by repository key
+   */
+  private static Map<String, List<RulesDefinition.ExtendedRepository>> getRepositoriesByKey(RulesDefinition.Context context) {
+    Map<String, List<RulesDefinition.ExtendedRepository>> repositories = new LinkedHashMap<>();
     for (RulesDefinition.Repository repoDef : context.repositories()) {
-      repositories.add(repoDef);
+      repositories.computeIfAbsent(repoDef.key(), key -> new ArrayList<>()).add(repoDef);
     }
     for (RulesDefinition.ExtendedRepository extendedRepoDef : context.extendedRepositories()) {
       if (context.repository(extendedRepoDef.key()) == null) {
         LOG.warn(String.format("Extension is ignored, repository %s does not exist", extendedRepoDef.key()));
       } else {
-        repositories.add(extendedRepoDef);
+        repositories.get(extendedRepoDef.key()).add(extendedRepoDef);
       }
     }
     return repositories;
@@ -296,8 +346,24 @@ public class RegisterRules implements Startable {
     return changed;
   }
 
-  private void mergeParams(RulesDefinition.Rule ruleDef, RuleDto rule, DbSession session) {
-    List<RuleParamDto> paramDtos = dbClient.ruleDao().selectRuleParamsByRuleKey(session, rule.getKey());
+  /**
+   * Parameters of the rules of a repository, and the active rules impacted by new parameters, are loaded at once.
+   */
+  private void mergeParams(List<RulesDefinition.Rule> ruleDefs, List<RuleDto> rules, DbSession session) {
+    List<Integer> ruleIds = rules.stream().map(RuleDto::getId).collect(Collectors.toList(rules.size()));
+    ListMultimap<Integer, RuleParamDto> paramsByRuleId = dbClient.ruleDao().selectRuleParamsByRuleIds(session, ruleIds)
+      .stream()
+      .collect(Collectors.index(RuleParamDto::getRuleId));
+    ListMultimap<Integer, RuleParamDto> paramsWithDefaultValueByRuleId = ArrayListMultimap.create();
+    for (int i = 0; i < rules.size(); i++) {
+      RuleDto rule = rules.get(i);
+      mergeParams(ruleDefs.get(i), rule, paramsByRuleId.get(rule.getId()), paramsWithDefaultValueByRuleId, session);
+    }
+    propagateDefaultValues(paramsWithDefaultValueByRuleId, session);
+  }
+
+  private void mergeParams(RulesDefinition.Rule ruleDef, RuleDto rule, List<RuleParamDto> paramDtos,
+    ListMultimap<Integer, RuleParamDto> paramsWithDefaultValueByRuleId, DbSession session) {
     Map<String, RuleParamDto> existingParamsByName = Maps.newHashMap();
 
     for (RuleParamDto paramDto : paramDtos) {
@@ -325,12 +391,23 @@ public class RegisterRules implements Startable {
         .setDefaultValue(param.defaultValue())
         .setType(param.type().toString());
       dbClient.ruleDao().insertRuleParam(session, rule, paramDto);
-      if (StringUtils.isEmpty(param.defaultValue())) {
-        continue;
+      if (!StringUtils.isEmpty(param.defaultValue())) {
+        paramsWithDefaultValueByRuleId.put(rule.getId(), paramDto);
       }
-      // Propagate the default value to existing active rule parameters
-      for (ActiveRuleDto activeRule : dbClient.activeRuleDao().selectByRuleId(session, rule.getId())) {
-        ActiveRuleParamDto activeParam = ActiveRuleParamDto.createFor(paramDto).setValue(param.defaultValue());
+    }
+  }
+
+  /**
+   * Propagate the default value of new parameters to existing active rules
+   */
+  private void propagateDefaultValues(ListMultimap<Integer, RuleParamDto> paramsWithDefaultValueByRuleId, DbSession session) {
+    if (paramsWithDefaultValueByRuleId.isEmpty()) {
+      return;
+    }
+    List<Integer> ruleIds = new ArrayList<>(paramsWithDefaultValueByRuleId.keySet());
+    for (ActiveRuleDto activeRule : dbClient.activeRuleDao().selectByRuleIds(session, ruleIds)) {
+      for (RuleParamDto paramDto : paramsWithDefaultValueByRuleId.get(activeRule.getRuleId())) {
+        ActiveRuleParamDto activeParam = ActiveRuleParamDto.createFor(paramDto).setValue(paramDto.getDefaultValue());
         dbClient.activeRuleDao().insertParam(session, activeRule, activeParam);
       }
     }
@@ -26,6 +26,7 @@ import org.sonar.api.rule.RuleKey;
 import org.sonar.api.server.ServerSide;
 import org.sonar.api.server.debt.DebtRemediationFunction;
 import org.sonar.api.server.debt.internal.DefaultDebtRemediationFunction;
+import org.sonar.api.utils.System2;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -44,10 +45,12 @@ public class RuleOperations {
 
   private final RuleIndexer ruleIndexer;
   private final DbClient dbClient;
+  private final System2 system2;
 
-  public RuleOperations(RuleIndexer ruleIndexer, DbClient dbClient) {
+  public RuleOperations(RuleIndexer ruleIndexer, DbClient dbClient, System2 system2) {
     this.ruleIndexer = ruleIndexer;
     this.dbClient = dbClient;
+    this.system2 = system2;
   }
 
   public void updateRule(RuleChange ruleChange, UserSession userSession) {
@@ -101,6 +104,7 @@ public class RuleOperations {
     }
 
     if (needUpdate) {
+      ruleDto.setUpdatedAt(system2.now());
       dbClient.ruleDao().update(session, ruleDto);
     }
     return needUpdate;
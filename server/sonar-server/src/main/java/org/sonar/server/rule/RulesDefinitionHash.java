@@ -0,0 +1,99 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.rule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.api.server.debt.DebtRemediationFunction;
+import org.sonar.api.server.rule.RulesDefinition;
+
+/**
+ * Hash of the rules provided by a repository and by its extensions. It is stored in db
+ * so that repositories which did not change since previous server startup are not
+ * registered again. Any attribute that is copied to db by {@link RegisterRules} must be part of the hash.
+ */
+class RulesDefinitionHash {
+
+  /**
+   * To be incremented when {@link RegisterRules} changes the way definitions are copied to db,
+   * so that all the repositories are registered again.
+   */
+  private static final int VERSION = 1;
+  private static final char DELIMITER = '\u0000';
+
+  private RulesDefinitionHash() {
+    // only static methods
+  }
+
+  static String of(Collection<? extends RulesDefinition.ExtendedRepository> repositories) {
+    List<RulesDefinition.Rule> rules = new ArrayList<>();
+    repositories.forEach(repository -> rules.addAll(repository.rules()));
+    rules.sort(Comparator.comparing(RulesDefinition.Rule::key));
+
+    StringBuilder sb = new StringBuilder();
+    append(sb, VERSION);
+    for (RulesDefinition.Rule rule : rules) {
+      appendRule(sb, rule);
+    }
+    return DigestUtils.md5Hex(sb.toString());
+  }
+
+  private static void appendRule(StringBuilder sb, RulesDefinition.Rule rule) {
+    append(sb, rule.repository().key());
+    append(sb, rule.repository().language());
+    append(sb, rule.key());
+    append(sb, rule.name());
+    append(sb, rule.htmlDescription());
+    append(sb, rule.markdownDescription());
+    append(sb, rule.internalKey());
+    append(sb, rule.severity());
+    append(sb, rule.template());
+    append(sb, rule.status());
+    append(sb, rule.type());
+    append(sb, new TreeSet<>(rule.tags()));
+    DebtRemediationFunction debtRemediationFunction = rule.debtRemediationFunction();
+    append(sb, debtRemediationFunction != null);
+    if (debtRemediationFunction != null) {
+      append(sb, debtRemediationFunction.type());
+      append(sb, debtRemediationFunction.gapMultiplier());
+      append(sb, debtRemediationFunction.baseEffort());
+    }
+    append(sb, rule.gapDescription());
+
+    List<RulesDefinition.Param> params = new ArrayList<>(rule.params());
+    params.sort(Comparator.comparing(RulesDefinition.Param::key));
+    append(sb, params.size());
+    for (RulesDefinition.Param param : params) {
+      append(sb, param.key());
+      append(sb, param.description());
+      append(sb, param.defaultValue());
+      append(sb, param.type());
+    }
+  }
+
+  private static void append(StringBuilder sb, @Nullable Object value) {
+    sb.append(value).append(DELIMITER);
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+import org.sonar.api.Properties;
+import org.sonar.api.Property;
+import org.sonar.api.config.Settings;
+import org.sonar.api.server.ServerSide;
+import org.sonar.db.protobuf.DbFileSources;
+
+/**
+ * Least recently used cache of decoded file sources and of source lines decorated as HTML. Its size is bounded
+ * in bytes by {@link #PROPERTY_MAX_SIZE}, entries being weighted by an estimation of their memory footprint.
+ * <p/>
+ * Decoded sources are cached by chunks of {@link org.sonar.db.source.FileSourceDto#LINES_PER_CHUNK} lines, keyed by
+ * file UUID, by hash of the data and by index of chunk. A new analysis persisted by the Compute Engine changes this
+ * hash, so outdated entries are never returned and are evicted over time. Decorated lines are keyed
+ * by their content.
+ */
+@Properties({
+  @Property(
+    key = SourceCache.PROPERTY_MAX_SIZE,
+    defaultValue = "" + SourceCache.DEFAULT_MAX_SIZE_IN_MB,
+    name = "Maximum size of the cache of sources displayed by web services, in MB. Zero disables the cache.",
+    global = false)
+})
+@ServerSide
+public class SourceCache {
+
+  public static final String PROPERTY_MAX_SIZE = "sonar.web.sourceCache.maxSizeInMb";
+  static final int DEFAULT_MAX_SIZE_IN_MB = 50;
+
+  // rough overhead of a cache entry, of its key and of protobuf/String headers
+  private static final int ENTRY_OVERHEAD = 128;
+
+  private final Cache<Object, Object> cache;
+  private final boolean enabled;
+  private final LongAdder sourceHits = new LongAdder();
+  private final LongAdder sourceMisses = new LongAdder();
+  private final LongAdder htmlHits = new LongAdder();
+  private final LongAdder htmlMisses = new LongAdder();
+
+  public SourceCache(Settings settings) {
+    this(settings.getLong(PROPERTY_MAX_SIZE) * 1024L * 1024L);
+  }
+
+  SourceCache(long maxSizeInBytes) {
+    this.enabled = maxSizeInBytes > 0;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(Math.max(maxSizeInBytes, 0L))
+      .weigher(SourceCache::weigh)
+      .recordStats()
+      .build();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Decoded lines of a chunk of a file, or {@code null} if they are not cached.
+   */
+  @CheckForNull
+  public DbFileSources.Data getSourceChunk(String fileUuid, String dataHash, int chunk) {
+    if (!enabled) {
+      return null;
+    }
+    DbFileSources.Data data = (DbFileSources.Data) cache.getIfPresent(new SourceKey(fileUuid, dataHash, chunk));
+    if (data != null) {
+      sourceHits.increment();
+    } else {
+      sourceMisses.increment();
+    }
+    return data;
+  }
+
+  public void putSourceChunk(String fileUuid, String dataHash, int chunk, DbFileSources.Data data) {
+    if (enabled) {
+      cache.put(new SourceKey(fileUuid, dataHash, chunk), data);
+    }
+  }
+
+  /**
+   * Source line decorated as HTML. {@code decorator} is called only if the line is not cached.
+   */
+  @CheckForNull
+  public String getHtml(DbFileSources.Line line, Supplier<String> decorator) {
+    if (!enabled) {
+      return decorator.get();
+    }
+    HtmlKey key = new HtmlKey(line.getSource(), line.getHighlighting(), line.getSymbols());
+    String html = (String) cache.getIfPresent(key);
+    if (html != null) {
+      htmlHits.increment();
+      return html;
+    }
+    htmlMisses.increment();
+    html = decorator.get();
+    if (html != null) {
+      cache.put(key, html);
+    }
+    return html;
+  }
+
+  public void clear() {
+    cache.invalidateAll();
+  }
+
+  public long getSourceHits() {
+    return sourceHits.sum();
+  }
+
+  public long getSourceMisses() {
+    return sourceMisses.sum();
+  }
+
+  public long getHtmlHits() {
+    return htmlHits.sum();
+  }
+
+  public long getHtmlMisses() {
+    return htmlMisses.sum();
+  }
+
+  /**
+   * Ratio of requests served by the cache, between 0 and 1. It is 1 when no request has been made.
+   */
+  public double getHitRate() {
+    long hits = getSourceHits() + getHtmlHits();
+    long requests = hits + getSourceMisses() + getHtmlMisses();
+    return requests == 0L ? 1.0 : ((double) hits / requests);
+  }
+
+  public long getEvictionCount() {
+    CacheStats stats = cache.stats();
+    return stats.evictionCount();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  private static int weigh(Object key, Object value) {
+    long weight = ENTRY_OVERHEAD;
+    if (value instanceof DbFileSources.Data) {
+      DbFileSources.Data data = (DbFileSources.Data) value;
+      // strings are decoded as UTF-16, plus headers of each line
+      weight += 2L * data.getSerializedSize() + (long) ENTRY_OVERHEAD * data.getLinesCount();
+    } else {
+      HtmlKey htmlKey = (HtmlKey) key;
+      weight += 2L * (((String) value).length() + htmlKey.source.length() + htmlKey.highlighting.length() + htmlKey.symbols.length());
+    }
+    return (int) Math.min(weight, Integer.MAX_VALUE);
+  }
+
+  private static final class SourceKey {
+    private final String fileUuid;
+    private final String dataHash;
+    private final int chunk;
+
+    private SourceKey(String fileUuid, String dataHash, int chunk) {
+      this.fileUuid = fileUuid;
+      this.dataHash = dataHash;
+      this.chunk = chunk;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      SourceKey that = (SourceKey) o;
+      return chunk == that.chunk && fileUuid.equals(that.fileUuid) && dataHash.equals(that.dataHash);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(fileUuid, dataHash, chunk);
+    }
+  }
+
+  private static final class HtmlKey {
+    private final String source;
+    private final String highlighting;
+    private final String symbols;
+
+    private HtmlKey(String source, String highlighting, String symbols) {
+      this.source = source;
+      this.highlighting = highlighting;
+      this.symbols = symbols;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      HtmlKey that = (HtmlKey) o;
+      return source.equals(that.source) && highlighting.equals(that.highlighting) && symbols.equals(that.symbols);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(source, highlighting, symbols);
+    }
+  }
+}
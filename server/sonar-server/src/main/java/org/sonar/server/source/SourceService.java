@@ -25,6 +25,11 @@ import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -35,10 +40,12 @@ public class SourceService {
 
   private final DbClient dbClient;
   private final HtmlSourceDecorator htmlDecorator;
+  private final SourceCache cache;
 
-  public SourceService(DbClient dbClient, HtmlSourceDecorator htmlDecorator) {
+  public SourceService(DbClient dbClient, HtmlSourceDecorator htmlDecorator, SourceCache cache) {
     this.dbClient = dbClient;
     this.htmlDecorator = htmlDecorator;
+    this.cache = cache;
   }
 
   /**
@@ -62,26 +69,93 @@ public class SourceService {
     return getLines(dbSession, fileUuid, from, toInclusive, lineToHtml());
   }
 
+  /**
+   * Line decorated as HTML, from cache if possible
+   */
+  @CheckForNull
+  public String getLineAsHtml(DbFileSources.Line line) {
+    return cache.getHtml(line, () -> htmlDecorator.getDecoratedSourceAsHtml(line.getSource(), line.getHighlighting(), line.getSymbols()));
+  }
+
   private <E> Optional<Iterable<E>> getLines(DbSession dbSession, String fileUuid, int from, int toInclusive, Function<DbFileSources.Line, E> function) {
     verifyLine(from);
     Preconditions.checkArgument(toInclusive >= from, String.format("Line number must greater than or equal to %d, got %d", from, toInclusive));
-    FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, fileUuid);
-    if (dto == null) {
+    DbFileSources.Data data = loadData(dbSession, fileUuid, from, toInclusive);
+    if (data == null) {
       return Optional.absent();
     }
-    DbFileSources.Data data = dto.getSourceData();
     return Optional.of(FluentIterable.from(data.getLinesList())
       .filter(new IsGreaterOrEqualThanLine(from))
       .limit(toInclusive - from + 1)
       .transform(function));
   }
 
+  @CheckForNull
+  private DbFileSources.Data loadData(DbSession dbSession, String fileUuid, int from, int toInclusive) {
+    String dataHash = cache.isEnabled() ? dbClient.fileSourceDao().selectSourceDataHashByFileUuid(dbSession, fileUuid) : null;
+    if (dataHash != null) {
+      return loadDataByChunks(dbSession, fileUuid, dataHash, from, toInclusive);
+    }
+    FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, fileUuid);
+    return dto == null ? null : dto.getSourceData(from, toInclusive);
+  }
+
+  /**
+   * Chunks of lines are read from cache until the first missing one. The following chunks of the range are then
+   * decoded at once and cached. A chunk having less than {@link FileSourceDto#LINES_PER_CHUNK} lines is the last
+   * one of the file.
+   */
+  @CheckForNull
+  private DbFileSources.Data loadDataByChunks(DbSession dbSession, String fileUuid, String dataHash, int from, int toInclusive) {
+    DbFileSources.Data.Builder data = DbFileSources.Data.newBuilder();
+    int chunk = chunkOf(from);
+    int lastChunk = chunkOf(toInclusive);
+    for (; chunk <= lastChunk; chunk++) {
+      DbFileSources.Data cached = cache.getSourceChunk(fileUuid, dataHash, chunk);
+      if (cached == null) {
+        break;
+      }
+      data.addAllLines(cached.getLinesList());
+      if (cached.getLinesCount() < FileSourceDto.LINES_PER_CHUNK) {
+        return data.build();
+      }
+    }
+    if (chunk > lastChunk) {
+      return data.build();
+    }
+
+    FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, fileUuid);
+    if (dto == null) {
+      // file has been deleted in the meantime. Missing files are not cached.
+      return null;
+    }
+    Map<Integer, List<DbFileSources.Line>> linesByChunk = dto.getSourceData(chunk * FileSourceDto.LINES_PER_CHUNK + 1, toInclusive)
+      .getLinesList().stream()
+      .filter(DbFileSources.Line::hasLine)
+      .collect(Collectors.groupingBy(line -> chunkOf(line.getLine())));
+    for (; chunk <= lastChunk; chunk++) {
+      List<DbFileSources.Line> lines = linesByChunk.getOrDefault(chunk, Collections.emptyList());
+      if (dto.getDataHash() != null) {
+        cache.putSourceChunk(fileUuid, dto.getDataHash(), chunk, DbFileSources.Data.newBuilder().addAllLines(lines).build());
+      }
+      data.addAllLines(lines);
+      if (lines.size() < FileSourceDto.LINES_PER_CHUNK) {
+        break;
+      }
+    }
+    return data.build();
+  }
+
+  private static int chunkOf(int line) {
+    return (line - 1) / FileSourceDto.LINES_PER_CHUNK;
+  }
+
   private static void verifyLine(int line) {
     Preconditions.checkArgument(line >= 1, String.format("Line number must start at 1, got %d", line));
   }
 
   private Function<DbFileSources.Line, String> lineToHtml() {
-    return line -> htmlDecorator.getDecoratedSourceAsHtml(line.getSource(), line.getHighlighting(), line.getSymbols());
+    return this::getLineAsHtml;
   }
 
   private enum LineToRaw implements Function<DbFileSources.Line, String> {
@@ -27,6 +27,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.loadedtemplate.LoadedTemplateDto;
 import org.sonar.db.rule.RuleDto;
+import org.sonar.server.rule.RegisterRules;
 import org.sonar.server.rule.index.RuleIndexer;
 
 import static org.sonar.db.loadedtemplate.LoadedTemplateDto.ONE_SHOT_TASK_TYPE;
@@ -39,6 +40,7 @@ import static org.sonar.db.loadedtemplate.LoadedTemplateDto.ONE_SHOT_TASK_TYPE;
  *
  * @since 5.2
  */
+@DependsOn(RegisterRules.class)
 public class ClearRulesOverloadedDebt implements Startable {
 
   private static final Logger LOG = Loggers.get(ClearRulesOverloadedDebt.class);
@@ -44,6 +44,7 @@ import org.sonar.server.issue.filter.RegisterIssueFilters;
 /**
  * @since 2.13
  */
+@DependsOn({RegisterNewMeasureFilters.class, RegisterIssueFilters.class})
 public class RegisterDashboards implements Startable {
   private static final Logger LOG = Loggers.get(RegisterDashboards.class);
 
@@ -38,6 +38,7 @@ import org.sonar.db.issue.IssueFilterDto;
 import org.sonar.db.loadedtemplate.LoadedTemplateDto;
 import org.sonar.server.issue.filter.RegisterIssueFilters;
 
+@DependsOn({RegisterIssueFilters.class, RegisterDashboards.class})
 public class RenameIssueWidgets implements Startable {
 
   private static final Logger LOGGER = Loggers.get(RenameIssueWidgets.class);
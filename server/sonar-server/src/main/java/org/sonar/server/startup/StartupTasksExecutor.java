@@ -0,0 +1,180 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.startup;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.server.user.DoPrivileged;
+import org.sonar.server.user.ThreadLocalUserSession;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Collections.emptySet;
+
+/**
+ * Starts the startup tasks of the startup leader. A task is started as soon as all the tasks
+ * it depends on (see {@link DependsOn}) are completed, so that independent tasks are executed
+ * concurrently. Tasks are started in the order of the given list when several are ready.
+ * <p/>
+ * The first failure stops the scheduling of the remaining tasks and is propagated.
+ *
+ * @since 6.2
+ */
+public class StartupTasksExecutor {
+
+  static final String THREADS_PROPERTY = "sonar.web.startupTasks.threads";
+  static final int DEFAULT_THREADS = 4;
+
+  private static final Logger LOG = Loggers.get(StartupTasksExecutor.class);
+
+  private final Settings settings;
+  private final StartupTimeline timeline;
+  private final ThreadLocalUserSession userSession;
+  private final System2 system2;
+
+  public StartupTasksExecutor(Settings settings, StartupTimeline timeline, ThreadLocalUserSession userSession, System2 system2) {
+    this.settings = settings;
+    this.timeline = timeline;
+    this.userSession = userSession;
+    this.system2 = system2;
+  }
+
+  public void execute(List<Object> tasks) {
+    Map<Class<?>, Object> tasksByClass = new LinkedHashMap<>();
+    tasks.forEach(task -> tasksByClass.put(task.getClass(), task));
+    Map<Object, Set<Class<?>>> dependenciesByTask = new LinkedHashMap<>();
+    tasks.forEach(task -> dependenciesByTask.put(task, dependencies(task, tasksByClass.keySet())));
+
+    int threads = threads();
+    ExecutorService executorService = Executors.newFixedThreadPool(threads,
+      new ThreadFactoryBuilder().setNameFormat("startup-task-%d").setDaemon(true).build());
+    long startedAt = system2.now();
+    timeline.clear();
+    try {
+      run(dependenciesByTask, new ExecutorCompletionService<>(executorService), startedAt);
+    } finally {
+      executorService.shutdownNow();
+    }
+    LOG.info("{} startup tasks executed in {}ms with {} threads", tasks.size(), system2.now() - startedAt, threads);
+    timeline.getEntries().forEach(entry -> LOG.info("Startup task {}", entry));
+  }
+
+  private void run(Map<Object, Set<Class<?>>> dependenciesByTask, CompletionService<Class<?>> completionService, long startedAt) {
+    Set<Class<?>> completed = new HashSet<>();
+    int running = 0;
+    while (!dependenciesByTask.isEmpty() || running > 0) {
+      Iterator<Map.Entry<Object, Set<Class<?>>>> it = dependenciesByTask.entrySet().iterator();
+      while (it.hasNext()) {
+        Map.Entry<Object, Set<Class<?>>> entry = it.next();
+        if (completed.containsAll(entry.getValue())) {
+          Object task = entry.getKey();
+          completionService.submit(() -> startPrivileged(task, startedAt), task.getClass());
+          running++;
+          it.remove();
+        }
+      }
+      checkState(running > 0, "Cycle detected in dependencies of startup tasks %s", dependenciesByTask.keySet());
+      completed.add(takeCompleted(completionService));
+      running--;
+    }
+  }
+
+  private static Class<?> takeCompleted(CompletionService<Class<?>> completionService) {
+    try {
+      Future<Class<?>> future = completionService.take();
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while executing startup tasks", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Fail to execute startup task", cause);
+    }
+  }
+
+  private void startPrivileged(Object task, long startedAt) {
+    DoPrivileged.execute(new DoPrivileged.Task(userSession) {
+      @Override
+      protected void doPrivileged() {
+        long start = system2.now();
+        start(task);
+        timeline.record(new StartupTimeline.Entry(task.getClass().getSimpleName(), Thread.currentThread().getName(),
+          start - startedAt, system2.now() - startedAt));
+      }
+    });
+  }
+
+  private static void start(Object task) {
+    try {
+      task.getClass().getMethod("start").invoke(task);
+    } catch (InvocationTargetException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Fail to start " + task.getClass().getName(), cause);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Startup task " + task.getClass().getName() + " has no public start() method", e);
+    }
+  }
+
+  private static Set<Class<?>> dependencies(Object task, Set<Class<?>> registeredTasks) {
+    DependsOn dependsOn = task.getClass().getAnnotation(DependsOn.class);
+    if (dependsOn == null) {
+      return emptySet();
+    }
+    Set<Class<?>> result = new HashSet<>(Arrays.asList(dependsOn.value()));
+    result.retainAll(registeredTasks);
+    return result;
+  }
+
+  private int threads() {
+    int threads = settings.getInt(THREADS_PROPERTY);
+    if (threads <= 0) {
+      return DEFAULT_THREADS;
+    }
+    return threads;
+  }
+}
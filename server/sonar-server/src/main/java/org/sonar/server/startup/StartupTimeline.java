@@ -0,0 +1,99 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.startup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Start and end offsets of the startup tasks executed by {@link StartupTasksExecutor}, kept
+ * for the whole life of the web server so that they can be exposed by monitoring.
+ *
+ * @since 6.2
+ */
+public class StartupTimeline {
+
+  private final List<Entry> entries = new ArrayList<>();
+
+  synchronized void record(Entry entry) {
+    entries.add(entry);
+  }
+
+  synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Entries ordered by start offset
+   */
+  public synchronized List<Entry> getEntries() {
+    List<Entry> result = new ArrayList<>(entries);
+    result.sort(Comparator.comparingLong(Entry::getStartOffset).thenComparing(Entry::getTaskName));
+    return result;
+  }
+
+  @Immutable
+  public static final class Entry {
+    private final String taskName;
+    private final String threadName;
+    private final long startOffset;
+    private final long endOffset;
+
+    public Entry(String taskName, String threadName, long startOffset, long endOffset) {
+      this.taskName = taskName;
+      this.threadName = threadName;
+      this.startOffset = startOffset;
+      this.endOffset = endOffset;
+    }
+
+    public String getTaskName() {
+      return taskName;
+    }
+
+    public String getThreadName() {
+      return threadName;
+    }
+
+    /**
+     * Number of milliseconds elapsed between the beginning of execution of startup tasks and the start of this task
+     */
+    public long getStartOffset() {
+      return startOffset;
+    }
+
+    /**
+     * Number of milliseconds elapsed between the beginning of execution of startup tasks and the end of this task
+     */
+    public long getEndOffset() {
+      return endOffset;
+    }
+
+    public long getDuration() {
+      return endOffset - startOffset;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s [%s] +%dms -> +%dms (%dms)", taskName, threadName, startOffset, endOffset, getDuration());
+    }
+  }
+}
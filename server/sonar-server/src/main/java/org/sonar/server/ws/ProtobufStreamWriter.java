@@ -0,0 +1,133 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import javax.annotation.CheckForNull;
+import org.apache.commons.io.IOUtils;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.core.util.ProtobufJsonFormat;
+import org.sonarqube.ws.MediaTypes;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+
+/**
+ * Writes a protobuf response whose elements of a repeated field are provided one by one, so that they
+ * are sent as soon as computed and never loaded all together in memory. The output is protobuf or JSON depending
+ * on the requested media type.
+ * <p/>
+ * Unlike {@link WsUtils#writeProtobuf(Message, Request, Response)}, fields are not written in the order of their
+ * declaration: the streamed repeated field is always written last. Protobuf output is parsed as the message
+ * containing all the elements. JSON output has the same fields and values, but the streamed field is the last one
+ * of the object.
+ * <p/>
+ * As the response may be already committed, errors raised while streaming can't be converted into an HTTP error.
+ * Checks must be done before creating the writer.
+ *
+ * <pre>
+ *   try (ProtobufStreamWriter&lt;Issue&gt; writer = ProtobufStreamWriter.start(header, "issues", request, response)) {
+ *     for (IssueDto dto : dtos) {
+ *       writer.write(toWsIssue(dto));
+ *     }
+ *   }
+ * </pre>
+ */
+public class ProtobufStreamWriter<E extends Message> implements AutoCloseable {
+
+  private final Descriptors.FieldDescriptor field;
+  private final OutputStream output;
+  @CheckForNull
+  private final CodedOutputStream protobuf;
+  @CheckForNull
+  private final JsonWriter json;
+
+  private ProtobufStreamWriter(Message header, Descriptors.FieldDescriptor field, Request request, Response response) {
+    this.field = field;
+    this.output = response.stream().output();
+    try {
+      if (request.getMediaType().equals(MediaTypes.PROTOBUF)) {
+        response.stream().setMediaType(MediaTypes.PROTOBUF);
+        this.protobuf = CodedOutputStream.newInstance(output);
+        this.json = null;
+        header.writeTo(protobuf);
+      } else {
+        response.stream().setMediaType(MediaTypes.JSON);
+        this.protobuf = null;
+        this.json = JsonWriter.of(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        json.beginObject();
+        ProtobufJsonFormat.writeFieldsExcept(header, field, json);
+        json.name(field.getName()).beginArray();
+      }
+    } catch (IOException e) {
+      IOUtils.closeQuietly(output);
+      throw new IllegalStateException(format("Error while writing protobuf message %s", header.getDescriptorForType().getFullName()), e);
+    }
+  }
+
+  /**
+   * Starts the response by writing all the fields of {@code header}. Elements of the repeated field
+   * {@code repeatedFieldName} are then written with {@link #write(Message)}.
+   */
+  public static <E extends Message> ProtobufStreamWriter<E> start(Message header, String repeatedFieldName, Request request, Response response) {
+    Descriptors.FieldDescriptor field = header.getDescriptorForType().findFieldByName(repeatedFieldName);
+    checkArgument(field != null, "Field '%s' does not exist in message %s", repeatedFieldName, header.getDescriptorForType().getFullName());
+    checkArgument(field.isRepeated() && !field.isMapField() && field.getJavaType() == Descriptors.FieldDescriptor.JavaType.MESSAGE,
+      "Field '%s' is not a repeated field of messages", repeatedFieldName);
+    checkArgument(header.getRepeatedFieldCount(field) == 0, "Field '%s' must be empty in header", repeatedFieldName);
+    return new ProtobufStreamWriter<>(header, field, request, response);
+  }
+
+  public ProtobufStreamWriter<E> write(E element) {
+    try {
+      if (protobuf != null) {
+        protobuf.writeMessage(field.getNumber(), element);
+      } else {
+        ProtobufJsonFormat.writeValue(field, element, json);
+      }
+      return this;
+    } catch (IOException e) {
+      throw new IllegalStateException(format("Error while writing element of field %s", field.getFullName()), e);
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      if (protobuf != null) {
+        protobuf.flush();
+      } else {
+        json.endArray().endObject().close();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(format("Error while writing field %s", field.getFullName()), e);
+    } finally {
+      IOUtils.closeQuietly(output);
+    }
+  }
+}
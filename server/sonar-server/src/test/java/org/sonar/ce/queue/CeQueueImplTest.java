@@ -64,6 +64,26 @@ public class CeQueueImplTest {
     verifyCeQueueDtoForTaskSubmit(taskSubmit);
   }
 
+  @Test
+  public void submit_reports_with_normal_priority_and_other_tasks_with_high_priority_by_default() {
+    CeTaskSubmit reportSubmit = createTaskSubmit(CeTaskTypes.REPORT, "PROJECT_1", null);
+    CeTaskSubmit otherSubmit = createTaskSubmit("VIEW_REFRESH", "VIEW_1", null);
+    CeTaskSubmit prioritizedReportSubmit = underTest.prepareSubmit()
+      .setType(CeTaskTypes.REPORT)
+      .setComponentUuid("PROJECT_2")
+      .setPriority(CeQueueDto.Priority.HIGH)
+      .build();
+
+    underTest.massSubmit(asList(reportSubmit, otherSubmit, prioritizedReportSubmit));
+
+    assertThat(reportSubmit.getPriority()).isEqualTo(CeQueueDto.Priority.NORMAL);
+    assertThat(otherSubmit.getPriority()).isEqualTo(CeQueueDto.Priority.HIGH);
+    assertThat(prioritizedReportSubmit.getPriority()).isEqualTo(CeQueueDto.Priority.HIGH);
+    verifyCeQueueDtoForTaskSubmit(reportSubmit);
+    verifyCeQueueDtoForTaskSubmit(otherSubmit);
+    verifyCeQueueDtoForTaskSubmit(prioritizedReportSubmit);
+  }
+
   @Test
   public void submit_populates_component_name_and_key_of_CeTask_if_component_exists() {
     ComponentDto componentDto = insertComponent(ComponentTesting.newProjectDto("PROJECT_1"));
@@ -142,7 +162,7 @@ public class CeQueueImplTest {
 
     CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
 
-    dbTester.getDbClient().ceQueueDao().peek(session);
+    dbTester.getDbClient().ceQueueDao().peek(session, task.getUuid());
 
     underTest.cancel(task.getUuid());
   }
@@ -153,7 +173,7 @@ public class CeQueueImplTest {
     CeTask pendingTask1 = submit(CeTaskTypes.REPORT, "PROJECT_2");
     CeTask pendingTask2 = submit(CeTaskTypes.REPORT, "PROJECT_3");
 
-    dbTester.getDbClient().ceQueueDao().peek(session);
+    dbTester.getDbClient().ceQueueDao().peek(session, inProgressTask.getUuid());
 
     int canceledCount = underTest.cancelAll();
     assertThat(canceledCount).isEqualTo(2);
@@ -195,6 +215,7 @@ public class CeQueueImplTest {
     assertThat(queueDto.get().getTaskType()).isEqualTo(taskSubmit.getType());
     assertThat(queueDto.get().getComponentUuid()).isEqualTo(taskSubmit.getComponentUuid());
     assertThat(queueDto.get().getSubmitterLogin()).isEqualTo(taskSubmit.getSubmitterLogin());
+    assertThat(queueDto.get().getPriority()).isEqualTo(taskSubmit.getPriority());
     assertThat(queueDto.get().getCreatedAt()).isEqualTo(1_450_000_000_000L);
   }
 
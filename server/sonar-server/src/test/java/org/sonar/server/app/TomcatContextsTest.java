@@ -32,8 +32,13 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.utils.MessageException;
+import org.sonar.core.platform.ExplodedPlugin;
+import org.sonar.core.platform.PluginInfo;
 import org.sonar.process.ProcessProperties;
 import org.sonar.process.Props;
+import org.sonar.server.platform.ServerFileSystem;
+import org.sonar.server.plugins.ServerPluginJarExploder;
+import org.sonar.server.plugins.TestProjectUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
@@ -117,6 +122,25 @@ public class TomcatContextsTest {
     assertThat(dir.listFiles()).isEmpty();
   }
 
+  @Test
+  public void exploded_plugins_are_reused_after_restart() throws Exception {
+    File dir = temp.newFolder();
+    ServerFileSystem fs = mock(ServerFileSystem.class);
+    when(fs.getDeployedPluginsDir()).thenReturn(new File(dir, "plugins"));
+    PluginInfo pluginInfo = PluginInfo.create(TestProjectUtils.jarOf("test-libs-plugin"));
+    ExplodedPlugin exploded = new ServerPluginJarExploder(fs).explode(pluginInfo);
+    File marker = new File(exploded.getMain().getParentFile(), "marker");
+    FileUtils.touch(marker);
+    FileUtils.touch(new File(dir, "foo.txt"));
+
+    // restart
+    underTest.addStaticDir(tomcat, "/deploy", dir);
+    new ServerPluginJarExploder(fs).explode(pluginInfo);
+
+    assertThat(new File(dir, "foo.txt")).doesNotExist();
+    assertThat(marker).exists();
+  }
+
   @Test
   public void fail_if_static_directory_can_not_be_initialized() throws Exception {
     File dir = temp.newFolder();
@@ -22,6 +22,7 @@ package org.sonar.server.batch;
 import com.google.common.collect.ImmutableMap;
 import java.util.Date;
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.ClassRule;
@@ -35,6 +36,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
 import org.sonar.db.property.PropertyDto;
+import org.sonar.db.protobuf.DbProjectRepositories;
 import org.sonar.db.qualityprofile.QualityProfileDto;
 import org.sonar.db.source.FileSourceDao;
 import org.sonar.db.source.FileSourceDto;
@@ -562,6 +564,40 @@ public class ProjectDataLoaderMediumTest {
     assertThat(ref.fileData(project.key(), projectFile.path())).isNull();
   }
 
+  @Test
+  public void return_file_data_from_project_repository_when_it_has_been_persisted() {
+    ComponentDto project = ComponentTesting.newProjectDto();
+    userSessionRule.login("john").setGlobalPermissions(SCAN_EXECUTION);
+    tester.get(DbClient.class).componentDao().insert(dbSession, project);
+    ComponentDto module = ComponentTesting.newModuleDto(project);
+    tester.get(DbClient.class).componentDao().insert(dbSession, module);
+    addDefaultProfile();
+    // file sources are not read when the project repository exists
+    tester.get(DbClient.class).projectRepositoryDao().insertOrUpdate(dbSession, project.uuid(), DbProjectRepositories.ProjectRepository.newBuilder()
+      .addModule(newModuleFiles(project, "src/Foo.xoo", "123456", "987654321"))
+      .addModule(newModuleFiles(module, "src/Bar.xoo", "789456", null))
+      .build());
+    dbSession.commit();
+
+    ProjectRepositories ref = underTest.load(ProjectDataQuery.create().setModuleKey(project.key()));
+    assertThat(ref.fileData(project.key(), "src/Foo.xoo").hash()).isEqualTo("123456");
+    assertThat(ref.fileData(project.key(), "src/Foo.xoo").revision()).isEqualTo("987654321");
+    assertThat(ref.fileData(module.key(), "src/Bar.xoo").hash()).isEqualTo("789456");
+    assertThat(ref.fileData(module.key(), "src/Bar.xoo").revision()).isNull();
+
+    ref = underTest.load(ProjectDataQuery.create().setModuleKey(module.key()));
+    assertThat(ref.fileData(module.key(), "src/Bar.xoo").hash()).isEqualTo("789456");
+    assertThat(ref.fileData(project.key(), "src/Foo.xoo")).isNull();
+  }
+
+  private static DbProjectRepositories.ModuleFiles newModuleFiles(ComponentDto module, String path, String srcHash, @Nullable String revision) {
+    DbProjectRepositories.File.Builder file = DbProjectRepositories.File.newBuilder().setPath(path).setSrcHash(srcHash);
+    if (revision != null) {
+      file.setRevision(revision);
+    }
+    return DbProjectRepositories.ModuleFiles.newBuilder().setModuleUuid(module.uuid()).addFile(file).build();
+  }
+
   private void addDefaultProfile() {
     QualityProfileDto profileDto = newQProfileDto(QProfileName.createFor(ServerTester.Xoo.KEY, "SonarQube way"), "abcd").setRulesUpdatedAt(
       formatDateTime(new Date())).setDefault(true);
@@ -47,6 +47,9 @@ import org.sonarqube.ws.MediaTypes;
 import org.sonarqube.ws.WsCe;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.sonar.db.ce.CeQueueTesting.newCeQueueDto;
 import static org.sonar.db.component.ComponentTesting.newProjectDto;
 import static org.sonar.test.JsonAssert.assertJson;
@@ -55,6 +58,8 @@ import static org.sonarqube.ws.client.ce.CeWsParameters.PARAM_COMPONENT_KEY;
 
 public class ActivityStatusActionTest {
 
+  private static final long NOW = 1_450_000_000_000L;
+
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
   @Rule
@@ -64,18 +69,22 @@ public class ActivityStatusActionTest {
   ComponentDbTester componentDb = new ComponentDbTester(db);
   DbClient dbClient = db.getDbClient();
   DbSession dbSession = db.getSession();
+  System2 system2 = mock(System2.class);
 
-  WsActionTester ws = new WsActionTester(new ActivityStatusAction(userSession, dbClient, new ComponentFinder(dbClient)));
+  WsActionTester ws = new WsActionTester(new ActivityStatusAction(userSession, dbClient, new ComponentFinder(dbClient), system2));
 
   @Before
   public void setUp() {
     userSession.setGlobalPermissions(GlobalPermissions.SYSTEM_ADMIN);
+    when(system2.now()).thenReturn(NOW);
   }
 
   @Test
   public void json_example() {
-    dbClient.ceQueueDao().insert(dbSession, newCeQueueDto("ce-queue-uuid-1").setStatus(CeQueueDto.Status.PENDING));
-    dbClient.ceQueueDao().insert(dbSession, newCeQueueDto("ce-queue-uuid-2").setStatus(CeQueueDto.Status.PENDING));
+    dbClient.ceQueueDao().insert(dbSession, newCeQueueDto("ce-queue-uuid-1").setStatus(CeQueueDto.Status.PENDING)
+      .setPriority(CeQueueDto.Priority.HIGH).setCreatedAt(NOW - 15_000L).setUpdatedAt(NOW - 15_000L));
+    dbClient.ceQueueDao().insert(dbSession, newCeQueueDto("ce-queue-uuid-2").setStatus(CeQueueDto.Status.PENDING)
+      .setPriority(CeQueueDto.Priority.NORMAL).setCreatedAt(NOW - 1_200_000L).setUpdatedAt(NOW - 1_200_000L));
     for (int i = 0; i < 5; i++) {
       dbClient.ceActivityDao().insert(dbSession, new CeActivityDto(newCeQueueDto("ce-activity-uuid-" + i))
         .setStatus(CeActivityDto.Status.FAILED));
@@ -114,12 +123,29 @@ public class ActivityStatusActionTest {
     assertThat(result.getFailing()).isEqualTo(1);
   }
 
+  @Test
+  public void pending_tasks_by_priority() {
+    insertInQueue(CeQueueDto.Priority.HIGH, NOW - 2_000L);
+    insertInQueue(CeQueueDto.Priority.NORMAL, NOW - 5_000L);
+    insertInQueue(CeQueueDto.Priority.NORMAL, NOW - 9_000L);
+    insertInQueue(CeQueueDto.Status.IN_PROGRESS, null);
+
+    WsCe.ActivityStatusWsResponse result = call();
+
+    assertThat(result.getPendingByPriorityList())
+      .extracting(WsCe.PendingByPriority::getPriority, WsCe.PendingByPriority::getPending, WsCe.PendingByPriority::getMaxPendingTime)
+      .containsExactly(
+        tuple("HIGH", 1, 2_000L),
+        tuple("NORMAL", 2, 9_000L));
+  }
+
   @Test
   public void empty_status() {
     WsCe.ActivityStatusWsResponse result = call();
 
     assertThat(result.getPending()).isEqualTo(0);
     assertThat(result.getFailing()).isEqualTo(0);
+    assertThat(result.getPendingByPriorityList()).isEmpty();
   }
 
   @Test
@@ -152,6 +178,15 @@ public class ActivityStatusActionTest {
     db.commit();
   }
 
+  private void insertInQueue(CeQueueDto.Priority priority, long createdAt) {
+    dbClient.ceQueueDao().insert(dbSession, newCeQueueDto(Uuids.createFast())
+      .setStatus(CeQueueDto.Status.PENDING)
+      .setPriority(priority)
+      .setCreatedAt(createdAt)
+      .setUpdatedAt(createdAt));
+    db.commit();
+  }
+
   private void insertActivity(CeActivityDto.Status status, @Nullable String componentUuid) {
     dbClient.ceActivityDao().insert(dbSession, new CeActivityDto(
       newCeQueueDto(Uuids.createFast())
@@ -148,6 +148,43 @@ public class TaskActionTest {
     assertThat(task.getErrorStacktrace()).isEqualTo(activityDto.getErrorStacktrace());
   }
 
+  @Test
+  public void return_step_metrics_of_activity_when_additionalField_is_set() {
+    userSession.login("john").setGlobalPermissions(SYSTEM_ADMIN);
+
+    persist(createActivityDto(SOME_TASK_UUID).setStepMetrics("12;10;2048;3;7;Load report\n5;4;512;0;0;Build tree"));
+
+    TestResponse wsResponse = ws.newRequest()
+      .setMediaType(PROTOBUF)
+      .setParam("id", SOME_TASK_UUID)
+      .setParam("additionalFields", "steps")
+      .execute();
+
+    WsCe.Task task = Protobuf.read(wsResponse.getInputStream(), WsCe.TaskResponse.PARSER).getTask();
+    assertThat(task.getStepsList()).extracting(WsCe.TaskStep::getDescription).containsExactly("Load report", "Build tree");
+    WsCe.TaskStep step = task.getSteps(0);
+    assertThat(step.getWallTimeMs()).isEqualTo(12L);
+    assertThat(step.getCpuTimeMs()).isEqualTo(10L);
+    assertThat(step.getAllocatedBytes()).isEqualTo(2048L);
+    assertThat(step.getSqlStatements()).isEqualTo(3L);
+    assertThat(step.getSqlRows()).isEqualTo(7L);
+  }
+
+  @Test
+  public void do_not_return_step_metrics_of_activity_when_additionalField_is_not_set() {
+    userSession.login("john").setGlobalPermissions(SYSTEM_ADMIN);
+
+    persist(createActivityDto(SOME_TASK_UUID).setStepMetrics("12;10;2048;3;7;Load report"));
+
+    TestResponse wsResponse = ws.newRequest()
+      .setMediaType(PROTOBUF)
+      .setParam("id", SOME_TASK_UUID)
+      .execute();
+
+    WsCe.Task task = Protobuf.read(wsResponse.getInputStream(), WsCe.TaskResponse.PARSER).getTask();
+    assertThat(task.getStepsList()).isEmpty();
+  }
+
   @Test
   public void do_not_return_stacktrace_of_failed_activity_with_stacktrace_when_additionalField_is_not_set() {
     userSession.login("john").setGlobalPermissions(SYSTEM_ADMIN);
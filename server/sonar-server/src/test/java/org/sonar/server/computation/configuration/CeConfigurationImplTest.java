@@ -29,6 +29,8 @@ import org.sonar.api.utils.MessageException;
 
 import static java.lang.Math.abs;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.configuration.CeConfigurationImpl.CE_COALESCE_REPORTS_PROPERTY;
+import static org.sonar.server.computation.configuration.CeConfigurationImpl.CE_HEAP_BUDGET_PROPERTY;
 import static org.sonar.server.computation.configuration.CeConfigurationImpl.CE_WORKERS_COUNT_PROPERTY;
 
 public class CeConfigurationImplTest {
@@ -103,6 +105,41 @@ public class CeConfigurationImplTest {
     new CeConfigurationImpl(settings);
   }
 
+  @Test
+  public void getHeapBudget_returns_0_when_heap_budget_property_is_not_defined() {
+    assertThat(new CeConfigurationImpl(settings).getHeapBudget()).isEqualTo(0L);
+  }
+
+  @Test
+  public void getHeapBudget_returns_value_in_bytes_when_heap_budget_property_is_defined_in_MB() {
+    settings.setProperty(CE_HEAP_BUDGET_PROPERTY, "1536");
+
+    assertThat(new CeConfigurationImpl(settings).getHeapBudget()).isEqualTo(1536L * 1024 * 1024);
+  }
+
+  @Test
+  public void constructor_throws_MessageException_when_heap_budget_property_is_less_than_0() {
+    settings.setProperty(CE_HEAP_BUDGET_PROPERTY, "-1");
+
+    expectedException.expect(MessageException.class);
+    expectedException.expectMessage("value '-1' of property " + CE_HEAP_BUDGET_PROPERTY + " is invalid. " +
+      "It must be an integer greater than or equal to 0");
+
+    new CeConfigurationImpl(settings);
+  }
+
+  @Test
+  public void isReportCoalescingEnabled_returns_false_when_coalesce_reports_property_is_not_defined() {
+    assertThat(new CeConfigurationImpl(settings).isReportCoalescingEnabled()).isFalse();
+  }
+
+  @Test
+  public void isReportCoalescingEnabled_returns_true_when_coalesce_reports_property_is_true() {
+    settings.setProperty(CE_COALESCE_REPORTS_PROPERTY, "true");
+
+    assertThat(new CeConfigurationImpl(settings).isReportCoalescingEnabled()).isTrue();
+  }
+
   private void expectMessageException(int value) {
     expectedException.expect(MessageException.class);
     expectedException.expectMessage("value '" + value + "' of property " + CE_WORKERS_COUNT_PROPERTY + " is invalid. " +
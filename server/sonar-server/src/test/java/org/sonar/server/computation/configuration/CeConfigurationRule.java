@@ -29,6 +29,8 @@ import static com.google.common.base.Preconditions.checkArgument;
 public class CeConfigurationRule extends ExternalResource implements CeConfiguration {
   private int workerCount = CeConfigurationImpl.DEFAULT_WORKER_COUNT;
   private long queuePollingDelay = CeConfigurationImpl.DEFAULT_QUEUE_POLLING_DELAY;
+  private long heapBudget = 0L;
+  private boolean reportCoalescingEnabled = false;
 
   @Override
   public int getWorkerCount() {
@@ -50,4 +52,25 @@ public class CeConfigurationRule extends ExternalResource implements CeConfigura
     checkArgument(queuePollingDelay > 0, "Queue polling delay must be >= 0");
     this.queuePollingDelay = queuePollingDelay;
   }
+
+  @Override
+  public long getHeapBudget() {
+    return heapBudget;
+  }
+
+  public CeConfigurationRule setHeapBudget(long heapBudget) {
+    checkArgument(heapBudget >= 0, "heap budget must be >= 0");
+    this.heapBudget = heapBudget;
+    return this;
+  }
+
+  @Override
+  public boolean isReportCoalescingEnabled() {
+    return reportCoalescingEnabled;
+  }
+
+  public CeConfigurationRule setReportCoalescingEnabled(boolean reportCoalescingEnabled) {
+    this.reportCoalescingEnabled = reportCoalescingEnabled;
+    return this;
+  }
 }
@@ -49,6 +49,7 @@ public class CEQueueStatusImplTest {
     assertThat(underTest.getInProgressCount()).isEqualTo(0);
     assertThat(underTest.getErrorCount()).isEqualTo(0);
     assertThat(underTest.getSuccessCount()).isEqualTo(0);
+    assertThat(underTest.getSupersededCount()).isEqualTo(0);
     assertThat(underTest.getProcessingTime()).isEqualTo(0);
   }
 
@@ -103,6 +104,15 @@ public class CEQueueStatusImplTest {
     assertThat(underTest.getProcessingTime()).isEqualTo(calls);
   }
 
+  @Test
+  public void addSuperseded_increases_Superseded_without_changing_InProgress() {
+    underTest.addSuperseded();
+
+    assertThat(underTest.getSupersededCount()).isEqualTo(1);
+    assertThat(underTest.getInProgressCount()).isEqualTo(0);
+    assertThat(underTest.getProcessingTime()).isEqualTo(0);
+  }
+
   @Test
   public void addSuccess_throws_IAE_if_time_is_less_than_0() {
     expectedException.expect(IllegalArgumentException.class);
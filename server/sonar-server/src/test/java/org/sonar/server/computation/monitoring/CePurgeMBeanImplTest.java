@@ -0,0 +1,82 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import com.google.common.collect.ImmutableMap;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.management.InstanceNotFoundException;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+import org.junit.Test;
+import org.sonar.db.purge.PurgeProfiler;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CePurgeMBeanImplTest {
+
+  private PurgeProfiler profiler = mock(PurgeProfiler.class);
+  private CePurgeMBeanImpl underTest = new CePurgeMBeanImpl(profiler);
+
+  @Test
+  public void register_and_unregister() throws Exception {
+    assertThat(getMBean()).isNull();
+
+    underTest.start();
+    assertThat(getMBean()).isNotNull();
+
+    underTest.stop();
+    assertThat(getMBean()).isNull();
+  }
+
+  @Test
+  public void get_methods_return_durations_of_tables() {
+    Map<String, Long> durations = new LinkedHashMap<>();
+    durations.put("deleteAnalyses (project_measures)", 30L);
+    durations.put("deleteAnalyses (events)", 5L);
+    when(profiler.getDurationsSinceStartup()).thenReturn(durations);
+
+    assertThat(underTest.getPurgeTime()).isEqualTo(35L);
+    assertThat(underTest.getPurgeSummary()).containsExactly("deleteAnalyses (project_measures): 30ms", "deleteAnalyses (events): 5ms");
+  }
+
+  @Test
+  public void export_system_info() {
+    when(profiler.getDurationsSinceStartup()).thenReturn(ImmutableMap.of("deleteAnalyses (events)", 5L));
+
+    ProtobufSystemInfo.Section section = underTest.toProtobuf();
+    assertThat(section.getName()).isEqualTo("Compute Engine Database Cleaner");
+    assertThat(section.getAttributesCount()).isEqualTo(2);
+  }
+
+  @CheckForNull
+  private ObjectInstance getMBean() throws Exception {
+    try {
+      return ManagementFactory.getPlatformMBeanServer().getObjectInstance(new ObjectName(CePurgeMBean.OBJECT_NAME));
+    } catch (InstanceNotFoundException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import java.lang.management.ManagementFactory;
+import javax.annotation.CheckForNull;
+import javax.management.InstanceNotFoundException;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+import org.junit.Test;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+import org.sonar.server.computation.task.step.ComputationStepMetrics;
+import org.sonar.server.computation.task.step.ComputationStepMetricsHolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CeStepsMBeanImplTest {
+
+  private ComputationStepMetricsHolder metricsHolder = new ComputationStepMetricsHolder();
+  private CeStepsMBeanImpl underTest = new CeStepsMBeanImpl(metricsHolder);
+
+  @Test
+  public void register_and_unregister() throws Exception {
+    assertThat(getMBean()).isNull();
+
+    underTest.start();
+    assertThat(getMBean()).isNotNull();
+
+    underTest.stop();
+    assertThat(getMBean()).isNull();
+  }
+
+  @Test
+  public void get_methods_sum_metrics_of_all_steps() {
+    metricsHolder.add(new ComputationStepMetrics("step1", 10L, 5L, 100L, 2L, 20L));
+    metricsHolder.add(new ComputationStepMetrics("step2", 30L, -1L, -1L, 1L, 0L));
+    metricsHolder.add(new ComputationStepMetrics("step1", 15L, 7L, 200L, 3L, 10L));
+
+    assertThat(underTest.getStepsWallTime()).isEqualTo(55L);
+    assertThat(underTest.getStepsCpuTime()).isEqualTo(12L);
+    assertThat(underTest.getStepsAllocatedBytes()).isEqualTo(300L);
+    assertThat(underTest.getStepsSqlStatements()).isEqualTo(6L);
+    assertThat(underTest.getStepsSummary()).containsExactly(
+      "step2: 1 executions, wall 30ms, CPU 0ms, allocated 0 bytes, 1 SQL statements, 0 SQL rows",
+      "step1: 2 executions, wall 25ms, CPU 12ms, allocated 300 bytes, 5 SQL statements, 30 SQL rows");
+  }
+
+  @Test
+  public void export_system_info() {
+    metricsHolder.add(new ComputationStepMetrics("step1", 10L, 5L, 100L, 2L, 20L));
+
+    ProtobufSystemInfo.Section section = underTest.toProtobuf();
+    assertThat(section.getName()).isEqualTo("Compute Engine Steps");
+    assertThat(section.getAttributesCount()).isEqualTo(5);
+  }
+
+  @CheckForNull
+  private ObjectInstance getMBean() throws Exception {
+    try {
+      return ManagementFactory.getPlatformMBeanServer().getObjectInstance(new ObjectName(CeStepsMBean.OBJECT_NAME));
+    } catch (InstanceNotFoundException e) {
+      return null;
+    }
+  }
+}
@@ -36,6 +36,7 @@ public class CeTasksMBeanImplTest {
   private static final long IN_PROGRESS_COUNT = 5;
   private static final long ERROR_COUNT = 10;
   private static final long SUCCESS_COUNT = 13;
+  private static final long SUPERSEDED_COUNT = 3;
   private static final long PROCESSING_TIME = 987;
   private static final int WORKER_COUNT = 56;
 
@@ -58,6 +59,7 @@ public class CeTasksMBeanImplTest {
     assertThat(underTest.getInProgressCount()).isEqualTo(IN_PROGRESS_COUNT);
     assertThat(underTest.getErrorCount()).isEqualTo(ERROR_COUNT);
     assertThat(underTest.getSuccessCount()).isEqualTo(SUCCESS_COUNT);
+    assertThat(underTest.getSupersededCount()).isEqualTo(SUPERSEDED_COUNT);
     assertThat(underTest.getProcessingTime()).isEqualTo(PROCESSING_TIME);
   }
 
@@ -70,7 +72,7 @@ public class CeTasksMBeanImplTest {
   public void export_system_info() {
     ProtobufSystemInfo.Section section = underTest.toProtobuf();
     assertThat(section.getName()).isEqualTo("Compute Engine Tasks");
-    assertThat(section.getAttributesCount()).isEqualTo(6);
+    assertThat(section.getAttributesCount()).isEqualTo(7);
   }
 
   /**
@@ -114,6 +116,16 @@ public class CeTasksMBeanImplTest {
       return SUCCESS_COUNT;
     }
 
+    @Override
+    public long addSuperseded() {
+      return methodNotImplemented();
+    }
+
+    @Override
+    public long getSupersededCount() {
+      return SUPERSEDED_COUNT;
+    }
+
     @Override
     public long getProcessingTime() {
       return PROCESSING_TIME;
@@ -134,6 +146,16 @@ public class CeTasksMBeanImplTest {
     public long getQueuePollingDelay() {
       throw new UnsupportedOperationException("getQueuePollingDelay is not implemented");
     }
+
+    @Override
+    public long getHeapBudget() {
+      throw new UnsupportedOperationException("getHeapBudget is not implemented");
+    }
+
+    @Override
+    public boolean isReportCoalescingEnabled() {
+      throw new UnsupportedOperationException("isReportCoalescingEnabled is not implemented");
+    }
   }
 
   @CheckForNull
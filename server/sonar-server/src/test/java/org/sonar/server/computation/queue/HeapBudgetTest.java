@@ -0,0 +1,212 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.sonar.api.utils.internal.TestSystem2;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HeapBudgetTest {
+
+  private TestSystem2 system2 = new TestSystem2().setNow(1_000L);
+  private HeapBudget underTest = new HeapBudget(100L, 50L, system2);
+
+  @Test
+  public void is_disabled_when_budget_is_0() {
+    assertThat(new HeapBudget(0L, 50L, system2).isEnabled()).isFalse();
+    assertThat(underTest.isEnabled()).isTrue();
+  }
+
+  @Test
+  public void admit_tasks_as_long_as_they_fit_in_budget() {
+    underTest.setFootprint("T1", 60L);
+    underTest.setFootprint("T2", 60L);
+    underTest.setFootprint("T3", 40L);
+
+    assertThat(underTest.tryAdmit("T1")).isTrue();
+    assertThat(underTest.tryAdmit("T2")).isFalse();
+    assertThat(underTest.tryAdmit("T3")).isTrue();
+    assertThat(underTest.getUsed()).isEqualTo(100L);
+
+    underTest.release("T1");
+    assertThat(underTest.getUsed()).isEqualTo(40L);
+    assertThat(underTest.tryAdmit("T2")).isTrue();
+  }
+
+  @Test
+  public void footprint_of_task_is_estimated_by_a_single_caller() {
+    assertThat(underTest.startEstimate("T1")).isTrue();
+    assertThat(underTest.startEstimate("T1")).isFalse();
+
+    underTest.setFootprint("T1", 10L);
+    underTest.endEstimate("T1");
+    assertThat(underTest.startEstimate("T1")).isFalse();
+    assertThat(underTest.getFootprint("T1")).isEqualTo(10L);
+  }
+
+  @Test
+  public void footprint_can_be_estimated_again_if_previous_estimate_failed() {
+    assertThat(underTest.startEstimate("T1")).isTrue();
+    underTest.endEstimate("T1");
+
+    assertThat(underTest.startEstimate("T1")).isTrue();
+  }
+
+  @Test
+  public void do_not_admit_task_already_admitted() {
+    underTest.setFootprint("T1", 10L);
+
+    assertThat(underTest.tryAdmit("T1")).isTrue();
+    assertThat(underTest.tryAdmit("T1")).isFalse();
+    assertThat(underTest.getUsed()).isEqualTo(10L);
+  }
+
+  @Test
+  public void do_not_admit_task_whose_footprint_is_not_known() {
+    assertThat(underTest.tryAdmit("T1")).isFalse();
+
+    underTest.setFootprint("T1", 10L);
+    underTest.tryAdmit("T1");
+    underTest.release("T1");
+    assertThat(underTest.tryAdmit("T1")).isFalse();
+    assertThat(underTest.getUsed()).isEqualTo(0L);
+  }
+
+  @Test
+  public void admit_task_to_a_single_worker_when_workers_try_to_admit_it_concurrently() throws Exception {
+    underTest.setFootprint("T1", 60L);
+    underTest.setFootprint("T2", 30L);
+    underTest.tryAdmit("T2");
+    ExecutorService executorService = Executors.newFixedThreadPool(10);
+    try {
+      List<Callable<Boolean>> workers = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        workers.add(() -> underTest.tryAdmit("T1"));
+      }
+      int admissions = 0;
+      for (Future<Boolean> admitted : executorService.invokeAll(workers)) {
+        admissions += admitted.get() ? 1 : 0;
+      }
+
+      assertThat(admissions).isEqualTo(1);
+      assertThat(underTest.getUsed()).isEqualTo(90L);
+      underTest.release("T1");
+      assertThat(underTest.getUsed()).isEqualTo(30L);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void always_admit_task_when_no_task_is_admitted() {
+    underTest.setFootprint("T1", 500L);
+
+    assertThat(underTest.tryAdmit("T1")).isTrue();
+    assertThat(underTest.getUsed()).isEqualTo(500L);
+  }
+
+  @Test
+  public void task_is_held_too_long_after_max_holding_delay() {
+    underTest.setFootprint("T1", 60L);
+    underTest.setFootprint("T2", 60L);
+    underTest.tryAdmit("T1");
+
+    assertThat(underTest.tryAdmit("T2")).isFalse();
+    assertThat(underTest.isHeldTooLong("T2")).isFalse();
+    system2.setNow(1_051L);
+    assertThat(underTest.tryAdmit("T2")).isFalse();
+    assertThat(underTest.isHeldTooLong("T2")).isTrue();
+    assertThat(underTest.isHeldTooLong("T1")).isFalse();
+  }
+
+  @Test
+  public void retainPending_forgets_about_tasks_which_are_not_pending_anymore() {
+    underTest.setFootprint("T1", 60L);
+    underTest.setFootprint("T2", 60L);
+    underTest.setFootprint("T3", 60L);
+    underTest.tryAdmit("T1");
+    underTest.tryAdmit("T2");
+
+    underTest.retainPending(singletonList("T3"));
+
+    assertThat(underTest.getFootprint("T1")).isEqualTo(60L);
+    assertThat(underTest.getFootprint("T2")).isNull();
+    assertThat(underTest.getFootprint("T3")).isEqualTo(60L);
+
+    underTest.retainPending(asList("T1", "T2"));
+    assertThat(underTest.getFootprint("T3")).isNull();
+  }
+
+  @Test
+  public void admit_superseding_task_with_its_own_footprint_in_place_of_admitted_task() {
+    underTest.setFootprint("T1", 30L);
+    underTest.setFootprint("T2", 40L);
+    underTest.tryAdmit("T1");
+    underTest.tryAdmit("T2");
+
+    assertThat(underTest.tryAdmitInPlaceOf("T3", 60L, "T1")).isTrue();
+    assertThat(underTest.getFootprint("T3")).isEqualTo(60L);
+    assertThat(underTest.getUsed()).isEqualTo(130L);
+
+    underTest.release("T1");
+    assertThat(underTest.getUsed()).isEqualTo(100L);
+    underTest.release("T3");
+    assertThat(underTest.getUsed()).isEqualTo(40L);
+  }
+
+  @Test
+  public void do_not_admit_superseding_task_which_does_not_fit_in_place_of_admitted_task() {
+    underTest.setFootprint("T1", 30L);
+    underTest.setFootprint("T2", 40L);
+    underTest.tryAdmit("T1");
+    underTest.tryAdmit("T2");
+
+    assertThat(underTest.tryAdmitInPlaceOf("T3", 61L, "T1")).isFalse();
+    assertThat(underTest.getUsed()).isEqualTo(70L);
+    assertThat(underTest.getFootprint("T3")).isNull();
+  }
+
+  @Test
+  public void always_admit_superseding_task_in_place_of_the_only_admitted_task() {
+    underTest.setFootprint("T1", 30L);
+    underTest.tryAdmit("T1");
+
+    assertThat(underTest.tryAdmitInPlaceOf("T2", 500L, "T1")).isTrue();
+    underTest.release("T1");
+    assertThat(underTest.getUsed()).isEqualTo(500L);
+  }
+
+  @Test
+  public void do_not_admit_superseding_task_in_place_of_task_which_is_not_admitted() {
+    underTest.setFootprint("T1", 30L);
+
+    assertThat(underTest.tryAdmitInPlaceOf("T2", 10L, "T1")).isFalse();
+    assertThat(underTest.getUsed()).isEqualTo(0L);
+  }
+}
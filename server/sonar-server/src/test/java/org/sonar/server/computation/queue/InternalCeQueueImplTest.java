@@ -20,14 +20,20 @@
 package org.sonar.server.computation.queue;
 
 import com.google.common.base.Optional;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.Nullable;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
-import org.sonar.api.utils.System2;
 import org.sonar.api.utils.internal.TestSystem2;
 import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.ce.queue.CeTask;
@@ -42,13 +48,19 @@ import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
+import org.sonar.server.computation.configuration.CeConfigurationRule;
 import org.sonar.server.computation.monitoring.CEQueueStatusImpl;
+import org.sonar.server.computation.task.step.ComputationStepMetrics;
+import org.sonar.server.computation.task.step.ComputationStepMetricsHolder;
 
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.guava.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class InternalCeQueueImplTest {
@@ -58,7 +70,7 @@ public class InternalCeQueueImplTest {
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
 
-  System2 system2 = new TestSystem2().setNow(1_450_000_000_000L);
+  TestSystem2 system2 = new TestSystem2().setNow(1_450_000_000_000L);
 
   @Rule
   public DbTester dbTester = DbTester.create(system2);
@@ -66,7 +78,11 @@ public class InternalCeQueueImplTest {
 
   UuidFactory uuidFactory = UuidFactoryImpl.INSTANCE;
   CEQueueStatus queueStatus = new CEQueueStatusImpl(dbTester.getDbClient());
-  InternalCeQueue underTest = new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus);
+  ComputationStepMetricsHolder stepMetricsHolder = new ComputationStepMetricsHolder();
+  CeConfigurationRule ceConfiguration = new CeConfigurationRule();
+  ReportFootprintEstimator footprintEstimator = mock(ReportFootprintEstimator.class);
+  InternalCeQueue underTest = new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, stepMetricsHolder,
+    ceConfiguration, footprintEstimator);
 
   @Test
   public void submit_returns_task_populated_from_CeTaskSubmit_and_creates_CeQueue_row() {
@@ -179,6 +195,19 @@ public class InternalCeQueueImplTest {
     assertThat(history.get().getAnalysisUuid()).isNull();
   }
 
+  @Test
+  public void remove_saves_step_metrics_of_current_thread_in_CeActivity() {
+    CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    stepMetricsHolder.add(new ComputationStepMetrics("Load report", 12L, 10L, 2_048L, 3L, 7L));
+
+    Optional<CeTask> peek = underTest.peek();
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null);
+
+    Optional<CeActivityDto> history = dbTester.getDbClient().ceActivityDao().selectByUuid(dbTester.getSession(), task.getUuid());
+    assertThat(history.get().getStepMetrics()).isEqualTo("12;10;2048;3;7;Load report");
+    assertThat(stepMetricsHolder.popTaskMetrics()).isEmpty();
+  }
+
   @Test
   public void remove_sets_snapshotId_in_CeActivity_when_CeTaskResult_has_no_snapshot_id() {
     CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
@@ -247,6 +276,139 @@ public class InternalCeQueueImplTest {
     assertThat(peek.isPresent()).isFalse();
   }
 
+  @Test
+  public void peek_tasks_of_high_priority_first() throws Exception {
+    CeTask normalTask = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask highTask = submitWithPriority("PROJECT_2", CeQueueDto.Priority.HIGH);
+
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(highTask.getUuid());
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(normalTask.getUuid());
+  }
+
+  @Test
+  public void peek_task_of_normal_priority_after_series_of_tasks_of_high_priority() throws Exception {
+    CeTask normalTask = submit(CeTaskTypes.REPORT, "PROJECT_0");
+    List<String> highTaskUuids = new ArrayList<>();
+    for (int i = 1; i <= 5; i++) {
+      highTaskUuids.add(submitWithPriority("PROJECT_" + i, CeQueueDto.Priority.HIGH).getUuid());
+    }
+
+    List<String> peekedUuids = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      peekedUuids.add(underTest.peek().get().getUuid());
+    }
+
+    assertThat(peekedUuids).containsExactly(highTaskUuids.get(0), highTaskUuids.get(1), highTaskUuids.get(2), highTaskUuids.get(3),
+      normalTask.getUuid(), highTaskUuids.get(4));
+  }
+
+  @Test
+  public void peek_task_of_normal_priority_first_when_waiting_for_too_long() throws Exception {
+    CeTask normalTask = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    system2.setNow(system2.now() + 31 * 60 * 1000L);
+    CeTask highTask = submitWithPriority("PROJECT_2", CeQueueDto.Priority.HIGH);
+
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(normalTask.getUuid());
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(highTask.getUuid());
+  }
+
+  @Test
+  public void peek_tasks_within_heap_budget() throws Exception {
+    InternalCeQueue underTest = newQueueWithHeapBudget(ReportFootprintEstimator.BASE_FOOTPRINT + 1);
+    CeTask task1 = submit(underTest, CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(underTest, CeTaskTypes.REPORT, "PROJECT_2");
+
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(task1.getUuid());
+    // tasks without report are estimated to the base footprint, so the second one does not fit in the remaining budget
+    assertThat(underTest.peek().isPresent()).isFalse();
+
+    underTest.remove(task1, CeActivityDto.Status.SUCCESS, null, null);
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(task2.getUuid());
+  }
+
+  @Test
+  public void small_tasks_overtake_task_which_does_not_fit_in_heap_budget() throws Exception {
+    InternalCeQueue underTest = newQueueWithHeapBudget(3 * ReportFootprintEstimator.BASE_FOOTPRINT);
+    CeTask task1 = submit(underTest, CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask bigTask = submitWithReport(underTest, "PROJECT_2", 10 * ReportFootprintEstimator.BASE_FOOTPRINT);
+    CeTask task3 = submit(underTest, CeTaskTypes.REPORT, "PROJECT_3");
+
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(task1.getUuid());
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(task3.getUuid());
+    assertThat(underTest.peek().isPresent()).isFalse();
+
+    underTest.remove(task1, CeActivityDto.Status.SUCCESS, null, null);
+    assertThat(underTest.peek().isPresent()).isFalse();
+
+    // task bigger than the budget is processed alone
+    underTest.remove(task3, CeActivityDto.Status.SUCCESS, null, null);
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(bigTask.getUuid());
+  }
+
+  @Test
+  public void footprint_of_report_is_estimated_once() throws Exception {
+    InternalCeQueue underTest = newQueueWithHeapBudget(3 * ReportFootprintEstimator.BASE_FOOTPRINT);
+    CeTask task1 = submit(underTest, CeTaskTypes.REPORT, "PROJECT_1");
+    submitWithReport(underTest, "PROJECT_2", 10 * ReportFootprintEstimator.BASE_FOOTPRINT);
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(task1.getUuid());
+
+    assertThat(underTest.peek().isPresent()).isFalse();
+    assertThat(underTest.peek().isPresent()).isFalse();
+
+    verify(footprintEstimator, times(1)).estimate(any(InputStream.class));
+  }
+
+  @Test
+  public void tasks_do_not_overtake_task_held_for_too_long() throws Exception {
+    InternalCeQueue underTest = newQueueWithHeapBudget(3 * ReportFootprintEstimator.BASE_FOOTPRINT);
+    CeTask task1 = submit(underTest, CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask bigTask = submitWithReport(underTest, "PROJECT_2", 10 * ReportFootprintEstimator.BASE_FOOTPRINT);
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(task1.getUuid());
+    assertThat(underTest.peek().isPresent()).isFalse();
+
+    system2.setNow(system2.now() + 11 * 60 * 1000L);
+    submit(underTest, CeTaskTypes.REPORT, "PROJECT_3");
+    assertThat(underTest.peek().isPresent()).isFalse();
+
+    underTest.remove(task1, CeActivityDto.Status.SUCCESS, null, null);
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(bigTask.getUuid());
+  }
+
+  @Test
+  public void concurrent_workers_peek_distinct_tasks_within_heap_budget() throws Exception {
+    InternalCeQueue underTest = newQueueWithHeapBudget(3 * ReportFootprintEstimator.BASE_FOOTPRINT);
+    for (int i = 0; i < 6; i++) {
+      submit(underTest, CeTaskTypes.REPORT, "PROJECT_" + i);
+    }
+    List<Callable<Optional<CeTask>>> workers = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      workers.add(underTest::peek);
+    }
+
+    List<CeTask> peeked = new ArrayList<>();
+    ExecutorService executorService = Executors.newFixedThreadPool(workers.size());
+    try {
+      for (Future<Optional<CeTask>> task : executorService.invokeAll(workers)) {
+        if (task.get().isPresent()) {
+          peeked.add(task.get().get());
+        }
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    assertThat(peeked).hasSize(3);
+    assertThat(peeked).extracting(CeTask::getUuid).doesNotHaveDuplicates();
+    // budget is entirely released when peeked tasks are removed
+    for (CeTask task : peeked) {
+      underTest.remove(task, CeActivityDto.Status.SUCCESS, null, null);
+    }
+    for (int i = 0; i < 3; i++) {
+      assertThat(underTest.peek().isPresent()).isTrue();
+    }
+    assertThat(underTest.peek().isPresent()).isFalse();
+  }
+
   @Test
   public void cancel_pending() throws Exception {
     CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
@@ -291,6 +453,83 @@ public class InternalCeQueueImplTest {
     assertThat(history.isPresent()).isFalse();
   }
 
+  @Test
+  public void peek_processes_most_recent_report_of_component_and_supersedes_older_ones_when_coalescing_is_enabled() {
+    InternalCeQueue queue = newQueueWithReportCoalescing();
+    CeTask task1 = submit(queue, CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(queue, CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task3 = submit(queue, CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask otherProjectTask = submit(queue, CeTaskTypes.REPORT, "PROJECT_2");
+
+    Optional<CeTask> peek = queue.peek();
+
+    assertThat(peek.get().getUuid()).isEqualTo(task3.getUuid());
+    verifySuperseded(task1);
+    verifySuperseded(task2);
+    assertThat(queueStatus.getSupersededCount()).isEqualTo(2L);
+    assertThat(queueStatus.getInProgressCount()).isEqualTo(1L);
+    assertThat(queue.peek().get().getUuid()).isEqualTo(otherProjectTask.getUuid());
+
+    queue.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null);
+    assertThat(dbTester.getDbClient().ceActivityDao().selectByUuid(session, task3.getUuid()).get().getIsLast()).isTrue();
+    verifySuperseded(task1);
+    verifySuperseded(task2);
+  }
+
+  @Test
+  public void peek_supersedes_older_reports_when_most_recent_report_is_peeked_first() {
+    InternalCeQueue queue = newQueueWithReportCoalescing();
+    CeTask normalPriorityTask = submitWithPriority("PROJECT_1", CeQueueDto.Priority.NORMAL);
+    CeTask highPriorityTask = submitWithPriority("PROJECT_1", CeQueueDto.Priority.HIGH);
+
+    Optional<CeTask> peek = queue.peek();
+
+    assertThat(peek.get().getUuid()).isEqualTo(highPriorityTask.getUuid());
+    verifySuperseded(normalPriorityTask);
+    assertThat(queue.peek().isPresent()).isFalse();
+  }
+
+  @Test
+  public void peek_most_recent_report_admitted_with_its_own_footprint_when_coalescing_is_enabled() throws Exception {
+    ceConfiguration.setReportCoalescingEnabled(true);
+    InternalCeQueue queue = newQueueWithHeapBudget(3 * ReportFootprintEstimator.BASE_FOOTPRINT);
+    CeTask task1 = submit(queue, CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submitWithReport(queue, "PROJECT_1", 2 * ReportFootprintEstimator.BASE_FOOTPRINT);
+    CeTask otherProjectTask = submit(queue, CeTaskTypes.REPORT, "PROJECT_2");
+    submit(queue, CeTaskTypes.REPORT, "PROJECT_3");
+
+    assertThat(queue.peek().get().getUuid()).isEqualTo(task2.getUuid());
+    verifySuperseded(task1);
+    assertThat(queue.peek().get().getUuid()).isEqualTo(otherProjectTask.getUuid());
+    assertThat(queue.peek().isPresent()).isFalse();
+  }
+
+  @Test
+  public void peek_older_report_when_most_recent_one_does_not_fit_in_heap_budget() throws Exception {
+    ceConfiguration.setReportCoalescingEnabled(true);
+    InternalCeQueue queue = newQueueWithHeapBudget(3 * ReportFootprintEstimator.BASE_FOOTPRINT);
+    CeTask otherProjectTask = submit(queue, CeTaskTypes.REPORT, "PROJECT_2");
+    CeTask task1 = submit(queue, CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submitWithReport(queue, "PROJECT_1", 10 * ReportFootprintEstimator.BASE_FOOTPRINT);
+    assertThat(queue.peek().get().getUuid()).isEqualTo(otherProjectTask.getUuid());
+
+    assertThat(queue.peek().get().getUuid()).isEqualTo(task1.getUuid());
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, task2.getUuid()).get().getStatus()).isEqualTo(CeQueueDto.Status.PENDING);
+    assertThat(queueStatus.getSupersededCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void peek_does_not_coalesce_reports_by_default() {
+    CeTask task1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+
+    Optional<CeTask> peek = underTest.peek();
+
+    assertThat(peek.get().getUuid()).isEqualTo(task1.getUuid());
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, task2.getUuid()).get().getStatus()).isEqualTo(CeQueueDto.Status.PENDING);
+    assertThat(queueStatus.getSupersededCount()).isEqualTo(0L);
+  }
+
   @Test
   public void pause_and_resume_submits() throws Exception {
     assertThat(underTest.isSubmitPaused()).isFalse();
@@ -336,6 +575,45 @@ public class InternalCeQueueImplTest {
     return ComponentTesting.newProjectDto(uuid).setName("name_" + uuid).setKey("key_" + uuid);
   }
 
+  private CeTask submitWithPriority(String componentUuid, CeQueueDto.Priority priority) {
+    return underTest.submit(underTest.prepareSubmit()
+      .setType(CeTaskTypes.REPORT)
+      .setComponentUuid(componentUuid)
+      .setPriority(priority)
+      .build());
+  }
+
+  private InternalCeQueue newQueueWithHeapBudget(long heapBudget) {
+    ceConfiguration.setHeapBudget(heapBudget);
+    return new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, stepMetricsHolder,
+      ceConfiguration, footprintEstimator);
+  }
+
+  private InternalCeQueue newQueueWithReportCoalescing() {
+    ceConfiguration.setReportCoalescingEnabled(true);
+    return new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, stepMetricsHolder,
+      ceConfiguration, footprintEstimator);
+  }
+
+  private void verifySuperseded(CeTask task) {
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, task.getUuid()).isPresent()).isFalse();
+    CeActivityDto activity = dbTester.getDbClient().ceActivityDao().selectByUuid(session, task.getUuid()).get();
+    assertThat(activity.getStatus()).isEqualTo(CeActivityDto.Status.SUPERSEDED);
+    assertThat(activity.getStartedAt()).isNull();
+    assertThat(activity.getIsLast()).isFalse();
+  }
+
+  private CeTask submit(InternalCeQueue queue, String reportType, String componentUuid) {
+    return queue.submit(createTaskSubmit(reportType, componentUuid, null));
+  }
+
+  private CeTask submitWithReport(InternalCeQueue queue, String componentUuid, long estimatedFootprint) throws Exception {
+    CeTask task = submit(queue, CeTaskTypes.REPORT, componentUuid);
+    dbTester.getDbClient().ceTaskInputDao().insert(session, task.getUuid(), new ByteArrayInputStream("report".getBytes()));
+    when(footprintEstimator.estimate(any(InputStream.class))).thenReturn(estimatedFootprint);
+    return task;
+  }
+
   private CeTask submit(String reportType, String componentUuid) {
     return underTest.submit(createTaskSubmit(reportType, componentUuid, null));
   }
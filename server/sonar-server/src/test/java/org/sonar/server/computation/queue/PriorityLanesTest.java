@@ -0,0 +1,57 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import org.junit.Test;
+import org.sonar.api.utils.internal.TestSystem2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.db.ce.CeQueueDto.Priority.HIGH;
+import static org.sonar.db.ce.CeQueueDto.Priority.NORMAL;
+
+public class PriorityLanesTest {
+
+  private TestSystem2 system2 = new TestSystem2().setNow(10_000L);
+  private PriorityLanes underTest = new PriorityLanes(2, 1_000L, system2);
+
+  @Test
+  public void high_priority_lane_is_first_by_default() {
+    assertThat(underTest.peekOrder(null)).containsExactly(HIGH, NORMAL);
+    assertThat(underTest.peekOrder(9_500L)).containsExactly(HIGH, NORMAL);
+  }
+
+  @Test
+  public void normal_priority_lane_is_first_after_series_of_high_priority_peeks() {
+    underTest.peeked(HIGH);
+    assertThat(underTest.peekOrder(9_500L)).containsExactly(HIGH, NORMAL);
+
+    underTest.peeked(HIGH);
+    assertThat(underTest.peekOrder(9_500L)).containsExactly(NORMAL, HIGH);
+
+    underTest.peeked(NORMAL);
+    assertThat(underTest.peekOrder(9_500L)).containsExactly(HIGH, NORMAL);
+  }
+
+  @Test
+  public void normal_priority_lane_is_first_when_oldest_task_waits_for_too_long() {
+    assertThat(underTest.peekOrder(9_000L)).containsExactly(HIGH, NORMAL);
+    assertThat(underTest.peekOrder(8_999L)).containsExactly(NORMAL, HIGH);
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.utils.TempFolder;
+import org.sonar.api.utils.internal.JUnitTempFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.server.computation.queue.ReportFootprintEstimator.BASE_FOOTPRINT;
+import static org.sonar.server.computation.queue.ReportFootprintEstimator.COMPONENT_FOOTPRINT;
+import static org.sonar.server.computation.queue.ReportFootprintEstimator.ISSUES_BYTES_FACTOR;
+import static org.sonar.server.computation.queue.ReportFootprintEstimator.OTHER_BYTES_FACTOR;
+import static org.sonar.server.computation.queue.ReportFootprintEstimator.SOURCE_BYTES_FACTOR;
+
+public class ReportFootprintEstimatorTest {
+
+  @Rule
+  public JUnitTempFolder tempFolder = new JUnitTempFolder();
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private ReportFootprintEstimator underTest = new ReportFootprintEstimator(tempFolder);
+
+  @Test
+  public void estimate_empty_report_to_base_footprint() throws Exception {
+    assertThat(underTest.estimate(new ByteArrayInputStream(zip()))).isEqualTo(BASE_FOOTPRINT);
+  }
+
+  @Test
+  public void estimate_footprint_from_components_issues_and_sources() throws Exception {
+    byte[] report = zip(
+      "metadata.pb", 10,
+      "component-1.pb", 3,
+      "component-2.pb", 3,
+      "issues-2.pb", 100,
+      "source-2.txt", 1000,
+      "measures-2.pb", 20);
+
+    assertThat(underTest.estimate(new ByteArrayInputStream(report))).isEqualTo(BASE_FOOTPRINT
+      + 2 * COMPONENT_FOOTPRINT
+      + 100 * ISSUES_BYTES_FACTOR
+      + 1000 * SOURCE_BYTES_FACTOR
+      + 30 * OTHER_BYTES_FACTOR);
+  }
+
+  @Test
+  public void delete_temp_copy_of_report() throws Exception {
+    File copy = temp.newFile();
+    TempFolder mockedTempFolder = mock(TempFolder.class);
+    when(mockedTempFolder.newFile("report", ".zip")).thenReturn(copy);
+
+    long footprint = new ReportFootprintEstimator(mockedTempFolder).estimate(new ByteArrayInputStream(zip("component-1.pb", 3)));
+
+    assertThat(footprint).isEqualTo(BASE_FOOTPRINT + COMPONENT_FOOTPRINT);
+    assertThat(copy).doesNotExist();
+  }
+
+  private static byte[] zip(Object... namesAndSizes) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (ZipOutputStream zipOutput = new ZipOutputStream(output)) {
+      for (int i = 0; i < namesAndSizes.length; i += 2) {
+        zipOutput.putNextEntry(new ZipEntry((String) namesAndSizes[i]));
+        zipOutput.write(new byte[(Integer) namesAndSizes[i + 1]]);
+        zipOutput.closeEntry();
+      }
+    }
+    return output.toByteArray();
+  }
+}
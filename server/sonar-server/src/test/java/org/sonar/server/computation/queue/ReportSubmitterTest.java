@@ -34,7 +34,9 @@ import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTesting;
 import org.sonar.server.component.ComponentService;
 import org.sonar.server.component.NewComponent;
 import org.sonar.server.exceptions.ForbiddenException;
@@ -82,7 +84,7 @@ public class ReportSubmitterTest {
 
     when(queue.prepareSubmit()).thenReturn(new CeTaskSubmit.Builder(TASK_UUID));
 
-    underTest.submit(project.getKey(), null, project.name(), IOUtils.toInputStream("{binary}"));
+    underTest.submit(project.getKey(), null, project.name(), null, IOUtils.toInputStream("{binary}"));
 
     verifyReportIsPersisted(TASK_UUID);
     verifyZeroInteractions(permissionTemplateService);
@@ -90,7 +92,51 @@ public class ReportSubmitterTest {
       @Override
       protected boolean matchesSafely(CeTaskSubmit submit) {
         return submit.getType().equals(CeTaskTypes.REPORT) && submit.getComponentUuid().equals(project.uuid()) &&
-          submit.getUuid().equals(TASK_UUID);
+          submit.getUuid().equals(TASK_UUID) && submit.getPriority() == CeQueueDto.Priority.NORMAL;
+      }
+
+      @Override
+      public void describeTo(Description description) {
+
+      }
+    }));
+  }
+
+  @Test
+  public void submit_report_of_branch_with_high_priority() {
+    userSession.setGlobalPermissions(SCAN_EXECUTION);
+    ComponentDto project = db.components().insertComponent(ComponentTesting.newProjectDto().setKey(PROJECT_KEY + ":feature"));
+
+    when(queue.prepareSubmit()).thenReturn(new CeTaskSubmit.Builder(TASK_UUID));
+
+    underTest.submit(PROJECT_KEY, "feature", project.name(), null, IOUtils.toInputStream("{binary}"));
+
+    verify(queue).submit(argThat(new TypeSafeMatcher<CeTaskSubmit>() {
+      @Override
+      protected boolean matchesSafely(CeTaskSubmit submit) {
+        return submit.getPriority() == CeQueueDto.Priority.HIGH;
+      }
+
+      @Override
+      public void describeTo(Description description) {
+
+      }
+    }));
+  }
+
+  @Test
+  public void submit_report_with_requested_priority() {
+    userSession.setGlobalPermissions(SCAN_EXECUTION);
+    ComponentDto project = db.components().insertProject();
+
+    when(queue.prepareSubmit()).thenReturn(new CeTaskSubmit.Builder(TASK_UUID));
+
+    underTest.submit(project.getKey(), null, project.name(), CeQueueDto.Priority.HIGH, IOUtils.toInputStream("{binary}"));
+
+    verify(queue).submit(argThat(new TypeSafeMatcher<CeTaskSubmit>() {
+      @Override
+      protected boolean matchesSafely(CeTaskSubmit submit) {
+        return submit.getPriority() == CeQueueDto.Priority.HIGH;
       }
 
       @Override
@@ -110,7 +156,7 @@ public class ReportSubmitterTest {
     when(permissionTemplateService.wouldUserHavePermissionWithDefaultTemplate(any(DbSession.class), anyLong(), eq(SCAN_EXECUTION), anyString(), eq(PROJECT_KEY), eq(Qualifiers.PROJECT)))
       .thenReturn(true);
 
-    underTest.submit(PROJECT_KEY, null, PROJECT_NAME, IOUtils.toInputStream("{binary}"));
+    underTest.submit(PROJECT_KEY, null, PROJECT_NAME, null, IOUtils.toInputStream("{binary}"));
 
     verifyReportIsPersisted(TASK_UUID);
     verify(permissionTemplateService).applyDefault(any(DbSession.class), eq(createdProject), anyLong());
@@ -137,7 +183,7 @@ public class ReportSubmitterTest {
     when(permissionTemplateService.wouldUserHavePermissionWithDefaultTemplate(any(DbSession.class), anyLong(), eq(SCAN_EXECUTION), anyString(), eq(PROJECT_KEY), eq(Qualifiers.PROJECT)))
       .thenReturn(true);
 
-    underTest.submit(PROJECT_KEY, null, PROJECT_NAME, IOUtils.toInputStream("{binary}"));
+    underTest.submit(PROJECT_KEY, null, PROJECT_NAME, null, IOUtils.toInputStream("{binary}"));
 
     verify(queue).submit(any(CeTaskSubmit.class));
   }
@@ -149,7 +195,7 @@ public class ReportSubmitterTest {
 
     when(queue.prepareSubmit()).thenReturn(new CeTaskSubmit.Builder(TASK_UUID));
 
-    underTest.submit(project.getKey(), null, project.name(), IOUtils.toInputStream("{binary}"));
+    underTest.submit(project.getKey(), null, project.name(), null, IOUtils.toInputStream("{binary}"));
 
     verify(queue).submit(any(CeTaskSubmit.class));
   }
@@ -161,7 +207,7 @@ public class ReportSubmitterTest {
 
     when(queue.prepareSubmit()).thenReturn(new CeTaskSubmit.Builder(TASK_UUID));
 
-    underTest.submit(project.getKey(), null, project.name(), IOUtils.toInputStream("{binary}"));
+    underTest.submit(project.getKey(), null, project.name(), null, IOUtils.toInputStream("{binary}"));
 
     verify(queue).submit(any(CeTaskSubmit.class));
   }
@@ -171,7 +217,7 @@ public class ReportSubmitterTest {
     userSession.setGlobalPermissions(GlobalPermissions.QUALITY_GATE_ADMIN);
 
     thrown.expect(ForbiddenException.class);
-    underTest.submit(PROJECT_KEY, null, PROJECT_NAME, IOUtils.toInputStream("{binary}"));
+    underTest.submit(PROJECT_KEY, null, PROJECT_NAME, null, IOUtils.toInputStream("{binary}"));
   }
 
   @Test
@@ -182,7 +228,7 @@ public class ReportSubmitterTest {
     when(componentService.create(any(DbSession.class), any(NewComponent.class))).thenReturn(new ComponentDto().setUuid(PROJECT_UUID).setKey(PROJECT_KEY));
 
     thrown.expect(ForbiddenException.class);
-    underTest.submit(PROJECT_KEY, null, PROJECT_NAME, IOUtils.toInputStream("{binary}"));
+    underTest.submit(PROJECT_KEY, null, PROJECT_NAME, null, IOUtils.toInputStream("{binary}"));
   }
 
   private void verifyReportIsPersisted(String taskUuid) {
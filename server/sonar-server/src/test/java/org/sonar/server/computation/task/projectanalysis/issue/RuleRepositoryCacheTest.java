@@ -0,0 +1,91 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.RuleStatus;
+import org.sonar.api.rules.RuleType;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.rule.RuleDao;
+import org.sonar.db.rule.RuleDto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RuleRepositoryCacheTest {
+
+  private static final RuleKey RULE_KEY = RuleKey.of("java", "S001");
+
+  private DbClient dbClient = mock(DbClient.class);
+  private DbSession dbSession = mock(DbSession.class);
+  private RuleDao ruleDao = mock(RuleDao.class);
+
+  private RuleRepositoryCache underTest = new RuleRepositoryCache(dbClient);
+
+  @Before
+  public void setUp() {
+    when(dbClient.ruleDao()).thenReturn(ruleDao);
+    when(ruleDao.selectAll(dbSession)).thenReturn(ImmutableList.of(ruleDto("Name")));
+  }
+
+  @Test
+  public void rules_are_loaded_only_once_while_version_does_not_change() {
+    when(ruleDao.selectVersion(dbSession)).thenReturn("1-1000");
+
+    RuleRepositoryCache.Rules rules1 = underTest.get(dbSession);
+    RuleRepositoryCache.Rules rules2 = underTest.get(dbSession);
+
+    assertThat(rules2).isSameAs(rules1);
+    assertThat(rules1.getRulesByKey().get(RULE_KEY).getName()).isEqualTo("Name");
+    assertThat(rules1.getRulesById().get(1).getKey()).isEqualTo(RULE_KEY);
+    verify(ruleDao, times(1)).selectAll(dbSession);
+  }
+
+  @Test
+  public void rules_are_loaded_again_when_version_changes() {
+    when(ruleDao.selectVersion(dbSession)).thenReturn("1-1000");
+    RuleRepositoryCache.Rules rules1 = underTest.get(dbSession);
+
+    when(ruleDao.selectVersion(dbSession)).thenReturn("1-2000");
+    when(ruleDao.selectAll(dbSession)).thenReturn(ImmutableList.of(ruleDto("New name")));
+    RuleRepositoryCache.Rules rules2 = underTest.get(dbSession);
+
+    assertThat(rules2).isNotSameAs(rules1);
+    assertThat(rules2.getRulesByKey().get(RULE_KEY).getName()).isEqualTo("New name");
+    verify(ruleDao, times(2)).selectAll(dbSession);
+  }
+
+  private static RuleDto ruleDto(String name) {
+    return new RuleDto()
+      .setId(1)
+      .setRepositoryKey(RULE_KEY.repository())
+      .setRuleKey(RULE_KEY.rule())
+      .setName(name)
+      .setStatus(RuleStatus.READY)
+      .setType(RuleType.BUG);
+  }
+}
@@ -196,6 +196,18 @@ public class RuleRepositoryImplTest {
     assertIsABRule(rule.get());
   }
 
+  @Test
+  public void rules_are_provided_by_cache_if_defined() {
+    RuleRepositoryCache cache = new RuleRepositoryCache(dbClient);
+    when(ruleDao.selectVersion(dbSession)).thenReturn("1-1000");
+    new RuleRepositoryImpl(dbClient, cache).getByKey(AB_RULE.getKey());
+
+    RuleRepositoryImpl otherTask = new RuleRepositoryImpl(dbClient, cache);
+    assertIsABRule(otherTask.getByKey(AB_RULE.getKey()));
+
+    verify(ruleDao, times(1)).selectAll(any(DbSession.class));
+  }
+
   private void expectNullRuleKeyNPE() {
     expectedException.expect(NullPointerException.class);
     expectedException.expectMessage("RuleKey can not be null");
@@ -19,6 +19,7 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.util.Map;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -151,6 +152,33 @@ public class PersistIssuesStepTest extends BaseStepTest {
     dbTester.assertDbUnit(getClass(), "close_issue-result.xml", "issues");
   }
 
+  @Test
+  public void resolve_conflict_if_issue_has_been_changed_since_it_was_loaded() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    issueCache.newAppender().append(new DefaultIssue()
+      .setKey("ISSUE")
+      .setType(RuleType.CODE_SMELL)
+      .setRuleKey(RuleKey.of("xoo", "S01"))
+      .setComponentUuid("COMPONENT")
+      .setProjectUuid("PROJECT")
+      .setSeverity(Severity.BLOCKER)
+      .setStatus(Issue.STATUS_CLOSED)
+      .setResolution(Issue.RESOLUTION_FIXED)
+      // issue has been updated in DB after this date
+      .setSelectedAt(1_200_000_000_000L)
+      .setNew(false)
+      .setChanged(true)
+      ).close();
+
+    step.execute();
+
+    // issue is not overridden
+    Map<String, Object> result = dbTester.selectFirst("select status as \"status\", resolution as \"resolution\" from issues");
+    assertThat(result.get("status")).isEqualTo(Issue.STATUS_OPEN);
+    assertThat(result.get("resolution")).isNull();
+  }
+
   @Test
   public void add_comment() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
@@ -0,0 +1,109 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.protobuf.DbProjectRepositories;
+import org.sonar.db.source.FileSourceDto;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
+
+public class PersistProjectRepositoryStepTest {
+
+  private static final ReportComponent REPORT_PROJECT = ReportComponent.builder(PROJECT, 1).build();
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule().setRoot(REPORT_PROJECT);
+
+  private DbSession dbSession = db.getSession();
+
+  private PersistProjectRepositoryStep underTest = new PersistProjectRepositoryStep(db.getDbClient(), treeRootHolder);
+
+  @Test
+  public void persist_enabled_files_grouped_by_module() {
+    ComponentDto project = ComponentTesting.newProjectDto(REPORT_PROJECT.getUuid());
+    ComponentDto module = ComponentTesting.newModuleDto(project);
+    ComponentDto projectFile = ComponentTesting.newFileDto(project, null).setPath("src/Foo.java");
+    ComponentDto moduleFile = ComponentTesting.newFileDto(module, null).setPath("src/Bar.java");
+    ComponentDto disabledFile = ComponentTesting.newFileDto(module, null).setPath("src/Baz.java").setEnabled(false);
+    db.getDbClient().componentDao().insert(dbSession, project, module, projectFile, moduleFile, disabledFile);
+    insertFileSource(projectFile, "h1", "r1");
+    insertFileSource(moduleFile, "h2", null);
+    insertFileSource(disabledFile, "h3", "r3");
+    db.commit();
+
+    underTest.execute();
+
+    DbProjectRepositories.ProjectRepository repository = db.getDbClient().projectRepositoryDao().selectByProjectUuid(dbSession, project.uuid()).get();
+    assertThat(repository.getModuleList()).extracting(DbProjectRepositories.ModuleFiles::getModuleUuid).containsOnly(project.uuid(), module.uuid());
+    for (DbProjectRepositories.ModuleFiles moduleFiles : repository.getModuleList()) {
+      assertThat(moduleFiles.getFileCount()).isEqualTo(1);
+      DbProjectRepositories.File file = moduleFiles.getFile(0);
+      if (moduleFiles.getModuleUuid().equals(project.uuid())) {
+        assertThat(file.getPath()).isEqualTo("src/Foo.java");
+        assertThat(file.getSrcHash()).isEqualTo("h1");
+        assertThat(file.getRevision()).isEqualTo("r1");
+      } else {
+        assertThat(file.getPath()).isEqualTo("src/Bar.java");
+        assertThat(file.getSrcHash()).isEqualTo("h2");
+        assertThat(file.hasRevision()).isFalse();
+      }
+    }
+  }
+
+  @Test
+  public void replace_repository_of_previous_analysis() {
+    ComponentDto project = ComponentTesting.newProjectDto(REPORT_PROJECT.getUuid());
+    db.getDbClient().componentDao().insert(dbSession, project);
+    db.getDbClient().projectRepositoryDao().insertOrUpdate(dbSession, project.uuid(), DbProjectRepositories.ProjectRepository.newBuilder()
+      .addModule(DbProjectRepositories.ModuleFiles.newBuilder().setModuleUuid(project.uuid())
+        .addFile(DbProjectRepositories.File.newBuilder().setPath("src/Deleted.java")))
+      .build());
+    db.commit();
+
+    underTest.execute();
+
+    assertThat(db.getDbClient().projectRepositoryDao().selectByProjectUuid(dbSession, project.uuid()).get().getModuleCount()).isZero();
+    assertThat(db.countRowsOfTable("project_repositories")).isEqualTo(1);
+  }
+
+  private void insertFileSource(ComponentDto file, String srcHash, String revision) {
+    db.getDbClient().fileSourceDao().insert(dbSession, new FileSourceDto()
+      .setFileUuid(file.uuid())
+      .setProjectUuid(file.projectUuid())
+      .setDataType(FileSourceDto.Type.SOURCE)
+      .setSrcHash(srcHash)
+      .setRevision(revision)
+      .setCreatedAt(1_000L)
+      .setUpdatedAt(1_000L));
+  }
+}
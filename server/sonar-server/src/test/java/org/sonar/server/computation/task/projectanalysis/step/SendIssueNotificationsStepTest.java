@@ -20,15 +20,21 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import java.util.Date;
+import java.util.List;
+import javax.annotation.Nullable;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.issue.Issue;
 import org.sonar.api.notifications.Notification;
+import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.Severity;
 import org.sonar.api.utils.Duration;
 import org.sonar.api.utils.System2;
 import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.util.Uuids;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
@@ -37,15 +43,21 @@ import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepository;
 import org.sonar.server.computation.task.step.ComputationStep;
 import org.sonar.server.issue.notification.IssueChangeNotification;
+import org.sonar.server.issue.notification.IssueChangesDigestNotification;
 import org.sonar.server.issue.notification.MyNewIssuesNotification;
 import org.sonar.server.issue.notification.NewIssuesNotification;
 import org.sonar.server.issue.notification.NewIssuesNotificationFactory;
 import org.sonar.server.issue.notification.NewIssuesStatistics;
+import org.sonar.server.notification.DefaultNotificationManager;
 import org.sonar.server.notification.NotificationService;
+import org.sonar.server.util.cache.DiskCache;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -78,6 +90,8 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
   public TemporaryFolder temp = new TemporaryFolder();
 
   NotificationService notificationService = mock(NotificationService.class);
+  DefaultNotificationManager notificationManager = mock(DefaultNotificationManager.class);
+  RuleRepository ruleRepository = mock(RuleRepository.class);
   NewIssuesNotificationFactory newIssuesNotificationFactory = mock(NewIssuesNotificationFactory.class);
   NewIssuesNotification newIssuesNotificationMock = createNewIssuesNotificationMock();
   MyNewIssuesNotification myNewIssuesNotificationMock = createMyNewIssuesNotificationMock();
@@ -88,9 +102,17 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
   @Before
   public void setUp() throws Exception {
     issueCache = new IssueCache(temp.newFile(), System2.INSTANCE);
-    underTest = new SendIssueNotificationsStep(issueCache, mock(RuleRepository.class), treeRootHolder, notificationService, analysisMetadataHolder,
+    underTest = new SendIssueNotificationsStep(issueCache, ruleRepository, treeRootHolder, notificationService, notificationManager, analysisMetadataHolder,
       newIssuesNotificationFactory);
 
+    doAnswer(invocation -> {
+      ((Runnable) invocation.getArguments()[0]).run();
+      return null;
+    }).when(notificationManager).withRecipientsCache(any(Runnable.class));
+    org.sonar.server.computation.task.projectanalysis.issue.Rule rule = mock(org.sonar.server.computation.task.projectanalysis.issue.Rule.class);
+    when(rule.getName()).thenReturn("Rule name");
+    when(ruleRepository.getByKey(any(RuleKey.class))).thenReturn(rule);
+
     when(newIssuesNotificationFactory.newNewIssuesNotication()).thenReturn(newIssuesNotificationMock);
     when(newIssuesNotificationFactory.newMyNewIssuesNotification()).thenReturn(myNewIssuesNotificationMock);
   }
@@ -151,6 +173,68 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
     verify(notificationService).deliver(any(IssueChangeNotification.class));
   }
 
+  @Test
+  public void send_digest_of_changes_on_issues_of_each_assignee() throws Exception {
+    issueCache.newAppender()
+      .append(newChangedIssue("John"))
+      .append(newChangedIssue("John"))
+      .append(newChangedIssue("Bob"))
+      .append(newChangedIssue(null))
+      .close();
+    when(notificationService.hasProjectSubscribersForTypes(PROJECT_UUID, SendIssueNotificationsStep.NOTIF_TYPES)).thenReturn(true);
+
+    underTest.execute();
+
+    List<Notification> notifications = captureDeliveredNotifications(3);
+    assertThat(notifications).filteredOn(n -> n instanceof IssueChangesDigestNotification)
+      .extracting(n -> n.getFieldValue("assignee"), n -> ((IssueChangesDigestNotification) n).getChanges().size())
+      .containsOnly(tuple("John", 2));
+    assertThat(notifications).filteredOn(n -> n instanceof IssueChangeNotification)
+      .extracting(n -> n.getFieldValue("assignee"))
+      .containsOnly("Bob", null);
+    verify(notificationManager).withRecipientsCache(any(Runnable.class));
+  }
+
+  @Test
+  public void do_not_group_issues_resolved_as_false_positive_or_wont_fix() throws Exception {
+    issueCache.newAppender()
+      .append(newChangedIssue("John").setResolution(Issue.RESOLUTION_FALSE_POSITIVE))
+      .append(newChangedIssue("John").setResolution(Issue.RESOLUTION_WONT_FIX))
+      .close();
+    when(notificationService.hasProjectSubscribersForTypes(PROJECT_UUID, SendIssueNotificationsStep.NOTIF_TYPES)).thenReturn(true);
+
+    underTest.execute();
+
+    assertThat(captureDeliveredNotifications(2)).extracting(Notification::getType).containsOnly(IssueChangeNotification.TYPE);
+  }
+
+  @Test
+  public void split_digests_containing_too_many_changes() throws Exception {
+    DiskCache<DefaultIssue>.DiskAppender appender = issueCache.newAppender();
+    for (int i = 0; i < SendIssueNotificationsStep.MAX_CHANGES_PER_DIGEST + 2; i++) {
+      appender.append(newChangedIssue("John"));
+    }
+    appender.close();
+    when(notificationService.hasProjectSubscribersForTypes(PROJECT_UUID, SendIssueNotificationsStep.NOTIF_TYPES)).thenReturn(true);
+
+    underTest.execute();
+
+    assertThat(captureDeliveredNotifications(2))
+      .extracting(n -> ((IssueChangesDigestNotification) n).getChanges().size())
+      .containsExactly(SendIssueNotificationsStep.MAX_CHANGES_PER_DIGEST, 2);
+  }
+
+  private static DefaultIssue newChangedIssue(@Nullable String assignee) {
+    return new DefaultIssue().setKey(Uuids.createFast()).setRuleKey(RuleKey.of("xoo", "x1")).setSeverity(Severity.BLOCKER).setAssignee(assignee)
+      .setNew(false).setChanged(true).setSendNotifications(true);
+  }
+
+  private List<Notification> captureDeliveredNotifications(int expectedCount) {
+    ArgumentCaptor<Notification> notificationCaptor = ArgumentCaptor.forClass(Notification.class);
+    verify(notificationService, times(expectedCount)).deliver(notificationCaptor.capture());
+    return notificationCaptor.getAllValues();
+  }
+
   private NewIssuesNotification createNewIssuesNotificationMock() {
     NewIssuesNotification notification = mock(NewIssuesNotification.class);
     when(notification.setProject(anyString(), anyString(), anyString())).thenReturn(notification);
@@ -152,6 +152,35 @@ public class ComputationStepExecutorTest {
     new ComputationStepExecutor(mockComputationSteps(computationStep1), listener).execute();
   }
 
+  @Test
+  public void execute_records_metrics_of_each_step_in_holder() {
+    ComputationStepMetricsHolder metricsHolder = new ComputationStepMetricsHolder();
+
+    new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2), metricsHolder, listener).execute();
+
+    List<ComputationStepMetrics> metrics = metricsHolder.popTaskMetrics();
+    assertThat(metrics).extracting(ComputationStepMetrics::getDescription).containsExactly("step1", "step2");
+    assertThat(metrics.get(0).getWallTimeMs()).isGreaterThanOrEqualTo(0);
+    assertThat(metrics.get(0).getSqlStatements()).isEqualTo(0);
+    assertThat(metricsHolder.getTotals()).hasSize(2);
+    verify(listener).finished(true);
+  }
+
+  @Test
+  public void execute_records_metrics_of_step_which_throws_an_exception() {
+    ComputationStepMetricsHolder metricsHolder = new ComputationStepMetricsHolder();
+    doThrow(new RuntimeException("simulating failing execute Step method"))
+      .when(computationStep1)
+      .execute();
+
+    try {
+      new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2), metricsHolder).execute();
+      fail("exception should have been raised");
+    } catch (RuntimeException e) {
+      assertThat(metricsHolder.popTaskMetrics()).extracting(ComputationStepMetrics::getDescription).containsExactly("step1");
+    }
+  }
+
   private static ComputationSteps mockComputationSteps(ComputationStep... computationSteps) {
     ComputationSteps steps = mock(ComputationSteps.class);
     when(steps.instances()).thenReturn(Arrays.asList(computationSteps));
@@ -0,0 +1,74 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ComputationStepMetricsTest {
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void format_and_parse_are_symmetrical() {
+    List<ComputationStepMetrics> metrics = Arrays.asList(
+      new ComputationStepMetrics("Load; report", 10L, 8L, 1_024L, 3L, 42L),
+      new ComputationStepMetrics("Persist sources", 300L, -1L, -1L, 120L, 0L));
+
+    String text = ComputationStepMetrics.format(metrics);
+    List<ComputationStepMetrics> parsed = ComputationStepMetrics.parse(text);
+
+    assertThat(text).isEqualTo("10;8;1024;3;42;Load; report\n300;-1;-1;120;0;Persist sources");
+    assertThat(parsed).hasSize(2);
+    assertThat(parsed.get(0).getDescription()).isEqualTo("Load; report");
+    assertThat(parsed.get(0).getWallTimeMs()).isEqualTo(10L);
+    assertThat(parsed.get(0).getCpuTimeMs()).isEqualTo(8L);
+    assertThat(parsed.get(0).getAllocatedBytes()).isEqualTo(1_024L);
+    assertThat(parsed.get(0).getSqlStatements()).isEqualTo(3L);
+    assertThat(parsed.get(0).getSqlRows()).isEqualTo(42L);
+    assertThat(parsed.get(1).getCpuTimeMs()).isEqualTo(-1L);
+  }
+
+  @Test
+  public void format_replaces_line_breaks_in_description() {
+    String text = ComputationStepMetrics.format(Arrays.asList(new ComputationStepMetrics("a\nb", 1L, 1L, 1L, 1L, 1L)));
+
+    assertThat(text).isEqualTo("1;1;1;1;1;a b");
+  }
+
+  @Test
+  public void parse_returns_empty_list_on_null_or_empty_text() {
+    assertThat(ComputationStepMetrics.parse(null)).isEmpty();
+    assertThat(ComputationStepMetrics.parse("")).isEmpty();
+  }
+
+  @Test
+  public void parse_fails_on_invalid_line() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Invalid step metrics: 1;2;3");
+
+    ComputationStepMetrics.parse("1;2;3");
+  }
+}
@@ -20,11 +20,18 @@
 package org.sonar.server.es;
 
 import com.google.common.base.Function;
+import com.google.common.collect.Lists;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.sonar.server.issue.index.IssueDoc;
@@ -36,6 +43,9 @@ import static org.mockito.Mockito.when;
 
 public class EsUtilsTest {
 
+  @Rule
+  public EsTester es = new EsTester(new FakeIndexDefinition());
+
   @Test
   public void convertToDocs_empty() {
     SearchHits hits = mock(SearchHits.class, Mockito.RETURNS_MOCKS);
@@ -61,6 +71,24 @@ public class EsUtilsTest {
     assertThat(docs).hasSize(1);
   }
 
+  @Test
+  public void scroll_returns_hits_of_first_response_and_next_pages() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      es.putDocuments(FakeIndexDefinition.INDEX, FakeIndexDefinition.TYPE, FakeIndexDefinition.newDoc(i));
+    }
+    SearchResponse response = es.client().prepareSearch(FakeIndexDefinition.INDEX)
+      .setTypes(FakeIndexDefinition.TYPE)
+      .setScroll(TimeValue.timeValueMinutes(EsUtils.SCROLL_TIME_IN_MINUTES))
+      .addSort(SortBuilders.fieldSort("_doc"))
+      .setSize(2)
+      .get();
+
+    Iterator<FakeDoc> docs = EsUtils.scroll(es.client(), response, FakeDoc::new);
+
+    assertThat(Lists.newArrayList(docs).stream().map(FakeDoc::getInt).collect(Collectors.toList())).containsOnly(0, 1, 2, 3, 4);
+    assertThat(docs.hasNext()).isFalse();
+  }
+
   @Test
   public void util_class() {
     assertThat(TestUtils.hasOnlyPrivateConstructors(EsUtils.class)).isTrue();
@@ -0,0 +1,94 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.notification;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sonar.api.notifications.NotificationChannel;
+import org.sonar.server.notification.NotificationDispatcher;
+import org.sonar.server.notification.NotificationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChangesOnMyIssuesDigestNotificationDispatcherTest {
+
+  @Mock
+  NotificationManager notifications;
+
+  @Mock
+  NotificationDispatcher.Context context;
+
+  @Mock
+  NotificationChannel emailChannel;
+
+  @Mock
+  NotificationChannel twitterChannel;
+
+  ChangesOnMyIssuesDigestNotificationDispatcher dispatcher;
+
+  @Before
+  public void setUp() {
+    dispatcher = new ChangesOnMyIssuesDigestNotificationDispatcher(notifications);
+  }
+
+  @Test
+  public void share_subscriptions_of_changes_on_my_issues() {
+    assertThat(dispatcher.getKey()).isEqualTo(ChangesOnMyIssueNotificationDispatcher.KEY);
+    assertThat(dispatcher.getType()).isEqualTo(IssueChangesDigestNotification.TYPE);
+  }
+
+  @Test
+  public void should_not_dispatch_changes_on_single_issue() {
+    dispatcher.performDispatch(new IssueChangeNotification().setFieldValue("projectKey", "struts").setFieldValue("assignee", "freddy"), context);
+
+    verifyNoMoreInteractions(context, notifications);
+  }
+
+  @Test
+  public void should_dispatch_to_assignee() {
+    Multimap<String, NotificationChannel> recipients = HashMultimap.create();
+    recipients.put("simon", emailChannel);
+    recipients.put("freddy", twitterChannel);
+    recipients.put("freddy", emailChannel);
+    when(notifications.findNotificationSubscribers(dispatcher, "struts")).thenReturn(recipients);
+
+    dispatcher.performDispatch(new IssueChangesDigestNotification().setAssignee("freddy").setProject("struts", "Struts"), context);
+
+    verify(context).addUser("freddy", twitterChannel);
+    verify(context).addUser("freddy", emailChannel);
+    verifyNoMoreInteractions(context);
+  }
+
+  @Test
+  public void should_not_dispatch_if_no_assignee() {
+    dispatcher.performDispatch(new IssueChangesDigestNotification().setProject("struts", "Struts"), context);
+
+    verifyNoMoreInteractions(context, notifications);
+  }
+}
@@ -174,6 +174,30 @@ public class IssueChangesEmailTemplateTest {
     assertThat(message.getFrom()).isEqualTo("Simon");
   }
 
+  @Test
+  public void email_with_digest_of_changes() throws Exception {
+    IssueChangesDigestNotification digest = new IssueChangesDigestNotification()
+      .setAssignee("simon")
+      .setProject("org.apache:struts", "Struts")
+      .addChange((IssueChangeNotification) generateNotification()
+        .setFieldValue("old.status", "OPEN")
+        .setFieldValue("new.status", "CLOSED"))
+      .addChange((IssueChangeNotification) generateNotification()
+        .setFieldValue("key", "FGHIJ")
+        .setFieldValue("new.resolution", "FIXED"));
+
+    EmailMessage email = template.format(digest);
+    assertThat(email.getMessageId()).isEqualTo("issue-changes-digest/org.apache:struts/simon");
+    assertThat(email.getSubject()).isEqualTo("Struts, changes on 2 issues");
+
+    String message = email.getMessage();
+    String expected = Resources.toString(Resources.getResource(
+      "org/sonar/server/issue/notification/IssueChangesEmailTemplateTest/email_with_digest_of_changes.txt"), StandardCharsets.UTF_8);
+    expected = StringUtils.remove(expected, '\r');
+    assertThat(message).isEqualTo(expected);
+    assertThat(email.getFrom()).isNull();
+  }
+
   private Notification generateNotification() {
     Notification notification = new IssueChangeNotification()
       .setFieldValue("projectName", "Struts")
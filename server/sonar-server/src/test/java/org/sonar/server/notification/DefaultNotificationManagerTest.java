@@ -24,6 +24,7 @@ import com.google.common.collect.Multimap;
 import java.io.InvalidClassException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import org.junit.Before;
@@ -35,12 +36,16 @@ import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.db.notification.NotificationQueueDao;
 import org.sonar.db.notification.NotificationQueueDto;
+import org.sonar.db.property.NotificationSubscriptionDto;
 import org.sonar.db.property.PropertiesDao;
 
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.only;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -106,6 +111,42 @@ public class DefaultNotificationManagerTest {
     inOrder.verify(notificationQueueDao).delete(dtos);
   }
 
+  @Test
+  public void get_batch_from_queue_and_delete() {
+    List<NotificationQueueDto> dtos = Arrays.asList(
+      NotificationQueueDto.toNotificationQueueDto(new Notification("test1")).setCreatedAt(1_000L),
+      NotificationQueueDto.toNotificationQueueDto(new Notification("test2")));
+    when(notificationQueueDao.selectOldest(10)).thenReturn(dtos);
+
+    List<QueuedNotification> notifications = manager.getFromQueue(10);
+
+    assertThat(notifications).extracting(notification -> notification.getNotification().getType()).containsExactly("test1", "test2");
+    assertThat(notifications).extracting(QueuedNotification::getQueuedAt).containsExactly(1_000L, null);
+
+    InOrder inOrder = inOrder(notificationQueueDao);
+    inOrder.verify(notificationQueueDao).selectOldest(10);
+    inOrder.verify(notificationQueueDao).delete(dtos);
+  }
+
+  @Test
+  public void get_batch_from_empty_queue() {
+    when(notificationQueueDao.selectOldest(10)).thenReturn(Collections.emptyList());
+
+    assertThat(manager.getFromQueue(10)).isEmpty();
+
+    verify(notificationQueueDao, never()).delete(any(List.class));
+  }
+
+  @Test
+  public void ignore_notifications_of_batch_which_can_not_be_deserialized() throws Exception {
+    NotificationQueueDto dto1 = mock(NotificationQueueDto.class);
+    when(dto1.toNotification()).thenThrow(new InvalidClassException("Pouet"));
+    NotificationQueueDto dto2 = NotificationQueueDto.toNotificationQueueDto(new Notification("test"));
+    when(notificationQueueDao.selectOldest(10)).thenReturn(Arrays.asList(dto1, dto2));
+
+    assertThat(manager.getFromQueue(10)).extracting(notification -> notification.getNotification().getType()).containsExactly("test");
+  }
+
   // SONAR-4739
   @Test
   public void shouldNotFailWhenUnableToDeserialize() throws Exception {
@@ -175,4 +216,61 @@ public class DefaultNotificationManagerTest {
     assertThat(map.get("user2")).containsOnly(emailChannel, twitterChannel);
     assertThat(map.get("other")).isNull();
   }
+
+  @Test
+  public void load_subscriptions_once_when_recipients_cache_is_enabled() {
+    when(propertiesDao.selectGlobalNotificationSubscriptions()).thenReturn(Arrays.asList(
+      subscription("notification.NewViolations.Email", "user1"),
+      subscription("notification.NewViolations.Twitter", "user3"),
+      subscription("notification.OtherDispatcher.Email", "user4")));
+    when(propertiesDao.selectNotificationSubscriptionsByComponentKey("struts")).thenReturn(singletonList(subscription("notification.NewViolations.Email", "user2")));
+    when(propertiesDao.selectNotificationSubscriptionsByProjectUuid("uuid_45")).thenReturn(singletonList(subscription("notification.NewViolations.Twitter", "user2")));
+
+    manager.withRecipientsCache(() -> {
+      for (int i = 0; i < 3; i++) {
+        Multimap<String, NotificationChannel> subscribers = manager.findNotificationSubscribers(dispatcher, "struts");
+        assertThat(subscribers.keySet()).containsOnly("user1", "user2", "user3");
+        assertThat(subscribers.get("user1")).containsOnly(emailChannel);
+        assertThat(subscribers.get("user2")).containsOnly(emailChannel);
+        assertThat(subscribers.get("user3")).containsOnly(twitterChannel);
+
+        Multimap<String, NotificationChannel> recipients = manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45");
+        assertThat(recipients.keySet()).containsOnly("user1", "user2", "user3");
+        assertThat(recipients.get("user2")).containsOnly(twitterChannel);
+
+        assertThat(manager.findNotificationSubscribers(dispatcher, null).keySet()).containsOnly("user1", "user3");
+      }
+    });
+
+    verify(propertiesDao, times(1)).selectGlobalNotificationSubscriptions();
+    verify(propertiesDao, times(1)).selectNotificationSubscriptionsByComponentKey("struts");
+    verify(propertiesDao, times(1)).selectNotificationSubscriptionsByProjectUuid("uuid_45");
+    verify(propertiesDao, never()).selectNotificationSubscribers(anyString(), anyString(), anyString());
+    verify(propertiesDao, never()).selectUsersForNotification(anyString(), anyString(), anyString());
+  }
+
+  @Test
+  public void reload_subscriptions_at_each_recipients_cache_scope() {
+    when(propertiesDao.selectGlobalNotificationSubscriptions())
+      .thenReturn(singletonList(subscription("notification.NewViolations.Email", "user1")))
+      .thenReturn(singletonList(subscription("notification.NewViolations.Email", "user2")));
+
+    manager.withRecipientsCache(() -> assertThat(manager.findNotificationSubscribers(dispatcher, null).keySet()).containsOnly("user1"));
+    manager.withRecipientsCache(() -> assertThat(manager.findNotificationSubscribers(dispatcher, null).keySet()).containsOnly("user2"));
+  }
+
+  @Test
+  public void do_not_cache_recipients_by_default() {
+    when(propertiesDao.selectNotificationSubscribers("NewViolations", "Email", "struts")).thenReturn(Lists.newArrayList("user1"));
+
+    manager.findNotificationSubscribers(dispatcher, "struts");
+    manager.findNotificationSubscribers(dispatcher, "struts");
+
+    verify(propertiesDao, times(2)).selectNotificationSubscribers("NewViolations", "Email", "struts");
+    verify(propertiesDao, never()).selectGlobalNotificationSubscriptions();
+  }
+
+  private static NotificationSubscriptionDto subscription(String notificationKey, String login) {
+    return new NotificationSubscriptionDto().setNotificationKey(notificationKey).setLogin(login);
+  }
 }
@@ -21,6 +21,8 @@ package org.sonar.server.notification;
 
 import com.google.common.collect.Sets;
 import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -31,15 +33,21 @@ import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.db.DbClient;
 import org.sonar.db.property.PropertiesDao;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.after;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.same;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -68,9 +76,13 @@ public class NotificationDaemonTest {
     when(commentOnIssueCreatedByMe.getType()).thenReturn("issue-changes");
     when(qualityGateChange.getKey()).thenReturn("QGateChange");
     when(qualityGateChange.getType()).thenReturn("qgate-changes");
-    when(manager.getFromQueue()).thenReturn(notification).thenReturn(null);
+    when(manager.getFromQueue(anyInt())).thenReturn(queued(notification)).thenReturn(emptyList());
+    doAnswer(invocation -> {
+      ((Runnable) invocation.getArguments()[0]).run();
+      return null;
+    }).when(manager).withRecipientsCache(any(Runnable.class));
 
-    Settings settings = new MapSettings().setProperty("sonar.notifications.delay", 1L);
+    Settings settings = new MapSettings().setProperty("sonar.notifications.delay", 1L).setProperty("sonar.notifications.retryDelay", 0L);
 
     underTest = new NotificationDaemon(settings, manager, service);
   }
@@ -174,7 +186,7 @@ public class NotificationDaemonTest {
   @Test
   public void shouldNotStopWhenException() {
     setUpMocks();
-    when(manager.getFromQueue()).thenThrow(new RuntimeException("Unexpected exception")).thenReturn(notification).thenReturn(null);
+    when(manager.getFromQueue(anyInt())).thenThrow(new RuntimeException("Unexpected exception")).thenReturn(queued(notification)).thenReturn(emptyList());
     doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
     doAnswer(addUser(CREATOR_SIMON, emailChannel)).when(commentOnIssueCreatedByMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
 
@@ -185,6 +197,98 @@ public class NotificationDaemonTest {
     verify(gtalkChannel, never()).deliver(notification, ASSIGNEE_SIMON);
   }
 
+  @Test
+  public void deliver_all_notifications_of_a_batch() {
+    setUpMocks();
+    Notification otherNotification = mock(Notification.class);
+    when(manager.getFromQueue(anyInt())).thenReturn(queued(notification, otherNotification)).thenReturn(emptyList());
+    doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(any(Notification.class), any(NotificationDispatcher.Context.class));
+    doAnswer(addUser(CREATOR_EVGENY, gtalkChannel)).when(commentOnIssueCreatedByMe).dispatch(any(Notification.class), any(NotificationDispatcher.Context.class));
+
+    underTest.start();
+    verify(emailChannel, timeout(2000)).deliver(notification, ASSIGNEE_SIMON);
+    verify(emailChannel, timeout(2000)).deliver(otherNotification, ASSIGNEE_SIMON);
+    verify(gtalkChannel, timeout(2000)).deliver(notification, CREATOR_EVGENY);
+    verify(gtalkChannel, timeout(2000)).deliver(otherNotification, CREATOR_EVGENY);
+    underTest.stop();
+
+    verify(manager).withRecipientsCache(any(Runnable.class));
+    assertThat(underTest.getDeliveredCount()).isEqualTo(4);
+    assertThat(underTest.getFailedCount()).isZero();
+  }
+
+  @Test
+  public void retry_delivery_when_channel_fails() {
+    setUpMocks();
+    doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
+    doThrow(new IllegalStateException("SMTP server is down")).doNothing().when(emailChannel).deliver(notification, ASSIGNEE_SIMON);
+
+    underTest.start();
+    verify(emailChannel, timeout(2000).times(2)).deliver(notification, ASSIGNEE_SIMON);
+    underTest.stop();
+
+    assertThat(underTest.getRetriedCount()).isEqualTo(1);
+    assertThat(underTest.getDeliveredCount()).isEqualTo(1);
+    assertThat(underTest.getFailedCount()).isZero();
+  }
+
+  @Test
+  public void give_up_delivery_after_max_attempts() {
+    setUpMocks();
+    doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
+    doThrow(new IllegalStateException("SMTP server is down")).when(emailChannel).deliver(notification, ASSIGNEE_SIMON);
+    underTest = new NotificationDaemon(new MapSettings()
+      .setProperty("sonar.notifications.delay", 1L)
+      .setProperty("sonar.notifications.retryDelay", 0L)
+      .setProperty("sonar.notifications.maxDeliveryAttempts", 2), manager, service);
+
+    underTest.start();
+    verify(emailChannel, timeout(2000).times(2)).deliver(notification, ASSIGNEE_SIMON);
+    verify(manager, timeout(2000).times(2)).getFromQueue(anyInt());
+    underTest.stop();
+
+    verify(emailChannel, times(2)).deliver(notification, ASSIGNEE_SIMON);
+    assertThat(underTest.getRetriedCount()).isEqualTo(1);
+    assertThat(underTest.getFailedCount()).isEqualTo(1);
+    assertThat(underTest.getDeliveredCount()).isZero();
+  }
+
+  @Test
+  public void measure_latency_from_the_queuing_of_notifications() {
+    setUpMocks();
+    when(manager.getFromQueue(anyInt())).thenReturn(singletonList(new QueuedNotification(notification, System.currentTimeMillis() - 60_000L)))
+      .thenReturn(emptyList());
+    doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
+
+    underTest.start();
+    verify(emailChannel, timeout(2000)).deliver(notification, ASSIGNEE_SIMON);
+    underTest.stop();
+
+    assertThat(underTest.getMaxDeliveryLatencyInMs()).isGreaterThanOrEqualTo(60_000L);
+    assertThat(underTest.getAverageDeliveryLatencyInMs()).isGreaterThanOrEqualTo(60_000L);
+  }
+
+  @Test
+  public void cancel_pending_retries_on_stop() {
+    setUpMocks();
+    doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
+    doThrow(new IllegalStateException("SMTP server is down")).doNothing().when(emailChannel).deliver(notification, ASSIGNEE_SIMON);
+    underTest = new NotificationDaemon(new MapSettings()
+      .setProperty("sonar.notifications.delay", 1L)
+      .setProperty("sonar.notifications.retryDelay", 2L), manager, service);
+
+    underTest.start();
+    verify(emailChannel, timeout(2000)).deliver(notification, ASSIGNEE_SIMON);
+    while (underTest.getRetriedCount() == 0) {
+      Thread.yield();
+    }
+    underTest.stop();
+
+    verify(emailChannel, after(3000).times(1)).deliver(notification, ASSIGNEE_SIMON);
+    assertThat(underTest.getFailedCount()).isEqualTo(1);
+    assertThat(underTest.getDeliveredCount()).isZero();
+  }
+
   @Test
   public void shouldNotAddNullAsUser() {
     setUpMocks();
@@ -216,7 +320,7 @@ public class NotificationDaemonTest {
   public void shouldLogEvery10Minutes() {
     setUpMocks();
     // Emulate 2 notifications in DB
-    when(manager.getFromQueue()).thenReturn(notification).thenReturn(notification).thenReturn(null);
+    when(manager.getFromQueue(anyInt())).thenReturn(queued(notification)).thenReturn(queued(notification)).thenReturn(emptyList());
     when(manager.count()).thenReturn(1L).thenReturn(0L);
     underTest = spy(underTest);
     // Emulate processing of each notification take 10 min to have a log each time
@@ -243,6 +347,10 @@ public class NotificationDaemonTest {
     assertThat(service.hasProjectSubscribersForTypes("PROJECT_UUID", Sets.newHashSet("issue-changes"))).isTrue();
   }
 
+  private static List<QueuedNotification> queued(Notification... notifications) {
+    return Arrays.stream(notifications).map(notification -> new QueuedNotification(notification, null)).collect(Collectors.toList());
+  }
+
   private static Answer<Object> addUser(final String user, final NotificationChannel channel) {
     return addUser(user, new NotificationChannel[]{channel});
   }
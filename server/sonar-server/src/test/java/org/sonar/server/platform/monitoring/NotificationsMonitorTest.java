@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.Map;
+import org.junit.Test;
+import org.sonar.server.notification.DefaultNotificationManager;
+import org.sonar.server.notification.NotificationDaemon;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NotificationsMonitorTest {
+
+  DefaultNotificationManager manager = mock(DefaultNotificationManager.class);
+  NotificationDaemon daemon = mock(NotificationDaemon.class);
+  NotificationsMonitor underTest = new NotificationsMonitor(manager, daemon);
+
+  @Test
+  public void name() {
+    assertThat(underTest.name()).isEqualTo("Notifications");
+  }
+
+  @Test
+  public void queue_size_and_delivery_statistics() {
+    when(manager.count()).thenReturn(42L);
+    when(daemon.getDeliveredCount()).thenReturn(10L);
+    when(daemon.getFailedCount()).thenReturn(1L);
+    when(daemon.getRetriedCount()).thenReturn(3L);
+    when(daemon.getAverageDeliveryLatencyInMs()).thenReturn(150L);
+    when(daemon.getMaxDeliveryLatencyInMs()).thenReturn(900L);
+
+    Map<String, Object> attributes = underTest.attributes();
+
+    assertThat(attributes)
+      .containsEntry("Queue Size", 42L)
+      .containsEntry("Delivered", 10L)
+      .containsEntry("Failed", 1L)
+      .containsEntry("Retried", 3L)
+      .containsEntry("Average Delivery Latency (ms)", 150L)
+      .containsEntry("Max Delivery Latency (ms)", 900L);
+  }
+}
@@ -37,6 +37,7 @@ import org.sonar.server.authentication.TestIdentityProvider;
 import org.sonar.server.platform.ServerId;
 import org.sonar.server.platform.ServerIdLoader;
 import org.sonar.server.platform.ServerLogging;
+import org.sonar.server.source.SourceCache;
 import org.sonar.server.user.SecurityRealmFactory;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -61,9 +62,10 @@ public class SonarQubeMonitorTest {
   ServerIdLoader serverIdLoader = mock(ServerIdLoader.class, RETURNS_DEEP_STUBS);
   ServerLogging serverLogging = mock(ServerLogging.class);
   SecurityRealmFactory securityRealmFactory = mock(SecurityRealmFactory.class);
+  SourceCache sourceCache = mock(SourceCache.class);
 
   SonarQubeMonitor underTest = new SonarQubeMonitor(settings, securityRealmFactory, identityProviderRepository, server,
-    serverLogging, serverIdLoader);
+    serverLogging, serverIdLoader, sourceCache);
 
   @Before
   public void setUp() throws Exception {
@@ -135,6 +137,21 @@ public class SonarQubeMonitorTest {
     assertThat(attributes).containsEntry("Logs Level", "DEBUG");
   }
 
+  @Test
+  public void get_source_cache_statistics() throws Exception {
+    when(sourceCache.getHitRate()).thenReturn(0.75);
+    when(sourceCache.getSourceHits()).thenReturn(2L);
+    when(sourceCache.getHtmlHits()).thenReturn(1L);
+    when(sourceCache.getSourceMisses()).thenReturn(1L);
+    when(sourceCache.getEvictionCount()).thenReturn(5L);
+
+    Map<String, Object> attributes = underTest.attributes();
+    assertThat(attributes).containsEntry("Source Cache Hit Rate", 0.75);
+    assertThat(attributes).containsEntry("Source Cache Hits", 3L);
+    assertThat(attributes).containsEntry("Source Cache Misses", 1L);
+    assertThat(attributes).containsEntry("Source Cache Evictions", 5L);
+  }
+
   @Test
   public void get_realm() throws Exception {
     SecurityRealm realm = mock(SecurityRealm.class);
@@ -0,0 +1,56 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Test;
+import org.sonar.server.startup.StartupTimeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StartupTasksMonitorTest {
+
+  StartupTimeline timeline = mock(StartupTimeline.class);
+  StartupTasksMonitor underTest = new StartupTasksMonitor(timeline);
+
+  @Test
+  public void name() {
+    assertThat(underTest.name()).isEqualTo("Startup Tasks");
+  }
+
+  @Test
+  public void timeline_of_startup_tasks() {
+    when(timeline.getEntries()).thenReturn(Arrays.asList(
+      new StartupTimeline.Entry("RegisterMetrics", "startup-task-0", 0L, 120L),
+      new StartupTimeline.Entry("RegisterRules", "startup-task-1", 2L, 1502L)));
+
+    Map<String, Object> attributes = underTest.attributes();
+
+    assertThat(attributes).containsOnlyKeys("RegisterMetrics", "RegisterRules");
+    assertThat((Map) attributes.get("RegisterRules"))
+      .containsEntry("Thread", "startup-task-1")
+      .containsEntry("Start Offset (ms)", 2L)
+      .containsEntry("End Offset (ms)", 1502L)
+      .containsEntry("Duration (ms)", 1500L);
+  }
+}
@@ -20,6 +20,7 @@
 package org.sonar.server.plugins;
 
 import java.io.File;
+import org.apache.commons.io.FileUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -27,6 +28,7 @@ import org.sonar.core.platform.ExplodedPlugin;
 import org.sonar.core.platform.PluginInfo;
 import org.sonar.server.platform.ServerFileSystem;
 
+import static java.util.Collections.singleton;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -60,4 +62,21 @@ public class ServerPluginJarExploderTest {
       assertThat(lib.getCanonicalPath()).startsWith(pluginDeployDir.getCanonicalPath());
     }
   }
+
+  @Test
+  public void delete_exploded_directories_of_uninstalled_plugins() throws Exception {
+    File deployDir = temp.newFolder();
+    when(fs.getDeployedPluginsDir()).thenReturn(deployDir);
+    File uninstalledDir = new File(deployDir, "uninstalled");
+    FileUtils.touch(new File(uninstalledDir, "uninstalled.jar"));
+    File index = new File(deployDir, "index.txt");
+    FileUtils.touch(index);
+    ExplodedPlugin exploded = underTest.explode(PluginInfo.create(TestProjectUtils.jarOf("test-libs-plugin")));
+
+    underTest.deleteUninstalled(singleton("testlibs"));
+
+    assertThat(exploded.getMain()).exists();
+    assertThat(index).exists();
+    assertThat(uninstalledDir).doesNotExist();
+  }
 }
@@ -36,6 +36,10 @@ import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
+import org.sonar.db.qualityprofile.ActiveRuleDto;
+import org.sonar.db.qualityprofile.ActiveRuleParamDto;
+import org.sonar.db.qualityprofile.QualityProfileDto;
+import org.sonar.db.qualityprofile.QualityProfileTesting;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleParamDto;
 import org.sonar.db.rule.RuleRepositoryDto;
@@ -51,6 +55,7 @@ import org.sonar.server.rule.index.RuleQuery;
 import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.sonar.api.rule.Severity.BLOCKER;
@@ -363,6 +368,68 @@ public class RegisterRulesTest {
     assertThat(ruleIndex.search(new RuleQuery(), new SearchOptions()).getIds()).containsOnly(RULE_KEY1, RULE_KEY3);
   }
 
+  @Test
+  public void do_not_register_repositories_which_did_not_change() {
+    execute(new FakeRepositoryV1());
+    assertThat(dbClient.ruleRepositoryDao().selectByKey(dbTester.getSession(), "fake").get().getDefinitionHash()).isNotEmpty();
+
+    // rule is changed in db only, so registration is the only way to set back its name
+    RuleDto rule1 = dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY1);
+    rule1.setName("Changed in db");
+    dbClient.ruleDao().update(dbTester.getSession(), rule1);
+    dbTester.getSession().commit();
+
+    when(system.now()).thenReturn(DATE2.getTime());
+    execute(new FakeRepositoryV1());
+
+    rule1 = dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY1);
+    assertThat(rule1.getName()).isEqualTo("Changed in db");
+    assertThat(rule1.getStatus()).isEqualTo(RuleStatus.BETA);
+    assertThat(dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY2).getStatus()).isEqualTo(RuleStatus.READY);
+
+    execute(new FakeRepositoryV2());
+
+    assertThat(dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY1).getName()).isEqualTo("One v2");
+  }
+
+  @Test
+  public void register_repository_again_when_its_language_is_installed_again() {
+    execute(new FakeRepositoryV1());
+    String definitionHash = dbClient.ruleRepositoryDao().selectByKey(dbTester.getSession(), "fake").get().getDefinitionHash();
+
+    executeWithoutLanguages(new FakeRepositoryV1());
+    assertThat(dbClient.ruleRepositoryDao().selectByKey(dbTester.getSession(), "fake").get().getDefinitionHash()).isNull();
+    assertThat(dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY1).getStatus()).isEqualTo(RuleStatus.REMOVED);
+
+    execute(new FakeRepositoryV1());
+    assertThat(dbClient.ruleRepositoryDao().selectByKey(dbTester.getSession(), "fake").get().getDefinitionHash()).isEqualTo(definitionHash);
+    assertThat(dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY1).getStatus()).isEqualTo(RuleStatus.BETA);
+  }
+
+  @Test
+  public void propagate_default_value_of_new_parameter_to_active_rules() {
+    execute(new FakeRepositoryV1());
+    DbSession dbSession = dbTester.getSession();
+    QualityProfileDto profile = QualityProfileTesting.newQualityProfileDto().setLanguage("java");
+    dbClient.qualityProfileDao().insert(dbSession, profile);
+    RuleDto rule1 = dbClient.ruleDao().selectOrFailByKey(dbSession, RULE_KEY1);
+    dbClient.activeRuleDao().insert(dbSession, ActiveRuleDto.createFor(profile, rule1).setSeverity(BLOCKER));
+    dbSession.commit();
+
+    execute(context -> {
+      RulesDefinition.NewRepository repo = context.createRepository("fake", "java");
+      RulesDefinition.NewRule rule = repo.createRule("rule1").setName("One").setHtmlDescription("Description of One");
+      rule.createParam("param1").setDefaultValue("default1");
+      rule.createParam("param3").setDefaultValue("default3");
+      repo.done();
+    });
+
+    ActiveRuleDto activeRule = dbClient.activeRuleDao().selectByRuleId(dbSession, rule1.getId()).get(0);
+    assertThat(dbClient.activeRuleDao().selectParamsByActiveRuleId(dbSession, activeRule.getId()))
+      .extracting(ActiveRuleParamDto::getKey, ActiveRuleParamDto::getValue)
+      .containsOnly(tuple("param3", "default3"));
+  }
+
   @Test
   public void mass_insert() {
     execute(new BigRepository());
@@ -415,6 +482,13 @@ public class RegisterRulesTest {
     dbTester.getSession().commit();
   }
 
+  private void executeWithoutLanguages(RulesDefinition... defs) {
+    RuleDefinitionsLoader loader = new RuleDefinitionsLoader(mock(DeprecatedRulesDefinitionLoader.class), mock(CommonRuleDefinitionsImpl.class), defs);
+    RegisterRules task = new RegisterRules(loader, ruleActivator, dbClient, ruleIndexer, activeRuleIndexer, mock(Languages.class), system);
+    task.start();
+    dbTester.getSession().commit();
+  }
+
   private RuleParamDto getParam(List<RuleParamDto> params, String key) {
     for (RuleParamDto param : params) {
       if (param.getName().equals(key)) {
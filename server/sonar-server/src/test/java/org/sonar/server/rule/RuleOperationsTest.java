@@ -27,6 +27,7 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.System2;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -59,6 +60,9 @@ public class RuleOperationsTest {
   @Mock
   RuleIndexer ruleIndexer;
 
+  @Mock
+  System2 system2;
+
   @Captor
   ArgumentCaptor<RuleDto> ruleCaptor;
 
@@ -70,7 +74,8 @@ public class RuleOperationsTest {
   public void setUp() {
     when(dbClient.openSession(false)).thenReturn(session);
     when(dbClient.ruleDao()).thenReturn(ruleDao);
-    operations = new RuleOperations(ruleIndexer, dbClient);
+    when(system2.now()).thenReturn(1_500_000_000_000L);
+    operations = new RuleOperations(ruleIndexer, dbClient, system2);
   }
 
   @Test
@@ -96,6 +101,7 @@ public class RuleOperationsTest {
     assertThat(result.getRemediationFunction()).isEqualTo("LINEAR_OFFSET");
     assertThat(result.getRemediationGapMultiplier()).isEqualTo("2h");
     assertThat(result.getRemediationBaseEffort()).isEqualTo("20min");
+    assertThat(result.getUpdatedAt()).isEqualTo(1_500_000_000_000L);
 
     verify(ruleIndexer).index();
   }
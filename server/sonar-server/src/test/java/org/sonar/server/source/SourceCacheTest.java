@@ -0,0 +1,103 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import org.junit.Test;
+import org.sonar.api.config.MapSettings;
+import org.sonar.db.protobuf.DbFileSources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SourceCacheTest {
+
+  private static final DbFileSources.Line LINE = DbFileSources.Line.newBuilder().setLine(1).setSource("foo").setHighlighting("0,3,k").build();
+
+  @Test
+  public void chunks_are_cached_by_file_hash_and_index() {
+    SourceCache underTest = new SourceCache(1024L * 1024L);
+    DbFileSources.Data data = newData(10);
+
+    assertThat(underTest.getSourceChunk("FILE", "HASH", 0)).isNull();
+    underTest.putSourceChunk("FILE", "HASH", 0, data);
+    assertThat(underTest.getSourceChunk("FILE", "HASH", 0)).isSameAs(data);
+    assertThat(underTest.getSourceChunk("FILE", "HASH", 1)).isNull();
+    assertThat(underTest.getSourceChunk("FILE", "OTHER_HASH", 0)).isNull();
+
+    assertThat(underTest.getSourceHits()).isEqualTo(1);
+    assertThat(underTest.getSourceMisses()).isEqualTo(3);
+    assertThat(underTest.getHitRate()).isEqualTo(1.0 / 4);
+  }
+
+  @Test
+  public void html_of_line_is_cached_by_content() {
+    SourceCache underTest = new SourceCache(1024L * 1024L);
+
+    assertThat(underTest.getHtml(LINE, () -> "<span>foo</span>")).isEqualTo("<span>foo</span>");
+    assertThat(underTest.getHtml(LINE.toBuilder().setLine(42).build(), () -> "other")).isEqualTo("<span>foo</span>");
+    assertThat(underTest.getHtml(LINE.toBuilder().setSymbols("1,2,3").build(), () -> "other")).isEqualTo("other");
+
+    assertThat(underTest.getHtmlHits()).isEqualTo(1);
+    assertThat(underTest.getHtmlMisses()).isEqualTo(2);
+  }
+
+  @Test
+  public void null_html_is_not_cached() {
+    SourceCache underTest = new SourceCache(1024L * 1024L);
+
+    assertThat(underTest.getHtml(LINE, () -> null)).isNull();
+    assertThat(underTest.getHtml(LINE, () -> "foo")).isEqualTo("foo");
+  }
+
+  @Test
+  public void size_is_bounded_in_bytes() {
+    SourceCache underTest = new SourceCache(64L * 1024L);
+
+    for (int i = 0; i < 100; i++) {
+      underTest.putSourceChunk("FILE_" + i, "HASH", 0, newData(100));
+    }
+
+    assertThat(underTest.size()).isLessThan(100);
+    assertThat(underTest.getEvictionCount()).isGreaterThan(0);
+  }
+
+  @Test
+  public void cache_is_disabled_when_max_size_is_zero() {
+    SourceCache underTest = new SourceCache(new MapSettings().setProperty(SourceCache.PROPERTY_MAX_SIZE, 0));
+    DbFileSources.Data data = newData(10);
+
+    assertThat(underTest.isEnabled()).isFalse();
+    underTest.putSourceChunk("FILE", "HASH", 0, data);
+    assertThat(underTest.getSourceChunk("FILE", "HASH", 0)).isNull();
+    assertThat(underTest.size()).isZero();
+  }
+
+  @Test
+  public void max_size_is_read_from_settings() {
+    assertThat(new SourceCache(new MapSettings().setProperty(SourceCache.PROPERTY_MAX_SIZE, 10)).isEnabled()).isTrue();
+  }
+
+  private static DbFileSources.Data newData(int lines) {
+    DbFileSources.Data.Builder builder = DbFileSources.Data.newBuilder();
+    for (int i = 1; i <= lines; i++) {
+      builder.addLines(DbFileSources.Line.newBuilder().setLine(i).setSource("line " + i));
+    }
+    return builder.build();
+  }
+}
@@ -28,13 +28,20 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.System2;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto;
 import org.sonar.server.source.index.FileSourceTesting;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class SourceServiceTest {
@@ -49,7 +56,7 @@ public class SourceServiceTest {
 
   HtmlSourceDecorator htmlDecorator = mock(HtmlSourceDecorator.class);
 
-  SourceService underTest = new SourceService(dbTester.getDbClient(), htmlDecorator);
+  SourceService underTest = new SourceService(dbTester.getDbClient(), htmlDecorator, new SourceCache(0L));
 
   @Before
   public void injectFakeLines() throws IOException {
@@ -113,6 +120,79 @@ public class SourceServiceTest {
     assertThat(lines.get()).isEmpty();
   }
 
+  @Test
+  public void getLines_uses_cache_until_data_hash_changes() throws Exception {
+    SourceCache cache = new SourceCache(1024L * 1024L);
+    SourceService underTest = new SourceService(dbTester.getDbClient(), htmlDecorator, cache);
+    FileSourceDto dto = new FileSourceDto().setFileUuid("CACHED_UUID").setProjectUuid("PROJECT_UUID")
+      .setSourceData(FileSourceTesting.newFakeData(10).build())
+      .setDataHash("HASH_1");
+    dbTester.getDbClient().fileSourceDao().insert(dto);
+
+    assertThat(underTest.getLinesAsRawText(dbTester.getSession(), "CACHED_UUID", 1, 1).get()).containsExactly("SOURCE_1");
+    assertThat(underTest.getLinesAsRawText(dbTester.getSession(), "CACHED_UUID", 2, 2).get()).containsExactly("SOURCE_2");
+    assertThat(cache.getSourceMisses()).isEqualTo(1);
+    assertThat(cache.getSourceHits()).isEqualTo(1);
+
+    // new analysis
+    dto = dbTester.getDbClient().fileSourceDao().selectSourceByFileUuid(dbTester.getSession(), "CACHED_UUID");
+    dto.setSourceData(FileSourceTesting.newFakeData(2).build().toBuilder()
+      .setLines(0, DbFileSources.Line.newBuilder().setLine(1).setSource("NEW_SOURCE_1")).build())
+      .setDataHash("HASH_2");
+    dbTester.getDbClient().fileSourceDao().update(dto);
+
+    assertThat(underTest.getLinesAsRawText(dbTester.getSession(), "CACHED_UUID", 1, 1).get()).containsExactly("NEW_SOURCE_1");
+    assertThat(cache.getSourceMisses()).isEqualTo(2);
+  }
+
+  @Test
+  public void getLines_caches_and_decodes_chunks_of_lines() throws Exception {
+    SourceCache cache = new SourceCache(10L * 1024L * 1024L);
+    SourceService underTest = new SourceService(dbTester.getDbClient(), htmlDecorator, cache);
+    FileSourceDto dto = new FileSourceDto().setFileUuid("BIG_UUID").setProjectUuid("PROJECT_UUID")
+      .setSourceData(FileSourceTesting.newFakeData(250).build())
+      .setDataHash("HASH_1");
+    dbTester.getDbClient().fileSourceDao().insert(dto);
+
+    assertThat(underTest.getLinesAsRawText(dbTester.getSession(), "BIG_UUID", 150, 151).get()).containsExactly("SOURCE_150", "SOURCE_151");
+    // only the chunk of the requested lines is decoded and cached
+    assertThat(cache.size()).isEqualTo(1);
+
+    assertThat(underTest.getLines(dbTester.getSession(), "BIG_UUID", 1, Integer.MAX_VALUE).get()).hasSize(250);
+    assertThat(cache.size()).isEqualTo(3);
+    assertThat(cache.getSourceMisses()).isEqualTo(2);
+
+    assertThat(underTest.getLines(dbTester.getSession(), "BIG_UUID", 1, Integer.MAX_VALUE).get()).hasSize(250);
+    assertThat(underTest.getLinesAsRawText(dbTester.getSession(), "BIG_UUID", 250, 260).get()).containsExactly("SOURCE_250");
+    assertThat(cache.getSourceMisses()).isEqualTo(2);
+    assertThat(cache.getSourceHits()).isEqualTo(4);
+  }
+
+  @Test
+  public void getLines_does_not_cache_file_deleted_concurrently() {
+    SourceCache cache = new SourceCache(1024L * 1024L);
+    DbClient dbClient = mock(DbClient.class, RETURNS_DEEP_STUBS);
+    when(dbClient.fileSourceDao().selectSourceDataHashByFileUuid(any(DbSession.class), eq("DELETED_UUID"))).thenReturn("HASH");
+    when(dbClient.fileSourceDao().selectSourceByFileUuid(any(DbSession.class), eq("DELETED_UUID"))).thenReturn(null);
+    SourceService underTest = new SourceService(dbClient, htmlDecorator, cache);
+
+    assertThat(underTest.getLines(dbTester.getSession(), "DELETED_UUID", 1, 10).isPresent()).isFalse();
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  public void getLinesAsHtml_decorates_line_once_when_cache_is_enabled() throws Exception {
+    SourceCache cache = new SourceCache(1024L * 1024L);
+    SourceService underTest = new SourceService(dbTester.getDbClient(), htmlDecorator, cache);
+    when(htmlDecorator.getDecoratedSourceAsHtml("SOURCE_5", "HIGHLIGHTING_5", "SYMBOLS_5")).thenReturn("HTML_5");
+
+    assertThat(underTest.getLinesAsHtml(dbTester.getSession(), FILE_UUID, 5, 5).get()).containsExactly("HTML_5");
+    assertThat(underTest.getLinesAsHtml(dbTester.getSession(), FILE_UUID, 5, 5).get()).containsExactly("HTML_5");
+
+    verify(htmlDecorator, times(1)).getDecoratedSourceAsHtml("SOURCE_5", "HIGHLIGHTING_5", "SYMBOLS_5");
+    assertThat(cache.getHtmlMisses()).isEqualTo(1);
+  }
+
   @Test
   public void getLines_file_does_not_exist() throws Exception {
     Optional<Iterable<DbFileSources.Line>> lines = underTest.getLines(dbTester.getSession(), "FILE_DOES_NOT_EXIST", 1, 10);
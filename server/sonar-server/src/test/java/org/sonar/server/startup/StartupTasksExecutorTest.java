@@ -0,0 +1,197 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.startup;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.server.user.ThreadLocalUserSession;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class StartupTasksExecutorTest {
+
+  private static final List<String> STARTED = new CopyOnWriteArrayList<>();
+  private static CountDownLatch latch;
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private Settings settings = new MapSettings();
+  private StartupTimeline timeline = new StartupTimeline();
+  private ThreadLocalUserSession userSession = new ThreadLocalUserSession();
+  private StartupTasksExecutor underTest = new StartupTasksExecutor(settings, timeline, userSession, System2.INSTANCE);
+
+  @Before
+  public void setUp() {
+    STARTED.clear();
+    latch = new CountDownLatch(2);
+  }
+
+  @Test
+  public void independent_tasks_are_started_concurrently() {
+    underTest.execute(Arrays.asList(new WaitingTask1(), new WaitingTask2()));
+
+    assertThat(STARTED).containsOnly("WaitingTask1", "WaitingTask2");
+  }
+
+  @Test
+  public void task_is_started_once_its_dependencies_are_completed() {
+    settings.setProperty(StartupTasksExecutor.THREADS_PROPERTY, 3);
+
+    underTest.execute(Arrays.asList(new DependentTask(), new Task1(), new Task2()));
+
+    assertThat(STARTED).hasSize(3);
+    assertThat(STARTED.get(2)).isEqualTo("DependentTask");
+  }
+
+  @Test
+  public void tasks_are_started_in_declared_order_with_single_thread() {
+    settings.setProperty(StartupTasksExecutor.THREADS_PROPERTY, 1);
+
+    underTest.execute(Arrays.asList(new Task2(), new Task1(), new DependentTask()));
+
+    assertThat(STARTED).containsExactly("Task2", "Task1", "DependentTask");
+  }
+
+  @Test
+  public void dependencies_on_unregistered_tasks_are_ignored() {
+    underTest.execute(Collections.singletonList(new DependentTask()));
+
+    assertThat(STARTED).containsExactly("DependentTask");
+  }
+
+  @Test
+  public void tasks_are_started_with_privileged_user_session() {
+    underTest.execute(Collections.singletonList(new PrivilegedTask()));
+
+    assertThat(STARTED).containsExactly("PrivilegedTask");
+  }
+
+  @Test
+  public void failure_is_propagated_and_dependent_tasks_are_not_started() {
+    try {
+      underTest.execute(Arrays.asList(new FailingTask(), new DependentOnFailingTask()));
+      fail("An exception should have been raised");
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("Failure of FailingTask");
+    }
+    assertThat(STARTED).isEmpty();
+  }
+
+  @Test
+  public void fail_on_dependency_cycle() {
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Cycle detected in dependencies of startup tasks");
+
+    underTest.execute(Arrays.asList(new CyclicTask1(), new CyclicTask2()));
+  }
+
+  @Test
+  public void timeline_records_every_task() {
+    underTest.execute(Arrays.asList(new Task1(), new Task2(), new DependentTask()));
+
+    List<StartupTimeline.Entry> entries = timeline.getEntries();
+    assertThat(entries).extracting(StartupTimeline.Entry::getTaskName).containsOnly("Task1", "Task2", "DependentTask");
+    assertThat(entries).extracting(StartupTimeline.Entry::getThreadName).allMatch(name -> name.startsWith("startup-task-"));
+    StartupTimeline.Entry dependent = entries.stream().filter(e -> e.getTaskName().equals("DependentTask")).findFirst().get();
+    assertThat(entries).allMatch(e -> e == dependent || e.getEndOffset() <= dependent.getStartOffset());
+  }
+
+  public static class Task1 {
+    public void start() {
+      STARTED.add("Task1");
+    }
+  }
+
+  public static class Task2 {
+    public void start() {
+      STARTED.add("Task2");
+    }
+  }
+
+  @DependsOn({Task1.class, Task2.class})
+  public static class DependentTask {
+    public void start() {
+      STARTED.add("DependentTask");
+    }
+  }
+
+  public static class WaitingTask1 {
+    public void start() throws InterruptedException {
+      latch.countDown();
+      assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+      STARTED.add("WaitingTask1");
+    }
+  }
+
+  public static class WaitingTask2 {
+    public void start() throws InterruptedException {
+      latch.countDown();
+      assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+      STARTED.add("WaitingTask2");
+    }
+  }
+
+  public class PrivilegedTask {
+    public void start() {
+      assertThat(userSession.get().hasPermission("any permission")).isTrue();
+      STARTED.add("PrivilegedTask");
+    }
+  }
+
+  public static class FailingTask {
+    public void start() {
+      throw new IllegalStateException("Failure of FailingTask");
+    }
+  }
+
+  @DependsOn(FailingTask.class)
+  public static class DependentOnFailingTask {
+    public void start() {
+      STARTED.add("DependentOnFailingTask");
+    }
+  }
+
+  @DependsOn(CyclicTask2.class)
+  public static class CyclicTask1 {
+    public void start() {
+      STARTED.add("CyclicTask1");
+    }
+  }
+
+  @DependsOn(CyclicTask1.class)
+  public static class CyclicTask2 {
+    public void start() {
+      STARTED.add("CyclicTask2");
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.core.util.ProtobufJsonFormat;
+import org.sonarqube.ws.Common;
+import org.sonarqube.ws.Issues;
+import org.sonarqube.ws.Issues.SearchWsResponse;
+import org.sonarqube.ws.MediaTypes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.test.JsonAssert.assertJson;
+
+public class ProtobufStreamWriterTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private SearchWsResponse header = SearchWsResponse.newBuilder()
+    .setTotal(2)
+    .setPaging(Common.Paging.newBuilder().setPageIndex(1).setPageSize(100).setTotal(2))
+    .addComponents(Issues.Component.newBuilder().setKey("PROJECT"))
+    .build();
+  private Issues.Issue issue1 = Issues.Issue.newBuilder().setKey("I1").setComponent("PROJECT").build();
+  private Issues.Issue issue2 = Issues.Issue.newBuilder().setKey("I2").build();
+  private SearchWsResponse fullResponse = header.toBuilder().addIssues(issue1).addIssues(issue2).build();
+
+  @Test
+  public void stream_json_equivalent_to_whole_message() {
+    TestRequest request = new TestRequest();
+    DumbResponse response = new DumbResponse();
+
+    writeIssues(request, response);
+
+    assertThat(response.stream().mediaType()).isEqualTo(MediaTypes.JSON);
+    assertJson(response.outputAsString()).isSimilarTo(ProtobufJsonFormat.toJson(fullResponse));
+  }
+
+  @Test
+  public void stream_protobuf_equivalent_to_whole_message() throws Exception {
+    TestRequest request = new TestRequest();
+    request.setMediaType(MediaTypes.PROTOBUF);
+    DumbResponse response = new DumbResponse();
+
+    writeIssues(request, response);
+
+    assertThat(response.stream().mediaType()).isEqualTo(MediaTypes.PROTOBUF);
+    assertThat(SearchWsResponse.parseFrom(response.getFlushedOutput())).isEqualTo(fullResponse);
+  }
+
+  @Test
+  public void stream_empty_array() throws Exception {
+    DumbResponse response = new DumbResponse();
+
+    ProtobufStreamWriter.start(header, "issues", new TestRequest(), response).close();
+
+    assertJson(response.outputAsString()).isSimilarTo("{\"total\": 2, \"issues\": []}");
+  }
+
+  @Test
+  public void fail_if_field_does_not_exist() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Field 'unknown' does not exist in message sonarqube.ws.issues.SearchWsResponse");
+
+    ProtobufStreamWriter.start(header, "unknown", new TestRequest(), new DumbResponse());
+  }
+
+  @Test
+  public void fail_if_field_is_not_repeated() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Field 'paging' is not a repeated field of messages");
+
+    ProtobufStreamWriter.start(header, "paging", new TestRequest(), new DumbResponse());
+  }
+
+  @Test
+  public void fail_if_field_is_not_empty_in_header() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Field 'components' must be empty in header");
+
+    ProtobufStreamWriter.start(header, "components", new TestRequest(), new DumbResponse());
+  }
+
+  private void writeIssues(TestRequest request, DumbResponse response) {
+    try (ProtobufStreamWriter<Issues.Issue> writer = ProtobufStreamWriter.start(header, "issues", request, response)) {
+      writer.write(issue1).write(issue2);
+    }
+  }
+}
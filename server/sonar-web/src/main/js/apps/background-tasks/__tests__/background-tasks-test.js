@@ -29,7 +29,7 @@ const stub = jest.fn();
 
 describe('Constants', () => {
   it('should have STATUSES', () => {
-    expect(Object.keys(STATUSES).length).toBe(7);
+    expect(Object.keys(STATUSES).length).toBe(8);
   });
 
   it('should have CURRENTS', () => {
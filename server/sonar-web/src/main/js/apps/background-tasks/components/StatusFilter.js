@@ -31,7 +31,8 @@ const StatusFilter = ({ value, onChange }) => {
     { value: STATUSES.IN_PROGRESS, label: translate('background_task.status.IN_PROGRESS') },
     { value: STATUSES.SUCCESS, label: translate('background_task.status.SUCCESS') },
     { value: STATUSES.FAILED, label: translate('background_task.status.FAILED') },
-    { value: STATUSES.CANCELED, label: translate('background_task.status.CANCELED') }
+    { value: STATUSES.CANCELED, label: translate('background_task.status.CANCELED') },
+    { value: STATUSES.SUPERSEDED, label: translate('background_task.status.SUPERSEDED') }
   ];
 
   return (
@@ -42,6 +42,9 @@ const TaskStatus = ({ task }) => {
     case STATUSES.CANCELED:
       inner = <span className="badge badge-muted">{translate('background_task.status.CANCELED')}</span>;
       break;
+    case STATUSES.SUPERSEDED:
+      inner = <span className="badge badge-muted">{translate('background_task.status.SUPERSEDED')}</span>;
+      break;
     default:
       inner = '';
   }
@@ -24,7 +24,8 @@ export const STATUSES = {
   IN_PROGRESS: 'IN_PROGRESS',
   SUCCESS: 'SUCCESS',
   FAILED: 'FAILED',
-  CANCELED: 'CANCELED'
+  CANCELED: 'CANCELED',
+  SUPERSEDED: 'SUPERSEDED'
 };
 
 export const ALL_TYPES = 'ALL_TYPES';
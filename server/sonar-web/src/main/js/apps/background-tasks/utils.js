@@ -32,14 +32,16 @@ export function mapFiltersToParameters (filters = {}) {
       STATUSES.IN_PROGRESS,
       STATUSES.SUCCESS,
       STATUSES.FAILED,
-      STATUSES.CANCELED
+      STATUSES.CANCELED,
+      STATUSES.SUPERSEDED
     ].join();
   } else if (filters.status === STATUSES.ALL_EXCEPT_PENDING) {
     parameters.status = [
       STATUSES.IN_PROGRESS,
       STATUSES.SUCCESS,
       STATUSES.FAILED,
-      STATUSES.CANCELED
+      STATUSES.CANCELED,
+      STATUSES.SUPERSEDED
     ].join();
   } else {
     parameters.status = filters.status;
@@ -40,8 +40,8 @@ public class App implements Stoppable {
 
   private final Monitor monitor;
 
-  public App(AppFileSystem appFileSystem, boolean watchForHardStop) {
-    this(Monitor.create(APP.getIpcIndex(), appFileSystem, watchForHardStop));
+  public App(AppFileSystem appFileSystem, boolean watchForHardStop, int maxGcOverhead) {
+    this(Monitor.create(APP.getIpcIndex(), appFileSystem, watchForHardStop, maxGcOverhead));
   }
 
   App(Monitor monitor) {
@@ -145,7 +145,7 @@ public class App implements Stoppable {
 
     // used by orchestrator
     boolean watchForHardStop = props.valueAsBoolean(ProcessProperties.ENABLE_STOP_COMMAND, false);
-    App app = new App(appFileSystem, watchForHardStop);
+    App app = new App(appFileSystem, watchForHardStop, props.valueAsInt(ProcessProperties.PROCESS_MAX_GC_OVERHEAD, 0));
     app.start(props);
   }
 
@@ -100,6 +100,17 @@ public final class PurgeProperties {
         .category(CoreProperties.CATEGORY_GENERAL)
         .subCategory(CoreProperties.SUBCATEGORY_DATABASE_CLEANER)
         .index(6)
+        .build(),
+
+      PropertyDefinition.builder(PurgeConstants.MAX_CONCURRENT_DELETIONS)
+        .defaultValue("3")
+        .name("Maximum concurrent deletions")
+        .description("Maximum number of tables purged concurrently after an analysis, each one on its own database connection. "
+          + "Set to 1 to purge tables sequentially.")
+        .type(PropertyType.INTEGER)
+        .category(CoreProperties.CATEGORY_GENERAL)
+        .subCategory(CoreProperties.SUBCATEGORY_DATABASE_CLEANER)
+        .index(7)
         .build()
       );
   }
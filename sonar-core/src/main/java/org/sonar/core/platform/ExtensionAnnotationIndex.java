@@ -0,0 +1,69 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.platform;
+
+import java.lang.annotation.Annotation;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.AnnotationUtils;
+
+/**
+ * Index of the class annotations of extensions, like {@link org.sonar.api.server.ServerSide} or
+ * {@link org.sonar.api.batch.InstantiationStrategy}. The same extensions are inspected each time a container is populated
+ * (per-task containers of Compute Engine, per-module containers of scanner), whereas
+ * {@link AnnotationUtils#getAnnotation(Object, Class)} walks the whole inheritance tree by reflection. The
+ * lookup is done once per class and annotation type, then kept as long as the class is loaded.
+ *
+ * @since 6.2
+ */
+public final class ExtensionAnnotationIndex {
+
+  private static final ClassValue<Map<Class<? extends Annotation>, Optional<Annotation>>> ANNOTATIONS_BY_CLASS = new AnnotationsByClass();
+
+  private ExtensionAnnotationIndex() {
+    // only static methods
+  }
+
+  /**
+   * Same as {@link AnnotationUtils#getAnnotation(Object, Class)}: the whole inheritance tree is analysed.
+   *
+   * @param extension the extension class or instance
+   */
+  @CheckForNull
+  public static <A extends Annotation> A getAnnotation(Object extension, Class<A> annotationClass) {
+    Class<?> extensionClass = extension instanceof Class ? (Class<?>) extension : extension.getClass();
+    Optional<Annotation> annotation = ANNOTATIONS_BY_CLASS.get(extensionClass)
+      .computeIfAbsent(annotationClass, type -> Optional.ofNullable(AnnotationUtils.getAnnotation(extensionClass, type)));
+    return annotationClass.cast(annotation.orElse(null));
+  }
+
+  public static boolean isAnnotatedWith(Object extension, Class<? extends Annotation> annotationClass) {
+    return getAnnotation(extension, annotationClass) != null;
+  }
+
+  private static class AnnotationsByClass extends ClassValue<Map<Class<? extends Annotation>, Optional<Annotation>>> {
+    @Override
+    protected Map<Class<? extends Annotation>, Optional<Annotation>> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  }
+}
@@ -20,23 +20,88 @@
 package org.sonar.core.platform;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.zip.ZipEntry;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.sonar.api.utils.ZipUtils;
 
+import static org.apache.commons.io.FileUtils.forceMkdir;
 import static org.apache.commons.io.FileUtils.listFiles;
 
 public abstract class PluginJarExploder {
 
   protected static final String LIB_RELATIVE_PATH_IN_JAR = "META-INF/lib";
 
+  /**
+   * File written in the directory of an exploded plugin once it is completely exploded. It contains
+   * the MD5 hash of the JAR content.
+   */
+  protected static final String HASH_FILENAME = ".exploded.md5";
+
   public abstract ExplodedPlugin explode(PluginInfo info);
 
+  /**
+   * Called once all the installed plugins are exploded, so that the exploded content of the plugins which are
+   * not installed anymore can be deleted. Does nothing by default.
+   */
+  public void deleteUninstalled(Set<String> installedPluginKeys) {
+    // nothing to delete by default
+  }
+
   protected Predicate<ZipEntry> newLibFilter() {
     return ze -> ze.getName().startsWith(LIB_RELATIVE_PATH_IN_JAR);
   }
 
+  /**
+   * Copies the plugin JAR into {@code toDir} and extracts its libraries. The directory is reused as-is, without
+   * copying nor unzipping anything, if it already contains the exploded content of a JAR with the same hash,
+   * for example when the process is restarted.
+   */
+  protected ExplodedPlugin explodeToDirIfChanged(PluginInfo info, File toDir) throws IOException {
+    File jarSource = info.getNonNullJarFile();
+    File jarTarget = new File(toDir, jarSource.getName());
+    File hashFile = new File(toDir, HASH_FILENAME);
+    String hash = hash(jarSource);
+    if (!jarTarget.isFile() || !hashFile.isFile() || !hash.equals(FileUtils.readFileToString(hashFile, StandardCharsets.UTF_8))) {
+      forceMkdir(toDir);
+      org.sonar.core.util.FileUtils.cleanDirectory(toDir);
+      FileUtils.copyFile(jarSource, jarTarget);
+      ZipUtils.unzip(jarSource, toDir, newLibFilter());
+      // written last, so that a partially exploded directory is never reused
+      FileUtils.write(hashFile, hash, StandardCharsets.UTF_8);
+    }
+    return explodeFromUnzippedDir(info.getKey(), jarTarget, toDir);
+  }
+
+  /**
+   * Deletes the sub-directories of {@code explodedDir} which are not named after an installed plugin.
+   */
+  protected static void deleteDirsOfUninstalledPlugins(File explodedDir, Set<String> installedPluginKeys) {
+    File[] dirs = explodedDir.listFiles(File::isDirectory);
+    if (dirs == null) {
+      return;
+    }
+    for (File dir : dirs) {
+      if (!installedPluginKeys.contains(dir.getName())) {
+        org.sonar.core.util.FileUtils.deleteQuietly(dir);
+      }
+    }
+  }
+
+  private static String hash(File file) throws IOException {
+    try (InputStream input = Files.newInputStream(file.toPath())) {
+      return DigestUtils.md5Hex(input);
+    }
+  }
+
   protected ExplodedPlugin explodeFromUnzippedDir(String pluginKey, File jarFile, File unzippedDir) {
     File libDir = new File(unzippedDir, PluginJarExploder.LIB_RELATIVE_PATH_IN_JAR);
     Collection<File> libs;
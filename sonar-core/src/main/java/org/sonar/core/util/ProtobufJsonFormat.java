@@ -26,6 +26,7 @@ import java.io.StringWriter;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.text.JsonWriter;
 
 /**
@@ -166,9 +167,33 @@ public class ProtobufJsonFormat {
     return json.toString();
   }
 
+  /**
+   * Writes the fields of the message, except {@code excludedField}, into the JSON object currently opened
+   * by {@code writer}. Used with {@link #writeValue(Descriptors.FieldDescriptor, Object, JsonWriter)} to
+   * stream the elements of a repeated field instead of loading them all in the message.
+   */
+  public static void writeFieldsExcept(Message message, Descriptors.FieldDescriptor excludedField, JsonWriter writer) {
+    writer.setSerializeNulls(false).setSerializeEmptys(true);
+    writeMessage(message, writer, excludedField);
+  }
+
+  /**
+   * Writes a single value of the field, for example an element of a repeated field.
+   */
+  public static void writeValue(Descriptors.FieldDescriptor fieldDescriptor, Object value, JsonWriter writer) {
+    writeFieldValue(fieldDescriptor, value, writer);
+  }
+
   private static void writeMessage(Message message, JsonWriter writer) {
+    writeMessage(message, writer, null);
+  }
+
+  private static void writeMessage(Message message, JsonWriter writer, @Nullable Descriptors.FieldDescriptor excludedField) {
     MessageType type = MessageType.of(message);
     for (Descriptors.FieldDescriptor fieldDescriptor : type.fieldDescriptors) {
+      if (fieldDescriptor.equals(excludedField)) {
+        continue;
+      }
       if (fieldDescriptor.isRepeated()) {
         writer.name(fieldDescriptor.getName());
         if (fieldDescriptor.isMapField()) {
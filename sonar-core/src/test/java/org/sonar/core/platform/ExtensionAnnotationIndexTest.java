@@ -0,0 +1,69 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.platform;
+
+import org.junit.Test;
+import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.server.ServerSide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExtensionAnnotationIndexTest {
+
+  @Test
+  public void find_annotation_of_class_or_instance() {
+    assertThat(ExtensionAnnotationIndex.isAnnotatedWith(ServerExtension.class, ServerSide.class)).isTrue();
+    assertThat(ExtensionAnnotationIndex.isAnnotatedWith(new ServerExtension(), ServerSide.class)).isTrue();
+    assertThat(ExtensionAnnotationIndex.isAnnotatedWith(ServerExtension.class, ComputeEngineSide.class)).isFalse();
+  }
+
+  @Test
+  public void find_annotation_in_inheritance_tree() {
+    assertThat(ExtensionAnnotationIndex.isAnnotatedWith(SubClassOfServerExtension.class, ServerSide.class)).isTrue();
+    assertThat(ExtensionAnnotationIndex.isAnnotatedWith(ImplementationOfScannerInterface.class, ScannerSide.class)).isTrue();
+    assertThat(ExtensionAnnotationIndex.isAnnotatedWith(ImplementationOfScannerInterface.class, ServerSide.class)).isFalse();
+  }
+
+  @Test
+  public void return_annotation_value() {
+    InstantiationStrategy strategy = ExtensionAnnotationIndex.getAnnotation(ImplementationOfScannerInterface.class, InstantiationStrategy.class);
+
+    assertThat(strategy.value()).isEqualTo(InstantiationStrategy.PER_BATCH);
+    assertThat(ExtensionAnnotationIndex.getAnnotation(ImplementationOfScannerInterface.class, InstantiationStrategy.class)).isSameAs(strategy);
+    assertThat(ExtensionAnnotationIndex.getAnnotation(ServerExtension.class, InstantiationStrategy.class)).isNull();
+  }
+
+  @ServerSide
+  private static class ServerExtension {
+  }
+
+  private static class SubClassOfServerExtension extends ServerExtension {
+  }
+
+  @ScannerSide
+  private interface ScannerInterface {
+  }
+
+  @InstantiationStrategy(InstantiationStrategy.PER_BATCH)
+  private static class ImplementationOfScannerInterface implements ScannerInterface {
+  }
+}
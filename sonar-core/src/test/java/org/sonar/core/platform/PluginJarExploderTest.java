@@ -20,6 +20,7 @@
 package org.sonar.core.platform;
 
 import java.io.File;
+import java.io.IOException;
 import org.apache.commons.io.FileUtils;
 import org.junit.Rule;
 import org.junit.Test;
@@ -74,6 +75,71 @@ public class PluginJarExploderTest {
     assertThat(exploded.getMain()).isSameAs(jarFile);
   }
 
+  @Test
+  public void explodeToDirIfChanged_copies_jar_and_unzips_libs() throws Exception {
+    File jarFile = getFile("sonar-checkstyle-plugin-2.8.jar");
+    File toDir = new File(temp.newFolder(), "checkstyle");
+
+    ExplodedPlugin exploded = new DirExploder(toDir).explode(new PluginInfo("checkstyle").setJarFile(jarFile));
+
+    assertThat(exploded.getMain()).isFile().hasParent(toDir).hasName("sonar-checkstyle-plugin-2.8.jar");
+    assertThat(exploded.getLibs()).extracting("name").containsOnly("antlr-2.7.6.jar", "checkstyle-5.1.jar", "commons-cli-1.0.jar");
+    assertThat(new File(toDir, PluginJarExploder.HASH_FILENAME)).isFile();
+  }
+
+  @Test
+  public void explodeToDirIfChanged_reuses_dir_if_jar_is_unchanged() throws Exception {
+    File jarFile = getFile("sonar-checkstyle-plugin-2.8.jar");
+    File toDir = new File(temp.newFolder(), "checkstyle");
+    PluginJarExploder exploder = new DirExploder(toDir);
+    PluginInfo pluginInfo = new PluginInfo("checkstyle").setJarFile(jarFile);
+    exploder.explode(pluginInfo);
+    File marker = new File(toDir, "marker");
+    FileUtils.touch(marker);
+
+    ExplodedPlugin exploded = exploder.explode(pluginInfo);
+
+    assertThat(marker).exists();
+    assertThat(exploded.getLibs()).hasSize(3);
+  }
+
+  @Test
+  public void explodeToDirIfChanged_explodes_again_if_jar_is_changed() throws Exception {
+    File jarFile = temp.newFile("plugin.jar");
+    FileUtils.copyFile(getFile("sonar-checkstyle-plugin-2.8.jar"), jarFile);
+    File toDir = new File(temp.newFolder(), "checkstyle");
+    PluginJarExploder exploder = new DirExploder(toDir);
+    PluginInfo pluginInfo = new PluginInfo("checkstyle").setJarFile(jarFile);
+    exploder.explode(pluginInfo);
+    File marker = new File(toDir, "marker");
+    FileUtils.touch(marker);
+
+    // new version of plugin, without libs
+    ZipUtils.zipDir(temp.newFolder(), jarFile);
+    ExplodedPlugin exploded = exploder.explode(pluginInfo);
+
+    assertThat(marker).doesNotExist();
+    assertThat(exploded.getMain()).isFile().hasParent(toDir);
+    assertThat(exploded.getLibs()).isEmpty();
+  }
+
+  private static class DirExploder extends PluginJarExploder {
+    private final File toDir;
+
+    DirExploder(File toDir) {
+      this.toDir = toDir;
+    }
+
+    @Override
+    public ExplodedPlugin explode(PluginInfo info) {
+      try {
+        return explodeToDirIfChanged(info, toDir);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
   private File getFile(String filename) {
     return FileUtils.toFile(getClass().getResource("/org/sonar/core/platform/" + filename));
   }
@@ -26,6 +26,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.assertj.core.data.MapEntry;
 import org.junit.Rule;
 import org.junit.Test;
@@ -45,7 +46,8 @@ public class PluginLoaderTest {
   public TemporaryFolder temp = new TemporaryFolder();
 
   PluginClassloaderFactory classloaderFactory = mock(PluginClassloaderFactory.class);
-  PluginLoader loader = new PluginLoader(new FakePluginExploder(), classloaderFactory);
+  FakePluginExploder jarExploder = new FakePluginExploder();
+  PluginLoader loader = new PluginLoader(jarExploder, classloaderFactory);
 
   @Test
   public void instantiate_plugin_entry_point() {
@@ -92,6 +94,17 @@ public class PluginLoaderTest {
     assertThat(def.isCompatibilityMode()).isFalse();
   }
 
+  @Test
+  public void uninstalled_plugins_are_deleted_once_installed_plugins_are_exploded() throws Exception {
+    PluginInfo info = new PluginInfo("foo")
+      .setJarFile(temp.newFile())
+      .setMainClass("org.foo.FooPlugin");
+
+    loader.defineClassloaders(ImmutableMap.of("foo", info));
+
+    assertThat(jarExploder.installedPluginKeys).containsOnly("foo");
+  }
+
   @Test
   public void enable_compatibility_mode_if_plugin_is_built_before_5_2() throws Exception {
     File jarFile = temp.newFile();
@@ -188,10 +201,17 @@ public class PluginLoaderTest {
    * Does not unzip jar file. It directly returns the JAR file defined on PluginInfo.
    */
   private static class FakePluginExploder extends PluginJarExploder {
+    private Set<String> installedPluginKeys;
+
     @Override
     public ExplodedPlugin explode(PluginInfo info) {
       return new ExplodedPlugin(info.getKey(), info.getNonNullJarFile(), Collections.<File>emptyList());
     }
+
+    @Override
+    public void deleteUninstalled(Set<String> installedPluginKeys) {
+      this.installedPluginKeys = installedPluginKeys;
+    }
   }
 
   public static class FakePlugin extends SonarPlugin {
@@ -20,6 +20,7 @@
 package org.sonar.core.util;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors;
 import java.io.StringWriter;
 import org.junit.Rule;
 import org.junit.Test;
@@ -104,6 +105,24 @@ public class ProtobufJsonFormatTest {
       .isEqualTo("{\"strings\":[\"one\",\"two\"],\"nesteds\":[{\"label\":\"nestedOne\"},{\"label\":\"nestedTwo\"}]}");
   }
 
+  @Test
+  public void write_fields_and_stream_elements_of_repeated_field() {
+    TestArray header = TestArray.newBuilder().addStrings("one").build();
+    Descriptors.FieldDescriptor nesteds = TestArray.getDescriptor().findFieldByName("nesteds");
+    StringWriter json = new StringWriter();
+    JsonWriter writer = JsonWriter.of(json);
+
+    writer.beginObject();
+    ProtobufJsonFormat.writeFieldsExcept(header, nesteds, writer);
+    writer.name("nesteds").beginArray();
+    ProtobufJsonFormat.writeValue(nesteds, NestedMsg.newBuilder().setLabel("nestedOne").build(), writer);
+    ProtobufJsonFormat.writeValue(nesteds, NestedMsg.newBuilder().setLabel("nestedTwo").build(), writer);
+    writer.endArray().endObject().close();
+
+    assertThat(json.toString())
+      .isEqualTo("{\"strings\":[\"one\"],\"nesteds\":[{\"label\":\"nestedOne\"},{\"label\":\"nestedTwo\"}]}");
+  }
+
   @Test
   public void write_empty_array() {
     TestArray msg = TestArray.newBuilder().build();
@@ -0,0 +1,244 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.sonar.db.dialect.Dialect;
+import org.sonar.db.dialect.H2;
+import org.sonar.db.dialect.MsSql;
+import org.sonar.db.dialect.MySql;
+import org.sonar.db.dialect.Oracle;
+import org.sonar.db.dialect.PostgreSql;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static java.util.Collections.nCopies;
+
+/**
+ * Inserts rows into a table with as few round-trips as possible:
+ * <ul>
+ *   <li>on H2, MySQL, PostgreSQL and MSSQL, rows are grouped into multi-row {@code INSERT ... VALUES (...), (...)} statements</li>
+ *   <li>on Oracle, which does not support multi-row {@code VALUES}, the single-row statement is executed as a JDBC batch,
+ *   sent by the driver with array binding</li>
+ * </ul>
+ * Rows are buffered and flushed before the estimated size of the statement exceeds a number of bytes, or when the
+ * number of parameters of the statement reaches the limit of the database. The size is estimated as if values were
+ * inlined and escaped in the SQL text, as done by the MySQL driver, so that statements stay well below the default
+ * {@code max_allowed_packet} of MySQL (4MB).
+ * <p>
+ * Statements are executed on the JDBC connection of the {@link DbSession}, not through MyBatis. As a consequence the
+ * session must be committed with {@code commit(true)}, as MyBatis does not commit sessions it considers as not modified.
+ * </p>
+ *
+ * @since 6.2
+ */
+public class BulkInsert<T> implements AutoCloseable {
+
+  public static final long DEFAULT_MAX_BUFFER_BYTES = 1024L * 1024;
+
+  // MSSQL accepts at most 2100 parameters and 1000 rows per statement
+  private static final int MSSQL_MAX_PARAMETERS = 2_000;
+  private static final int MSSQL_MAX_ROWS = 1_000;
+  // number of parameters is sent on 16 bits by PostgreSQL protocol
+  private static final int MAX_PARAMETERS = 32_000;
+
+  private final DbSession session;
+  private final String tableName;
+  private final List<Column<T>> columns;
+  private final boolean multiRowValues;
+  private final int maxRowsPerStatement;
+  private final long maxBufferBytes;
+  private final long sqlBytes;
+  private final long rowSqlBytes;
+  private final List<Object[]> buffer = new ArrayList<>();
+  private final long startNanos = System.nanoTime();
+  private long bufferBytes = 0L;
+  private long count = 0L;
+  private long durationNanos = -1L;
+
+  public BulkInsert(DbSession session, Dialect dialect, String tableName, List<Column<T>> columns) {
+    this(session, dialect, tableName, columns, DEFAULT_MAX_BUFFER_BYTES);
+  }
+
+  BulkInsert(DbSession session, Dialect dialect, String tableName, List<Column<T>> columns, long maxBufferBytes) {
+    checkArgument(!columns.isEmpty(), "At least one column must be defined");
+    this.session = session;
+    this.tableName = tableName;
+    this.columns = columns;
+    this.maxBufferBytes = maxBufferBytes;
+    this.sqlBytes = insertSql(0).length();
+    // "(?,?,...)," for each row
+    this.rowSqlBytes = 2L * columns.size() + 2;
+    switch (dialect.getId()) {
+      case Oracle.ID:
+        this.multiRowValues = false;
+        this.maxRowsPerStatement = Integer.MAX_VALUE;
+        break;
+      case MsSql.ID:
+        this.multiRowValues = true;
+        this.maxRowsPerStatement = Math.min(MSSQL_MAX_ROWS, MSSQL_MAX_PARAMETERS / columns.size());
+        break;
+      case H2.ID:
+      case MySql.ID:
+      case PostgreSql.ID:
+        this.multiRowValues = true;
+        this.maxRowsPerStatement = MAX_PARAMETERS / columns.size();
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported dialect: " + dialect.getId());
+    }
+  }
+
+  public static <T> Column<T> column(String name, int sqlType, Function<T, Object> valueFunction) {
+    return new Column<>(name, sqlType, valueFunction);
+  }
+
+  public void add(T row) {
+    Object[] values = new Object[columns.size()];
+    long rowBytes = rowSqlBytes;
+    for (int i = 0; i < values.length; i++) {
+      values[i] = columns.get(i).valueFunction.apply(row);
+      rowBytes += estimateBytes(values[i]);
+    }
+    if (sqlBytes + bufferBytes + rowBytes > maxBufferBytes) {
+      // row does not fit in the statement of the buffered rows
+      flush();
+    }
+    buffer.add(values);
+    bufferBytes += rowBytes;
+    if (buffer.size() >= maxRowsPerStatement || sqlBytes + bufferBytes >= maxBufferBytes) {
+      flush();
+    }
+  }
+
+  public void flush() {
+    if (buffer.isEmpty()) {
+      return;
+    }
+    Connection connection = session.getConnection();
+    try {
+      if (multiRowValues) {
+        try (PreparedStatement stmt = connection.prepareStatement(insertSql(buffer.size()))) {
+          int index = 1;
+          for (Object[] values : buffer) {
+            index = bind(stmt, index, values);
+          }
+          stmt.executeUpdate();
+        }
+      } else {
+        try (PreparedStatement stmt = connection.prepareStatement(insertSql(1))) {
+          for (Object[] values : buffer) {
+            bind(stmt, 1, values);
+            stmt.addBatch();
+          }
+          stmt.executeBatch();
+        }
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException(format("Fail to insert %d rows into table %s", buffer.size(), tableName), e);
+    }
+    count += buffer.size();
+    buffer.clear();
+    bufferBytes = 0L;
+  }
+
+  /**
+   * Flushes the buffered rows. Neither commits the session nor closes it.
+   */
+  @Override
+  public void close() {
+    flush();
+    durationNanos = System.nanoTime() - startNanos;
+  }
+
+  /**
+   * Number of rows sent to database
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Number of rows inserted per second between creation and {@link #close()}, or until now if not closed.
+   */
+  public long getRowsPerSecond() {
+    long nanos = durationNanos >= 0 ? durationNanos : (System.nanoTime() - startNanos);
+    return nanos <= 0 ? count : (count * TimeUnit.SECONDS.toNanos(1) / nanos);
+  }
+
+  private String insertSql(int rows) {
+    String columnNames = columns.stream().map(c -> c.name).collect(Collectors.joining(","));
+    String row = "(" + String.join(",", nCopies(columns.size(), "?")) + ")";
+    return "insert into " + tableName + " (" + columnNames + ") values " + String.join(",", nCopies(rows, row));
+  }
+
+  private int bind(PreparedStatement stmt, int firstIndex, Object[] values) throws SQLException {
+    int index = firstIndex;
+    for (int i = 0; i < values.length; i++) {
+      Object value = values[i];
+      if (value == null) {
+        stmt.setNull(index, columns.get(i).sqlType);
+      } else if (value instanceof byte[]) {
+        stmt.setBytes(index, (byte[]) value);
+      } else if (value instanceof Boolean) {
+        stmt.setBoolean(index, (Boolean) value);
+      } else {
+        stmt.setObject(index, value);
+      }
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Upper bound of the size of the value once inlined in SQL text
+   */
+  private static long estimateBytes(@Nullable Object value) {
+    if (value instanceof String) {
+      // up to 3 bytes per char in UTF-8, each byte possibly escaped, plus quotes
+      return 6L * ((String) value).length() + 2;
+    }
+    if (value instanceof byte[]) {
+      // escaped or hexadecimal bytes, plus quotes and prefix
+      return 2L * ((byte[]) value).length + 3;
+    }
+    return 24L;
+  }
+
+  public static final class Column<T> {
+    private final String name;
+    private final int sqlType;
+    private final Function<T, Object> valueFunction;
+
+    private Column(String name, int sqlType, Function<T, Object> valueFunction) {
+      this.name = name;
+      this.sqlType = sqlType;
+      this.valueFunction = valueFunction;
+    }
+  }
+}
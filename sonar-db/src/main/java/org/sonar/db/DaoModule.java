@@ -29,6 +29,7 @@ import org.sonar.db.ce.CeTaskInputDao;
 import org.sonar.db.component.ComponentDao;
 import org.sonar.db.component.ComponentKeyUpdaterDao;
 import org.sonar.db.component.ComponentLinkDao;
+import org.sonar.db.component.ProjectRepositoryDao;
 import org.sonar.db.component.ResourceDao;
 import org.sonar.db.component.ResourceIndexDao;
 import org.sonar.db.component.SnapshotDao;
@@ -109,6 +110,7 @@ public class DaoModule extends Module {
     PermissionTemplateCharacteristicDao.class,
     PropertiesDao.class,
     ProjectQgateAssociationDao.class,
+    ProjectRepositoryDao.class,
     PurgeDao.class,
     QualityGateDao.class,
     QualityGateConditionDao.class,
@@ -29,6 +29,7 @@ import org.sonar.db.ce.CeTaskInputDao;
 import org.sonar.db.component.ComponentDao;
 import org.sonar.db.component.ComponentKeyUpdaterDao;
 import org.sonar.db.component.ComponentLinkDao;
+import org.sonar.db.component.ProjectRepositoryDao;
 import org.sonar.db.component.ResourceDao;
 import org.sonar.db.component.ResourceIndexDao;
 import org.sonar.db.component.SnapshotDao;
@@ -121,6 +122,7 @@ public class DbClient {
   private final QualityGateDao qualityGateDao;
   private final QualityGateConditionDao gateConditionDao;
   private final ProjectQgateAssociationDao projectQgateAssociationDao;
+  private final ProjectRepositoryDao projectRepositoryDao;
   private final DuplicationDao duplicationDao;
   private final NotificationQueueDao notificationQueueDao;
   private final CustomMeasureDao customMeasureDao;
@@ -182,6 +184,7 @@ public class DbClient {
     qualityGateDao = getDao(map, QualityGateDao.class);
     gateConditionDao = getDao(map, QualityGateConditionDao.class);
     projectQgateAssociationDao = getDao(map, ProjectQgateAssociationDao.class);
+    projectRepositoryDao = getDao(map, ProjectRepositoryDao.class);
     duplicationDao = getDao(map, DuplicationDao.class);
     notificationQueueDao = getDao(map, NotificationQueueDao.class);
     customMeasureDao = getDao(map, CustomMeasureDao.class);
@@ -374,6 +377,10 @@ public class DbClient {
     return projectQgateAssociationDao;
   }
 
+  public ProjectRepositoryDao projectRepositoryDao() {
+    return projectRepositoryDao;
+  }
+
   public DuplicationDao duplicationDao() {
     return duplicationDao;
   }
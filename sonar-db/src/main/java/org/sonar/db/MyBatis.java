@@ -40,6 +40,7 @@ import org.sonar.db.component.ComponentLinkDto;
 import org.sonar.db.component.ComponentLinkMapper;
 import org.sonar.db.component.ComponentMapper;
 import org.sonar.db.component.FilePathWithHashDto;
+import org.sonar.db.component.ProjectRepositoryMapper;
 import org.sonar.db.component.ResourceDto;
 import org.sonar.db.component.ResourceIndexDto;
 import org.sonar.db.component.ResourceIndexMapper;
@@ -97,6 +98,7 @@ import org.sonar.db.permission.template.PermissionTemplateMapper;
 import org.sonar.db.permission.template.PermissionTemplateUserDto;
 import org.sonar.db.property.InternalPropertiesMapper;
 import org.sonar.db.property.InternalPropertyDto;
+import org.sonar.db.property.NotificationSubscriptionDto;
 import org.sonar.db.property.PropertiesMapper;
 import org.sonar.db.property.ScrapPropertyDto;
 import org.sonar.db.purge.IdUuidPair;
@@ -192,6 +194,7 @@ public class MyBatis {
     confBuilder.loadAlias("MeasureFilter", MeasureFilterDto.class);
     confBuilder.loadAlias("Measure", MeasureDto.class);
     confBuilder.loadAlias("NotificationQueue", NotificationQueueDto.class);
+    confBuilder.loadAlias("NotificationSubscription", NotificationSubscriptionDto.class);
     confBuilder.loadAlias("Organization", OrganizationDto.class);
     confBuilder.loadAlias("PermissionTemplateCharacteristic", PermissionTemplateCharacteristicDto.class);
     confBuilder.loadAlias("PermissionTemplateGroup", PermissionTemplateGroupDto.class);
@@ -263,6 +266,7 @@ public class MyBatis {
       PermissionTemplateCharacteristicMapper.class,
       PermissionTemplateMapper.class,
       ProjectQgateAssociationMapper.class,
+      ProjectRepositoryMapper.class,
       PropertiesMapper.class,
       PurgeMapper.class,
       QProfileChangeMapper.class,
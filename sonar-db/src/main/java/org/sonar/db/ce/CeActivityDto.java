@@ -33,7 +33,7 @@ public class CeActivityDto {
   private static final int MAX_SIZE_ERROR_MESSAGE = 1000;
 
   public enum Status {
-    SUCCESS, FAILED, CANCELED
+    SUCCESS, FAILED, CANCELED, SUPERSEDED
   }
 
   private String uuid;
@@ -68,6 +68,15 @@ public class CeActivityDto {
    * @see CeActivityDao#selectByUuid(DbSession, String)
    */
   private String errorStacktrace;
+  /**
+   * Metrics of the computation steps executed by the task (if any), one step per line.
+   * <p>
+   * This property can be populated when inserting but <strong>is populated only when reading by a specific UUID.</strong>
+   * </p>
+   *
+   * @see CeActivityDao#selectByUuid(DbSession, String)
+   */
+  private String stepMetrics;
   /**
    * Flag indicating whether the analysis of the current activity has a scanner context or not.
    * <p>
@@ -247,6 +256,16 @@ public class CeActivityDto {
     return this;
   }
 
+  @CheckForNull
+  public String getStepMetrics() {
+    return stepMetrics;
+  }
+
+  public CeActivityDto setStepMetrics(@Nullable String stepMetrics) {
+    this.stepMetrics = stepMetrics;
+    return this;
+  }
+
   public boolean isHasScannerContext() {
     return hasScannerContext;
   }
@@ -274,6 +293,7 @@ public class CeActivityDto {
       .add("executionTimeMs", executionTimeMs)
       .add("errorMessage", errorMessage)
       .add("errorStacktrace", errorStacktrace)
+      .add("stepMetrics", stepMetrics)
       .add("hasScannerContext", hasScannerContext)
       .toString();
   }
@@ -33,8 +33,6 @@ import static org.sonar.db.ce.CeQueueDto.Status.PENDING;
 
 public class CeQueueDao implements Dao {
 
-  private static final RowBounds ONE_ROW_LIMIT = new RowBounds(0, 1);
-
   private final System2 system2;
 
   public CeQueueDao(System2 system2) {
@@ -108,17 +106,25 @@ public class CeQueueDao implements Dao {
     return mapper(dbSession).countByStatusAndComponentUuid(status, componentUuid);
   }
 
-  public Optional<CeQueueDto> peek(DbSession session) {
-    List<String> taskUuids = mapper(session).selectEligibleForPeek(ONE_ROW_LIMIT);
-    if (taskUuids.isEmpty()) {
-      return Optional.absent();
-    }
+  /**
+   * Pending tasks of the specified priority which can be peeked, ie. which no other task of the same component
+   * is in progress, ordered from oldest to newest.
+   */
+  public List<CeQueueDto> selectEligibleForPeek(DbSession session, CeQueueDto.Priority priority, int limit) {
+    return mapper(session).selectEligibleForPeekByPriority(priority, new RowBounds(0, limit));
+  }
 
-    String taskUuid = taskUuids.get(0);
-    return tryToPeek(session, taskUuid);
+  /**
+   * Number of pending tasks and submission date of the oldest one, for each priority with pending tasks
+   */
+  public List<CeQueueLaneDto> selectPendingLanes(DbSession session, @Nullable String componentUuid) {
+    return mapper(session).selectPendingLanes(componentUuid);
   }
 
-  private Optional<CeQueueDto> tryToPeek(DbSession session, String taskUuid) {
+  /**
+   * Peeks the specified task, if it is still pending.
+   */
+  public Optional<CeQueueDto> peek(DbSession session, String taskUuid) {
     int touchedRows = mapper(session).updateIfStatus(taskUuid, IN_PROGRESS, system2.now(), system2.now(), PENDING);
     if (touchedRows != 1) {
       return Optional.absent();
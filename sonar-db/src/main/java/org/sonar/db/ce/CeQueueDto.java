@@ -31,10 +31,18 @@ public class CeQueueDto {
     PENDING, IN_PROGRESS
   }
 
+  /**
+   * Pending tasks of high priority are peeked before the ones of normal priority, without starving them.
+   */
+  public enum Priority {
+    HIGH, NORMAL
+  }
+
   private String uuid;
   private String taskType;
   private String componentUuid;
   private Status status;
+  private Priority priority = Priority.NORMAL;
   private String submitterLogin;
   private Long startedAt;
   private long createdAt;
@@ -70,6 +78,15 @@ public class CeQueueDto {
     return this;
   }
 
+  public Priority getPriority() {
+    return priority;
+  }
+
+  public CeQueueDto setPriority(Priority p) {
+    this.priority = p;
+    return this;
+  }
+
   public String getTaskType() {
     return taskType;
   }
@@ -126,6 +143,7 @@ public class CeQueueDto {
       .add("taskType", taskType)
       .add("componentUuid", componentUuid)
       .add("status", status)
+      .add("priority", priority)
       .add("submitterLogin", submitterLogin)
       .add("startedAt", startedAt)
       .add("createdAt", createdAt)
@@ -0,0 +1,60 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.ce;
+
+/**
+ * Pending tasks of a given priority
+ */
+public class CeQueueLaneDto {
+
+  private CeQueueDto.Priority priority;
+  private int pendingCount;
+  private long oldestCreatedAt;
+
+  public CeQueueDto.Priority getPriority() {
+    return priority;
+  }
+
+  public CeQueueLaneDto setPriority(CeQueueDto.Priority priority) {
+    this.priority = priority;
+    return this;
+  }
+
+  public int getPendingCount() {
+    return pendingCount;
+  }
+
+  public CeQueueLaneDto setPendingCount(int pendingCount) {
+    this.pendingCount = pendingCount;
+    return this;
+  }
+
+  /**
+   * Submission date of the oldest pending task
+   */
+  public long getOldestCreatedAt() {
+    return oldestCreatedAt;
+  }
+
+  public CeQueueLaneDto setOldestCreatedAt(long oldestCreatedAt) {
+    this.oldestCreatedAt = oldestCreatedAt;
+    return this;
+  }
+}
@@ -35,7 +35,9 @@ public interface CeQueueMapper {
 
   int countByQuery(@Param("query") CeTaskQuery query);
 
-  List<String> selectEligibleForPeek(RowBounds rowBounds);
+  List<CeQueueDto> selectEligibleForPeekByPriority(@Param("priority") CeQueueDto.Priority priority, RowBounds rowBounds);
+
+  List<CeQueueLaneDto> selectPendingLanes(@Nullable @Param("componentUuid") String componentUuid);
 
   @CheckForNull
   CeQueueDto selectByUuid(@Param("uuid") String uuid);
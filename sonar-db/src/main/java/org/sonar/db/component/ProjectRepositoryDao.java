@@ -0,0 +1,116 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.component;
+
+import com.google.protobuf.CodedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.sonar.api.utils.System2;
+import org.sonar.db.Dao;
+import org.sonar.db.DbSession;
+import org.sonar.db.protobuf.DbProjectRepositories;
+
+import static java.lang.String.format;
+
+/**
+ * File data of projects, precomputed at the end of each analysis so that scanners
+ * can get it without loading all the files of the project.
+ */
+public class ProjectRepositoryDao implements Dao {
+
+  /**
+   * Version of {@link DbProjectRepositories.ProjectRepository}. Rows written with another
+   * version are ignored until the project is analyzed again.
+   */
+  public static final int FORMAT_VERSION = 1;
+
+  private final System2 system;
+
+  public ProjectRepositoryDao(System2 system) {
+    this.system = system;
+  }
+
+  /**
+   * Returns the repository of the given project, if it has been computed with the
+   * current {@link #FORMAT_VERSION}.
+   */
+  public Optional<DbProjectRepositories.ProjectRepository> selectByProjectUuid(DbSession dbSession, String projectUuid) {
+    try (PreparedStatement stmt = dbSession.getConnection().prepareStatement("select repository_data from project_repositories where project_uuid=?")) {
+      stmt.setString(1, projectUuid);
+      try (ResultSet rs = stmt.executeQuery()) {
+        if (!rs.next()) {
+          return Optional.empty();
+        }
+        DbProjectRepositories.ProjectRepository repository = decode(projectUuid, rs.getBinaryStream(1));
+        if (repository.getFormatVersion() != FORMAT_VERSION) {
+          return Optional.empty();
+        }
+        return Optional.of(repository);
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException(format("Fail to retrieve repository of project %s", projectUuid), e);
+    }
+  }
+
+  /**
+   * Inserts or replaces the repository of the given project. {@link #FORMAT_VERSION} is set
+   * by this method.
+   */
+  public void insertOrUpdate(DbSession dbSession, String projectUuid, DbProjectRepositories.ProjectRepository repository) {
+    byte[] data = encode(projectUuid, repository.toBuilder().setFormatVersion(FORMAT_VERSION).build());
+    ProjectRepositoryMapper mapper = mapper(dbSession);
+    long now = system.now();
+    if (mapper.update(projectUuid, data, now) == 0) {
+      mapper.insert(projectUuid, data, now);
+    }
+  }
+
+  private static byte[] encode(String projectUuid, DbProjectRepositories.ProjectRepository repository) {
+    ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+    try (LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput)) {
+      repository.writeTo(compressedOutput);
+    } catch (IOException e) {
+      throw new IllegalStateException(format("Fail to serialize repository of project %s", projectUuid), e);
+    }
+    return byteOutput.toByteArray();
+  }
+
+  private static DbProjectRepositories.ProjectRepository decode(String projectUuid, InputStream data) {
+    try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(data)) {
+      CodedInputStream input = CodedInputStream.newInstance(lz4Input);
+      // large projects can have hundreds of thousands of files
+      input.setSizeLimit(Integer.MAX_VALUE);
+      return DbProjectRepositories.ProjectRepository.parseFrom(input);
+    } catch (IOException e) {
+      throw new IllegalStateException(format("Fail to deserialize repository of project %s", projectUuid), e);
+    }
+  }
+
+  private static ProjectRepositoryMapper mapper(DbSession dbSession) {
+    return dbSession.getMapper(ProjectRepositoryMapper.class);
+  }
+}
@@ -19,21 +19,36 @@
  */
 package org.sonar.db.issue;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import java.sql.Types;
 import java.util.Collection;
 import java.util.List;
 import javax.annotation.CheckForNull;
 import org.sonar.core.issue.DefaultIssueComment;
 import org.sonar.core.issue.FieldDiffs;
+import org.sonar.db.BulkInsert;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
+import org.sonar.db.dialect.Dialect;
 
 import static java.util.Arrays.asList;
+import static org.sonar.db.BulkInsert.column;
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 
 public class IssueChangeDao implements Dao {
 
+  private static final List<BulkInsert.Column<IssueChangeDto>> BULK_INSERT_COLUMNS = ImmutableList.of(
+    column("kee", Types.VARCHAR, IssueChangeDto::getKey),
+    column("issue_key", Types.VARCHAR, IssueChangeDto::getIssueKey),
+    column("user_login", Types.VARCHAR, IssueChangeDto::getUserLogin),
+    column("change_type", Types.VARCHAR, IssueChangeDto::getChangeType),
+    column("change_data", Types.VARCHAR, IssueChangeDto::getChangeData),
+    column("created_at", Types.BIGINT, IssueChangeDto::getCreatedAt),
+    column("updated_at", Types.BIGINT, IssueChangeDto::getUpdatedAt),
+    column("issue_change_creation_date", Types.BIGINT, IssueChangeDto::getIssueChangeCreationDate));
+
   private final MyBatis mybatis;
 
   public IssueChangeDao(MyBatis mybatis) {
@@ -89,6 +104,13 @@ public class IssueChangeDao implements Dao {
     return executeLargeInputs(issueKeys, issueKeys1 -> mapper(session).selectByIssuesAndType(issueKeys1, changeType));
   }
 
+  /**
+   * Inserts changes with as few round-trips as possible. See {@link BulkInsert}.
+   */
+  public BulkInsert<IssueChangeDto> newBulkInsert(DbSession session, Dialect dialect) {
+    return new BulkInsert<>(session, dialect, "issue_changes", BULK_INSERT_COLUMNS);
+  }
+
   public void insert(DbSession session, IssueChangeDto change) {
     mapper(session).insert(change);
   }
@@ -22,6 +22,10 @@ package org.sonar.db.issue;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -29,15 +33,49 @@ import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import org.apache.ibatis.executor.BatchResult;
+import org.sonar.db.BatchSession;
+import org.sonar.db.BulkInsert;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 import org.sonar.db.RowNotFoundException;
+import org.sonar.db.dialect.Dialect;
 
 import static com.google.common.collect.FluentIterable.from;
+import static org.sonar.db.BulkInsert.column;
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 
 public class IssueDao implements Dao {
 
+  private static final List<BulkInsert.Column<IssueDto>> BULK_INSERT_COLUMNS = ImmutableList.of(
+    column("kee", Types.VARCHAR, IssueDto::getKee),
+    column("rule_id", Types.INTEGER, IssueDto::getRuleId),
+    column("severity", Types.VARCHAR, IssueDto::getSeverity),
+    column("manual_severity", Types.BOOLEAN, IssueDto::isManualSeverity),
+    column("message", Types.VARCHAR, IssueDto::getMessage),
+    column("line", Types.INTEGER, IssueDto::getLine),
+    column("locations", Types.BINARY, IssueDto::getLocations),
+    column("gap", Types.DOUBLE, IssueDto::getGap),
+    column("effort", Types.INTEGER, IssueDto::getEffort),
+    column("status", Types.VARCHAR, IssueDto::getStatus),
+    column("tags", Types.VARCHAR, IssueDto::getTagsString),
+    column("resolution", Types.VARCHAR, IssueDto::getResolution),
+    column("checksum", Types.VARCHAR, IssueDto::getChecksum),
+    column("assignee", Types.VARCHAR, IssueDto::getAssignee),
+    column("author_login", Types.VARCHAR, IssueDto::getAuthorLogin),
+    column("issue_attributes", Types.VARCHAR, IssueDto::getIssueAttributes),
+    column("issue_creation_date", Types.BIGINT, IssueDto::getIssueCreationTime),
+    column("issue_update_date", Types.BIGINT, IssueDto::getIssueUpdateTime),
+    column("issue_close_date", Types.BIGINT, IssueDto::getIssueCloseTime),
+    column("created_at", Types.BIGINT, IssueDto::getCreatedAt),
+    column("updated_at", Types.BIGINT, IssueDto::getUpdatedAt),
+    column("component_uuid", Types.VARCHAR, IssueDto::getComponentUuid),
+    column("project_uuid", Types.VARCHAR, IssueDto::getProjectUuid),
+    column("issue_type", Types.INTEGER, IssueDto::getType));
+
+  // lower than the size triggering the automatic commit of BatchSession, which would discard update counts
+  private static final int UPDATE_PARTITION_SIZE = BatchSession.MAX_BATCH_SIZE - 1;
+
   public Optional<IssueDto> selectByKey(DbSession session, String key) {
     return Optional.fromNullable(mapper(session).selectByKey(key));
   }
@@ -103,6 +141,48 @@ public class IssueDao implements Dao {
     }
   }
 
+  /**
+   * Inserts issues with as few round-trips as possible. See {@link BulkInsert}.
+   */
+  public BulkInsert<IssueDto> newBulkInsert(DbSession session, Dialect dialect) {
+    return new BulkInsert<>(session, dialect, "issues", BULK_INSERT_COLUMNS);
+  }
+
+  /**
+   * Updates the issues which have not been changed in DB since they were selected (see {@link IssueDto#getSelectedAt()}).
+   * When the session is a {@link BatchSession}, updates are sent by batches instead of one by one.
+   *
+   * @return keys of the issues which have not been updated because they were changed concurrently
+   */
+  public List<String> updateIfBeforeSelectedDate(DbSession session, Collection<IssueDto> dtos) {
+    IssueMapper mapper = mapper(session);
+    List<String> conflictingKeys = new ArrayList<>();
+    for (List<IssueDto> partition : Iterables.partition(dtos, UPDATE_PARTITION_SIZE)) {
+      session.flushStatements();
+      for (IssueDto dto : partition) {
+        if (mapper.updateIfBeforeSelectedDate(dto) == 0) {
+          conflictingKeys.add(dto.getKee());
+        }
+      }
+      for (BatchResult batchResult : session.flushStatements()) {
+        if (batchResult.getMappedStatement().getId().endsWith(".updateIfBeforeSelectedDate")) {
+          addConflictingKeys(batchResult, conflictingKeys);
+        }
+      }
+    }
+    return conflictingKeys;
+  }
+
+  private static void addConflictingKeys(BatchResult batchResult, List<String> conflictingKeys) {
+    int[] updateCounts = batchResult.getUpdateCounts();
+    List<Object> dtos = batchResult.getParameterObjects();
+    for (int i = 0; i < updateCounts.length; i++) {
+      if (updateCounts[i] == 0) {
+        conflictingKeys.add(((IssueDto) dtos.get(i)).getKee());
+      }
+    }
+  }
+
   public void update(DbSession session, IssueDto dto) {
     mapper(session).update(dto);
   }
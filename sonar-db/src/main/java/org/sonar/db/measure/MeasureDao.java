@@ -19,21 +19,43 @@
  */
 package org.sonar.db.measure;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import java.sql.Types;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import org.apache.ibatis.session.ResultHandler;
+import org.sonar.db.BulkInsert;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
+import org.sonar.db.dialect.Dialect;
 
+import static org.sonar.db.BulkInsert.column;
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 import static org.sonar.db.DatabaseUtils.executeLargeInputsWithoutOutput;
 
 public class MeasureDao implements Dao {
 
+  private static final List<BulkInsert.Column<MeasureDto>> BULK_INSERT_COLUMNS = ImmutableList.of(
+    column("value", Types.DOUBLE, MeasureDto::getValue),
+    column("metric_id", Types.INTEGER, MeasureDto::getMetricId),
+    column("component_uuid", Types.VARCHAR, MeasureDto::getComponentUuid),
+    column("analysis_uuid", Types.VARCHAR, MeasureDto::getAnalysisUuid),
+    column("text_value", Types.VARCHAR, MeasureDto::getTextValue),
+    column("alert_status", Types.VARCHAR, MeasureDto::getAlertStatus),
+    column("alert_text", Types.VARCHAR, MeasureDto::getAlertText),
+    column("description", Types.VARCHAR, MeasureDto::getDescription),
+    column("person_id", Types.INTEGER, MeasureDto::getDeveloperId),
+    column("variation_value_1", Types.DOUBLE, m -> m.getVariation(1)),
+    column("variation_value_2", Types.DOUBLE, m -> m.getVariation(2)),
+    column("variation_value_3", Types.DOUBLE, m -> m.getVariation(3)),
+    column("variation_value_4", Types.DOUBLE, m -> m.getVariation(4)),
+    column("variation_value_5", Types.DOUBLE, m -> m.getVariation(5)),
+    column("measure_data", Types.BINARY, MeasureDto::getDataValue));
+
   public Optional<MeasureDto> selectSingle(DbSession dbSession, MeasureQuery query) {
     List<MeasureDto> measures = selectByQuery(dbSession, query);
     return Optional.ofNullable(Iterables.getOnlyElement(measures, null));
@@ -112,6 +134,20 @@ public class MeasureDao implements Dao {
       ids -> mapper(dbSession).selectPastMeasures(componentUuid, analysisUuid, ids));
   }
 
+  /**
+   * Past measures of all the components of an analysis, except files, in a few queries whatever the number of components.
+   * Measures of developers and measures without value are ignored. Rows are sent to {@code resultHandler} as
+   * {@link PastMeasureDto}, in no particular order.
+   */
+  public void selectNonFilePastMeasures(DbSession dbSession, String analysisUuid, Collection<Integer> metricIds, ResultHandler resultHandler) {
+    executeLargeInputsWithoutOutput(
+      metricIds,
+      ids -> {
+        mapper(dbSession).selectNonFilePastMeasures(analysisUuid, ids, resultHandler);
+        return null;
+      });
+  }
+
   /**
    * Used by developer cockpit.
    */
@@ -121,6 +157,13 @@ public class MeasureDao implements Dao {
       ids -> mapper(dbSession).selectProjectMeasuresOfDeveloper(developerId, metricIds));
   }
 
+  /**
+   * Inserts measures with as few round-trips as possible. See {@link BulkInsert}.
+   */
+  public BulkInsert<MeasureDto> newBulkInsert(DbSession session, Dialect dialect) {
+    return new BulkInsert<>(session, dialect, "project_measures", BULK_INSERT_COLUMNS);
+  }
+
   public void insert(DbSession session, MeasureDto measureDto) {
     mapper(session).insert(measureDto);
   }
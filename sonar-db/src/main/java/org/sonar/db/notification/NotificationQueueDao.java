@@ -22,6 +22,7 @@ package org.sonar.db.notification;
 import java.util.Collections;
 import java.util.List;
 import org.apache.ibatis.session.SqlSession;
+import org.sonar.api.utils.System2;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
@@ -29,16 +30,20 @@ import org.sonar.db.MyBatis;
 public class NotificationQueueDao implements Dao {
 
   private final MyBatis mybatis;
+  private final System2 system2;
 
-  public NotificationQueueDao(MyBatis mybatis) {
+  public NotificationQueueDao(MyBatis mybatis, System2 system2) {
     this.mybatis = mybatis;
+    this.system2 = system2;
   }
 
   public void insert(List<NotificationQueueDto> dtos) {
     DbSession session = mybatis.openSession(true);
     NotificationQueueMapper mapper = session.getMapper(NotificationQueueMapper.class);
     try {
+      long now = system2.now();
       for (NotificationQueueDto dto : dtos) {
+        dto.setCreatedAt(now);
         mapper.insert(dto);
       }
       session.commit();
@@ -24,6 +24,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
@@ -37,6 +39,7 @@ public class NotificationQueueDto {
 
   private Long id;
   private byte[] data;
+  private Long createdAt;
 
   public Long getId() {
     return id;
@@ -56,6 +59,19 @@ public class NotificationQueueDto {
     return this;
   }
 
+  /**
+   * Date of insertion in the queue, {@code null} for notifications queued before it was stored
+   */
+  @CheckForNull
+  public Long getCreatedAt() {
+    return createdAt;
+  }
+
+  public NotificationQueueDto setCreatedAt(@Nullable Long createdAt) {
+    this.createdAt = createdAt;
+    return this;
+  }
+
   @Override
   public String toString() {
     return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
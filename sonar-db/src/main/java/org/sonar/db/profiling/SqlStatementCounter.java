@@ -0,0 +1,120 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.Collection;
+import java.util.Properties;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * MyBatis plugin counting, for each thread, the SQL statements executed through {@link org.sonar.db.DbSession}
+ * and the rows they returned, either as a list or through a {@link ResultHandler}. Statements executed directly on a
+ * JDBC connection are not counted.
+ */
+@Intercepts({
+  @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+  @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+})
+public class SqlStatementCounter implements Interceptor {
+
+  private static final ThreadLocal<Counts> COUNTS = ThreadLocal.withInitial(Counts::new);
+
+  /**
+   * Counts of the current thread since its creation. Callers compute differences between two calls.
+   */
+  public static Counts current() {
+    return COUNTS.get().copy();
+  }
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    Counts counts = COUNTS.get();
+    Object[] args = invocation.getArgs();
+    if (args.length == 4 && args[3] instanceof ResultHandler) {
+      // rows are not returned but streamed to the handler
+      args[3] = new CountingResultHandler((ResultHandler) args[3], counts);
+    }
+    Object result = invocation.proceed();
+    counts.statements++;
+    if (result instanceof Collection) {
+      counts.rows += ((Collection<?>) result).size();
+    }
+    return result;
+  }
+
+  @Override
+  public Object plugin(Object target) {
+    return Plugin.wrap(target, this);
+  }
+
+  @Override
+  public void setProperties(Properties properties) {
+    // no properties
+  }
+
+  private static final class CountingResultHandler implements ResultHandler {
+    private final ResultHandler delegate;
+    private final Counts counts;
+
+    private CountingResultHandler(ResultHandler delegate, Counts counts) {
+      this.delegate = delegate;
+      this.counts = counts;
+    }
+
+    @Override
+    public void handleResult(ResultContext context) {
+      counts.rows++;
+      delegate.handleResult(context);
+    }
+  }
+
+  public static final class Counts {
+    private long statements;
+    private long rows;
+
+    private Counts() {
+      // only instantiated by SqlStatementCounter
+    }
+
+    public long getStatements() {
+      return statements;
+    }
+
+    public long getRows() {
+      return rows;
+    }
+
+    private Counts copy() {
+      Counts copy = new Counts();
+      copy.statements = statements;
+      copy.rows = rows;
+      return copy;
+    }
+  }
+}
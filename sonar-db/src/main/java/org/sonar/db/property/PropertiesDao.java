@@ -71,6 +71,33 @@ public class PropertiesDao implements Dao {
     }
   }
 
+  /**
+   * Returns all the notification subscriptions which are not specific to a project.
+   */
+  public List<NotificationSubscriptionDto> selectGlobalNotificationSubscriptions() {
+    try (DbSession session = mybatis.openSession(false)) {
+      return getMapper(session).selectNotificationSubscriptions(null, null);
+    }
+  }
+
+  /**
+   * Returns the notification subscriptions specific to the project with the given uuid, excluding global subscriptions.
+   */
+  public List<NotificationSubscriptionDto> selectNotificationSubscriptionsByProjectUuid(String projectUuid) {
+    try (DbSession session = mybatis.openSession(false)) {
+      return getMapper(session).selectNotificationSubscriptions(projectUuid, null);
+    }
+  }
+
+  /**
+   * Returns the notification subscriptions specific to the component with the given key, excluding global subscriptions.
+   */
+  public List<NotificationSubscriptionDto> selectNotificationSubscriptionsByComponentKey(String componentKey) {
+    try (DbSession session = mybatis.openSession(false)) {
+      return getMapper(session).selectNotificationSubscriptions(null, componentKey);
+    }
+  }
+
   public boolean hasProjectNotificationSubscribersForDispatchers(String projectUuid, Collection<String> dispatcherKeys) {
     try (DbSession session = mybatis.openSession(false);
       Connection connection = session.getConnection();
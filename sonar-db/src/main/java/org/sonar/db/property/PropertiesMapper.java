@@ -29,6 +29,8 @@ public interface PropertiesMapper {
 
   List<String> findNotificationSubscribers(@Param("propKey") String propertyKey, @Nullable @Param("componentKey") String componentKey);
 
+  List<NotificationSubscriptionDto> selectNotificationSubscriptions(@Nullable @Param("projectUuid") String projectUuid, @Nullable @Param("componentKey") String componentKey);
+
   List<PropertyDto> selectGlobalProperties();
 
   List<PropertyDto> selectProjectProperties(String resourceKey);
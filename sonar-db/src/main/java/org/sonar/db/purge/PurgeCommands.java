@@ -22,7 +22,10 @@ package org.sonar.db.purge;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.apache.ibatis.session.SqlSession;
 
 import static com.google.common.collect.FluentIterable.from;
@@ -36,16 +39,19 @@ class PurgeCommands {
   private final SqlSession session;
   private final PurgeMapper purgeMapper;
   private final PurgeProfiler profiler;
+  @CheckForNull
+  private final PurgeExecutor executor;
 
-  PurgeCommands(SqlSession session, PurgeMapper purgeMapper, PurgeProfiler profiler) {
+  PurgeCommands(SqlSession session, PurgeMapper purgeMapper, PurgeProfiler profiler, @Nullable PurgeExecutor executor) {
     this.session = session;
     this.purgeMapper = purgeMapper;
     this.profiler = profiler;
+    this.executor = executor;
   }
 
   @VisibleForTesting
   PurgeCommands(SqlSession session, PurgeProfiler profiler) {
-    this(session, session.getMapper(PurgeMapper.class), profiler);
+    this(session, session.getMapper(PurgeMapper.class), profiler, null);
   }
 
   List<String> selectSnapshotUuids(PurgeSnapshotQuery query) {
@@ -69,60 +75,23 @@ class PurgeCommands {
 
     // possible missing optimization: filter requests according to resource scope
 
-    profiler.start("deleteResourceLinks (project_links)");
-    componentUuidsPartitions.forEach(purgeMapper::deleteComponentLinks);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteResourceProperties (properties)");
-    componentIdPartitions.forEach(purgeMapper::deleteComponentProperties);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteResourceIndex (resource_index)");
-    componentUuidsPartitions.forEach(purgeMapper::deleteResourceIndex);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteResourceGroupRoles (group_roles)");
-    componentIdPartitions.forEach(purgeMapper::deleteComponentGroupRoles);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteResourceUserRoles (user_roles)");
-    componentIdPartitions.forEach(purgeMapper::deleteComponentUserRoles);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteResourceManualMeasures (manual_measures)");
-    componentUuidsPartitions.forEach(purgeMapper::deleteComponentManualMeasures);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteComponentIssueChanges (issue_changes)");
-    componentUuidsPartitions.forEach(purgeMapper::deleteComponentIssueChanges);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteComponentIssues (issues)");
-    componentUuidsPartitions.forEach(purgeMapper::deleteComponentIssues);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteComponentEvents (events)");
-    componentUuidsPartitions.forEach(purgeMapper::deleteComponentEvents);
-    session.commit();
-    profiler.stop();
+    // issue_changes are selected through a join on issues, so they are deleted before issues in the same task
+    executeConcurrently(asList(
+      deletion("deleteResourceLinks (project_links)", mapper -> componentUuidsPartitions.forEach(mapper::deleteComponentLinks)),
+      deletion("deleteResourceProperties (properties)", mapper -> componentIdPartitions.forEach(mapper::deleteComponentProperties)),
+      deletion("deleteResourceIndex (resource_index)", mapper -> componentUuidsPartitions.forEach(mapper::deleteResourceIndex)),
+      deletion("deleteResourceGroupRoles (group_roles)", mapper -> componentIdPartitions.forEach(mapper::deleteComponentGroupRoles)),
+      deletion("deleteResourceUserRoles (user_roles)", mapper -> componentIdPartitions.forEach(mapper::deleteComponentUserRoles)),
+      deletion("deleteResourceManualMeasures (manual_measures)", mapper -> componentUuidsPartitions.forEach(mapper::deleteComponentManualMeasures)),
+      deletion("deleteComponentIssueChanges (issue_changes)", mapper -> componentUuidsPartitions.forEach(mapper::deleteComponentIssueChanges))
+        .andThen(deletion("deleteComponentIssues (issues)", mapper -> componentUuidsPartitions.forEach(mapper::deleteComponentIssues))),
+      deletion("deleteComponentEvents (events)", mapper -> componentUuidsPartitions.forEach(mapper::deleteComponentEvents)),
+      deletion("deleteAuthors (authors)", mapper -> componentIdPartitions.forEach(mapper::deleteAuthors))));
 
     profiler.start("deleteResource (projects)");
     componentUuidsPartitions.forEach(purgeMapper::deleteComponents);
     session.commit();
     profiler.stop();
-
-    profiler.start("deleteAuthors (authors)");
-    componentIdPartitions.forEach(purgeMapper::deleteAuthors);
-    session.commit();
-    profiler.stop();
   }
 
   public void deleteComponentMeasures(List<String> analysisUuids, List<String> componentUuids) {
@@ -154,17 +123,10 @@ class PurgeCommands {
   protected void deleteAnalyses(List<IdUuidPair> analysisIdUuids) {
     List<List<String>> analysisUuidsPartitions = Lists.partition(IdUuidPairs.uuids(analysisIdUuids), MAX_SNAPSHOTS_PER_QUERY);
 
-    deleteAnalysisDuplications(analysisUuidsPartitions);
-
-    profiler.start("deleteAnalyses (events)");
-    analysisUuidsPartitions.forEach(purgeMapper::deleteAnalysisEvents);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteAnalyses (project_measures)");
-    analysisUuidsPartitions.forEach(purgeMapper::deleteAnalysisMeasures);
-    session.commit();
-    profiler.stop();
+    executeConcurrently(asList(
+      deleteAnalysisDuplications(analysisUuidsPartitions),
+      deletion("deleteAnalyses (events)", mapper -> analysisUuidsPartitions.forEach(mapper::deleteAnalysisEvents)),
+      deletion("deleteAnalyses (project_measures)", mapper -> analysisUuidsPartitions.forEach(mapper::deleteAnalysisMeasures))));
 
     profiler.start("deleteAnalyses (snapshots)");
     analysisUuidsPartitions.forEach(purgeMapper::deleteAnalyses);
@@ -175,14 +137,11 @@ class PurgeCommands {
   public void purgeAnalyses(List<IdUuidPair> analysisUuids) {
     List<List<String>> analysisUuidsPartitions = Lists.partition(IdUuidPairs.uuids(analysisUuids), MAX_SNAPSHOTS_PER_QUERY);
 
-    deleteAnalysisDuplications(analysisUuidsPartitions);
-
-    profiler.start("deleteSnapshotWastedMeasures (project_measures)");
     List<Long> metricIdsWithoutHistoricalData = purgeMapper.selectMetricIdsWithoutHistoricalData();
-    analysisUuidsPartitions.stream()
-        .forEach(analysisUuidsPartition -> purgeMapper.deleteAnalysisWastedMeasures(analysisUuidsPartition, metricIdsWithoutHistoricalData));
-    session.commit();
-    profiler.stop();
+    executeConcurrently(asList(
+      deleteAnalysisDuplications(analysisUuidsPartitions),
+      deletion("deleteSnapshotWastedMeasures (project_measures)", mapper -> analysisUuidsPartitions
+        .forEach(analysisUuidsPartition -> mapper.deleteAnalysisWastedMeasures(analysisUuidsPartition, metricIdsWithoutHistoricalData)))));
 
     profiler.start("updatePurgeStatusToOne (snapshots)");
     analysisUuidsPartitions.forEach(purgeMapper::updatePurgeStatusToOne);
@@ -190,11 +149,41 @@ class PurgeCommands {
     profiler.stop();
   }
 
-  private void deleteAnalysisDuplications(List<List<String>> snapshotUuidsPartitions) {
-    profiler.start("deleteAnalysisDuplications (duplications_index)");
-    snapshotUuidsPartitions.forEach(purgeMapper::deleteAnalysisDuplications);
-    session.commit();
-    profiler.stop();
+  private Consumer<SqlSession> deleteAnalysisDuplications(List<List<String>> snapshotUuidsPartitions) {
+    return deletion("deleteAnalysisDuplications (duplications_index)", mapper -> snapshotUuidsPartitions.forEach(mapper::deleteAnalysisDuplications));
+  }
+
+  /**
+   * Deletion of a single table, committed and profiled. It is executed with the session given when the
+   * deletion is executed, which is not necessarily the session of these commands.
+   */
+  private Consumer<SqlSession> deletion(String table, Consumer<PurgeMapper> delete) {
+    return deletionSession -> {
+      profiler.start(table);
+      delete.accept(deletionSession.getMapper(PurgeMapper.class));
+      deletionSession.commit();
+      profiler.stop();
+    };
+  }
+
+  /**
+   * Executes deletions of tables that do not depend on each other. They are executed concurrently when an executor
+   * is available, else sequentially in the current session.
+   */
+  private void executeConcurrently(List<Consumer<SqlSession>> deletions) {
+    if (executor == null) {
+      deletions.forEach(deletion -> deletion.accept(session));
+    } else {
+      executor.execute(deletions);
+    }
+  }
+
+  void deleteIssues(List<String> issueKeys) {
+    List<List<String>> issueKeysPartitions = Lists.partition(issueKeys, MAX_RESOURCES_PER_QUERY);
+
+    executeConcurrently(asList(
+      deletion("deleteIssueChanges (issue_changes)", mapper -> issueKeysPartitions.forEach(mapper::deleteIssueChangesFromIssueKeys)),
+      deletion("deleteIssues (issues)", mapper -> issueKeysPartitions.forEach(mapper::deleteIssuesFromKeys))));
   }
 
   public void deleteFileSources(String rootUuid) {
@@ -204,6 +193,13 @@ class PurgeCommands {
     profiler.stop();
   }
 
+  public void deleteProjectRepository(String rootUuid) {
+    profiler.start("deleteProjectRepository (project_repositories)");
+    purgeMapper.deleteProjectRepositoryByProjectUuid(rootUuid);
+    session.commit();
+    profiler.stop();
+  }
+
   public void deleteCeActivity(String rootUuid) {
     profiler.start("deleteCeActivity (ce_activity)");
     purgeMapper.deleteCeActivityByProjectUuid(rootUuid);
@@ -36,14 +36,21 @@ public class PurgeConfiguration {
   private final int maxAgeInDaysOfClosedIssues;
   private final System2 system2;
   private final Collection<String> disabledComponentUuids;
+  private final int maxConcurrentDeletions;
 
   public PurgeConfiguration(IdUuidPair rootProjectId, String[] scopesWithoutHistoricalData, int maxAgeInDaysOfClosedIssues,
     System2 system2, Collection<String> disabledComponentUuids) {
+    this(rootProjectId, scopesWithoutHistoricalData, maxAgeInDaysOfClosedIssues, system2, disabledComponentUuids, 1);
+  }
+
+  public PurgeConfiguration(IdUuidPair rootProjectId, String[] scopesWithoutHistoricalData, int maxAgeInDaysOfClosedIssues,
+    System2 system2, Collection<String> disabledComponentUuids, int maxConcurrentDeletions) {
     this.rootProjectIdUuid = rootProjectId;
     this.scopesWithoutHistoricalData = scopesWithoutHistoricalData;
     this.maxAgeInDaysOfClosedIssues = maxAgeInDaysOfClosedIssues;
     this.system2 = system2;
     this.disabledComponentUuids = disabledComponentUuids;
+    this.maxConcurrentDeletions = maxConcurrentDeletions;
   }
 
   public static PurgeConfiguration newDefaultPurgeConfiguration(Settings settings, IdUuidPair idUuidPair, Collection<String> disabledComponentUuids) {
@@ -51,7 +58,8 @@ public class PurgeConfiguration {
     if (settings.getBoolean(PurgeConstants.PROPERTY_CLEAN_DIRECTORY)) {
       scopes = new String[] {Scopes.DIRECTORY, Scopes.FILE};
     }
-    return new PurgeConfiguration(idUuidPair, scopes, settings.getInt(PurgeConstants.DAYS_BEFORE_DELETING_CLOSED_ISSUES), System2.INSTANCE, disabledComponentUuids);
+    return new PurgeConfiguration(idUuidPair, scopes, settings.getInt(PurgeConstants.DAYS_BEFORE_DELETING_CLOSED_ISSUES), System2.INSTANCE, disabledComponentUuids,
+      Math.max(1, settings.getInt(PurgeConstants.MAX_CONCURRENT_DELETIONS)));
   }
 
   public IdUuidPair rootProjectIdUuid() {
@@ -66,6 +74,14 @@ public class PurgeConfiguration {
     return disabledComponentUuids;
   }
 
+  /**
+   * Maximum number of tables that are purged concurrently, each one on its own connection.
+   * Deletions are sequential if 1.
+   */
+  public int maxConcurrentDeletions() {
+    return maxConcurrentDeletions;
+  }
+
   @CheckForNull
   public Date maxLiveDateOfClosedIssues() {
     return maxLiveDateOfClosedIssues(new Date(system2.now()));
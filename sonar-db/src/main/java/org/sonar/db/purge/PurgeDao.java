@@ -25,12 +25,14 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.stream.Collectors;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
+import org.sonar.db.MyBatis;
 import org.sonar.db.component.ComponentDao;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTreeQuery;
@@ -47,23 +49,39 @@ public class PurgeDao implements Dao {
   private static final String[] UNPROCESSED_STATUS = new String[] {"U"};
   private static final List<String> UUID_FIELD_SORT = Collections.singletonList("uuid");
 
+  private final MyBatis myBatis;
   private final ComponentDao componentDao;
   private final System2 system2;
 
-  public PurgeDao(ComponentDao componentDao, System2 system2) {
+  public PurgeDao(MyBatis myBatis, ComponentDao componentDao, System2 system2) {
+    this.myBatis = myBatis;
     this.componentDao = componentDao;
     this.system2 = system2;
   }
 
+  /**
+   * Deletions of independent tables are executed concurrently on distinct connections when
+   * {@link PurgeConfiguration#maxConcurrentDeletions()} is greater than 1.
+   */
   public void purge(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler) {
+    if (conf.maxConcurrentDeletions() > 1) {
+      try (PurgeExecutor executor = new PurgeExecutor(myBatis, conf.maxConcurrentDeletions())) {
+        purge(session, conf, listener, profiler, executor);
+      }
+    } else {
+      purge(session, conf, listener, profiler, null);
+    }
+  }
+
+  private void purge(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler, @Nullable PurgeExecutor executor) {
     PurgeMapper mapper = session.getMapper(PurgeMapper.class);
-    PurgeCommands commands = new PurgeCommands(session, mapper, profiler);
+    PurgeCommands commands = new PurgeCommands(session, mapper, profiler, executor);
     String rootUuid = conf.rootProjectIdUuid().getUuid();
     deleteAbortedAnalyses(rootUuid, commands);
     deleteDataOfComponentsWithoutHistoricalData(session, rootUuid, conf.scopesWithoutHistoricalData(), commands);
     purgeAnalyses(commands, rootUuid);
     purgeDisabledComponents(session, conf.getDisabledComponentUuids(), listener);
-    deleteOldClosedIssues(conf, mapper, listener);
+    deleteOldClosedIssues(conf, mapper, commands, listener);
   }
 
   private static void purgeAnalyses(PurgeCommands commands, String rootUuid) {
@@ -75,18 +93,11 @@ public class PurgeDao implements Dao {
     commands.purgeAnalyses(analysisUuids);
   }
 
-  private static void deleteOldClosedIssues(PurgeConfiguration conf, PurgeMapper mapper, PurgeListener listener) {
+  private static void deleteOldClosedIssues(PurgeConfiguration conf, PurgeMapper mapper, PurgeCommands commands, PurgeListener listener) {
     Date toDate = conf.maxLiveDateOfClosedIssues();
     String rootUuid = conf.rootProjectIdUuid().getUuid();
     List<String> issueKeys = mapper.selectOldClosedIssueKeys(rootUuid, dateToLong(toDate));
-    executeLargeInputs(issueKeys, input -> {
-      mapper.deleteIssueChangesFromIssueKeys(input);
-      return emptyList();
-    });
-    executeLargeInputs(issueKeys, input -> {
-      mapper.deleteIssuesFromKeys(input);
-      return emptyList();
-    });
+    commands.deleteIssues(issueKeys);
     listener.onIssuesRemoval(rootUuid, issueKeys);
   }
 
@@ -170,6 +181,7 @@ public class PurgeDao implements Dao {
     commands.deleteAnalyses(rootUuid);
     commands.deleteComponents(childrenIds);
     commands.deleteFileSources(rootUuid);
+    commands.deleteProjectRepository(rootUuid);
     commands.deleteCeActivity(rootUuid);
   }
 
@@ -0,0 +1,84 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.purge;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import org.apache.ibatis.session.SqlSession;
+import org.sonar.db.DbSession;
+import org.sonar.db.MyBatis;
+
+/**
+ * Runs deletions of independent tables concurrently, each one in its own session, hence on
+ * its own connection. Threads have a low priority so that purge does not slow down analyses.
+ */
+class PurgeExecutor implements AutoCloseable {
+
+  private final MyBatis myBatis;
+  private final ExecutorService executorService;
+
+  PurgeExecutor(MyBatis myBatis, int threads) {
+    this.myBatis = myBatis;
+    this.executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+      .setNameFormat("DbCleaner-%d")
+      .setDaemon(true)
+      .setPriority(Thread.MIN_PRIORITY)
+      .build());
+  }
+
+  /**
+   * Executes the deletions and waits for all of them to be done. Each deletion is responsible of committing its session.
+   *
+   * @throws IllegalStateException if at least one of the deletions failed
+   */
+  void execute(List<Consumer<SqlSession>> deletions) {
+    List<Future<?>> futures = new ArrayList<>(deletions.size());
+    for (Consumer<SqlSession> deletion : deletions) {
+      futures.add(executorService.submit(() -> {
+        try (DbSession session = myBatis.openSession(true)) {
+          deletion.accept(session);
+        }
+      }));
+    }
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Purge has been interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Fail to purge", e.getCause());
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+  }
+
+  @Override
+  public void close() {
+    executorService.shutdownNow();
+  }
+}
@@ -86,6 +86,8 @@ public interface PurgeMapper {
 
   void deleteFileSourcesByProjectUuid(String rootProjectUuid);
 
+  void deleteProjectRepositoryByProjectUuid(String rootProjectUuid);
+
   void deleteFileSourcesByUuid(@Param("fileUuids") List<String> fileUuids);
 
   void deleteCeActivityByProjectUuid(String projectUuid);
@@ -22,18 +22,32 @@ package org.sonar.db.purge;
 import com.google.common.annotations.VisibleForTesting;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import org.sonar.api.utils.TimeUtils;
 import org.sonar.api.utils.log.Logger;
 
+/**
+ * Durations of purge statements grouped by table. Deletions may run concurrently on
+ * several threads, so the current table is tracked per thread.
+ * <p>
+ * Several projects may also be purged at the same time by different workers, so the durations of the
+ * current purge are kept per purging thread. They are inherited by the threads started during the purge,
+ * which execute the concurrent deletions.
+ */
 public class PurgeProfiler {
 
-  private Map<String, Long> durations = new HashMap<>();
-  private long startTime;
-  private String currentTable;
+  private final InheritableThreadLocal<Map<String, Long>> durations = new InheritableThreadLocal<Map<String, Long>>() {
+    @Override
+    protected Map<String, Long> initialValue() {
+      return new ConcurrentHashMap<>();
+    }
+  };
+  private final Map<String, Long> durationsSinceStartup = new ConcurrentHashMap<>();
+  private final ThreadLocal<Start> currentStart = new ThreadLocal<>();
   private final Clock clock;
 
   public PurgeProfiler() {
@@ -45,28 +59,37 @@ public class PurgeProfiler {
     this.clock = clock;
   }
 
+  /**
+   * Starts a new purge in the current thread: its durations are reset. Durations since startup
+   * and durations of the purges executed by other threads are kept.
+   */
   public void reset() {
-    durations.clear();
+    durations.set(new ConcurrentHashMap<>());
   }
 
   void start(String table) {
-    this.startTime = clock.now();
-    this.currentTable = table;
+    currentStart.set(new Start(table, clock.now()));
   }
 
   void stop() {
-    final Long cumulatedDuration;
-    if (durations.containsKey(currentTable)) {
-      cumulatedDuration = durations.get(currentTable);
-    } else {
-      cumulatedDuration = 0L;
-    }
-    durations.put(currentTable, cumulatedDuration + (clock.now() - startTime));
+    Start start = currentStart.get();
+    currentStart.remove();
+    long duration = clock.now() - start.time;
+    durations.get().merge(start.table, duration, Long::sum);
+    durationsSinceStartup.merge(start.table, duration, Long::sum);
+  }
+
+  /**
+   * Cumulated durations in milliseconds by table since startup, sorted by descending duration.
+   */
+  public Map<String, Long> getDurationsSinceStartup() {
+    Map<String, Long> result = new LinkedHashMap<>();
+    sortByDescendingDuration(durationsSinceStartup).forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+    return result;
   }
 
   public void dump(long totalTime, Logger logger) {
-    List<Entry<String, Long>> data = new ArrayList<>(durations.entrySet());
-    Collections.sort(data, (o1, o2) -> o2.getValue().compareTo(o1.getValue()));
+    List<Entry<String, Long>> data = sortByDescendingDuration(durations.get());
     double percent = totalTime / 100.0;
     for (Entry<String, Long> entry : truncateList(data)) {
       StringBuilder sb = new StringBuilder();
@@ -76,6 +99,12 @@ public class PurgeProfiler {
     }
   }
 
+  private static List<Entry<String, Long>> sortByDescendingDuration(Map<String, Long> durationsByTable) {
+    List<Entry<String, Long>> data = new ArrayList<>(durationsByTable.entrySet());
+    Collections.sort(data, (o1, o2) -> o2.getValue().compareTo(o1.getValue()));
+    return data;
+  }
+
   private static List<Entry<String, Long>> truncateList(List<Entry<String, Long>> sortedFullList) {
     int maxSize = 10;
     List<Entry<String, Long>> result = new ArrayList<>(maxSize);
@@ -89,6 +118,16 @@ public class PurgeProfiler {
     return result;
   }
 
+  private static class Start {
+    private final String table;
+    private final long time;
+
+    private Start(String table, long time) {
+      this.table = table;
+      this.time = time;
+    }
+  }
+
   static class Clock {
     public long now() {
       return System.currentTimeMillis();
@@ -0,0 +1,50 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.rule;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+public class RuleCountAndMaxUpdatedAt {
+  private int ruleCount;
+  private Long maxUpdatedAt;
+
+  public int getRuleCount() {
+    return ruleCount;
+  }
+
+  public RuleCountAndMaxUpdatedAt setRuleCount(int ruleCount) {
+    this.ruleCount = ruleCount;
+    return this;
+  }
+
+  /**
+   * Latest update date of rules, {@code null} if there are no rules
+   */
+  @CheckForNull
+  public Long getMaxUpdatedAt() {
+    return maxUpdatedAt;
+  }
+
+  public RuleCountAndMaxUpdatedAt setMaxUpdatedAt(@Nullable Long maxUpdatedAt) {
+    this.maxUpdatedAt = maxUpdatedAt;
+    return this;
+  }
+}
@@ -78,6 +78,16 @@ public class RuleDao implements Dao {
     return mapper(session).selectAll();
   }
 
+  /**
+   * Version of the rules stored in DB. It changes as soon as a rule is inserted or updated (rules are never deleted,
+   * removed rules get the status REMOVED), so it can be used to know if rules loaded before are still up-to-date.
+   */
+  public String selectVersion(DbSession session) {
+    RuleCountAndMaxUpdatedAt countAndMaxUpdatedAt = mapper(session).selectCountAndMaxUpdatedAt();
+    Long maxUpdatedAt = countAndMaxUpdatedAt.getMaxUpdatedAt();
+    return countAndMaxUpdatedAt.getRuleCount() + "-" + (maxUpdatedAt == null ? 0L : maxUpdatedAt);
+  }
+
   public List<RuleDto> selectByQuery(DbSession session, RuleQuery ruleQuery){
     return mapper(session).selectByQuery(ruleQuery);
   }
@@ -33,6 +33,8 @@ public interface RuleMapper {
 
   List<RuleDto> selectEnabled();
 
+  RuleCountAndMaxUpdatedAt selectCountAndMaxUpdatedAt();
+
   void selectEnabled(ResultHandler resultHandler);
 
   RuleDto selectById(long id);
@@ -25,12 +25,19 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import net.jpountz.lz4.LZ4BlockInputStream;
 import net.jpountz.lz4.LZ4BlockOutputStream;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.xxhash.XXHashFactory;
 import org.apache.commons.io.IOUtils;
 import org.sonar.db.protobuf.DbFileSources;
 
@@ -41,6 +48,20 @@ public class FileSourceDto {
   private static final String SIZE_LIMIT_EXCEEDED_EXCEPTION_MESSAGE = "Protocol message was too large.  May be malicious.  " +
     "Use CodedInputStream.setSizeLimit() to increase the size limit.";
 
+  /**
+   * Number of lines per independently compressed chunk of column BINARY_DATA
+   */
+  public static final int LINES_PER_CHUNK = 100;
+
+  private static final int LZ4_BLOCK_SIZE = 1 << 16;
+  private static final int LZ4_SEED = 0x9747b28c;
+  private static final byte[] LZ4_MAGIC = "LZ4Block".getBytes(StandardCharsets.US_ASCII);
+  // magic, token, compressed length, decompressed length and checksum
+  private static final int LZ4_HEADER_LENGTH = LZ4_MAGIC.length + 1 + 4 + 4 + 4;
+  private static final byte[] LZ4_END_MARK = lz4EndMark();
+  // field "chunks" of message Data, length-delimited
+  private static final byte CHUNKS_TAG = (DbFileSources.Data.CHUNKS_FIELD_NUMBER << 3) | 2;
+
   private Long id;
   private String projectUuid;
   private String fileUuid;
@@ -95,7 +116,27 @@ public class FileSourceDto {
 
   public DbFileSources.Data decodeSourceData(byte[] binaryData) {
     try {
-      return decodeRegularSourceData(binaryData);
+      DbFileSources.Data data = decodeRegularSourceData(binaryData);
+      return data.hasChunks() ? data.toBuilder().clearChunks().build() : data;
+    } catch (IOException e) {
+      throw new IllegalStateException(
+        format("Fail to decompress and deserialize source data [id=%s,fileUuid=%s,projectUuid=%s]", id, fileUuid, projectUuid),
+        e);
+    }
+  }
+
+  /**
+   * Decompress and deserialize only the chunks of lines covering the range [{@code from}, {@code toInclusive}].
+   * Data written before chunks were introduced is fully decoded, so callers must still filter lines
+   * on their number.
+   */
+  public DbFileSources.Data decodeSourceData(byte[] binaryData, int from, int toInclusive) {
+    try {
+      DbFileSources.LineChunks chunks = decodeLineChunks(binaryData);
+      if (chunks == null) {
+        return decodeRegularSourceData(binaryData);
+      }
+      return decodeChunks(binaryData, chunks, from, toInclusive);
     } catch (IOException e) {
       throw new IllegalStateException(
         format("Fail to decompress and deserialize source data [id=%s,fileUuid=%s,projectUuid=%s]", id, fileUuid, projectUuid),
@@ -103,6 +144,57 @@ public class FileSourceDto {
     }
   }
 
+  @CheckForNull
+  private static DbFileSources.LineChunks decodeLineChunks(byte[] binaryData) throws IOException {
+    int length = firstBlockLength(binaryData);
+    if (length < 0) {
+      return null;
+    }
+    byte[] firstBlock;
+    try (InputStream input = new LZ4BlockInputStream(new SequenceInputStream(
+      new ByteArrayInputStream(binaryData, 0, length), new ByteArrayInputStream(LZ4_END_MARK)))) {
+      firstBlock = IOUtils.toByteArray(input);
+    }
+    if (firstBlock.length == 0 || firstBlock[0] != CHUNKS_TAG) {
+      return null;
+    }
+    return DbFileSources.Data.parseFrom(firstBlock).getChunks();
+  }
+
+  /**
+   * Length of the first LZ4 block (header included), or -1 if the column does not start with a data block.
+   */
+  private static int firstBlockLength(byte[] binaryData) {
+    if (binaryData.length < LZ4_HEADER_LENGTH) {
+      return -1;
+    }
+    for (int i = 0; i < LZ4_MAGIC.length; i++) {
+      if (binaryData[i] != LZ4_MAGIC[i]) {
+        return -1;
+      }
+    }
+    int compressedLength = ByteBuffer.wrap(binaryData, LZ4_MAGIC.length + 1, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+    if (compressedLength <= 0 || compressedLength > binaryData.length - LZ4_HEADER_LENGTH) {
+      return -1;
+    }
+    return LZ4_HEADER_LENGTH + compressedLength;
+  }
+
+  private static DbFileSources.Data decodeChunks(byte[] binaryData, DbFileSources.LineChunks chunks, int from, int toInclusive) throws IOException {
+    int firstChunk = Math.max(from - 1, 0) / chunks.getLinesPerChunk();
+    if (firstChunk >= chunks.getOffsetCount()) {
+      return DbFileSources.Data.getDefaultInstance();
+    }
+    int lastChunk = Math.min((Math.max(toInclusive, 1) - 1) / chunks.getLinesPerChunk(), chunks.getOffsetCount() - 1);
+    int base = firstBlockLength(binaryData);
+    int start = base + chunks.getOffset(firstChunk);
+    int end = lastChunk + 1 < chunks.getOffsetCount() ? (base + chunks.getOffset(lastChunk + 1)) : binaryData.length;
+    byte[] slice = new byte[end - start + LZ4_END_MARK.length];
+    System.arraycopy(binaryData, start, slice, 0, end - start);
+    System.arraycopy(LZ4_END_MARK, 0, slice, end - start, LZ4_END_MARK.length);
+    return decodeRegularSourceData(slice);
+  }
+
   private static DbFileSources.Data decodeRegularSourceData(byte[] binaryData) throws IOException {
     try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData))) {
       return DbFileSources.Data.parseFrom(lz4Input);
@@ -125,12 +217,64 @@ public class FileSourceDto {
   /**
    * Serialize and compress protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
    * in the column BINARY_DATA.
+   * <p>
+   * Lines are written by chunks of {@link #LINES_PER_CHUNK}, each one starting a new LZ4 block. The offsets
+   * of these blocks are written first, alone in their own block, so that {@link #decodeSourceData(byte[], int, int)}
+   * decompresses only the chunks it needs. The result is still a regular LZ4 stream of the whole message.
+   * </p>
    */
   public static byte[] encodeSourceData(DbFileSources.Data data) {
+    if (!hasSequentialLines(data)) {
+      return encodeUnchunkedSourceData(data);
+    }
+    List<DbFileSources.Line> lines = data.getLinesList();
+    DbFileSources.LineChunks.Builder chunks = DbFileSources.LineChunks.newBuilder().setLinesPerChunk(LINES_PER_CHUNK);
+    ByteArrayOutputStream chunksOutput = new ByteArrayOutputStream();
+    try {
+      try (LZ4BlockOutputStream compressedOutput = newSyncFlushOutput(chunksOutput, LZ4_BLOCK_SIZE)) {
+        DbFileSources.Data.Builder chunk = DbFileSources.Data.newBuilder();
+        for (int start = 0; start < lines.size(); start += LINES_PER_CHUNK) {
+          compressedOutput.flush();
+          chunks.addOffset(chunksOutput.size());
+          chunk.clear().addAllLines(lines.subList(start, Math.min(start + LINES_PER_CHUNK, lines.size()))).build().writeTo(compressedOutput);
+        }
+      }
+
+      DbFileSources.Data index = DbFileSources.Data.newBuilder().setChunks(chunks).build();
+      ByteArrayOutputStream byteOutput = new ByteArrayOutputStream(chunksOutput.size() + index.getSerializedSize() + LZ4_HEADER_LENGTH);
+      // the whole index must fit in the first block. Stream is not closed, as the end mark would hide the chunks.
+      LZ4BlockOutputStream indexOutput = newSyncFlushOutput(byteOutput, Math.max(LZ4_BLOCK_SIZE, index.getSerializedSize()));
+      index.writeTo(indexOutput);
+      indexOutput.flush();
+      chunksOutput.writeTo(byteOutput);
+      return byteOutput.toByteArray();
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to serialize and compress source data", e);
+    }
+  }
+
+  private static boolean hasSequentialLines(DbFileSources.Data data) {
+    if (data.getLinesCount() == 0) {
+      return false;
+    }
+    for (int i = 0; i < data.getLinesCount(); i++) {
+      if (data.getLines(i).getLine() != i + 1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static LZ4BlockOutputStream newSyncFlushOutput(OutputStream output, int blockSize) {
+    return new LZ4BlockOutputStream(output, blockSize, LZ4Factory.fastestInstance().fastCompressor(),
+      XXHashFactory.fastestInstance().newStreamingHash32(LZ4_SEED).asChecksum(), true);
+  }
+
+  private static byte[] encodeUnchunkedSourceData(DbFileSources.Data data) {
     ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
     LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput);
     try {
-      data.writeTo(compressedOutput);
+      data.toBuilder().clearChunks().build().writeTo(compressedOutput);
       compressedOutput.close();
       return byteOutput.toByteArray();
     } catch (IOException e) {
@@ -212,6 +356,14 @@ public class FileSourceDto {
     return decodeSourceData(binaryData);
   }
 
+  /**
+   * Lines of the range [{@code from}, {@code toInclusive}], possibly with some lines around it.
+   * @see #decodeSourceData(byte[], int, int)
+   */
+  public DbFileSources.Data getSourceData(int from, int toInclusive) {
+    return decodeSourceData(binaryData, from, toInclusive);
+  }
+
   public FileSourceDto setSourceData(DbFileSources.Data data) {
     this.dataType = Type.SOURCE;
     this.binaryData = encodeSourceData(data);
@@ -290,6 +442,16 @@ public class FileSourceDto {
     return this;
   }
 
+  private static byte[] lz4EndMark() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try {
+      new LZ4BlockOutputStream(output).close();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return output.toByteArray();
+  }
+
   public static class Type {
     public static final String SOURCE = "SOURCE";
     public static final String TEST = "TEST";
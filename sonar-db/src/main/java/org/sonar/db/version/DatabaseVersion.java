@@ -30,7 +30,7 @@ import org.sonar.db.MyBatis;
 
 public class DatabaseVersion {
 
-  public static final int LAST_VERSION = 1_419;
+  public static final int LAST_VERSION = 1_426;
 
   /**
    * The minimum supported version which can be upgraded. Lower
@@ -92,6 +92,7 @@ public class DatabaseVersion {
     "project_links",
     "project_measures",
     "project_qprofiles",
+    "project_repositories",
     "properties",
     "qprofile_changes",
     "resource_index",
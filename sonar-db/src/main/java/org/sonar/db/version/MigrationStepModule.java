@@ -160,23 +160,30 @@ import org.sonar.db.version.v61.PopulateTableProperties2;
 import org.sonar.db.version.v61.RemoveViewsDefinitionFromProperties;
 import org.sonar.db.version.v61.ShrinkModuleUuidPathOfProjects;
 import org.sonar.db.version.v62.AddIsRootColumnOnTableUsers;
+import org.sonar.db.version.v62.AddCreatedAtColumnToNotifications;
 import org.sonar.db.version.v62.AddOrganizationUuidToGroupRoles;
 import org.sonar.db.version.v62.AddOrganizationUuidToGroups;
 import org.sonar.db.version.v62.AddOrganizationUuidToPermissionTemplates;
 import org.sonar.db.version.v62.AddOrganizationUuidToUserRoles;
+import org.sonar.db.version.v62.AddPriorityColumnToCeQueue;
+import org.sonar.db.version.v62.AddDefinitionHashColumnToRuleRepositories;
+import org.sonar.db.version.v62.AddStepMetricsColumnToCeActivity;
 import org.sonar.db.version.v62.CreateDefaultOrganization;
 import org.sonar.db.version.v62.CreateTableOrganizations;
+import org.sonar.db.version.v62.CreateTableProjectRepositories;
 import org.sonar.db.version.v62.DeletePermissionShareDashboard;
 import org.sonar.db.version.v62.MakeOrganizationUuidNotNullOnGroupRoles;
 import org.sonar.db.version.v62.MakeOrganizationUuidNotNullOnGroups;
 import org.sonar.db.version.v62.MakeOrganizationUuidNotNullOnPermissionTemplates;
 import org.sonar.db.version.v62.MakeOrganizationUuidNotNullOnUserRoles;
+import org.sonar.db.version.v62.MakePriorityNotNullOnCeQueue;
 import org.sonar.db.version.v62.MakeRootColumnNotNullOnTableUsers;
 import org.sonar.db.version.v62.PopulateIsRootColumnOnTableUsers;
 import org.sonar.db.version.v62.PopulateOrganizationUuidOfGroupRoles;
 import org.sonar.db.version.v62.PopulateOrganizationUuidOfGroups;
 import org.sonar.db.version.v62.PopulateOrganizationUuidOfPermissionTemplates;
 import org.sonar.db.version.v62.PopulateOrganizationUuidOfUserRoles;
+import org.sonar.db.version.v62.PopulatePriorityOfCeQueue;
 import org.sonar.db.version.v62.UpdateQualityGateConditionsOnCoverage;
 
 public class MigrationStepModule extends Module {
@@ -376,6 +383,13 @@ public class MigrationStepModule extends Module {
       AddOrganizationUuidToGroupRoles.class,
       PopulateOrganizationUuidOfGroupRoles.class,
       MakeOrganizationUuidNotNullOnGroupRoles.class,
-      UpdateQualityGateConditionsOnCoverage.class);
+      UpdateQualityGateConditionsOnCoverage.class,
+      AddStepMetricsColumnToCeActivity.class,
+      CreateTableProjectRepositories.class,
+      AddDefinitionHashColumnToRuleRepositories.class,
+      AddPriorityColumnToCeQueue.class,
+      PopulatePriorityOfCeQueue.class,
+      MakePriorityNotNullOnCeQueue.class,
+      AddCreatedAtColumnToNotifications.class);
   }
 }
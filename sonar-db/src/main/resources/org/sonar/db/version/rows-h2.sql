@@ -508,6 +508,13 @@ INSERT INTO SCHEMA_MIGRATIONS(VERSION) VALUES ('1416');
 INSERT INTO SCHEMA_MIGRATIONS(VERSION) VALUES ('1417');
 INSERT INTO SCHEMA_MIGRATIONS(VERSION) VALUES ('1418');
 INSERT INTO SCHEMA_MIGRATIONS(VERSION) VALUES ('1419');
+INSERT INTO SCHEMA_MIGRATIONS(VERSION) VALUES ('1420');
+INSERT INTO SCHEMA_MIGRATIONS(VERSION) VALUES ('1421');
+INSERT INTO SCHEMA_MIGRATIONS(VERSION) VALUES ('1422');
+INSERT INTO SCHEMA_MIGRATIONS(VERSION) VALUES ('1423');
+INSERT INTO SCHEMA_MIGRATIONS(VERSION) VALUES ('1424');
+INSERT INTO SCHEMA_MIGRATIONS(VERSION) VALUES ('1425');
+INSERT INTO SCHEMA_MIGRATIONS(VERSION) VALUES ('1426');
 
 INSERT INTO USERS(ID, LOGIN, NAME, EMAIL, EXTERNAL_IDENTITY, EXTERNAL_IDENTITY_PROVIDER, USER_LOCAL, CRYPTED_PASSWORD, SALT, IS_ROOT, CREATED_AT, UPDATED_AT) VALUES (1, 'admin', 'Administrator', '', 'admin', 'sonarqube', true, 'a373a0e667abb2604c1fd571eb4ad47fe8cc0878', '48bc4b0d93179b5103fd3885ea9119498e9d161b', true, '1418215735482', '1418215735482');
 ALTER TABLE USERS ALTER COLUMN ID RESTART WITH 2;
@@ -0,0 +1,128 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import com.google.common.base.Strings;
+import java.sql.Types;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.utils.System2;
+import org.sonar.db.dialect.Dialect;
+import org.sonar.db.dialect.H2;
+import org.sonar.db.dialect.Oracle;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.db.BulkInsert.column;
+
+public class BulkInsertTest {
+
+  // "insert into issue_changes (issue_key,change_data,created_at) values " and two rows of a single char key
+  private static final long STATEMENT_OF_TWO_ROWS_BYTES = 68L + 2 * 96L;
+
+  private static final List<BulkInsert.Column<String>> COLUMNS = asList(
+    column("issue_key", Types.VARCHAR, s -> s),
+    column("change_data", Types.VARCHAR, s -> s.isEmpty() ? null : "data of " + s),
+    column("created_at", Types.BIGINT, s -> (long) s.length()));
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private DbSession dbSession = db.getSession();
+
+  @Test
+  public void insert_rows_with_multi_row_values() {
+    BulkInsert<String> underTest = new BulkInsert<>(dbSession, new H2(), "issue_changes", COLUMNS);
+    underTest.add("A");
+    underTest.add("BB");
+    underTest.add("");
+
+    // rows are buffered
+    assertThat(underTest.getCount()).isZero();
+    assertThat(db.countRowsOfTable(dbSession, "issue_changes")).isZero();
+
+    underTest.close();
+    assertThat(underTest.getCount()).isEqualTo(3);
+    assertThat(db.select(dbSession, "select issue_key as \"key\", change_data as \"data\", created_at as \"createdAt\" from issue_changes"))
+      .extracting(row -> row.get("key"), row -> row.get("data"), row -> row.get("createdAt"))
+      .containsOnly(
+        tuple("A", "data of A", 1L),
+        tuple("BB", "data of BB", 2L),
+        tuple("", null, 0L));
+  }
+
+  @Test
+  public void insert_rows_with_jdbc_batch_on_oracle() {
+    Dialect oracle = mock(Dialect.class);
+    when(oracle.getId()).thenReturn(Oracle.ID);
+
+    BulkInsert<String> underTest = new BulkInsert<>(dbSession, oracle, "issue_changes", COLUMNS);
+    underTest.add("A");
+    underTest.add("B");
+    underTest.close();
+
+    assertThat(underTest.getCount()).isEqualTo(2);
+    assertThat(db.countRowsOfTable(dbSession, "issue_changes")).isEqualTo(2);
+  }
+
+  @Test
+  public void flush_when_buffer_reaches_max_size_in_bytes() {
+    BulkInsert<String> underTest = new BulkInsert<>(dbSession, new H2(), "issue_changes", COLUMNS, STATEMENT_OF_TWO_ROWS_BYTES);
+    underTest.add("A");
+    assertThat(underTest.getCount()).isZero();
+
+    underTest.add("B");
+    assertThat(underTest.getCount()).isEqualTo(2);
+    assertThat(db.countRowsOfTable(dbSession, "issue_changes")).isEqualTo(2);
+  }
+
+  @Test
+  public void flush_buffered_rows_before_adding_row_bigger_than_remaining_bytes() {
+    BulkInsert<String> underTest = new BulkInsert<>(dbSession, new H2(), "issue_changes", COLUMNS, STATEMENT_OF_TWO_ROWS_BYTES);
+    underTest.add("A");
+
+    // row fits alone in a statement, but not with the buffered one
+    underTest.add("CCCCC");
+    assertThat(underTest.getCount()).isEqualTo(1);
+
+    // row bigger than the max size is sent alone
+    underTest.add(Strings.repeat("D", 20));
+    assertThat(underTest.getCount()).isEqualTo(3);
+    assertThat(db.countRowsOfTable(dbSession, "issue_changes")).isEqualTo(3);
+  }
+
+  @Test
+  public void fail_if_dialect_is_not_supported() {
+    Dialect dialect = mock(Dialect.class);
+    when(dialect.getId()).thenReturn("foo");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Unsupported dialect: foo");
+
+    new BulkInsert<>(dbSession, dialect, "issue_changes", COLUMNS);
+  }
+}
@@ -120,6 +120,15 @@ public class CeActivityDaoTest {
     assertThat(read.getErrorStacktrace()).isNull();
   }
 
+  @Test
+  public void test_insert_step_metrics() {
+    CeActivityDto dto = createActivityDto("TASK_1", REPORT, "PROJECT_1", SUCCESS)
+      .setStepMetrics("10;8;1024;3;12;Load report");
+    underTest.insert(db.getSession(), dto);
+
+    assertThat(underTest.selectByUuid(db.getSession(), "TASK_1").get().getStepMetrics()).isEqualTo("10;8;1024;3;12;Load report");
+  }
+
   @Test
   public void insert_must_set_relevant_is_last_field() {
     // only a single task on PROJECT_1 -> is_last=true
@@ -142,6 +151,11 @@ public class CeActivityDaoTest {
     assertThat(underTest.selectByUuid(db.getSession(), "TASK_2").get().getIsLast()).isTrue();
     assertThat(underTest.selectByUuid(db.getSession(), "TASK_3").get().getIsLast()).isTrue();
     assertThat(underTest.selectByUuid(db.getSession(), "TASK_4").get().getIsLast()).isFalse();
+
+    // inserting a superseded task does not change the last task
+    insert("TASK_5", REPORT, "PROJECT_1", CeActivityDto.Status.SUPERSEDED);
+    assertThat(underTest.selectByUuid(db.getSession(), "TASK_3").get().getIsLast()).isTrue();
+    assertThat(underTest.selectByUuid(db.getSession(), "TASK_5").get().getIsLast()).isFalse();
   }
 
   @Test
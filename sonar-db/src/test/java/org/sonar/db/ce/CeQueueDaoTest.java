@@ -36,6 +36,9 @@ import static com.google.common.collect.FluentIterable.from;
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.sonar.db.ce.CeQueueDto.Priority.HIGH;
+import static org.sonar.db.ce.CeQueueDto.Priority.NORMAL;
 import static org.sonar.db.ce.CeQueueDto.Status.IN_PROGRESS;
 import static org.sonar.db.ce.CeQueueDto.Status.PENDING;
 import static org.sonar.db.ce.CeQueueTesting.newCeQueueDto;
@@ -125,16 +128,16 @@ public class CeQueueDaoTest {
   }
 
   @Test
-  public void peek_none_if_no_pendings() throws Exception {
-    assertThat(underTest.peek(db.getSession()).isPresent()).isFalse();
+  public void select_none_eligible_for_peek_if_no_pendings() throws Exception {
+    assertThat(underTest.selectEligibleForPeek(db.getSession(), NORMAL, 10)).isEmpty();
 
     // not pending, but in progress
     insert(TASK_UUID_1, COMPONENT_UUID_1, IN_PROGRESS);
-    assertThat(underTest.peek(db.getSession()).isPresent()).isFalse();
+    assertThat(underTest.selectEligibleForPeek(db.getSession(), NORMAL, 10)).isEmpty();
   }
 
   @Test
-  public void peek_oldest_pending() throws Exception {
+  public void peek_pending_task() throws Exception {
     insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
     system2.setNow(INIT_TIME + 3_000_000);
     insert(TASK_UUID_2, COMPONENT_UUID_2, PENDING);
@@ -142,44 +145,74 @@ public class CeQueueDaoTest {
     assertThat(db.countRowsOfTable("ce_queue")).isEqualTo(2);
     verifyCeQueueStatuses(TASK_UUID_1, PENDING, TASK_UUID_2, PENDING);
 
-    // peek first one
-    Optional<CeQueueDto> peek = underTest.peek(db.getSession());
+    Optional<CeQueueDto> peek = underTest.peek(db.getSession(), TASK_UUID_1);
     assertThat(peek.isPresent()).isTrue();
     assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_1);
     assertThat(peek.get().getStatus()).isEqualTo(IN_PROGRESS);
     verifyCeQueueStatuses(TASK_UUID_1, IN_PROGRESS, TASK_UUID_2, PENDING);
 
-    // peek second one
-    peek = underTest.peek(db.getSession());
-    assertThat(peek.isPresent()).isTrue();
-    assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_2);
-    assertThat(peek.get().getStatus()).isEqualTo(IN_PROGRESS);
-    verifyCeQueueStatuses(TASK_UUID_1, IN_PROGRESS, TASK_UUID_2, IN_PROGRESS);
-
-    // no more pendings
-    assertThat(underTest.peek(db.getSession()).isPresent()).isFalse();
+    // task is not pending anymore
+    assertThat(underTest.peek(db.getSession(), TASK_UUID_1).isPresent()).isFalse();
+    assertThat(underTest.peek(db.getSession(), "UNKNOWN").isPresent()).isFalse();
   }
 
   @Test
-  public void do_not_peek_multiple_tasks_on_same_project_at_the_same_time() throws Exception {
+  public void do_not_select_eligible_for_peek_tasks_of_project_with_task_in_progress() throws Exception {
     // two pending tasks on the same project
     insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
     system2.setNow(INIT_TIME + 3_000_000);
     insert(TASK_UUID_2, COMPONENT_UUID_1, PENDING);
 
-    Optional<CeQueueDto> peek = underTest.peek(db.getSession());
-    assertThat(peek.isPresent()).isTrue();
-    assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_1);
-    verifyCeQueueStatuses(TASK_UUID_1, IN_PROGRESS, TASK_UUID_2, PENDING);
+    assertThat(underTest.peek(db.getSession(), TASK_UUID_1).isPresent()).isTrue();
 
     // do not peek second task as long as the first one is in progress
-    peek = underTest.peek(db.getSession());
-    assertThat(peek.isPresent()).isFalse();
+    assertThat(underTest.selectEligibleForPeek(db.getSession(), NORMAL, 10)).isEmpty();
 
     // first one is finished
     underTest.deleteByUuid(db.getSession(), TASK_UUID_1);
-    peek = underTest.peek(db.getSession());
-    assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_2);
+    assertThat(underTest.selectEligibleForPeek(db.getSession(), NORMAL, 10)).extracting(CeQueueDto::getUuid).containsExactly(TASK_UUID_2);
+  }
+
+  @Test
+  public void select_eligible_for_peek_by_priority_and_peek_by_uuid() throws Exception {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 3_000_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 4_000_000);
+    insert(TASK_UUID_3, COMPONENT_UUID_2, PENDING);
+    system2.setNow(INIT_TIME + 5_000_000);
+    insert(newCeQueueDto("TASK_4").setComponentUuid("PROJECT_3").setStatus(PENDING).setPriority(HIGH)
+      .setCreatedAt(INIT_TIME + 5_000_000).setUpdatedAt(INIT_TIME + 5_000_000));
+
+    assertThat(underTest.selectEligibleForPeek(db.getSession(), NORMAL, 10)).extracting(CeQueueDto::getUuid).containsExactly(TASK_UUID_1, TASK_UUID_2, TASK_UUID_3);
+    assertThat(underTest.selectEligibleForPeek(db.getSession(), NORMAL, 1)).extracting(CeQueueDto::getUuid).containsExactly(TASK_UUID_1);
+    assertThat(underTest.selectEligibleForPeek(db.getSession(), HIGH, 10)).extracting(CeQueueDto::getUuid).containsExactly("TASK_4");
+
+    // the newest task can overtake older ones
+    Optional<CeQueueDto> peek = underTest.peek(db.getSession(), TASK_UUID_3);
+    assertThat(peek.get().getStatus()).isEqualTo(IN_PROGRESS);
+    assertThat(underTest.peek(db.getSession(), TASK_UUID_3).isPresent()).isFalse();
+    assertThat(underTest.selectEligibleForPeek(db.getSession(), NORMAL, 10)).extracting(CeQueueDto::getUuid).containsExactly(TASK_UUID_1, TASK_UUID_2);
+  }
+
+  @Test
+  public void select_pending_lanes() throws Exception {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, IN_PROGRESS);
+    system2.setNow(INIT_TIME + 3_000_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 4_000_000);
+    insert(TASK_UUID_3, COMPONENT_UUID_2, PENDING);
+    system2.setNow(INIT_TIME + 5_000_000);
+    insert(newCeQueueDto("TASK_4").setComponentUuid(COMPONENT_UUID_2).setStatus(PENDING).setPriority(HIGH)
+      .setCreatedAt(INIT_TIME + 5_000_000).setUpdatedAt(INIT_TIME + 5_000_000));
+
+    List<CeQueueLaneDto> lanes = underTest.selectPendingLanes(db.getSession(), null);
+    assertThat(lanes).extracting(CeQueueLaneDto::getPriority, CeQueueLaneDto::getPendingCount, CeQueueLaneDto::getOldestCreatedAt)
+      .containsOnly(tuple(NORMAL, 2, INIT_TIME + 3_000_000), tuple(HIGH, 1, INIT_TIME + 5_000_000));
+
+    lanes = underTest.selectPendingLanes(db.getSession(), COMPONENT_UUID_1);
+    assertThat(lanes).extracting(CeQueueLaneDto::getPriority, CeQueueLaneDto::getPendingCount)
+      .containsOnly(tuple(NORMAL, 1));
   }
 
   @Test
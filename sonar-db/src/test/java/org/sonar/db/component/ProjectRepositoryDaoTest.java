@@ -0,0 +1,117 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.protobuf.DbProjectRepositories.File;
+import org.sonar.db.protobuf.DbProjectRepositories.ModuleFiles;
+import org.sonar.db.protobuf.DbProjectRepositories.ProjectRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ProjectRepositoryDaoTest {
+
+  private System2 system2 = mock(System2.class);
+
+  @Rule
+  public DbTester db = DbTester.create(system2);
+
+  private DbSession dbSession = db.getSession();
+  private ProjectRepositoryDao underTest = db.getDbClient().projectRepositoryDao();
+
+  @Test
+  public void select_returns_empty_if_project_has_no_repository() {
+    assertThat(underTest.selectByProjectUuid(dbSession, "P1")).isEmpty();
+  }
+
+  @Test
+  public void insert_repository() {
+    when(system2.now()).thenReturn(1_000L);
+
+    underTest.insertOrUpdate(dbSession, "P1", newRepository("M1", "src/Foo.java", "h1", "r1"));
+    dbSession.commit();
+
+    ProjectRepository repository = underTest.selectByProjectUuid(dbSession, "P1").get();
+    assertThat(repository.getFormatVersion()).isEqualTo(ProjectRepositoryDao.FORMAT_VERSION);
+    assertThat(repository.getModuleCount()).isEqualTo(1);
+    ModuleFiles module = repository.getModule(0);
+    assertThat(module.getModuleUuid()).isEqualTo("M1");
+    assertThat(module.getFile(0).getPath()).isEqualTo("src/Foo.java");
+    assertThat(module.getFile(0).getSrcHash()).isEqualTo("h1");
+    assertThat(module.getFile(0).getRevision()).isEqualTo("r1");
+    assertThat(underTest.selectByProjectUuid(dbSession, "P2")).isEmpty();
+
+    Map<String, Object> row = db.selectFirst("select created_at as \"createdAt\", updated_at as \"updatedAt\" from project_repositories");
+    assertThat(row.get("createdAt")).isEqualTo(1_000L);
+    assertThat(row.get("updatedAt")).isEqualTo(1_000L);
+  }
+
+  @Test
+  public void update_existing_repository() {
+    when(system2.now()).thenReturn(1_000L, 2_000L);
+    underTest.insertOrUpdate(dbSession, "P1", newRepository("M1", "src/Foo.java", "h1", "r1"));
+
+    underTest.insertOrUpdate(dbSession, "P1", newRepository("M1", "src/Foo.java", "h2", "r2"));
+    dbSession.commit();
+
+    assertThat(db.countRowsOfTable("project_repositories")).isEqualTo(1);
+    assertThat(underTest.selectByProjectUuid(dbSession, "P1").get().getModule(0).getFile(0).getSrcHash()).isEqualTo("h2");
+    Map<String, Object> row = db.selectFirst("select created_at as \"createdAt\", updated_at as \"updatedAt\" from project_repositories");
+    assertThat(row.get("createdAt")).isEqualTo(1_000L);
+    assertThat(row.get("updatedAt")).isEqualTo(2_000L);
+  }
+
+  @Test
+  public void repository_written_with_another_format_version_is_ignored() throws IOException {
+    ProjectRepository obsolete = newRepository("M1", "src/Foo.java", "h1", "r1").toBuilder()
+      .setFormatVersion(ProjectRepositoryDao.FORMAT_VERSION - 1)
+      .build();
+    dbSession.getMapper(ProjectRepositoryMapper.class).insert("P1", encode(obsolete), 1_000L);
+    dbSession.commit();
+
+    assertThat(underTest.selectByProjectUuid(dbSession, "P1")).isEmpty();
+  }
+
+  private static ProjectRepository newRepository(String moduleUuid, String path, String srcHash, String revision) {
+    return ProjectRepository.newBuilder()
+      .addModule(ModuleFiles.newBuilder()
+        .setModuleUuid(moduleUuid)
+        .addFile(File.newBuilder().setPath(path).setSrcHash(srcHash).setRevision(revision)))
+      .build();
+  }
+
+  private static byte[] encode(ProjectRepository repository) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(output)) {
+      repository.writeTo(compressedOutput);
+    }
+    return output.toByteArray();
+  }
+}
@@ -25,10 +25,13 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.System2;
+import org.sonar.db.BulkInsert;
+import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.RowNotFoundException;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.dialect.H2;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleTesting;
 
@@ -119,6 +122,55 @@ public class IssueDaoTest {
     assertThat(issues).extracting("key").containsExactly("I2", "I1");
   }
 
+  @Test
+  public void bulk_insert_issues() {
+    dbTester.getDbClient().ruleDao().insert(dbTester.getSession(), RULE);
+    dbTester.getDbClient().componentDao().insert(dbTester.getSession(), PROJECT, FILE);
+    dbTester.getSession().commit();
+
+    try (BulkInsert<IssueDto> bulkInsert = underTest.newBulkInsert(dbTester.getSession(), new H2())) {
+      bulkInsert.add(newIssueDto(ISSUE_KEY1)
+        .setManualSeverity(true)
+        .setRuleId(RULE.getId())
+        .setComponentUuid(FILE.uuid())
+        .setProjectUuid(PROJECT.uuid()));
+      bulkInsert.add(newIssueDto(ISSUE_KEY2)
+        .setRuleId(RULE.getId())
+        .setComponentUuid(FILE.uuid())
+        .setProjectUuid(PROJECT.uuid()));
+    }
+    dbTester.getSession().commit(true);
+
+    IssueDto issue = underTest.selectOrFailByKey(dbTester.getSession(), ISSUE_KEY1);
+    assertThat(issue.getComponentUuid()).isEqualTo(FILE.uuid());
+    assertThat(issue.getRuleId()).isEqualTo(RULE.getId());
+    assertThat(issue.isManualSeverity()).isTrue();
+    assertThat(issue.getMessage()).isEqualTo("the message");
+    assertThat(issue.getEffort()).isEqualTo(10L);
+    assertThat(issue.getGap()).isEqualTo(3.14);
+    assertThat(issue.getIssueCloseTime()).isEqualTo(1_450_000_000_000L);
+    assertThat(issue.getCreatedAt()).isEqualTo(1_440_000_000_000L);
+    assertThat(issue.getType()).isEqualTo(2);
+    assertThat(issue.getLocations()).isNull();
+    assertThat(underTest.selectOrFailByKey(dbTester.getSession(), ISSUE_KEY2).isManualSeverity()).isFalse();
+  }
+
+  @Test
+  public void updateIfBeforeSelectedDate_returns_keys_of_issues_changed_concurrently() {
+    prepareTables();
+
+    try (DbSession batchSession = dbTester.getDbClient().openSession(true)) {
+      List<String> conflictingKeys = underTest.updateIfBeforeSelectedDate(batchSession, asList(
+        newIssueDto(ISSUE_KEY1).setComponentUuid(FILE.uuid()).setProjectUuid(PROJECT.uuid()).setStatus("CLOSED").setSelectedAt(1_440_000_000_000L).setUpdatedAt(1_500_000_000_000L),
+        newIssueDto(ISSUE_KEY2).setComponentUuid(FILE.uuid()).setProjectUuid(PROJECT.uuid()).setStatus("CLOSED").setSelectedAt(1_430_000_000_000L).setUpdatedAt(1_500_000_000_000L)));
+      batchSession.commit();
+
+      assertThat(conflictingKeys).containsOnly(ISSUE_KEY2);
+    }
+    assertThat(underTest.selectOrFailByKey(dbTester.getSession(), ISSUE_KEY1).getStatus()).isEqualTo("CLOSED");
+    assertThat(underTest.selectOrFailByKey(dbTester.getSession(), ISSUE_KEY2).getStatus()).isEqualTo("RESOLVED");
+  }
+
   private static IssueDto newIssueDto(String key) {
     IssueDto dto = new IssueDto();
     dto.setComponent(new ComponentDto().setKey("struts:Action").setId(123L).setUuid("component-uuid"));
@@ -24,6 +24,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import javax.annotation.Nullable;
+import org.apache.commons.lang.StringUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -31,15 +32,18 @@ import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.resources.Scopes;
 import org.sonar.api.utils.System2;
 import org.sonar.core.util.UuidFactoryImpl;
+import org.sonar.db.BulkInsert;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
 import org.sonar.db.component.SnapshotTesting;
+import org.sonar.db.dialect.H2;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.db.component.ComponentTesting.newDeveloper;
 import static org.sonar.db.component.ComponentTesting.newFileDto;
 
@@ -103,6 +107,46 @@ public class MeasureDaoTest {
     assertThat(selected.getAlertText()).isEqualTo(inserted.getAlertText());
   }
 
+  @Test
+  public void bulk_insert_measures() {
+    ComponentDto project = db.components().insertProject();
+    insertAnalysis(LAST_ANALYSIS_UUID, project.uuid(), true);
+    String largeData = StringUtils.repeat("x", 5_000);
+
+    try (BulkInsert<MeasureDto> bulkInsert = underTest.newBulkInsert(db.getSession(), new H2())) {
+      bulkInsert.add(new MeasureDto()
+        .setAnalysisUuid(LAST_ANALYSIS_UUID)
+        .setComponentUuid(project.uuid())
+        .setMetricId(NCLOC_METRIC_ID)
+        .setValue(5.0d)
+        .setVariation(1, 1.0d)
+        .setVariation(5, 5.0d)
+        .setAlertStatus("alert")
+        .setAlertText("alert-text")
+        .setData("data"));
+      bulkInsert.add(new MeasureDto()
+        .setAnalysisUuid(LAST_ANALYSIS_UUID)
+        .setComponentUuid(project.uuid())
+        .setMetricId(COVERAGE_METRIC_ID)
+        .setDeveloperId(A_PERSON_ID)
+        .setData(largeData));
+    }
+    db.getSession().commit(true);
+
+    MeasureDto ncloc = selectSingle(MeasureQuery.builder().setComponentUuid(project.uuid()).setMetricId(NCLOC_METRIC_ID)).get();
+    assertThat(ncloc.getValue()).isEqualTo(5.0d);
+    assertThat(ncloc.getVariation(1)).isEqualTo(1.0d);
+    assertThat(ncloc.getVariation(2)).isNull();
+    assertThat(ncloc.getVariation(5)).isEqualTo(5.0d);
+    assertThat(ncloc.getAlertStatus()).isEqualTo("alert");
+    assertThat(ncloc.getAlertText()).isEqualTo("alert-text");
+    assertThat(ncloc.getData()).isEqualTo("data");
+    assertThat(ncloc.getDeveloperId()).isNull();
+    MeasureDto coverage = selectSingle(MeasureQuery.builder().setComponentUuid(project.uuid()).setMetricId(COVERAGE_METRIC_ID).setPersonId(A_PERSON_ID)).get();
+    assertThat(coverage.getValue()).isNull();
+    assertThat(coverage.getData()).isEqualTo(largeData);
+  }
+
   @Test
   public void selectByQuery() {
     ComponentDto project1 = db.components().insertProject();
@@ -355,6 +399,42 @@ public class MeasureDaoTest {
       .containsOnly("M11", "M54");
   }
 
+  @Test
+  public void selectNonFilePastMeasures() {
+    ComponentDto project = db.components().insertProject();
+    ComponentDto dir = db.components().insertComponent(ComponentTesting.newDirectory(project, "src"));
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    insertAnalysis(LAST_ANALYSIS_UUID, project.uuid(), true);
+    insertAnalysis(OTHER_ANALYSIS_UUID, project.uuid(), false);
+    insertMeasure("M1", OTHER_ANALYSIS_UUID, project.uuid(), NCLOC_METRIC_ID);
+    insertMeasure("M2", OTHER_ANALYSIS_UUID, dir.uuid(), NCLOC_METRIC_ID);
+    insertMeasure("M3", OTHER_ANALYSIS_UUID, dir.uuid(), COVERAGE_METRIC_ID);
+    // measure on file
+    insertMeasure("M4", OTHER_ANALYSIS_UUID, file.uuid(), NCLOC_METRIC_ID);
+    // measure of other metric
+    insertMeasure("M5", OTHER_ANALYSIS_UUID, project.uuid(), COMPLEXITY_METRIC_ID);
+    // measure of other analysis
+    insertMeasure("M6", LAST_ANALYSIS_UUID, project.uuid(), COVERAGE_METRIC_ID);
+    // measure of developer
+    insertMeasureOnPerson("M7", OTHER_ANALYSIS_UUID, project.uuid(), COVERAGE_METRIC_ID, A_PERSON_ID);
+    // measure without value
+    db.getDbClient().measureDao().insert(db.getSession(), MeasureTesting.newMeasure()
+      .setAnalysisUuid(OTHER_ANALYSIS_UUID).setComponentUuid(project.uuid()).setMetricId(COVERAGE_METRIC_ID).setValue(null));
+    db.commit();
+
+    List<PastMeasureDto> measures = new ArrayList<>();
+    underTest.selectNonFilePastMeasures(db.getSession(), OTHER_ANALYSIS_UUID, asList(NCLOC_METRIC_ID, COVERAGE_METRIC_ID),
+      resultContext -> measures.add((PastMeasureDto) resultContext.getResultObject()));
+
+    assertThat(measures)
+      .extracting(PastMeasureDto::getComponentUuid, PastMeasureDto::getMetricId)
+      .containsOnly(
+        tuple(project.uuid(), NCLOC_METRIC_ID),
+        tuple(dir.uuid(), NCLOC_METRIC_ID),
+        tuple(dir.uuid(), COVERAGE_METRIC_ID));
+    assertThat(measures).extracting(PastMeasureDto::hasValue).containsOnly(true);
+  }
+
   private Optional<MeasureDto> selectSingle(MeasureQuery.Builder query) {
     return underTest.selectSingle(db.getSession(), query.build());
   }
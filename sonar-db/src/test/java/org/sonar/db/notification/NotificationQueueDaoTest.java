@@ -28,11 +28,15 @@ import org.sonar.api.utils.System2;
 import org.sonar.db.DbTester;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class NotificationQueueDaoTest {
 
+  private System2 system2 = mock(System2.class);
+
   @Rule
-  public DbTester db = DbTester.create(System2.INSTANCE);
+  public DbTester db = DbTester.create(system2);
 
   NotificationQueueDao dao = db.getDbClient().notificationQueueDao();
 
@@ -46,6 +50,15 @@ public class NotificationQueueDaoTest {
     assertThat(dao.selectOldest(1).get(0).toNotification().getType()).isEqualTo("email");
   }
 
+  @Test
+  public void insert_sets_date_of_insertion_in_queue() {
+    when(system2.now()).thenReturn(1_500_000_000_000L);
+
+    dao.insert(Arrays.asList(NotificationQueueDto.toNotificationQueueDto(new Notification("email"))));
+
+    assertThat(dao.selectOldest(1).get(0).getCreatedAt()).isEqualTo(1_500_000_000_000L);
+  }
+
   @Test
   public void should_count_notification_queue() {
     NotificationQueueDto notificationQueueDto = NotificationQueueDto.toNotificationQueueDto(new Notification("email"));
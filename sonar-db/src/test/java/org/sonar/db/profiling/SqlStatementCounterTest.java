@@ -0,0 +1,84 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbTester;
+import org.sonar.db.ce.CeQueueDto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SqlStatementCounterTest {
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  @Test
+  public void count_statements_and_rows_of_current_thread() {
+    insertQueue("TASK_1");
+    insertQueue("TASK_2");
+
+    SqlStatementCounter.Counts before = SqlStatementCounter.current();
+    db.getDbClient().ceQueueDao().selectAllInAscOrder(db.getSession());
+    db.getDbClient().ceQueueDao().selectByUuid(db.getSession(), "TASK_1");
+    SqlStatementCounter.Counts after = SqlStatementCounter.current();
+
+    assertThat(after.getStatements() - before.getStatements()).isEqualTo(2);
+    assertThat(after.getRows() - before.getRows()).isEqualTo(3);
+  }
+
+  @Test
+  public void count_rows_sent_to_result_handler() {
+    insertQueue("TASK_1");
+    insertQueue("TASK_2");
+    List<Object> handled = new ArrayList<>();
+
+    SqlStatementCounter.Counts before = SqlStatementCounter.current();
+    db.getSession().select("org.sonar.db.ce.CeQueueMapper.selectAllInAscOrder", context -> handled.add(context.getResultObject()));
+    SqlStatementCounter.Counts after = SqlStatementCounter.current();
+
+    assertThat(handled).hasSize(2);
+    assertThat(after.getStatements() - before.getStatements()).isEqualTo(1);
+    assertThat(after.getRows() - before.getRows()).isEqualTo(2);
+  }
+
+  @Test
+  public void counts_are_isolated_per_thread() throws InterruptedException {
+    SqlStatementCounter.Counts before = SqlStatementCounter.current();
+    Thread thread = new Thread(() -> db.getDbClient().ceQueueDao().selectAllInAscOrder(db.getSession()));
+    thread.start();
+    thread.join();
+
+    assertThat(SqlStatementCounter.current().getStatements()).isEqualTo(before.getStatements());
+  }
+
+  private void insertQueue(String uuid) {
+    CeQueueDto dto = new CeQueueDto();
+    dto.setUuid(uuid);
+    dto.setTaskType("REPORT");
+    dto.setStatus(CeQueueDto.Status.PENDING);
+    db.getDbClient().ceQueueDao().insert(db.getSession(), dto);
+    db.commit();
+  }
+}
@@ -47,6 +47,7 @@ import org.sonar.db.user.UserTesting;
 import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.sonar.db.property.PropertyTesting.newComponentPropertyDto;
@@ -145,6 +146,41 @@ public class PropertiesDaoTest {
       .containsOnly("user1", "user2");
   }
 
+  @Test
+  public void selectNotificationSubscriptions() throws SQLException {
+    long userId1 = insertUser("user1");
+    long userId2 = insertUser("user2");
+    ComponentDto project1 = insertProject("uuid_45");
+    ComponentDto project2 = insertProject("uuid_56");
+
+    // global subscriptions
+    insertProperty("notification.NewViolations.Email", "true", null, userId1);
+    insertProperty("notification.NewAlerts.Email", "true", null, userId2);
+    // project subscriptions
+    insertProperty("notification.NewViolations.Twitter", "true", project1.getId(), userId2);
+    insertProperty("notification.NewAlerts.Email", "true", project2.getId(), userId1);
+    // unsubscribed
+    insertProperty("notification.NewFalsePositive.Email", "false", null, userId1);
+    // not a notification
+    insertProperty("sonar.favorite", "true", null, userId1);
+    // not a user property
+    insertProperty("notification.NewViolations.Email", "true", null, null);
+
+    assertThat(underTest.selectGlobalNotificationSubscriptions())
+      .extracting(NotificationSubscriptionDto::getNotificationKey, NotificationSubscriptionDto::getLogin)
+      .containsOnly(tuple("notification.NewViolations.Email", "user1"), tuple("notification.NewAlerts.Email", "user2"));
+
+    assertThat(underTest.selectNotificationSubscriptionsByProjectUuid("uuid_45"))
+      .extracting(NotificationSubscriptionDto::getNotificationKey, NotificationSubscriptionDto::getLogin)
+      .containsOnly(tuple("notification.NewViolations.Twitter", "user2"));
+    assertThat(underTest.selectNotificationSubscriptionsByProjectUuid("uuid_78")).isEmpty();
+
+    assertThat(underTest.selectNotificationSubscriptionsByComponentKey(project2.key()))
+      .extracting(NotificationSubscriptionDto::getNotificationKey, NotificationSubscriptionDto::getLogin)
+      .containsOnly(tuple("notification.NewAlerts.Email", "user1"));
+    assertThat(underTest.selectNotificationSubscriptionsByComponentKey("unknown")).isEmpty();
+  }
+
   @Test
   public void hasNotificationSubscribers() throws SQLException {
     long userId1 = insertUser("user1");
@@ -23,6 +23,7 @@ import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -67,6 +68,18 @@ public class PurgeCommandsTest {
     dbTester.assertDbUnit(getClass(), "shouldDeleteWastedMeasuresWhenPurgingAnalysis-result.xml", "project_measures");
   }
 
+  @Test
+  public void purge_analysis_concurrently() {
+    dbTester.prepareDbUnit(getClass(), "shouldPurgeAnalysis.xml");
+
+    try (PurgeExecutor executor = new PurgeExecutor(dbTester.myBatis(), 3)) {
+      DbSession session = dbTester.getSession();
+      new PurgeCommands(session, session.getMapper(PurgeMapper.class), profiler, executor).purgeAnalyses(singletonList(new IdUuidPair(1, "u1")));
+    }
+
+    dbTester.assertDbUnit(getClass(), "shouldPurgeAnalysis-result.xml", "snapshots", "project_measures", "duplications_index", "events");
+  }
+
   /**
    * Test that SQL queries execution do not fail with a huge number of parameter
    */
@@ -91,6 +104,23 @@ public class PurgeCommandsTest {
     assertThat(dbTester.countRowsOfTable("authors")).isZero();
   }
 
+  @Test
+  public void delete_components_and_children_tables_concurrently() {
+    dbTester.prepareDbUnit(getClass(), "shouldDeleteResource.xml");
+
+    try (PurgeExecutor executor = new PurgeExecutor(dbTester.myBatis(), 3)) {
+      DbSession session = dbTester.getSession();
+      new PurgeCommands(session, session.getMapper(PurgeMapper.class), profiler, executor).deleteComponents(newArrayList(new IdUuidPair(1L, "uuid_1")));
+    }
+
+    assertThat(dbTester.countRowsOfTable("projects")).isZero();
+    assertThat(dbTester.countRowsOfTable("snapshots")).isEqualTo(1);
+    assertThat(dbTester.countRowsOfTable("events")).isEqualTo(2);
+    assertThat(dbTester.countRowsOfTable("issues")).isZero();
+    assertThat(dbTester.countRowsOfTable("issue_changes")).isZero();
+    assertThat(dbTester.countRowsOfTable("authors")).isZero();
+    assertThat(profiler.getDurationsSinceStartup()).containsKeys("deleteResource (projects)", "deleteComponentIssues (issues)", "deleteAuthors (authors)");
+  }
 
   @Test
   public void shouldDeleteAnalyses() {
@@ -76,4 +76,24 @@ public class PurgeConfigurationTest {
 
     assertThat(underTest.scopesWithoutHistoricalData()).contains(Scopes.DIRECTORY, Scopes.FILE);
   }
+
+  @Test
+  public void read_max_concurrent_deletions_from_settings() {
+    Settings settings = new MapSettings();
+    settings.setProperty(PurgeConstants.MAX_CONCURRENT_DELETIONS, 4);
+
+    PurgeConfiguration underTest = PurgeConfiguration.newDefaultPurgeConfiguration(settings, new IdUuidPair(42L, "any-uuid"), Collections.emptyList());
+
+    assertThat(underTest.maxConcurrentDeletions()).isEqualTo(4);
+  }
+
+  @Test
+  public void delete_sequentially_if_max_concurrent_deletions_is_not_positive() {
+    Settings settings = new MapSettings();
+    settings.setProperty(PurgeConstants.MAX_CONCURRENT_DELETIONS, 0);
+
+    PurgeConfiguration underTest = PurgeConfiguration.newDefaultPurgeConfiguration(settings, new IdUuidPair(42L, "any-uuid"), Collections.emptyList());
+
+    assertThat(underTest.maxConcurrentDeletions()).isEqualTo(1);
+  }
 }
@@ -37,6 +37,7 @@ import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.protobuf.DbProjectRepositories;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -152,6 +153,22 @@ public class PurgeDaoTest {
     assertThat(dbTester.countRowsOfTable("ce_activity")).isEqualTo(1);
   }
 
+  @Test
+  public void delete_project_repository_when_deleting_project() {
+    ComponentDto projectToBeDeleted = ComponentTesting.newProjectDto();
+    ComponentDto anotherLivingProject = ComponentTesting.newProjectDto();
+    dbClient.componentDao().insert(dbSession, projectToBeDeleted, anotherLivingProject);
+    dbClient.projectRepositoryDao().insertOrUpdate(dbSession, projectToBeDeleted.uuid(), DbProjectRepositories.ProjectRepository.getDefaultInstance());
+    dbClient.projectRepositoryDao().insertOrUpdate(dbSession, anotherLivingProject.uuid(), DbProjectRepositories.ProjectRepository.getDefaultInstance());
+    dbSession.commit();
+
+    underTest.deleteProject(dbSession, projectToBeDeleted.uuid());
+    dbSession.commit();
+
+    assertThat(dbClient.projectRepositoryDao().selectByProjectUuid(dbSession, projectToBeDeleted.uuid())).isEmpty();
+    assertThat(dbClient.projectRepositoryDao().selectByProjectUuid(dbSession, anotherLivingProject.uuid())).isPresent();
+  }
+
   @Test
   public void delete_view_and_child() {
     dbTester.prepareDbUnit(getClass(), "view_sub_view_and_tech_project.xml");
@@ -186,8 +203,10 @@ public class PurgeDaoTest {
   public void should_delete_old_closed_issues() {
     PurgeListener purgeListener = mock(PurgeListener.class);
     dbTester.prepareDbUnit(getClass(), "should_delete_old_closed_issues.xml");
+    // issue ISSUE-5 has been closed less than 30 days ago
+    when(system2.now()).thenReturn(1735686000000L);
 
-    underTest.purge(dbSession, newConfigurationWith30Days(), purgeListener, new PurgeProfiler());
+    underTest.purge(dbSession, newConfigurationWith30Days(system2), purgeListener, new PurgeProfiler());
     dbSession.commit();
 
     dbTester.assertDbUnit(getClass(), "should_delete_old_closed_issues-result.xml", "issues", "issue_changes");
@@ -201,6 +220,18 @@ public class PurgeDaoTest {
     assertThat(issueKeys.getValue()).containsOnly("ISSUE-1", "ISSUE-2");
   }
 
+  @Test
+  public void delete_old_closed_issues_concurrently() {
+    dbTester.prepareDbUnit(getClass(), "should_delete_old_closed_issues.xml");
+    when(system2.now()).thenReturn(1735686000000L);
+    PurgeConfiguration conf = new PurgeConfiguration(new IdUuidPair(THE_PROJECT_ID, THE_PROJECT_UUID), new String[0], 30, system2, Collections.emptyList(), 3);
+
+    underTest.purge(dbSession, conf, PurgeListener.EMPTY, new PurgeProfiler());
+    dbSession.commit();
+
+    dbTester.assertDbUnit(getClass(), "should_delete_old_closed_issues-result.xml", "issues", "issue_changes");
+  }
+
   @Test
   public void should_delete_all_closed_issues() {
     dbTester.prepareDbUnit(getClass(), "should_delete_all_closed_issues.xml");
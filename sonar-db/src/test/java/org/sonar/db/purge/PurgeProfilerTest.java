@@ -23,8 +23,11 @@ import org.junit.Before;
 import org.junit.Test;
 import org.sonar.api.utils.log.Logger;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.Matchers.contains;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 public class PurgeProfilerTest {
@@ -80,6 +83,72 @@ public class PurgeProfilerTest {
     verify(logger).info(contains("bar: 5ms"));
   }
 
+  @Test
+  public void keep_durations_since_startup_when_resetting() {
+    profiler.start("foo");
+    clock.sleep(10);
+    profiler.stop();
+
+    profiler.reset();
+
+    profiler.start("bar");
+    clock.sleep(15);
+    profiler.stop();
+
+    assertThat(profiler.getDurationsSinceStartup()).containsExactly(entry("bar", 15L), entry("foo", 10L));
+  }
+
+  @Test
+  public void profile_tables_purged_concurrently() throws Exception {
+    profiler.start("foo");
+    Thread thread = new Thread(() -> {
+      profiler.start("bar");
+      clock.sleep(5);
+      profiler.stop();
+    });
+    thread.start();
+    thread.join();
+    profiler.stop();
+
+    assertThat(profiler.getDurationsSinceStartup()).containsOnly(entry("foo", 5L), entry("bar", 5L));
+  }
+
+  @Test
+  public void durations_of_a_purge_are_not_reset_by_the_purge_of_another_thread() throws Exception {
+    profiler.reset();
+    profiler.start("foo");
+    clock.sleep(10);
+    profiler.stop();
+
+    Thread otherPurge = new Thread(() -> {
+      profiler.reset();
+      profiler.start("bar");
+      clock.sleep(5);
+      profiler.stop();
+    });
+    otherPurge.start();
+    otherPurge.join();
+
+    profiler.dump(50, logger);
+    verify(logger).info(contains("foo: 10ms"));
+    verify(logger, never()).info(contains("bar"));
+  }
+
+  @Test
+  public void durations_of_deletions_executed_by_threads_started_during_the_purge_are_dumped_with_the_purge() throws Exception {
+    profiler.reset();
+    Thread deletion = new Thread(() -> {
+      profiler.start("bar");
+      clock.sleep(5);
+      profiler.stop();
+    });
+    deletion.start();
+    deletion.join();
+
+    profiler.dump(50, logger);
+    verify(logger).info(contains("bar: 5ms"));
+  }
+
   private class MockedClock extends PurgeProfiler.Clock {
     private long now = 0;
 
@@ -152,6 +152,18 @@ public class RuleDaoTest {
     assertThat(ruleDtos).extracting("id").containsOnly(1, 2, 10);
   }
 
+  @Test
+  public void selectVersion() {
+    assertThat(underTest.selectVersion(dbTester.getSession())).isEqualTo("0-0");
+
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+    assertThat(underTest.selectVersion(dbTester.getSession())).isEqualTo("3-1600000000000");
+
+    RuleDto rule = underTest.selectOrFailByKey(dbTester.getSession(), RuleKey.of("java", "S001"));
+    underTest.update(dbTester.getSession(), rule.setName("new name").setUpdatedAt(1700000000000L));
+    assertThat(underTest.selectVersion(dbTester.getSession())).isEqualTo("3-1700000000000");
+  }
+
   @Test
   public void selectEnabled_with_ResultHandler() {
     dbTester.prepareDbUnit(getClass(), "selectEnabled.xml");
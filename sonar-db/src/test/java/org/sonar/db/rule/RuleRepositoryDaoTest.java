@@ -42,7 +42,7 @@ public class RuleRepositoryDaoTest {
   @Test
   public void test_insert_and_selectAll() {
     DbSession dbSession = dbTester.getSession();
-    RuleRepositoryDto dto = new RuleRepositoryDto("findbugs", "java", "Findbugs");
+    RuleRepositoryDto dto = new RuleRepositoryDto("findbugs", "java", "Findbugs").setDefinitionHash("abcd");
     underTest.insert(dbSession, asList(dto));
 
     List<RuleRepositoryDto> rows = underTest.selectAll(dbSession);
@@ -51,6 +51,7 @@ public class RuleRepositoryDaoTest {
     assertThat(row.getKey()).isEqualTo("findbugs");
     assertThat(row.getName()).isEqualTo("Findbugs");
     assertThat(row.getLanguage()).isEqualTo("java");
+    assertThat(row.getDefinitionHash()).isEqualTo("abcd");
   }
 
   @Test
@@ -19,8 +19,12 @@
  */
 package org.sonar.db.source;
 
+import java.io.ByteArrayOutputStream;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -80,6 +84,69 @@ public class FileSourceDtoTest {
     assertThat(data.getLinesCount()).isEqualTo(build.getLinesCount());
   }
 
+  @Test
+  public void encode_and_decode_source_data() {
+    DbFileSources.Data data = createData(250);
+
+    byte[] bytes = FileSourceDto.encodeSourceData(data);
+
+    assertThat(new FileSourceDto().decodeSourceData(bytes)).isEqualTo(data);
+  }
+
+  @Test
+  public void decode_range_of_lines_reads_only_chunks_covering_the_range() {
+    byte[] bytes = FileSourceDto.encodeSourceData(createData(250));
+    FileSourceDto underTest = new FileSourceDto().setBinaryData(bytes);
+
+    assertThat(lineNumbers(underTest.getSourceData(1, 1))).containsExactlyElementsOf(range(1, 100));
+    assertThat(lineNumbers(underTest.getSourceData(150, 160))).containsExactlyElementsOf(range(101, 200));
+    assertThat(lineNumbers(underTest.getSourceData(100, 201))).containsExactlyElementsOf(range(1, 250));
+    assertThat(lineNumbers(underTest.getSourceData(220, Integer.MAX_VALUE))).containsExactlyElementsOf(range(201, 250));
+    assertThat(underTest.getSourceData(301, 400).getLinesList()).isEmpty();
+  }
+
+  @Test
+  public void decode_range_of_lines_of_data_without_chunks_returns_all_lines() throws Exception {
+    DbFileSources.Data data = createData(250);
+    ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+    try (LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput)) {
+      data.writeTo(compressedOutput);
+    }
+    FileSourceDto underTest = new FileSourceDto().setBinaryData(byteOutput.toByteArray());
+
+    assertThat(underTest.getSourceData(150, 160)).isEqualTo(data);
+  }
+
+  @Test
+  public void lines_which_are_not_sequential_are_not_chunked() {
+    DbFileSources.Data data = DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder().setLine(3).setSource("foo"))
+      .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("bar"))
+      .build();
+    FileSourceDto underTest = new FileSourceDto().setBinaryData(FileSourceDto.encodeSourceData(data));
+
+    assertThat(underTest.getSourceData(3, 3)).isEqualTo(data);
+  }
+
+  private static DbFileSources.Data createData(int lines) {
+    DbFileSources.Data.Builder dataBuilder = DbFileSources.Data.newBuilder();
+    for (int i = 1; i <= lines; i++) {
+      dataBuilder.addLines(DbFileSources.Line.newBuilder()
+        .setLine(i)
+        .setSource("line " + i)
+        .setHighlighting("0,4,k"));
+    }
+    return dataBuilder.build();
+  }
+
+  private static List<Integer> lineNumbers(DbFileSources.Data data) {
+    return data.getLinesList().stream().map(DbFileSources.Line::getLine).collect(Collectors.toList());
+  }
+
+  private static List<Integer> range(int from, int toInclusive) {
+    return IntStream.rangeClosed(from, toInclusive).boxed().collect(Collectors.toList());
+  }
+
   private static DbFileSources.Data createOver64MBDataStructure() {
     DbFileSources.Data.Builder dataBuilder = DbFileSources.Data.newBuilder();
     DbFileSources.Line.Builder lineBuilder = DbFileSources.Line.newBuilder();
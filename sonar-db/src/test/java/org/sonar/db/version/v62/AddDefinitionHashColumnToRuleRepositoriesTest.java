@@ -0,0 +1,53 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.version.v62;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbTester;
+
+public class AddDefinitionHashColumnToRuleRepositoriesTest {
+  @Rule
+  public DbTester dbTester = DbTester.createForSchema(System2.INSTANCE, AddDefinitionHashColumnToRuleRepositoriesTest.class, "rule_repositories.sql");
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private AddDefinitionHashColumnToRuleRepositories underTest = new AddDefinitionHashColumnToRuleRepositories(dbTester.database());
+
+  @Test
+  public void add_nullable_column_definition_hash() throws SQLException {
+    underTest.execute();
+
+    dbTester.assertColumnDefinition("rule_repositories", "definition_hash", Types.VARCHAR, 32, true);
+  }
+
+  @Test
+  public void migration_is_not_reentrant() throws SQLException {
+    underTest.execute();
+
+    expectedException.expect(IllegalStateException.class);
+
+    underTest.execute();
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.version.v62;
+
+import java.sql.SQLException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbTester;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PopulatePriorityOfCeQueueTest {
+  @Rule
+  public DbTester dbTester = DbTester.createForSchema(System2.INSTANCE, PopulatePriorityOfCeQueueTest.class, "ce_queue_with_nullable_priority.sql");
+
+  private PopulatePriorityOfCeQueue underTest = new PopulatePriorityOfCeQueue(dbTester.database());
+
+  @Test
+  public void execute_on_empty_table_has_no_effect() throws SQLException {
+    underTest.execute();
+
+    assertThat(dbTester.countRowsOfTable("ce_queue")).isEqualTo(0);
+  }
+
+  @Test
+  public void execute_sets_normal_priority_to_tasks_without_priority() throws SQLException {
+    insertTask("T1", null);
+    insertTask("T2", "HIGH");
+
+    underTest.execute();
+
+    verifyPriority("T1", "NORMAL");
+    verifyPriority("T2", "HIGH");
+  }
+
+  @Test
+  public void migration_is_reentrant() throws SQLException {
+    insertTask("T1", null);
+
+    underTest.execute();
+    underTest.execute();
+
+    verifyPriority("T1", "NORMAL");
+  }
+
+  private void insertTask(String uuid, String priority) {
+    dbTester.executeInsert(
+      "ce_queue",
+      "UUID", uuid,
+      "TASK_TYPE", "REPORT",
+      "STATUS", "PENDING",
+      "PRIORITY", priority,
+      "CREATED_AT", "1000",
+      "UPDATED_AT", "1000");
+    dbTester.commit();
+  }
+
+  private void verifyPriority(String uuid, String expectedPriority) {
+    assertThat(dbTester.selectFirst("select priority as \"priority\" from ce_queue where uuid='" + uuid + "'").get("priority"))
+      .isEqualTo(expectedPriority);
+  }
+}
@@ -0,0 +1,6 @@
+CREATE TABLE "RULE_REPOSITORIES" (
+  "KEE" VARCHAR(200) NOT NULL PRIMARY KEY,
+  "LANGUAGE" VARCHAR(20) NOT NULL,
+  "NAME" VARCHAR(4000) NOT NULL,
+  "CREATED_AT" BIGINT
+);
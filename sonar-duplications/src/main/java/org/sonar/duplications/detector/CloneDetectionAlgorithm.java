@@ -0,0 +1,75 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.detector;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import javax.annotation.Nullable;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.detector.suffixarray.SuffixArrayCloneDetectionAlgorithm;
+import org.sonar.duplications.detector.suffixtree.SuffixTreeCloneDetectionAlgorithm;
+import org.sonar.duplications.index.CloneGroup;
+import org.sonar.duplications.index.CloneIndex;
+
+/**
+ * Algorithms able to detect clones between a file and an index. They produce the same clone groups.
+ * The algorithm to be used is selected by property {@link #PROPERTY}.
+ */
+public enum CloneDetectionAlgorithm {
+
+  SUFFIX_TREE {
+    @Override
+    public List<CloneGroup> detect(CloneIndex cloneIndex, Collection<Block> fileBlocks) {
+      return SuffixTreeCloneDetectionAlgorithm.detect(cloneIndex, fileBlocks);
+    }
+  },
+
+  /**
+   * Does not build object graphs, which reduces allocations on files with a lot of duplicated blocks.
+   */
+  SUFFIX_ARRAY {
+    @Override
+    public List<CloneGroup> detect(CloneIndex cloneIndex, Collection<Block> fileBlocks) {
+      return SuffixArrayCloneDetectionAlgorithm.detect(cloneIndex, fileBlocks);
+    }
+  };
+
+  public static final String PROPERTY = "sonar.cpd.detector";
+
+  public abstract List<CloneGroup> detect(CloneIndex cloneIndex, Collection<Block> fileBlocks);
+
+  /**
+   * @param value value of property {@link #PROPERTY}, for example "suffixArray". Default algorithm is {@link #SUFFIX_TREE}.
+   * @throws IllegalArgumentException if value is not supported
+   */
+  public static CloneDetectionAlgorithm fromProperty(@Nullable String value) {
+    if (value == null || value.isEmpty()) {
+      return SUFFIX_TREE;
+    }
+    String normalized = value.replace("_", "").toLowerCase(Locale.ENGLISH);
+    for (CloneDetectionAlgorithm algorithm : values()) {
+      if (algorithm.name().replace("_", "").toLowerCase(Locale.ENGLISH).equals(normalized)) {
+        return algorithm;
+      }
+    }
+    throw new IllegalArgumentException("Unsupported value of property " + PROPERTY + ": " + value);
+  }
+}
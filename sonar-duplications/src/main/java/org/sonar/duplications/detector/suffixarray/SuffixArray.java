@@ -0,0 +1,166 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.detector.suffixarray;
+
+import java.util.Arrays;
+
+/**
+ * <a href="http://en.wikipedia.org/wiki/Suffix_array">Suffix array</a> of a text of non-negative int symbols,
+ * constructed by prefix doubling with radix sort, together with its LCP array constructed with the algorithm of Kasai et al.
+ * <p>
+ * Both arrays are plain int arrays, so unlike {@link org.sonar.duplications.detector.suffixtree.SuffixTree}
+ * memory consumption does not depend on the structure of the text: 5 ints per symbol at most during construction.
+ * </p>
+ */
+final class SuffixArray {
+
+  /**
+   * Start positions of suffixes of text, in lexicographic order of suffixes.
+   */
+  final int[] suffixes;
+
+  /**
+   * {@code lcp[i]} is the length of the longest common prefix of suffixes {@code suffixes[i - 1]} and {@code suffixes[i]},
+   * {@code lcp[0]} is 0.
+   */
+  final int[] lcp;
+
+  private SuffixArray(int[] suffixes, int[] lcp) {
+    this.suffixes = suffixes;
+    this.lcp = lcp;
+  }
+
+  /**
+   * @param text symbols, each in range {@code [0, alphabetSize)}. Last symbol must be unique in text,
+   *             so that no suffix is a prefix of another one.
+   */
+  static SuffixArray create(int[] text, int alphabetSize) {
+    int[] suffixes = sort(text, alphabetSize);
+    return new SuffixArray(suffixes, computeLcp(text, suffixes));
+  }
+
+  private static int[] sort(int[] text, int alphabetSize) {
+    int n = text.length;
+    int[] sa = new int[n];
+    int[] rank = new int[n];
+    int[] tmp = new int[n];
+    int[] counts = new int[Math.max(alphabetSize, n) + 1];
+
+    // initial order by first symbol
+    for (int i = 0; i < n; i++) {
+      rank[i] = text[i];
+      counts[text[i] + 1]++;
+    }
+    for (int r = 1; r < counts.length; r++) {
+      counts[r] += counts[r - 1];
+    }
+    for (int i = 0; i < n; i++) {
+      sa[counts[text[i]]++] = i;
+    }
+    if (rerank(sa, rank, tmp, 0)) {
+      return sa;
+    }
+    int[] swap = rank;
+    rank = tmp;
+    tmp = swap;
+
+    for (int k = 1; k < n; k <<= 1) {
+      // order by rank of suffix at offset k: suffixes shorter than k first, then the other ones in current order
+      int p = 0;
+      for (int i = n - k; i < n; i++) {
+        tmp[p++] = i;
+      }
+      for (int i = 0; i < n; i++) {
+        if (sa[i] >= k) {
+          tmp[p++] = sa[i] - k;
+        }
+      }
+      // stable counting sort by current rank
+      Arrays.fill(counts, 0, n + 1, 0);
+      for (int i = 0; i < n; i++) {
+        counts[rank[i] + 1]++;
+      }
+      for (int r = 1; r <= n; r++) {
+        counts[r] += counts[r - 1];
+      }
+      for (int i = 0; i < n; i++) {
+        sa[counts[rank[tmp[i]]]++] = tmp[i];
+      }
+      if (rerank(sa, rank, tmp, k)) {
+        return sa;
+      }
+      swap = rank;
+      rank = tmp;
+      tmp = swap;
+    }
+    return sa;
+  }
+
+  /**
+   * Computes into {@code newRank} the rank of each suffix, according to its first {@code 2 * k} symbols (or to its first symbol when k is 0).
+   *
+   * @return true if all ranks are distinct, so that suffixes are completely sorted
+   */
+  private static boolean rerank(int[] sa, int[] rank, int[] newRank, int k) {
+    int n = sa.length;
+    int r = 0;
+    newRank[sa[0]] = 0;
+    for (int i = 1; i < n; i++) {
+      int current = sa[i];
+      int previous = sa[i - 1];
+      if (rank[current] != rank[previous] || (k > 0 && secondKey(rank, current, k) != secondKey(rank, previous, k))) {
+        r++;
+      }
+      newRank[current] = r;
+    }
+    return r == n - 1;
+  }
+
+  private static int secondKey(int[] rank, int position, int k) {
+    return position + k < rank.length ? rank[position + k] : -1;
+  }
+
+  private static int[] computeLcp(int[] text, int[] sa) {
+    int n = text.length;
+    int[] inverse = new int[n];
+    for (int i = 0; i < n; i++) {
+      inverse[sa[i]] = i;
+    }
+    int[] lcp = new int[n];
+    int h = 0;
+    for (int i = 0; i < n; i++) {
+      int r = inverse[i];
+      if (r > 0) {
+        int j = sa[r - 1];
+        while (i + h < n && j + h < n && text[i + h] == text[j + h]) {
+          h++;
+        }
+        lcp[r] = h;
+        if (h > 0) {
+          h--;
+        }
+      } else {
+        h = 0;
+      }
+    }
+    return lcp;
+  }
+
+}
@@ -0,0 +1,376 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.detector.suffixarray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.duplications.detector.ContainsInComparator;
+import org.sonar.duplications.index.CloneGroup;
+import org.sonar.duplications.index.CloneIndex;
+import org.sonar.duplications.index.ClonePart;
+import org.sonar.duplications.utils.FastStringComparator;
+
+/**
+ * Alternative to {@link org.sonar.duplications.detector.suffixtree.SuffixTreeCloneDetectionAlgorithm}, which produces the same
+ * clone groups, but works on a generalised suffix array of block hashes instead of a suffix tree.
+ * <p>
+ * Hashes are replaced by int identifiers and the text is an int array, where each file (or each run of consecutive blocks
+ * from index) is followed by a unique terminator. Inner nodes of the suffix tree are the LCP intervals of the suffix array,
+ * which are enumerated bottom-up with a stack and visited in descending order of length. Containment of clone groups is checked
+ * on primitive arrays, so that {@link ClonePart}s are created only for groups which are kept.
+ * </p>
+ */
+public final class SuffixArrayCloneDetectionAlgorithm {
+
+  private static final Comparator<Block> BLOCK_COMPARATOR = (o1, o2) -> o1.getIndexInFile() - o2.getIndexInFile();
+
+  private final String originResourceId;
+  private final int originLength;
+  private final Block[] blocks;
+  private final int[] text;
+  private final int[] resourceOrdinals;
+  private final SuffixArray suffixArray;
+
+  private final List<KeptGroup> kept = new ArrayList<>();
+  private final List<CloneGroup> result = new ArrayList<>();
+  private long[] partKeys;
+
+  private SuffixArrayCloneDetectionAlgorithm(String originResourceId, int originLength, Block[] blocks, int[] text, int alphabetSize,
+    int[] resourceOrdinals) {
+    this.originResourceId = originResourceId;
+    this.originLength = originLength;
+    this.blocks = blocks;
+    this.text = text;
+    this.resourceOrdinals = resourceOrdinals;
+    this.suffixArray = SuffixArray.create(text, alphabetSize);
+  }
+
+  public static List<CloneGroup> detect(CloneIndex cloneIndex, Collection<Block> fileBlocks) {
+    if (fileBlocks.isEmpty()) {
+      return Collections.emptyList();
+    }
+    Map<ByteArray, Integer> hashIds = new HashMap<>();
+    for (Block fileBlock : fileBlocks) {
+      hashIds.computeIfAbsent(fileBlock.getBlockHash(), h -> hashIds.size());
+    }
+
+    String originResourceId = fileBlocks.iterator().next().getResourceId();
+    Map<String, List<Block>> fromIndex = retrieveFromIndex(cloneIndex, originResourceId, hashIds);
+    if (fromIndex.isEmpty() && hashIds.size() == fileBlocks.size()) {
+      // optimization for the case when there is no duplications
+      return Collections.emptyList();
+    }
+
+    return create(originResourceId, fileBlocks, fromIndex, hashIds).search();
+  }
+
+  private static Map<String, List<Block>> retrieveFromIndex(CloneIndex index, String originResourceId, Map<ByteArray, Integer> hashIds) {
+    Map<String, List<Block>> collection = new HashMap<>();
+    for (ByteArray hash : hashIds.keySet()) {
+      for (Block blockFromIndex : index.getBySequenceHash(hash)) {
+        // skip blocks for this file if they come from index
+        String resourceId = blockFromIndex.getResourceId();
+        if (!originResourceId.equals(resourceId)) {
+          collection.computeIfAbsent(resourceId, k -> new ArrayList<>()).add(blockFromIndex);
+        }
+      }
+    }
+    return collection;
+  }
+
+  private static SuffixArrayCloneDetectionAlgorithm create(String originResourceId, Collection<Block> fileBlocks, Map<String, List<Block>> fromIndex,
+    Map<ByteArray, Integer> hashIds) {
+    // parts are ordered like ContainsInComparator.CLONEPART_COMPARATOR does, so resources are numbered in this order
+    List<String> resourceIds = new ArrayList<>(fromIndex.keySet());
+    resourceIds.add(originResourceId);
+    Collections.sort(resourceIds, FastStringComparator.INSTANCE);
+    Map<String, Integer> ordinals = new HashMap<>();
+    for (String resourceId : resourceIds) {
+      ordinals.put(resourceId, ordinals.size());
+    }
+
+    List<List<Block>> runs = new ArrayList<>();
+    List<Block> sortedFileBlocks = new ArrayList<>(fileBlocks);
+    Collections.sort(sortedFileBlocks, BLOCK_COMPARATOR);
+    runs.add(sortedFileBlocks);
+    int length = sortedFileBlocks.size() + 1;
+    for (List<Block> list : fromIndex.values()) {
+      Collections.sort(list, BLOCK_COMPARATOR);
+      int i = 0;
+      while (i < list.size()) {
+        int j = i + 1;
+        while ((j < list.size()) && (list.get(j).getIndexInFile() == list.get(j - 1).getIndexInFile() + 1)) {
+          j++;
+        }
+        runs.add(list.subList(i, j));
+        length += j - i + 1;
+        i = j;
+      }
+    }
+
+    Block[] blocks = new Block[length];
+    int[] text = new int[length];
+    int[] resourceOrdinals = new int[length];
+    int terminator = hashIds.size();
+    int pos = 0;
+    for (List<Block> run : runs) {
+      int ordinal = ordinals.get(run.get(0).getResourceId());
+      for (Block block : run) {
+        blocks[pos] = block;
+        text[pos] = hashIds.get(block.getBlockHash());
+        resourceOrdinals[pos] = ordinal;
+        pos++;
+      }
+      text[pos] = terminator;
+      terminator++;
+      pos++;
+    }
+    return new SuffixArrayCloneDetectionAlgorithm(originResourceId, sortedFileBlocks.size(), blocks, text, terminator, resourceOrdinals);
+  }
+
+  private List<CloneGroup> search() {
+    int[] sa = suffixArray.suffixes;
+    int[] lcp = suffixArray.lcp;
+    int n = sa.length;
+
+    // bottom-up enumeration of LCP intervals [lb, rb] with their length, root interval (length 0) excluded
+    int[] intervalLength = new int[n];
+    int[] intervalLb = new int[n];
+    int[] intervalRb = new int[n];
+    int count = 0;
+    int[] stackLength = new int[n + 1];
+    int[] stackLb = new int[n + 1];
+    int top = 0;
+    stackLength[0] = 0;
+    stackLb[0] = 0;
+    for (int i = 1; i <= n; i++) {
+      int l = i < n ? lcp[i] : 0;
+      int lb = i - 1;
+      while (l < stackLength[top]) {
+        intervalLength[count] = stackLength[top];
+        intervalLb[count] = stackLb[top];
+        intervalRb[count] = i - 1;
+        lb = stackLb[top];
+        count++;
+        top--;
+      }
+      if (l > stackLength[top]) {
+        top++;
+        stackLength[top] = l;
+        stackLb[top] = lb;
+      }
+    }
+
+    // visit intervals in descending order of length, as inner nodes of suffix tree
+    int[] byLength = sortByDescendingLength(intervalLength, count, n);
+    partKeys = new long[n];
+    for (int k = 0; k < count; k++) {
+      int interval = byLength[k];
+      visit(intervalLb[interval], intervalRb[interval], intervalLength[interval]);
+    }
+    return result;
+  }
+
+  private static int[] sortByDescendingLength(int[] lengths, int count, int maxLength) {
+    int[] starts = new int[maxLength + 2];
+    for (int i = 0; i < count; i++) {
+      starts[maxLength - lengths[i] + 1]++;
+    }
+    for (int i = 1; i < starts.length; i++) {
+      starts[i] += starts[i - 1];
+    }
+    int[] sorted = new int[count];
+    for (int i = 0; i < count; i++) {
+      sorted[starts[maxLength - lengths[i]]++] = i;
+    }
+    return sorted;
+  }
+
+  private void visit(int lb, int rb, int length) {
+    int[] sa = suffixArray.suffixes;
+    if (!containsOrigin(sa, lb, rb) || !isLeftMaximal(sa, lb, rb)) {
+      return;
+    }
+    int size = rb - lb + 1;
+    for (int i = 0; i < size; i++) {
+      int start = sa[lb + i];
+      partKeys[i] = partKey(resourceOrdinals[start], blocks[start].getIndexInFile());
+    }
+    Arrays.sort(partKeys, 0, size);
+    for (KeptGroup earlier : kept) {
+      if (containsIn(partKeys, size, length, earlier.partKeys, earlier.partKeys.length, earlier.length)) {
+        return;
+      }
+    }
+    kept.add(new KeptGroup(Arrays.copyOf(partKeys, size), length));
+    result.add(createGroup(sa, lb, rb, length));
+  }
+
+  private boolean containsOrigin(int[] sa, int lb, int rb) {
+    for (int i = lb; i <= rb; i++) {
+      if (sa[i] < originLength) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * When all occurrences are preceded by the same symbol, then the group is contained in the group of occurrences extended by one
+   * block on the left, which is longer and so has already been visited. Such group would be filtered out anyway.
+   */
+  private boolean isLeftMaximal(int[] sa, int lb, int rb) {
+    if (sa[lb] == 0) {
+      return true;
+    }
+    int previous = text[sa[lb] - 1];
+    for (int i = lb + 1; i <= rb; i++) {
+      if (sa[i] == 0 || text[sa[i] - 1] != previous) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private CloneGroup createGroup(int[] sa, int lb, int rb, int length) {
+    ClonePart origin = null;
+    int lengthInUnits = 0;
+    List<ClonePart> parts = new ArrayList<>(rb - lb + 1);
+    for (int i = lb; i <= rb; i++) {
+      Block firstBlock = blocks[sa[i]];
+      Block lastBlock = blocks[sa[i] + length - 1];
+      ClonePart part = new ClonePart(
+        firstBlock.getResourceId(),
+        firstBlock.getIndexInFile(),
+        firstBlock.getStartLine(),
+        lastBlock.getEndLine());
+      if (originResourceId.equals(part.getResourceId()) && (origin == null || part.getUnitStart() < origin.getUnitStart())) {
+        origin = part;
+        // To calculate length important to use the origin, because otherwise block may come from DB without required data
+        lengthInUnits = lastBlock.getEndUnit() - firstBlock.getStartUnit() + 1;
+      }
+      parts.add(part);
+    }
+    Collections.sort(parts, ContainsInComparator.CLONEPART_COMPARATOR);
+    return CloneGroup.builder()
+      .setLength(length)
+      .setLengthInUnits(lengthInUnits)
+      .setOrigin(origin)
+      .setParts(parts)
+      .build();
+  }
+
+  private static long partKey(int resourceOrdinal, int unitStart) {
+    return ((long) resourceOrdinal << 32) | (unitStart & 0xFFFFFFFFL);
+  }
+
+  private static int resourceOrdinal(long partKey) {
+    return (int) (partKey >>> 32);
+  }
+
+  private static int unitStart(long partKey) {
+    return (int) partKey;
+  }
+
+  /**
+   * Same as {@link org.sonar.duplications.detector.suffixtree.DuplicationsCollector}: checks that second group includes first one,
+   * i.e. that every part of first group is included in a part of second group and that both groups have the same resources.
+   * Parts are sorted by resource and unit start.
+   */
+  private static boolean containsIn(long[] first, int firstSize, int firstLength, long[] second, int secondSize, int secondLength) {
+    return containsParts(second, secondSize, secondLength, first, firstSize, firstLength)
+      && containsResources(first, firstSize, second, secondSize);
+  }
+
+  private static boolean containsParts(long[] container, int containerSize, int containerLength, long[] list, int listSize, int listLength) {
+    int c = 0;
+    int l = 0;
+    while (true) {
+      int r = compareInclusion(container[c], containerLength, list[l], listLength);
+      if (r == 0) {
+        l++;
+        if (l == listSize) {
+          return true;
+        }
+      } else if (r < 0) {
+        c++;
+        if (c == containerSize) {
+          return false;
+        }
+      } else {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Same as {@link ContainsInComparator#compare(ClonePart, ClonePart)}
+   */
+  private static int compareInclusion(long part1, int l1, long part2, int l2) {
+    int c = Integer.compare(resourceOrdinal(part1), resourceOrdinal(part2));
+    if (c != 0) {
+      return c;
+    }
+    if (unitStart(part1) <= unitStart(part2)) {
+      return unitStart(part2) + l2 <= unitStart(part1) + l1 ? 0 : -1;
+    }
+    return 1;
+  }
+
+  private static boolean containsResources(long[] container, int containerSize, long[] list, int listSize) {
+    int c = 0;
+    int l = 0;
+    while (true) {
+      int r = Integer.compare(resourceOrdinal(container[c]), resourceOrdinal(list[l]));
+      if (r == 0) {
+        l++;
+        if (l == listSize) {
+          return true;
+        }
+      } else if (r < 0) {
+        c++;
+        if (c == containerSize) {
+          return false;
+        }
+      } else {
+        return false;
+      }
+    }
+  }
+
+  private static final class KeptGroup {
+    private final long[] partKeys;
+    private final int length;
+
+    private KeptGroup(long[] partKeys, int length) {
+      this.partKeys = partKeys;
+      this.length = length;
+    }
+  }
+
+}
@@ -0,0 +1,511 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.index;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import javax.annotation.Nullable;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.duplications.index.PackedMemoryCloneIndex.ResourceBlocks;
+
+/**
+ * Variant of {@link PackedMemoryCloneIndex}, which keeps blocks on disk instead of heap.
+ * <p>
+ * Inserted blocks are buffered in a flat array of limited capacity. When buffer is full, it's sorted twice (by hash and by resource)
+ * and written as two runs of fixed-size records into the given directory. Before the first query, runs are merged into
+ * one file sorted by hash and one file sorted by resource, which are memory-mapped and queried by binary search.
+ * Only resource keys stay on heap, so memory consumption does not depend on the number of blocks.
+ * </p>
+ * <p>
+ * Blocks can still be inserted after a query: they are merged with the previous content on next query.
+ * Note that this implementation does not support deletion.
+ * </p>
+ */
+public class MappedCloneIndex extends AbstractCloneIndex implements Closeable {
+
+  private static final int DEFAULT_BUFFER_CAPACITY = 64 * 1024;
+
+  /**
+   * Fields of a record after the hash: ordinal of resource, index in file, first line, last line, first unit, last unit.
+   */
+  private static final int BLOCK_INTS = 6;
+
+  private final File dir;
+  private final int hashInts;
+  private final int recordInts;
+  private final int bufferCapacity;
+  private final Order byHash;
+  private final Order byResource;
+
+  private final List<String> resourceIds = new ArrayList<>();
+  private final Map<String, Integer> resourceOrdinals = new HashMap<>();
+
+  private final int[] buffer;
+  private final int[] searchValue;
+  private int buffered;
+  private int fileCounter;
+
+  private final List<File> hashRuns = new ArrayList<>();
+  private final List<File> resourceRuns = new ArrayList<>();
+  @Nullable
+  private MappedRecords hashRecords;
+  @Nullable
+  private MappedRecords resourceRecords;
+
+  private final Block.Builder blockBuilder = Block.builder();
+
+  /**
+   * @param dir existing directory, where files are created
+   */
+  public MappedCloneIndex(File dir) {
+    this(dir, 8, DEFAULT_BUFFER_CAPACITY);
+  }
+
+  /**
+   * @param dir existing directory, where files are created
+   * @param hashBytes size of hash in bytes
+   * @param bufferCapacity number of blocks kept on heap before being written to disk
+   */
+  public MappedCloneIndex(File dir, int hashBytes, int bufferCapacity) {
+    this.dir = dir;
+    this.hashInts = hashBytes / 4;
+    this.recordInts = hashInts + BLOCK_INTS;
+    this.bufferCapacity = bufferCapacity;
+    this.buffer = new int[bufferCapacity * recordInts];
+    this.searchValue = new int[recordInts];
+    int[] hashOrder = new int[hashInts + 2];
+    for (int i = 0; i < hashOrder.length; i++) {
+      hashOrder[i] = i;
+    }
+    this.byHash = new Order(hashOrder);
+    this.byResource = new Order(new int[] {hashInts, hashInts + 1});
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * <strong>Note that this implementation allows insertion of two blocks with same index for one resource.</strong>
+   * </p>
+   */
+  @Override
+  public void insert(Block block) {
+    int[] hash = block.getBlockHash().toIntArray();
+    if (hash.length != hashInts) {
+      throw new IllegalArgumentException("Expected " + hashInts + " ints in hash, but got " + hash.length);
+    }
+    if (buffered == bufferCapacity) {
+      flush();
+    }
+    int offset = buffered * recordInts;
+    System.arraycopy(hash, 0, buffer, offset, hashInts);
+    offset += hashInts;
+    buffer[offset++] = resourceOrdinal(block.getResourceId());
+    buffer[offset++] = block.getIndexInFile();
+    buffer[offset++] = block.getStartLine();
+    buffer[offset++] = block.getEndLine();
+    buffer[offset++] = block.getStartUnit();
+    buffer[offset] = block.getEndUnit();
+    buffered++;
+  }
+
+  private int resourceOrdinal(String resourceId) {
+    Integer ordinal = resourceOrdinals.get(resourceId);
+    if (ordinal == null) {
+      ordinal = resourceIds.size();
+      resourceIds.add(resourceId);
+      resourceOrdinals.put(resourceId, ordinal);
+    }
+    return ordinal;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Blocks are sorted by index in file.
+   * </p>
+   */
+  @Override
+  public Collection<Block> getByResourceId(String resourceId) {
+    ensureMerged();
+    List<Block> result = new ArrayList<>();
+    Integer ordinal = resourceOrdinals.get(resourceId);
+    if (ordinal == null) {
+      return result;
+    }
+    searchValue[hashInts] = ordinal;
+    searchValue[hashInts + 1] = Integer.MIN_VALUE;
+    long index = resourceRecords.lowerBound(byResource, searchValue);
+    while (index < resourceRecords.size() && resourceRecords.get(index, hashInts) == ordinal) {
+      result.add(createBlock(resourceRecords, index, resourceId, null));
+      index++;
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Collection<Block> getBySequenceHash(ByteArray sequenceHash) {
+    int[] hash = sequenceHash.toIntArray();
+    if (hash.length != hashInts) {
+      throw new IllegalArgumentException("Expected " + hashInts + " ints in hash, but got " + hash.length);
+    }
+    ensureMerged();
+    System.arraycopy(hash, 0, searchValue, 0, hashInts);
+    searchValue[hashInts] = Integer.MIN_VALUE;
+    searchValue[hashInts + 1] = Integer.MIN_VALUE;
+    long index = hashRecords.lowerBound(byHash, searchValue);
+
+    List<Block> result = new ArrayList<>();
+    while (index < hashRecords.size() && hashRecords.hasHash(index, hash)) {
+      String resourceId = resourceIds.get(hashRecords.get(index, hashInts));
+      result.add(createBlock(hashRecords, index, resourceId, sequenceHash));
+      index++;
+    }
+    return result;
+  }
+
+  private Block createBlock(MappedRecords records, long index, String resourceId, @Nullable ByteArray byteHash) {
+    ByteArray blockHash = byteHash;
+    if (blockHash == null) {
+      int[] hash = new int[hashInts];
+      for (int j = 0; j < hashInts; j++) {
+        hash[j] = records.get(index, j);
+      }
+      blockHash = new ByteArray(hash);
+    }
+    int offset = hashInts + 1;
+    return blockBuilder
+      .setResourceId(resourceId)
+      .setBlockHash(blockHash)
+      .setIndexInFile(records.get(index, offset))
+      .setLines(records.get(index, offset + 1), records.get(index, offset + 2))
+      .setUnit(records.get(index, offset + 3), records.get(index, offset + 4))
+      .build();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Resources are iterated in order of insertion.
+   * </p>
+   */
+  @Override
+  public Iterator<ResourceBlocks> iterator() {
+    ensureMerged();
+    return new ResourceIterator();
+  }
+
+  @Override
+  public int noResources() {
+    return resourceIds.size();
+  }
+
+  /**
+   * Deletes files. Index can't be used anymore.
+   */
+  @Override
+  public void close() {
+    hashRecords = null;
+    resourceRecords = null;
+    deleteAll(hashRuns);
+    deleteAll(resourceRuns);
+  }
+
+  private void ensureMerged() {
+    if (buffered == 0 && hashRecords != null) {
+      return;
+    }
+    flush();
+    hashRecords = merge(hashRuns, byHash);
+    resourceRecords = merge(resourceRuns, byResource);
+  }
+
+  /**
+   * Writes buffered blocks to disk, as a run sorted by hash and a run sorted by resource.
+   */
+  private void flush() {
+    hashRuns.add(writeRun(byHash));
+    resourceRuns.add(writeRun(byResource));
+    buffered = 0;
+  }
+
+  private File writeRun(Order order) {
+    DataUtils.sort(new BufferSortable(order));
+    File file = newFile();
+    try (DataOutputStream output = openOutput(file)) {
+      for (int i = 0; i < buffered * recordInts; i++) {
+        output.writeInt(buffer[i]);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write blocks to " + file, e);
+    }
+    return file;
+  }
+
+  /**
+   * K-way merge of sorted runs into a single one, which replaces them in list.
+   */
+  private MappedRecords merge(List<File> runs, Order order) {
+    File merged;
+    if (runs.size() == 1) {
+      merged = runs.get(0);
+    } else {
+      merged = newFile();
+      PriorityQueue<Cursor> queue = new PriorityQueue<>(runs.size(), (c1, c2) -> order.compare(c1.current, c2.current));
+      for (File run : runs) {
+        Cursor cursor = new Cursor(new MappedRecords(run, recordInts));
+        if (cursor.next()) {
+          queue.add(cursor);
+        }
+      }
+      try (DataOutputStream output = openOutput(merged)) {
+        while (!queue.isEmpty()) {
+          Cursor cursor = queue.poll();
+          for (int value : cursor.current) {
+            output.writeInt(value);
+          }
+          if (cursor.next()) {
+            queue.add(cursor);
+          }
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to merge blocks into " + merged, e);
+      }
+      deleteAll(runs);
+      runs.add(merged);
+    }
+    return new MappedRecords(merged, recordInts);
+  }
+
+  private File newFile() {
+    File file = new File(dir, "blocks-" + fileCounter + ".dat");
+    fileCounter++;
+    return file;
+  }
+
+  private static DataOutputStream openOutput(File file) throws IOException {
+    return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+  }
+
+  /**
+   * Files which are still mapped can't be deleted on some platforms. They are deleted when the directory is.
+   */
+  private static void deleteAll(List<File> files) {
+    for (File file : files) {
+      if (!file.delete()) {
+        file.deleteOnExit();
+      }
+    }
+    files.clear();
+  }
+
+  private class ResourceIterator implements Iterator<ResourceBlocks> {
+    private long index = 0;
+
+    @Override
+    public boolean hasNext() {
+      return index < resourceRecords.size();
+    }
+
+    @Override
+    public ResourceBlocks next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      int ordinal = resourceRecords.get(index, hashInts);
+      String resourceId = resourceIds.get(ordinal);
+      List<Block> blocks = new ArrayList<>();
+      // while we are at the same resource, keep going
+      do {
+        blocks.add(createBlock(resourceRecords, index, resourceId, null));
+        index++;
+      } while (hasNext() && resourceRecords.get(index, hashInts) == ordinal);
+      return new ResourceBlocks(resourceId, blocks);
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * Lexicographic order on some fields of records.
+   */
+  private static final class Order {
+    private final int[] fields;
+
+    private Order(int[] fields) {
+      this.fields = fields;
+    }
+
+    int compare(int[] data1, int offset1, int[] data2, int offset2) {
+      for (int field : fields) {
+        int c = Integer.compare(data1[offset1 + field], data2[offset2 + field]);
+        if (c != 0) {
+          return c;
+        }
+      }
+      return 0;
+    }
+
+    int compare(int[] record1, int[] record2) {
+      return compare(record1, 0, record2, 0);
+    }
+  }
+
+  private class BufferSortable implements DataUtils.Sortable {
+    private final Order order;
+
+    private BufferSortable(Order order) {
+      this.order = order;
+    }
+
+    @Override
+    public int size() {
+      return buffered;
+    }
+
+    @Override
+    public void swap(int i, int j) {
+      int i2 = i * recordInts;
+      int j2 = j * recordInts;
+      for (int k = 0; k < recordInts; k++, i2++, j2++) {
+        int x = buffer[i2];
+        buffer[i2] = buffer[j2];
+        buffer[j2] = x;
+      }
+    }
+
+    @Override
+    public boolean isLess(int i, int j) {
+      return order.compare(buffer, i * recordInts, buffer, j * recordInts) < 0;
+    }
+  }
+
+  private class Cursor {
+    private final MappedRecords records;
+    private final int[] current = new int[recordInts];
+    private long index = 0;
+
+    private Cursor(MappedRecords records) {
+      this.records = records;
+    }
+
+    private boolean next() {
+      if (index == records.size()) {
+        return false;
+      }
+      for (int i = 0; i < recordInts; i++) {
+        current[i] = records.get(index, i);
+      }
+      index++;
+      return true;
+    }
+  }
+
+  /**
+   * Read-only view of a file of fixed-size int records. As a mapping can't exceed 2GB, file is mapped in several segments.
+   */
+  private static final class MappedRecords {
+    private final int recordInts;
+    private final long size;
+    private final long recordsPerSegment;
+    private final IntBuffer[] segments;
+    private final int[] probe;
+
+    private MappedRecords(File file, int recordInts) {
+      this.recordInts = recordInts;
+      this.probe = new int[recordInts];
+      long recordBytes = recordInts * 4L;
+      this.recordsPerSegment = Integer.MAX_VALUE / recordBytes;
+      try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+        this.size = channel.size() / recordBytes;
+        int segmentCount = (int) ((size + recordsPerSegment - 1) / recordsPerSegment);
+        this.segments = new IntBuffer[segmentCount];
+        for (int s = 0; s < segmentCount; s++) {
+          long position = s * recordsPerSegment * recordBytes;
+          long length = Math.min(recordsPerSegment, size - s * recordsPerSegment) * recordBytes;
+          // mapping stays valid after channel is closed
+          segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, position, length).asIntBuffer();
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to map " + file, e);
+      }
+    }
+
+    long size() {
+      return size;
+    }
+
+    int get(long record, int field) {
+      IntBuffer segment = segments[(int) (record / recordsPerSegment)];
+      return segment.get((int) (record % recordsPerSegment) * recordInts + field);
+    }
+
+    boolean hasHash(long record, int[] hash) {
+      for (int i = 0; i < hash.length; i++) {
+        if (get(record, i) != hash[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * @return index of first record, which is not less than given one
+     */
+    long lowerBound(Order order, int[] value) {
+      long lower = 0;
+      long upper = size;
+      while (lower < upper) {
+        long mid = (lower + upper) >>> 1;
+        for (int i = 0; i < recordInts; i++) {
+          probe[i] = get(mid, i);
+        }
+        if (order.compare(probe, value) < 0) {
+          lower = mid + 1;
+        } else {
+          upper = mid;
+        }
+      }
+      return lower;
+    }
+  }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.detector;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CloneDetectionAlgorithmTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void suffix_tree_is_the_default() {
+    assertThat(CloneDetectionAlgorithm.fromProperty(null)).isEqualTo(CloneDetectionAlgorithm.SUFFIX_TREE);
+    assertThat(CloneDetectionAlgorithm.fromProperty("")).isEqualTo(CloneDetectionAlgorithm.SUFFIX_TREE);
+  }
+
+  @Test
+  public void from_property() {
+    assertThat(CloneDetectionAlgorithm.fromProperty("suffixTree")).isEqualTo(CloneDetectionAlgorithm.SUFFIX_TREE);
+    assertThat(CloneDetectionAlgorithm.fromProperty("suffixArray")).isEqualTo(CloneDetectionAlgorithm.SUFFIX_ARRAY);
+    assertThat(CloneDetectionAlgorithm.fromProperty("SUFFIX_ARRAY")).isEqualTo(CloneDetectionAlgorithm.SUFFIX_ARRAY);
+  }
+
+  @Test
+  public void fail_on_unknown_value() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Unsupported value of property sonar.cpd.detector: foo");
+
+    CloneDetectionAlgorithm.fromProperty("foo");
+  }
+}
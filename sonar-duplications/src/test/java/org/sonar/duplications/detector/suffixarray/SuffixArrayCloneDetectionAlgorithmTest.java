@@ -0,0 +1,178 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.detector.suffixarray;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.duplications.detector.DetectorTestCase;
+import org.sonar.duplications.detector.suffixtree.SuffixTreeCloneDetectionAlgorithm;
+import org.sonar.duplications.index.CloneGroup;
+import org.sonar.duplications.index.CloneIndex;
+
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.sonar.duplications.detector.CloneGroupMatcher.hasCloneGroup;
+
+public class SuffixArrayCloneDetectionAlgorithmTest extends DetectorTestCase {
+
+  /**
+   * Given: file without duplications
+   * Expected: {@link Collections#EMPTY_LIST} (no need to construct suffix array)
+   */
+  @Test
+  public void noDuplications() {
+    CloneIndex index = createIndex();
+    Block[] fileBlocks = newBlocks("a", "1 2 3");
+    List<CloneGroup> result = detect(index, fileBlocks);
+    assertThat(result, sameInstance(Collections.EMPTY_LIST));
+  }
+
+  /**
+   * See SONAR-3060
+   */
+  @Test
+  public void huge() {
+    CloneIndex index = createIndex();
+    Block[] fileBlocks = new Block[5000];
+    for (int i = 0; i < 5000; i++) {
+      fileBlocks[i] = newBlock("x", new ByteArray("01"), i);
+    }
+    List<CloneGroup> result = detect(index, fileBlocks);
+
+    assertEquals(1, result.size());
+  }
+
+  /**
+   * Given:
+   * <pre>
+   * x: a 2 b 2 c 2 2 2
+   * </pre>
+   * Expected:
+   * <pre>
+   * x-x (2 2)
+   * x-x-x-x-x (2)
+   * <pre>
+   */
+  @Test
+  public void same_groups_as_suffix_tree_when_group_covered_in_same_file() {
+    CloneIndex index = createIndex();
+    Block[] fileBlocks = newBlocks("x", "a 2 b 2 c 2 2 2");
+    List<CloneGroup> result = detect(index, fileBlocks);
+
+    print(result);
+    assertEquals(2, result.size());
+
+    assertThat(result, hasCloneGroup(2,
+      newClonePart("x", 5, 2),
+      newClonePart("x", 6, 2)));
+
+    assertThat(result, hasCloneGroup(1,
+      newClonePart("x", 1, 1),
+      newClonePart("x", 3, 1),
+      newClonePart("x", 5, 1),
+      newClonePart("x", 6, 1),
+      newClonePart("x", 7, 1)));
+  }
+
+  /**
+   * Given:
+   * <pre>
+   * a: 1 2 3 4
+   * b: 4 3 2
+   * c: 4 3 1
+   * </pre>
+   * Expected:
+   * <pre>
+   * a-c (1)
+   * a-b (2)
+   * a-b-c (3)
+   * a-b-c (4)
+   * <pre>
+   */
+  @Test
+  public void only_groups_containing_origin_are_reported() {
+    CloneIndex index = createIndex(
+      newBlocks("b", "4 3 2"),
+      newBlocks("c", "4 3 1"));
+    Block[] fileBlocks = newBlocks("a", "1 2 3 4");
+    List<CloneGroup> result = detect(index, fileBlocks);
+
+    print(result);
+    assertEquals(4, result.size());
+
+    assertThat(result, hasCloneGroup(1,
+      newClonePart("a", 0, 1),
+      newClonePart("c", 2, 1)));
+
+    assertThat(result, hasCloneGroup(1,
+      newClonePart("a", 1, 1),
+      newClonePart("b", 2, 1)));
+
+    assertThat(result, hasCloneGroup(1,
+      newClonePart("a", 2, 1),
+      newClonePart("b", 1, 1),
+      newClonePart("c", 1, 1)));
+
+    assertThat(result, hasCloneGroup(1,
+      newClonePart("a", 3, 1),
+      newClonePart("b", 0, 1),
+      newClonePart("c", 0, 1)));
+  }
+
+  @Test
+  public void detect_same_groups_as_suffix_tree_on_random_files() {
+    Random random = new Random(42L);
+    for (int iteration = 0; iteration < 200; iteration++) {
+      CloneIndex index = createIndex(
+        randomBlocks(random, "b"),
+        randomBlocks(random, "c"),
+        randomBlocks(random, "d"));
+      List<Block> fileBlocks = Arrays.asList(randomBlocks(random, "a"));
+
+      List<CloneGroup> expected = SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks);
+      List<CloneGroup> actual = SuffixArrayCloneDetectionAlgorithm.detect(index, fileBlocks);
+
+      assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+      assertEquals(expected.size(), actual.size());
+    }
+  }
+
+  private static Block[] randomBlocks(Random random, String resourceId) {
+    int length = 1 + random.nextInt(20);
+    StringBuilder hashes = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      hashes.append(1 + random.nextInt(4)).append(' ');
+    }
+    return newBlocks(resourceId, hashes.toString());
+  }
+
+  @Override
+  protected List<CloneGroup> detect(CloneIndex index, Block[] fileBlocks) {
+    return SuffixArrayCloneDetectionAlgorithm.detect(index, Arrays.asList(fileBlocks));
+  }
+
+}
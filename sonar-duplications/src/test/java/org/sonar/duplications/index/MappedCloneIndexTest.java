@@ -0,0 +1,193 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.duplications.index.PackedMemoryCloneIndex.ResourceBlocks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MappedCloneIndexTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private File dir;
+  private MappedCloneIndex index;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = temp.newFolder();
+    // small buffer, so that blocks are spread over several runs
+    index = new MappedCloneIndex(dir, 8, 2);
+  }
+
+  @After
+  public void tearDown() {
+    index.close();
+  }
+
+  @Test
+  public void test() {
+    index.insert(newBlock("a", 1, 0));
+    index.insert(newBlock("a", 2, 1));
+    index.insert(newBlock("b", 1, 0));
+    index.insert(newBlock("c", 1, 0));
+    index.insert(newBlock("d", 1, 0));
+    index.insert(newBlock("e", 1, 0));
+    index.insert(newBlock("e", 2, 1));
+    index.insert(newBlock("e", 3, 2));
+
+    assertThat(index.noResources()).isEqualTo(5);
+    assertThat(index.getBySequenceHash(new ByteArray(1L))).hasSize(5);
+    assertThat(index.getBySequenceHash(new ByteArray(2L))).hasSize(2);
+    assertThat(index.getBySequenceHash(new ByteArray(3L))).hasSize(1);
+    assertThat(index.getBySequenceHash(new ByteArray(4L))).isEmpty();
+    assertThat(index.getByResourceId("a")).hasSize(2);
+    assertThat(index.getByResourceId("b")).hasSize(1);
+    assertThat(index.getByResourceId("e")).extracting("indexInFile").containsExactly(0, 1, 2);
+    assertThat(index.getByResourceId("does not exist")).isEmpty();
+  }
+
+  @Test
+  public void blocks_are_restored_from_disk() {
+    Block block = Block.builder()
+      .setResourceId("a")
+      .setBlockHash(new ByteArray(-5L))
+      .setIndexInFile(3)
+      .setLines(10, 20)
+      .setUnit(100, 200)
+      .build();
+    index.insert(block);
+
+    Collection<Block> blocks = index.getBySequenceHash(new ByteArray(-5L));
+
+    assertThat(blocks).containsExactly(block);
+    Block restored = blocks.iterator().next();
+    assertThat(restored.getResourceId()).isEqualTo("a");
+    assertThat(restored.getIndexInFile()).isEqualTo(3);
+    assertThat(restored.getStartLine()).isEqualTo(10);
+    assertThat(restored.getEndLine()).isEqualTo(20);
+    assertThat(restored.getStartUnit()).isEqualTo(100);
+    assertThat(restored.getEndUnit()).isEqualTo(200);
+    assertThat(index.getByResourceId("a").iterator().next().getBlockHash()).isEqualTo(new ByteArray(-5L));
+  }
+
+  @Test
+  public void should_construct_blocks_with_normalized_hash() {
+    index.insert(newBlock("a", 1, 0));
+    index.insert(newBlock("b", 1, 0));
+    index.insert(newBlock("c", 1, 0));
+    ByteArray requestedHash = new ByteArray(1L);
+    Collection<Block> blocks = index.getBySequenceHash(requestedHash);
+    assertThat(blocks).hasSize(3);
+    for (Block block : blocks) {
+      assertThat(block.getBlockHash()).isSameAs(requestedHash);
+    }
+  }
+
+  @Test
+  public void iterate() {
+    index.insert(newBlock("a", 1, 0));
+    index.insert(newBlock("c", 1, 0));
+    index.insert(newBlock("b", 1, 0));
+    index.insert(newBlock("c", 2, 1));
+    index.insert(newBlock("a", 2, 1));
+
+    Iterator<ResourceBlocks> it = index.iterator();
+    List<ResourceBlocks> resourcesBlocks = new ArrayList<>();
+    while (it.hasNext()) {
+      resourcesBlocks.add(it.next());
+    }
+
+    assertThat(resourcesBlocks).extracting(ResourceBlocks::resourceId).containsExactly("a", "c", "b");
+    assertThat(resourcesBlocks.get(0).blocks()).hasSize(2);
+    assertThat(resourcesBlocks.get(1).blocks()).hasSize(2);
+    assertThat(resourcesBlocks.get(2).blocks()).hasSize(1);
+  }
+
+  @Test
+  public void insert_after_query() {
+    index.insert(newBlock("a", 1, 0));
+    assertThat(index.getBySequenceHash(new ByteArray(1L))).hasSize(1);
+
+    index.insert(newBlock("b", 1, 0));
+    index.insert(newBlock("b", 2, 1));
+    index.insert(newBlock("c", 1, 0));
+
+    assertThat(index.getBySequenceHash(new ByteArray(1L))).extracting("resourceId").containsOnly("a", "b", "c");
+    assertThat(index.noResources()).isEqualTo(3);
+  }
+
+  @Test
+  public void empty_index() {
+    assertThat(index.getBySequenceHash(new ByteArray(1L))).isEmpty();
+    assertThat(index.getByResourceId("a")).isEmpty();
+    assertThat(index.iterator().hasNext()).isFalse();
+    assertThat(index.noResources()).isEqualTo(0);
+  }
+
+  @Test
+  public void close_deletes_files() {
+    index.insert(newBlock("a", 1, 0));
+    index.insert(newBlock("a", 2, 1));
+    index.insert(newBlock("b", 1, 0));
+    index.getBySequenceHash(new ByteArray(1L));
+    assertThat(dir.list()).isNotEmpty();
+
+    index.close();
+
+    assertThat(dir.list()).isEmpty();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void attempt_to_insert_hash_of_incorrect_size() {
+    CloneIndex index = new MappedCloneIndex(dir, 4, 1);
+    index.insert(newBlock("a", 1, 0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void attempt_to_find_hash_of_incorrect_size() {
+    CloneIndex index = new MappedCloneIndex(dir, 4, 1);
+    index.getBySequenceHash(new ByteArray(1L));
+  }
+
+  private static Block newBlock(String resourceId, long hash, int indexInFile) {
+    return Block.builder()
+      .setResourceId(resourceId)
+      .setBlockHash(new ByteArray(hash))
+      .setIndexInFile(indexInFile)
+      .setLines(1, 2)
+      .build();
+  }
+
+}
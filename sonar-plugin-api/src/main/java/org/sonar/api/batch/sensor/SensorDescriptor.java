@@ -79,4 +79,13 @@ public interface SensorDescriptor {
    */
   SensorDescriptor requireProperties(String... propertyKeys);
 
+  /**
+   * Declare that this {@link Sensor} does not share mutable state with other sensors and can be executed
+   * concurrently with other thread-safe sensors of the same module. Ordering declared with
+   * {@link org.sonar.api.batch.DependsUpon} and {@link org.sonar.api.batch.DependedUpon} is still respected.
+   * Default is to execute sensor alone.
+   * @since 6.2
+   */
+  SensorDescriptor threadSafe();
+
 }
@@ -41,9 +41,9 @@ import org.sonar.api.batch.postjob.PostJobContext;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.resources.Project;
-import org.sonar.api.utils.AnnotationUtils;
 import org.sonar.api.utils.dag.DirectAcyclicGraph;
 import org.sonar.core.platform.ComponentContainer;
+import org.sonar.core.platform.ExtensionAnnotationIndex;
 import org.sonar.scanner.postjob.PostJobOptimizer;
 import org.sonar.scanner.postjob.PostJobWrapper;
 import org.sonar.scanner.sensor.DefaultSensorContext;
@@ -85,7 +85,7 @@ public class BatchExtensionDictionnary {
     } else {
       extensionToEvaluate = extension;
     }
-    Phase phaseAnnotation = AnnotationUtils.getAnnotation(extensionToEvaluate, Phase.class);
+    Phase phaseAnnotation = ExtensionAnnotationIndex.getAnnotation(extensionToEvaluate, Phase.class);
     if (phaseAnnotation != null) {
       return phaseAnnotation.name();
     }
@@ -154,6 +154,26 @@ public class BatchExtensionDictionnary {
     return Collections2.filter(sortedList, Predicates.in(extensions));
   }
 
+  /**
+   * Whether {@code extension} must be executed after {@code other}, because of their phases or
+   * because of {@link DependsUpon}/{@link DependedUpon} declarations.
+   */
+  public boolean dependsUpon(Object extension, Object other) {
+    if (evaluatePhase(extension) != evaluatePhase(other)) {
+      return true;
+    }
+    List<Object> dependencies = getDependencies(extension);
+    if (dependencies.contains(other)) {
+      return true;
+    }
+    for (Object generated : getDependents(other)) {
+      if (dependencies.contains(generated)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Extension dependencies
    */
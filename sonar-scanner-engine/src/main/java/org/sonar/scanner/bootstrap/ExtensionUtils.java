@@ -22,7 +22,7 @@ package org.sonar.scanner.bootstrap;
 import org.sonar.api.batch.BatchSide;
 import org.sonar.api.batch.InstantiationStrategy;
 import org.sonar.api.batch.ScannerSide;
-import org.sonar.api.utils.AnnotationUtils;
+import org.sonar.core.platform.ExtensionAnnotationIndex;
 
 public class ExtensionUtils {
 
@@ -31,7 +31,7 @@ public class ExtensionUtils {
   }
 
   public static boolean isInstantiationStrategy(Object extension, String strategy) {
-    InstantiationStrategy annotation = AnnotationUtils.getAnnotation(extension, InstantiationStrategy.class);
+    InstantiationStrategy annotation = ExtensionAnnotationIndex.getAnnotation(extension, InstantiationStrategy.class);
     if (annotation != null) {
       return strategy.equals(annotation.value());
     }
@@ -39,8 +39,8 @@ public class ExtensionUtils {
   }
   
   public static boolean isScannerSide(Object extension) {
-    return AnnotationUtils.getAnnotation(extension, BatchSide.class) != null ||
-      AnnotationUtils.getAnnotation(extension, ScannerSide.class) != null;
+    return ExtensionAnnotationIndex.isAnnotatedWith(extension, BatchSide.class) ||
+      ExtensionAnnotationIndex.isAnnotatedWith(extension, ScannerSide.class);
   }
 
   public static boolean isType(Object extension, Class<?> extensionClass) {
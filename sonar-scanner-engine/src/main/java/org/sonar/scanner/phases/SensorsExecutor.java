@@ -20,41 +20,157 @@
 package org.sonar.scanner.phases;
 
 import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
+import org.sonar.api.config.Settings;
 import org.sonar.api.resources.Project;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.scanner.bootstrap.BatchExtensionDictionnary;
 import org.sonar.scanner.events.EventBus;
-import java.util.Collection;
+import org.sonar.scanner.sensor.SensorWrapper;
 
+/**
+ * Executes sensors of a module in dependency order. Consecutive sensors that declared themselves
+ * thread-safe (see {@link org.sonar.api.batch.sensor.SensorDescriptor#threadSafe()}) and that
+ * do not depend upon each other are executed concurrently.
+ */
 @ScannerSide
 public class SensorsExecutor {
 
-  private EventBus eventBus;
-  private Project module;
-  private BatchExtensionDictionnary selector;
+  private static final Logger LOG = Loggers.get(SensorsExecutor.class);
+
+  /**
+   * Maximum number of sensors executed concurrently. Value 1 disables parallel execution.
+   * Default is the number of available processors.
+   */
+  static final String THREADS_PROPERTY = "sonar.scanner.sensorThreads";
 
-  public SensorsExecutor(BatchExtensionDictionnary selector, Project project, EventBus eventBus) {
+  private final EventBus eventBus;
+  private final Project module;
+  private final BatchExtensionDictionnary selector;
+  private final Settings settings;
+
+  public SensorsExecutor(BatchExtensionDictionnary selector, Project project, EventBus eventBus, Settings settings) {
     this.selector = selector;
     this.eventBus = eventBus;
     this.module = project;
+    this.settings = settings;
   }
 
   public void execute(SensorContext context) {
     Collection<Sensor> sensors = selector.select(Sensor.class, module, true, null);
     eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(sensors), true));
 
-    for (Sensor sensor : sensors) {
-      executeSensor(context, sensor);
+    int threads = getThreads();
+    if (threads > 1) {
+      executeConcurrently(context, sensors, threads);
+    } else {
+      for (Sensor sensor : sensors) {
+        executeSensor(context, sensor);
+      }
     }
 
     eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(sensors), false));
   }
 
+  private int getThreads() {
+    if (settings.hasKey(THREADS_PROPERTY)) {
+      return settings.getInt(THREADS_PROPERTY);
+    }
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  private void executeConcurrently(SensorContext context, Collection<Sensor> sensors, int threads) {
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    try {
+      for (List<Sensor> group : groupIndependentSensors(sensors)) {
+        if (group.size() == 1) {
+          executeSensor(context, group.get(0));
+        } else {
+          executeGroup(executorService, context, group);
+        }
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  /**
+   * Splits the sorted sensors into consecutive groups. A group contains either a single sensor, or
+   * several thread-safe sensors which do not depend upon each other.
+   */
+  List<List<Sensor>> groupIndependentSensors(Collection<Sensor> sortedSensors) {
+    List<List<Sensor>> groups = new ArrayList<>();
+    List<Sensor> current = new ArrayList<>();
+    for (Sensor sensor : sortedSensors) {
+      if (!current.isEmpty() && !canJoin(current, sensor)) {
+        groups.add(current);
+        current = new ArrayList<>();
+      }
+      current.add(sensor);
+    }
+    if (!current.isEmpty()) {
+      groups.add(current);
+    }
+    return groups;
+  }
+
+  private boolean canJoin(List<Sensor> group, Sensor sensor) {
+    if (!isThreadSafe(sensor) || !isThreadSafe(group.get(0))) {
+      return false;
+    }
+    for (Sensor member : group) {
+      if (selector.dependsUpon(sensor, member)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isThreadSafe(Sensor sensor) {
+    return sensor instanceof SensorWrapper && ((SensorWrapper) sensor).isThreadSafe();
+  }
+
+  private void executeGroup(ExecutorService executorService, SensorContext context, List<Sensor> group) {
+    LOG.debug("Execute sensors concurrently: {}", group);
+    List<Future<?>> futures = new ArrayList<>();
+    for (Sensor sensor : group) {
+      futures.add(executorService.submit(() -> executeSensor(context, sensor)));
+    }
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        futures.get(i).get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while executing sensor " + group.get(i), e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new IllegalStateException("Fail to execute sensor " + group.get(i), e.getCause());
+      }
+    }
+  }
+
   private void executeSensor(SensorContext context, Sensor sensor) {
-    eventBus.fireEvent(new SensorExecutionEvent(sensor, true));
+    fireEvent(new SensorExecutionEvent(sensor, true));
     sensor.analyse(module, context);
-    eventBus.fireEvent(new SensorExecutionEvent(sensor, false));
+    fireEvent(new SensorExecutionEvent(sensor, false));
+  }
+
+  /**
+   * Event handlers are not expected to be thread-safe
+   */
+  private synchronized void fireEvent(SensorExecutionEvent event) {
+    eventBus.fireEvent(event);
   }
 }
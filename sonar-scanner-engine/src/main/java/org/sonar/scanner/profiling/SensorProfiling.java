@@ -0,0 +1,82 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.profiling;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resources consumed by the execution of a sensor on a module.
+ */
+public class SensorProfiling {
+
+  private final String sensorName;
+  private final Map<String, Long> nanosByFile = new HashMap<>();
+  private long wallTimeMs;
+  private long cpuTimeMs = -1L;
+  private long allocatedBytes = -1L;
+
+  public SensorProfiling(String sensorName) {
+    this.sensorName = sensorName;
+  }
+
+  public String sensorName() {
+    return sensorName;
+  }
+
+  public long wallTimeMs() {
+    return wallTimeMs;
+  }
+
+  /**
+   * @return -1 if thread CPU time measurement is not supported by the JVM
+   */
+  public long cpuTimeMs() {
+    return cpuTimeMs;
+  }
+
+  /**
+   * @return -1 if thread allocation measurement is not supported by the JVM
+   */
+  public long allocatedBytes() {
+    return allocatedBytes;
+  }
+
+  void setConsumption(long wallTimeMs, long cpuTimeMs, long allocatedBytes) {
+    this.wallTimeMs = wallTimeMs;
+    this.cpuTimeMs = cpuTimeMs;
+    this.allocatedBytes = allocatedBytes;
+  }
+
+  void addFileTime(String fileKey, long nanos) {
+    nanosByFile.merge(fileKey, nanos, Long::sum);
+  }
+
+  /**
+   * Files on which the sensor spent the most time, in descending order of time.
+   */
+  public List<Map.Entry<String, Long>> slowestFiles(int limit) {
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(nanosByFile.entrySet());
+    entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+    return entries.subList(0, Math.min(limit, entries.size()));
+  }
+}
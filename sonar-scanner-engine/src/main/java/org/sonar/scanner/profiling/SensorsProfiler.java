@@ -0,0 +1,225 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.profiling;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.events.ProjectAnalysisHandler;
+import org.sonar.api.batch.events.SensorExecutionHandler;
+import org.sonar.api.config.Settings;
+import org.sonar.api.resources.Project;
+import org.sonar.api.utils.TimeUtils;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.scanner.bootstrap.GlobalProperties;
+import org.sonar.scanner.util.BatchUtils;
+
+/**
+ * Opt-in profiling of sensors: wall time, CPU time and allocated bytes of each sensor, and files on which
+ * each sensor spent the most time. Time spent by a sensor between two files for which it stores data
+ * (measures, issues, highlighting, ...) is attributed to the second file.
+ * Results are logged and written as JSON in the "profiling" directory of the working directory.
+ */
+public class SensorsProfiler implements ProjectAnalysisHandler, SensorExecutionHandler {
+
+  public static final String ENABLED_PROPERTY = "sonar.scanner.sensorProfiling";
+  public static final String TOP_FILES_PROPERTY = "sonar.scanner.sensorProfiling.topFiles";
+  private static final int DEFAULT_TOP_FILES = 10;
+
+  private static final Logger LOG = Loggers.get(SensorsProfiler.class);
+
+  private final boolean enabled;
+  private final int topFiles;
+  private final File out;
+  private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+  private final ThreadLocal<RunningSensor> runningSensor = new ThreadLocal<>();
+  private final List<SensorProfiling> moduleProfilings = new ArrayList<>();
+
+  public SensorsProfiler(Settings settings, GlobalProperties bootstrapProps) {
+    this.enabled = settings.getBoolean(ENABLED_PROPERTY);
+    this.topFiles = settings.hasKey(TOP_FILES_PROPERTY) ? settings.getInt(TOP_FILES_PROPERTY) : DEFAULT_TOP_FILES;
+    String workingDirPath = StringUtils.defaultIfBlank(bootstrapProps.property(CoreProperties.WORKING_DIRECTORY), CoreProperties.WORKING_DIRECTORY_DEFAULT_VALUE);
+    this.out = new File(new File(workingDirPath).getAbsoluteFile(), "profiling");
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public void onSensorExecution(SensorExecutionEvent event) {
+    if (!enabled) {
+      return;
+    }
+    if (event.isStart()) {
+      runningSensor.set(new RunningSensor(new SensorProfiling(BatchUtils.describe(event.getSensor()))));
+    } else {
+      RunningSensor running = runningSensor.get();
+      runningSensor.remove();
+      if (running != null) {
+        running.stop();
+        synchronized (moduleProfilings) {
+          moduleProfilings.add(running.profiling);
+        }
+      }
+    }
+  }
+
+  /**
+   * Called when the sensor executed by the current thread stores data on the given file.
+   */
+  public void onFile(InputFile inputFile) {
+    if (!enabled) {
+      return;
+    }
+    RunningSensor running = runningSensor.get();
+    if (running != null) {
+      running.onFile(inputFile.key());
+    }
+  }
+
+  @Override
+  public void onProjectAnalysis(ProjectAnalysisEvent event) {
+    if (!enabled || event.isStart()) {
+      return;
+    }
+    List<SensorProfiling> profilings;
+    synchronized (moduleProfilings) {
+      profilings = new ArrayList<>(moduleProfilings);
+      moduleProfilings.clear();
+    }
+    Project module = event.getProject();
+    log(module, profilings);
+    dumpToFile(module, profilings);
+  }
+
+  private void log(Project module, List<SensorProfiling> profilings) {
+    LOG.info("Sensors profiling of module {}:", module.getName());
+    for (SensorProfiling profiling : profilings) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("  ").append(profiling.sensorName()).append(": ").append(TimeUtils.formatDuration(profiling.wallTimeMs()));
+      if (profiling.cpuTimeMs() >= 0) {
+        sb.append(", CPU ").append(TimeUtils.formatDuration(profiling.cpuTimeMs()));
+      }
+      if (profiling.allocatedBytes() >= 0) {
+        sb.append(", allocated ").append(FileUtils.byteCountToDisplaySize(profiling.allocatedBytes()));
+      }
+      List<Map.Entry<String, Long>> slowest = profiling.slowestFiles(1);
+      if (!slowest.isEmpty()) {
+        sb.append(", slowest file ").append(slowest.get(0).getKey())
+          .append(" (").append(TimeUtils.formatDuration(TimeUnit.NANOSECONDS.toMillis(slowest.get(0).getValue()))).append(")");
+      }
+      LOG.info(sb.toString());
+    }
+  }
+
+  private void dumpToFile(Project module, List<SensorProfiling> profilings) {
+    File file = new File(out, BatchUtils.cleanKeyForFilename(module.getKey() + "-sensors-profiler.json"));
+    try {
+      Files.createDirectories(out.toPath());
+      try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+        writeJson(JsonWriter.of(writer), module, profilings);
+      }
+      LOG.info("Sensors profiling data stored in {}", file.getAbsolutePath());
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to store sensors profiler output: " + file, e);
+    }
+  }
+
+  private void writeJson(JsonWriter json, Project module, List<SensorProfiling> profilings) {
+    json.beginObject()
+      .prop("module", module.getKey())
+      .name("sensors").beginArray();
+    for (SensorProfiling profiling : profilings) {
+      json.beginObject()
+        .prop("name", profiling.sensorName())
+        .prop("wallTimeMs", profiling.wallTimeMs())
+        .prop("cpuTimeMs", profiling.cpuTimeMs())
+        .prop("allocatedBytes", profiling.allocatedBytes())
+        .name("slowestFiles").beginArray();
+      for (Map.Entry<String, Long> file : profiling.slowestFiles(topFiles)) {
+        json.beginObject()
+          .prop("file", file.getKey())
+          .prop("timeMs", TimeUnit.NANOSECONDS.toMillis(file.getValue()))
+          .endObject();
+      }
+      json.endArray().endObject();
+    }
+    json.endArray().endObject().close();
+  }
+
+  private long currentThreadCpuTimeNanos() {
+    if (threadMXBean.isCurrentThreadCpuTimeSupported()) {
+      return threadMXBean.getCurrentThreadCpuTime();
+    }
+    return -1L;
+  }
+
+  private long currentThreadAllocatedBytes() {
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1L;
+  }
+
+  private class RunningSensor {
+    private final SensorProfiling profiling;
+    private final long startNanos;
+    private final long startCpuNanos;
+    private final long startAllocatedBytes;
+    private long lastMarkNanos;
+
+    RunningSensor(SensorProfiling profiling) {
+      this.profiling = profiling;
+      this.startNanos = System.nanoTime();
+      this.startCpuNanos = currentThreadCpuTimeNanos();
+      this.startAllocatedBytes = currentThreadAllocatedBytes();
+      this.lastMarkNanos = startNanos;
+    }
+
+    void onFile(String fileKey) {
+      long now = System.nanoTime();
+      profiling.addFileTime(fileKey, now - lastMarkNanos);
+      lastMarkNanos = now;
+    }
+
+    void stop() {
+      long wallTimeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+      long cpuTimeMs = startCpuNanos < 0 ? -1L : TimeUnit.NANOSECONDS.toMillis(currentThreadCpuTimeNanos() - startCpuNanos);
+      long allocatedBytes = startAllocatedBytes < 0 ? -1L : (currentThreadAllocatedBytes() - startAllocatedBytes);
+      profiling.setConsumption(wallTimeMs, cpuTimeMs, allocatedBytes);
+    }
+  }
+}
@@ -61,6 +61,7 @@ public class ReportPublisher implements Startable {
 
   public static final String KEEP_REPORT_PROP_KEY = "sonar.batch.keepReport";
   public static final String VERBOSE_KEY = "sonar.verbose";
+  public static final String PRIORITY_PROP_KEY = "sonar.ce.priority";
   public static final String METADATA_DUMP_FILENAME = "report-task.txt";
 
   private final Settings settings;
@@ -169,6 +170,7 @@ public class ReportPublisher implements Startable {
       .setParam("projectKey", projectDefinition.getKey())
       .setParam("projectName", projectDefinition.getOriginalName())
       .setParam("projectBranch", projectDefinition.getBranch())
+      .setParam("priority", settings.getString(PRIORITY_PROP_KEY))
       .setPart("report", filePart);
     WsResponse response = wsClient.call(post).failIfNotSuccessful();
     try (InputStream protobuf = response.contentStream()) {
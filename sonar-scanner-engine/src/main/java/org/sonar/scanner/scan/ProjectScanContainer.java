@@ -58,6 +58,7 @@ import org.sonar.scanner.issue.tracking.ServerLineHashesLoader;
 import org.sonar.scanner.mediumtest.ScanTaskObservers;
 import org.sonar.scanner.phases.PhasesTimeProfiler;
 import org.sonar.scanner.profiling.PhasesSumUpTimeProfiler;
+import org.sonar.scanner.profiling.SensorsProfiler;
 import org.sonar.scanner.report.ActiveRulesPublisher;
 import org.sonar.scanner.report.AnalysisContextReportPublisher;
 import org.sonar.scanner.report.ComponentsPublisher;
@@ -132,6 +133,7 @@ public class ProjectScanContainer extends ComponentContainer {
       ProjectLock.class,
       EventBus.class,
       PhasesTimeProfiler.class,
+      SensorsProfiler.class,
       ResourceTypes.class,
       DefaultProjectTree.class,
       ProjectReactorValidator.class,
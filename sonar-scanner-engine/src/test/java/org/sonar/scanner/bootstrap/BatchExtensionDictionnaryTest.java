@@ -304,6 +304,24 @@ public class BatchExtensionDictionnaryTest {
     assertThat(extensions.get(2)).isEqualTo(post);
   }
 
+  @Test
+  public void dependsUpon() {
+    BatchExtension a = new GeneratesSomething("foo");
+    BatchExtension b = new MethodDependentOf("foo");
+    BatchExtension c = new MethodDependentOf(a);
+    BatchExtension d = new GeneratesSomething("bar");
+    BatchExtension post = new PostSensor();
+
+    BatchExtensionDictionnary selector = newSelector(a, b, c, d, post);
+
+    assertThat(selector.dependsUpon(b, a)).isTrue();
+    assertThat(selector.dependsUpon(c, a)).isTrue();
+    assertThat(selector.dependsUpon(post, a)).isTrue();
+    assertThat(selector.dependsUpon(a, b)).isFalse();
+    assertThat(selector.dependsUpon(d, a)).isFalse();
+    assertThat(selector.dependsUpon(b, d)).isFalse();
+  }
+
   @Test
   public void buildStatusCheckersAreExecutedAfterOtherPostJobs() {
     BuildBreaker checker = new BuildBreaker() {
@@ -0,0 +1,145 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.phases;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.batch.Sensor;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.resources.Project;
+import org.sonar.scanner.bootstrap.BatchExtensionDictionnary;
+import org.sonar.scanner.events.EventBus;
+import org.sonar.scanner.sensor.SensorOptimizer;
+import org.sonar.scanner.sensor.SensorWrapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SensorsExecutorTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  Project project = new Project("project");
+  BatchExtensionDictionnary selector = mock(BatchExtensionDictionnary.class);
+  SensorContext context = mock(SensorContext.class);
+  Settings settings = new MapSettings();
+
+  SensorsExecutor underTest = new SensorsExecutor(selector, project, mock(EventBus.class), settings);
+
+  @Test
+  public void execute_sensors_sequentially_when_parallelism_is_disabled() {
+    settings.setProperty(SensorsExecutor.THREADS_PROPERTY, 1);
+    Sensor sensor1 = mock(Sensor.class);
+    Sensor sensor2 = mock(Sensor.class);
+    when(selector.select(Sensor.class, project, true, null)).thenReturn(Arrays.asList(sensor1, sensor2));
+
+    underTest.execute(context);
+
+    verify(sensor1).analyse(project, context);
+    verify(sensor2).analyse(project, context);
+  }
+
+  @Test
+  public void only_group_independent_thread_safe_sensors() {
+    Sensor deprecated = mock(Sensor.class);
+    SensorWrapper safe1 = newSensor(true, () -> {
+    });
+    SensorWrapper safe2 = newSensor(true, () -> {
+    });
+    SensorWrapper safe3 = newSensor(true, () -> {
+    });
+    SensorWrapper notSafe = newSensor(false, () -> {
+    });
+    when(selector.dependsUpon(safe3, safe1)).thenReturn(true);
+
+    List<List<Sensor>> groups = underTest.groupIndependentSensors(Arrays.asList(deprecated, safe1, safe2, safe3, notSafe));
+
+    assertThat(groups).containsExactly(
+      Arrays.asList(deprecated),
+      Arrays.asList(safe1, safe2),
+      Arrays.asList(safe3),
+      Arrays.asList(notSafe));
+  }
+
+  @Test
+  public void execute_independent_thread_safe_sensors_concurrently() {
+    settings.setProperty(SensorsExecutor.THREADS_PROPERTY, 2);
+    CountDownLatch latch = new CountDownLatch(2);
+    Runnable awaitOther = () -> {
+      latch.countDown();
+      try {
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    };
+    SensorWrapper sensor1 = newSensor(true, awaitOther);
+    SensorWrapper sensor2 = newSensor(true, awaitOther);
+    when(selector.select(Sensor.class, project, true, null)).thenReturn(Arrays.asList(sensor1, sensor2));
+
+    underTest.execute(context);
+
+    assertThat(latch.getCount()).isZero();
+  }
+
+  @Test
+  public void propagate_failure_of_concurrent_sensor() {
+    settings.setProperty(SensorsExecutor.THREADS_PROPERTY, 2);
+    SensorWrapper sensor1 = newSensor(true, () -> {
+    });
+    SensorWrapper sensor2 = newSensor(true, () -> {
+      throw new IllegalArgumentException("failure");
+    });
+    when(selector.select(Sensor.class, project, true, null)).thenReturn(Arrays.asList(sensor1, sensor2));
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("failure");
+
+    underTest.execute(context);
+  }
+
+  private static SensorWrapper newSensor(boolean threadSafe, Runnable execution) {
+    org.sonar.api.batch.sensor.Sensor sensor = new org.sonar.api.batch.sensor.Sensor() {
+      @Override
+      public void describe(SensorDescriptor descriptor) {
+        if (threadSafe) {
+          descriptor.threadSafe();
+        }
+      }
+
+      @Override
+      public void execute(org.sonar.api.batch.sensor.SensorContext context) {
+        execution.run();
+      }
+    };
+    return new SensorWrapper(sensor, mock(org.sonar.api.batch.sensor.SensorContext.class), mock(SensorOptimizer.class));
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.profiling;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.batch.Sensor;
+import org.sonar.api.batch.events.ProjectAnalysisHandler.ProjectAnalysisEvent;
+import org.sonar.api.batch.events.SensorExecutionHandler.SensorExecutionEvent;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.resources.Project;
+import org.sonar.scanner.bootstrap.GlobalProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SensorsProfilerTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private File workDir;
+  private Settings settings = new MapSettings();
+  private Project module = new Project("foo:bar");
+  private Sensor sensor = mock(Sensor.class);
+
+  @Before
+  public void setUp() throws Exception {
+    workDir = temp.newFolder();
+    when(sensor.toString()).thenReturn("Xoo Sensor");
+  }
+
+  @Test
+  public void write_sensor_and_slowest_files_as_json() throws Exception {
+    settings.setProperty(SensorsProfiler.ENABLED_PROPERTY, true);
+    SensorsProfiler underTest = newProfiler();
+    InputFile file1 = new DefaultInputFile("foo:bar", "src/Foo.xoo");
+    InputFile file2 = new DefaultInputFile("foo:bar", "src/Bar.xoo");
+
+    underTest.onSensorExecution(sensorEvent(true));
+    underTest.onFile(file1);
+    Thread.sleep(20);
+    underTest.onFile(file2);
+    underTest.onSensorExecution(sensorEvent(false));
+    underTest.onProjectAnalysis(projectEvent(false));
+
+    File json = new File(workDir, "profiling/foo_bar-sensors-profiler.json");
+    assertThat(json).exists();
+    String content = FileUtils.readFileToString(json, StandardCharsets.UTF_8);
+    assertThat(content)
+      .contains("\"module\":\"foo:bar\"")
+      .contains("\"name\":\"Xoo Sensor\"")
+      .contains("\"wallTimeMs\":")
+      .contains("\"cpuTimeMs\":")
+      .contains("\"allocatedBytes\":");
+    assertThat(content.indexOf("foo:bar:src/Bar.xoo")).isLessThan(content.indexOf("foo:bar:src/Foo.xoo"));
+  }
+
+  @Test
+  public void limit_number_of_slowest_files() {
+    SensorProfiling profiling = new SensorProfiling("Xoo Sensor");
+    profiling.addFileTime("a", 10L);
+    profiling.addFileTime("b", 30L);
+    profiling.addFileTime("c", 20L);
+    profiling.addFileTime("a", 25L);
+
+    assertThat(profiling.slowestFiles(2)).extracting(Map.Entry::getKey).containsExactly("a", "b");
+    assertThat(profiling.slowestFiles(10)).hasSize(3);
+  }
+
+  @Test
+  public void do_nothing_when_disabled() {
+    SensorsProfiler underTest = newProfiler();
+
+    underTest.onSensorExecution(sensorEvent(true));
+    underTest.onFile(new DefaultInputFile("foo:bar", "src/Foo.xoo"));
+    underTest.onSensorExecution(sensorEvent(false));
+    underTest.onProjectAnalysis(projectEvent(false));
+
+    assertThat(underTest.isEnabled()).isFalse();
+    assertThat(new File(workDir, "profiling")).doesNotExist();
+  }
+
+  private SensorsProfiler newProfiler() {
+    Map<String, String> props = new HashMap<>();
+    props.put(CoreProperties.WORKING_DIRECTORY, workDir.getAbsolutePath());
+    return new SensorsProfiler(settings, new GlobalProperties(props));
+  }
+
+  private SensorExecutionEvent sensorEvent(boolean start) {
+    SensorExecutionEvent event = mock(SensorExecutionEvent.class);
+    when(event.isStart()).thenReturn(start);
+    when(event.isEnd()).thenReturn(!start);
+    when(event.getSensor()).thenReturn(sensor);
+    return event;
+  }
+
+  private ProjectAnalysisEvent projectEvent(boolean start) {
+    ProjectAnalysisEvent event = mock(ProjectAnalysisEvent.class);
+    when(event.isStart()).thenReturn(start);
+    when(event.isEnd()).thenReturn(!start);
+    when(event.getProject()).thenReturn(module);
+    return event;
+  }
+}
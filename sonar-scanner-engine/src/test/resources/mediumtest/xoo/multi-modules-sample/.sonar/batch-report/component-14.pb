@@ -0,0 +1 @@
+,src/main/xoo/com/sonar/it/samples/modules/b2 :
\ No newline at end of file
@@ -0,0 +1 @@
+module_aModule A :J1.0-SNAPSHOTR8com.sonarsource.it.samples:multi-modules-sample:module_a
\ No newline at end of file
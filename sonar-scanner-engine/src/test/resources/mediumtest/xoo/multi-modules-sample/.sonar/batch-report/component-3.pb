@@ -0,0 +1 @@
+	module_a1Sub-module A1 :J1.0-SNAPSHOTRBcom.sonarsource.it.samples:multi-modules-sample:module_a:module_a1
\ No newline at end of file
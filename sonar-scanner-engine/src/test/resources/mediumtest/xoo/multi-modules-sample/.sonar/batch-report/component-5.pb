@@ -0,0 +1 @@
+module_bModule B :J1.0-SNAPSHOTR8com.sonarsource.it.samples:multi-modules-sample:module_b
\ No newline at end of file
@@ -0,0 +1 @@
+	module_b2Sub-module B2 :J1.0-SNAPSHOTRBcom.sonarsource.it.samples:multi-modules-sample:module_b:module_b2
\ No newline at end of file
@@ -0,0 +1 @@
+	8src/main/xoo/com/sonar/it/samples/modules/a1/HelloA1.xoo 2xooX
\ No newline at end of file
@@ -0,0 +1,2 @@
+
+lines
\ No newline at end of file
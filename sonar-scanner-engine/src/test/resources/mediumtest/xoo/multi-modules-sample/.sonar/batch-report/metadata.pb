@@ -0,0 +1,3 @@
+͙4/com.sonarsource.it.samples:multi-modules-sample 2)
+xoo"
+	Sonar Way	Sonar Wayxoo #
\ No newline at end of file
@@ -0,0 +1 @@
+ :Rsample-generic-coverage
\ No newline at end of file
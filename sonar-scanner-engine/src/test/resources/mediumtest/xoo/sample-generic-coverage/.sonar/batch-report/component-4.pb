@@ -0,0 +1 @@
+ xources/hello/WithConditions.xoo 2xooX
\ No newline at end of file
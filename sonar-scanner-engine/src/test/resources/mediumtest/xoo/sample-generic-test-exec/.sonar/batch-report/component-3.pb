@@ -0,0 +1 @@
+testx/ClassOneTest.xoo (2xooX
\ No newline at end of file
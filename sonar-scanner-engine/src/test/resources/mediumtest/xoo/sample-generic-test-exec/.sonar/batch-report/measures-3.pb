@@ -0,0 +1,6 @@
+
+skipped_tests
+test_errors
+test_execution_time"
+test_failures
+tests
\ No newline at end of file
@@ -0,0 +1,3 @@
+4sample 2)
+xoo"
+	Sonar Way	Sonar Wayxoo #
\ No newline at end of file
@@ -0,0 +1,7 @@
+
+test1"
+test2"other*short message
+test3d"
+stacktrace*short
+test4"
+stacktrace*short
\ No newline at end of file
@@ -72,6 +72,24 @@ public class DuplicationTest extends PerfTestCase {
     assertThat(file.getMeasureValue("duplicated_lines")).isGreaterThan(50000.0);
   }
 
+  /**
+   * Same as {@link #hugeJavaFile()}, with the detector based on suffix array instead of suffix tree
+   */
+  @Test
+  public void hugeJavaFileWithSuffixArrayDetector() {
+    MavenBuild build = MavenBuild.create(FileLocation.of("projects/huge-file/pom.xml").getFile())
+      .setEnvironmentVariable("MAVEN_OPTS", "-Xmx1024m")
+      .setProperty("sonar.sourceEncoding", "UTF-8")
+      .setProperty("sonar.cpd.detector", "suffixArray")
+      .setCleanSonarGoals();
+    long start = System.currentTimeMillis();
+    orchestrator.executeBuild(build);
+    long duration = System.currentTimeMillis() - start;
+    Resource file = getResource("com.sonarsource.it.samples:huge-file:src/main/java/huge/HugeFile.java");
+    assertThat(file.getMeasureValue("duplicated_lines")).isGreaterThan(50000.0);
+    System.out.printf("Test %s : executed in %d ms\n", testName.getMethodName(), duration);
+  }
+
   private Resource getResource(String key) {
     return orchestrator.getServer().getWsClient()
       .find(ResourceQuery.createForMetrics(key, "duplicated_lines", "duplicated_blocks", "duplicated_files", "duplicated_lines_density", "useless-duplicated-lines"));